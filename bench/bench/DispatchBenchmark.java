@@ -0,0 +1,56 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import util.DispatchRegistry;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+// Per-call reflection (the old ReflectionUtil pattern) vs. a cached Method vs. DispatchRegistry
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+    private static long counter = 0;
+
+    private Method cachedMethod;
+    private MethodHandle cachedHandle;
+
+    public static void target() {
+        counter++;
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        cachedMethod = DispatchBenchmark.class.getDeclaredMethod("target");
+        cachedHandle = DispatchRegistry.staticMethod(DispatchBenchmark.class, "target");
+    }
+
+    @Benchmark
+    public void reflectiveLookupPerCall() throws Exception {
+        Class<?> cls = Class.forName("bench.DispatchBenchmark");
+        Method method = cls.getDeclaredMethod("target");
+        method.setAccessible(true);
+        method.invoke(null);
+    }
+
+    @Benchmark
+    public void cachedMethodInvoke() throws Exception {
+        cachedMethod.invoke(null);
+    }
+
+    @Benchmark
+    public void registryLookupAndInvoke() throws Throwable {
+        DispatchRegistry.staticMethod("bench.DispatchBenchmark", "target").invokeExact();
+    }
+
+    @Benchmark
+    public void heldMethodHandle() throws Throwable {
+        cachedHandle.invokeExact();
+    }
+}
@@ -0,0 +1,44 @@
+package bench;
+
+import models.Transaction;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import util.FileUtil;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// FileUtil.readTransactions / writeTransactions over ledgers of increasing size
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class FileUtilBenchmark {
+
+    private static final String LEDGER = "data/bench-ledger.txt";
+    private static final String OUTPUT = "data/bench-ledger-out.txt";
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    private List<Transaction> loaded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        LedgerFixtures.writeLedger(LEDGER, rows);
+        loaded = FileUtil.readTransactions(LEDGER);
+    }
+
+    @Benchmark
+    public void readTransactions(Blackhole blackhole) {
+        blackhole.consume(FileUtil.readTransactions(LEDGER));
+    }
+
+    @Benchmark
+    public void writeTransactions() {
+        FileUtil.writeTransactions(OUTPUT, loaded);
+    }
+}
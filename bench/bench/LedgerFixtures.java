@@ -0,0 +1,85 @@
+// Shared data generators for the JMH benchmarks.
+// Benchmarks run with the working directory set to build/bench-work (see the "bench" target in build.xml),
+// so the services' relative "data/..." paths never touch the real data folder.
+
+
+package bench;
+
+import util.StorageConfig;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+public class LedgerFixtures {
+
+    public static final String[] CATEGORIES = {
+            "Salary", "Bonus", "Interest", "Food", "Rent", "Transport", "Utilities", "Health",
+            "Insurance", "Education", "Clothing", "Entertainment", "Travel", "Gifts", "Groceries",
+            "Fuel", "Phone", "Internet", "Repairs", "Charity"
+    };
+    public static final String[] ACCOUNTS = {"Cash", "Bank", "Savings", "CreditCard", "Wallet"};
+
+    // Write 'rows' deterministic transactions (2015-01-01 .. ~2025) in the CSV ledger format
+    public static void writeLedger(String path, int rows) throws IOException {
+        Path file = Path.of(path);
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Random random = new Random(42);
+        long firstDay = java.time.LocalDate.of(2015, 1, 1).toEpochDay();
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < rows; i++) {
+                int category = random.nextInt(CATEGORIES.length);
+                writer.write(java.time.LocalDate.ofEpochDay(firstDay + random.nextInt(3650)).toString());
+                writer.write(category < 3 ? ",income," : ",expense,");
+                writer.write(CATEGORIES[category]);
+                writer.write(',');
+                writer.write(Long.toString(1 + random.nextInt(500_000)));
+                writer.write('.');
+                writer.write(Integer.toString(10 + random.nextInt(90)));
+                writer.write(',');
+                writer.write(ACCOUNTS[random.nextInt(ACCOUNTS.length)]);
+                writer.write('\n');
+            }
+        }
+    }
+
+    // Write 'count' users named user0 .. user{count-1} with password "pw" + index
+    public static void writeUsers(String path, int count) throws IOException {
+        Path file = Path.of(path);
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < count; i++) {
+                writer.write("user" + i + ",pw" + i + "\n");
+            }
+        }
+    }
+
+    // Remove every ledger side file StorageConfig knows (journal and its pending successor, totals, rollups,
+    // snapshot and its staged copy) so every trial starts from the base ledger alone
+    public static void clearSideFiles() throws IOException {
+        String dataDir = StorageConfig.DATA_DIR;
+        for (String path : new String[] {
+                StorageConfig.journalPath(dataDir), StorageConfig.journalPath(dataDir) + ".next",
+                StorageConfig.aggregatePath(dataDir), StorageConfig.rollupPath(dataDir),
+                StorageConfig.snapshotPath(dataDir), StorageConfig.snapshotPath(dataDir) + ".tmp"}) {
+            Files.deleteIfExists(Path.of(path));
+        }
+    }
+
+    // Swallow console output of menu-style methods such as ReportService.showReport
+    public static PrintStream silence() {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        return original;
+    }
+}
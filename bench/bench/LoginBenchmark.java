@@ -0,0 +1,40 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import services.LoginService;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// LoginService.loginWithCredentials against user files of increasing size (last user = worst case for a scan)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class LoginBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    private String lastUser;
+    private String lastPassword;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        LedgerFixtures.writeUsers("data/users.txt", rows);
+        lastUser = "user" + (rows - 1);
+        lastPassword = "pw" + (rows - 1);
+    }
+
+    @Benchmark
+    public boolean loginLastUser() {
+        return LoginService.loginWithCredentials(lastUser, lastPassword);
+    }
+
+    @Benchmark
+    public boolean loginUnknownUser() {
+        return LoginService.loginWithCredentials("nobody", "wrong");
+    }
+}
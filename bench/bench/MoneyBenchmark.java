@@ -0,0 +1,48 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import util.Money;
+
+import java.util.concurrent.TimeUnit;
+
+// Money.parseCents / format against the Double.parseDouble / Double.toString route they replaced
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private static final String[] AMOUNTS = {"1500.0", "12.75", "250000", "0.5", "98765.43", "-42.1", "3000.25", "7.0"};
+    private static final long[] CENTS = {150000, 1275, 25000000, 50, 9876543, -4210, 300025, 700};
+
+    @Benchmark
+    public void parseCents(Blackhole blackhole) {
+        for (String amount : AMOUNTS) {
+            blackhole.consume(Money.parseCents(amount));
+        }
+    }
+
+    @Benchmark
+    public void parseDoubleAndRound(Blackhole blackhole) {
+        for (String amount : AMOUNTS) {
+            blackhole.consume(Math.round(Double.parseDouble(amount) * 100));
+        }
+    }
+
+    @Benchmark
+    public void formatCents(Blackhole blackhole) {
+        for (long cents : CENTS) {
+            blackhole.consume(Money.format(cents));
+        }
+    }
+
+    @Benchmark
+    public void doubleToString(Blackhole blackhole) {
+        for (long cents : CENTS) {
+            blackhole.consume(Double.toString(cents / 100.0));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package bench;
+
+import models.TransactionTable;
+import org.openjdk.jmh.annotations.*;
+import services.AggregateStore;
+import services.LedgerAggregator;
+import services.ReportService;
+import util.FileUtil;
+import util.StorageConfig;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+// ReportService.showReport (steady state, totals already maintained), a full re-aggregation of the ledger,
+// and LedgerAggregator in one sequential pass versus fork/join chunks
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class ReportBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    private TransactionTable ledger;
+    private PrintStream console;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        LedgerFixtures.clearSideFiles();
+        LedgerFixtures.writeLedger(StorageConfig.TRANSACTION_FILE, rows);
+        ledger = FileUtil.readTransactions(StorageConfig.TRANSACTION_FILE);
+        console = LedgerFixtures.silence();
+        ReportService.showReport(); // builds and persists the totals once
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(console);
+    }
+
+    @Benchmark
+    public void showReport() {
+        ReportService.showReport();
+    }
+
+    @Benchmark
+    public AggregateStore aggregateFullLedger() {
+        AggregateStore store = new AggregateStore();
+        store.onReloaded(ledger);
+        return store;
+    }
+
+    @Benchmark
+    public LedgerAggregator.Totals aggregateSequential() {
+        return LedgerAggregator.aggregate(ledger, null, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public LedgerAggregator.Totals aggregateParallel() {
+        return LedgerAggregator.aggregate(ledger);
+    }
+}
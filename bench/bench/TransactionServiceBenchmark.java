@@ -0,0 +1,41 @@
+package bench;
+
+import models.Transaction;
+import org.openjdk.jmh.annotations.*;
+import services.TransactionService;
+import util.StorageConfig;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// TransactionService.addTransactionLogic on top of an already loaded ledger of increasing size
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class TransactionServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    private TransactionService service;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        LedgerFixtures.clearSideFiles();
+        LedgerFixtures.writeLedger(StorageConfig.TRANSACTION_FILE, rows);
+        service = TransactionService.getInstance(); // loads the ledger once per fork
+    }
+
+    @Benchmark
+    public boolean addTransactionLogic() {
+        int i = next++;
+        Transaction tx = new Transaction("2025-07-01", "expense",
+                LedgerFixtures.CATEGORIES[i % LedgerFixtures.CATEGORIES.length], 100 + (i % 1000),
+                LedgerFixtures.ACCOUNTS[i % LedgerFixtures.ACCOUNTS.length]);
+        return service.addTransactionLogic(tx);
+    }
+}
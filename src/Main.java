@@ -1,12 +1,26 @@
 
 
+import server.ApiServer;
+import services.BatchRunner;
 import services.LoginService;
+import services.StatementImporter;
+import services.UserLedgers;
+import util.ColumnarLedger;
 import util.InputUtil;
 import util.ReflectionUtil;
+import util.StorageConfig;
+
+import java.io.IOException;
+import java.util.function.Supplier;
 
 public class Main {
 
     public static void main(String[] args) {
+        if (args.length > 0) {
+            runCommand(args);
+            return;
+        }
+
         System.out.println("==== Welcome to Personal Finance Tracker ====");
 
         boolean isLoggedIn = false;
@@ -63,9 +77,10 @@ public class Main {
                     ReflectionUtil.invokeStaticMethod("services.CategoryService", "categoryMenu");
                     break;
                 case 4:
-                    ReflectionUtil.invokeStaticMethod("services.ReportService", "showReport");
+                    ReflectionUtil.invokeStaticMethod("services.ReportService", "reportMenu");
                     break;
                 case 5:
+                    // Changes still being written are finished by TransactionService's shutdown hook
                     System.out.println("Goodbye! Your data has been saved.");
                     return;
                 default:
@@ -73,4 +88,82 @@ public class Main {
             }
         }
     }
+
+    // Non-interactive commands:
+    //   --to-columnar [csvFile] [ledgerDir]   convert the CSV ledger to the binary columnar format
+    //   --to-csv [ledgerDir] [csvFile]        convert the columnar ledger back to CSV
+    //   --import statementFile [account [user]]  import a CSV/OFX bank statement (rows already in the ledger are skipped);
+    //                                         exits with status 1 if the file could not be read
+    //   --server [port]                       serve the JSON HTTP API instead of the console menus
+    //   --batch scriptFile [user]             run a command script (add-tx, transfer, add-account, add-category, report);
+    //                                         exits with status 1 if any line failed
+    // Without a user, --import and --batch work on the shared ledger in data/.
+    private static void runCommand(String[] args) {
+        switch (args[0]) {
+            case "--to-columnar": {
+                String csv = args.length > 1 ? args[1] : StorageConfig.TRANSACTION_FILE;
+                String dir = args.length > 2 ? args[2] : StorageConfig.COLUMNAR_DIR;
+                int rows = ColumnarLedger.convertFromCsv(csv, dir);
+                System.out.println("Converted " + rows + " transactions from " + csv + " to " + dir);
+                break;
+            }
+            case "--to-csv": {
+                String dir = args.length > 1 ? args[1] : StorageConfig.COLUMNAR_DIR;
+                String csv = args.length > 2 ? args[2] : StorageConfig.TRANSACTION_FILE;
+                int rows = ColumnarLedger.convertToCsv(dir, csv);
+                System.out.println("Converted " + rows + " transactions from " + dir + " to " + csv);
+                break;
+            }
+            case "--import": {
+                if (args.length < 2) {
+                    System.out.println("Usage: Main --import statementFile [account [user]]");
+                    break;
+                }
+                String account = args.length > 2 ? args[2] : "Imported";
+                StatementImporter.Result result = asUser(args, 3, () -> StatementImporter.importFile(args[1], account));
+                StatementImporter.printResult(result);
+                if (result.isFailed()) {
+                    System.exit(1); // Same as --batch: a script must not mistake an unread file for an empty one
+                }
+                break;
+            }
+            case "--batch": {
+                if (args.length < 2) {
+                    System.out.println("Usage: Main --batch scriptFile [user]");
+                    break;
+                }
+                int failed = asUser(args, 2, () -> BatchRunner.run(args[1]));
+                if (failed > 0) {
+                    System.exit(1); // Scripts can tell a partial run from a clean one
+                }
+                break;
+            }
+            case "--server": {
+                int port;
+                try {
+                    port = args.length > 1 ? Integer.parseInt(args[1]) : ApiServer.DEFAULT_PORT;
+                } catch (NumberFormatException e) {
+                    System.out.println("Invalid port: " + args[1]);
+                    System.out.println("Usage: Main --server [port]");
+                    break;
+                }
+                try {
+                    ApiServer server = ApiServer.start(port);
+                    System.out.println("Serving the API on http://localhost:" + server.getPort() + "/api/");
+                } catch (IOException e) {
+                    System.out.println("Could not start the server: " + e.getMessage());
+                }
+                break;
+            }
+            default:
+                System.out.println("Unknown option: " + args[0]);
+                System.out.println("Usage: Main [--to-columnar [csvFile] [ledgerDir] | --to-csv [ledgerDir] [csvFile]"
+                        + " | --import statementFile [account [user]] | --server [port] | --batch scriptFile [user]]");
+        }
+    }
+
+    // Run 'command' on the ledger of the user named by args[i], or on the shared one if there is no such argument
+    private static <T> T asUser(String[] args, int i, Supplier<T> command) {
+        return args.length > i ? UserLedgers.callAs(args[i], command) : command.get();
+    }
 }
@@ -1,15 +1,24 @@
 
 package models;
 
+import util.Money;
+
 public class Account {
     private String type;
     private String name;
-    private double balance;
+    private long balanceCents; // Opening balance; the live balance comes from AccountRegistry.balanceOf
 
     public Account(String type, String name, double balance) {
         this.type = type;
         this.name = name;
-        this.balance = balance;
+        this.balanceCents = Money.toCents(balance);
+    }
+
+    // Account whose opening balance is already in cents
+    public static Account ofCents(String type, String name, long balanceCents) {
+        Account account = new Account(type, name, 0);
+        account.balanceCents = balanceCents;
+        return account;
     }
 
     public String getType() {
@@ -21,7 +30,11 @@ public class Account {
     }
 
     public double getBalance() {
-        return balance;
+        return Money.toAmount(balanceCents);
+    }
+
+    public long getBalanceCents() {
+        return balanceCents;
     }
 
     public void setName(String name) {
@@ -29,12 +42,12 @@ public class Account {
     }
 
     public void setBalance(double balance) {
-        this.balance = balance;
+        this.balanceCents = Money.toCents(balance);
     }
 
     //  Format data to save in file
     public String toFileString() {
-        return type + "," + name + "," + balance;
+        return type + "," + name + "," + Money.format(balanceCents);
     }
 
     //  Create Account from CSV line
@@ -43,14 +56,14 @@ public class Account {
         if (parts.length == 3) {
             String type = parts[0];
             String name = parts[1];
-            double balance = Double.parseDouble(parts[2]);
-            return new Account(type, name, balance);
+            long balanceCents = Money.parseCents(parts[2]);
+            return ofCents(type, name, balanceCents);
         }
         return null;
     }
 
     @Override
     public String toString() {
-        return "Type: " + type + ", Name: " + name + ", Balance: " + balance;
+        return "Type: " + type + ", Name: " + name + ", Balance: " + Money.format(balanceCents);
     }
 }
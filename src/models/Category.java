@@ -1,15 +1,24 @@
 
 package models;
 
+import util.Money;
+
 public class Category {
     private String name;
     private String type; // income or expense
-    private double budget; // optional 
+    private long budgetCents; // optional
 
     public Category(String name, String type, double budget) {
         this.name = name;
         this.type = type;
-        this.budget = budget;
+        this.budgetCents = Money.toCents(budget);
+    }
+
+    // Category whose budget is already in cents
+    public static Category ofCents(String name, String type, long budgetCents) {
+        Category category = new Category(name, type, 0);
+        category.budgetCents = budgetCents;
+        return category;
     }
 
     public String getName() {
@@ -21,19 +30,23 @@ public class Category {
     }
 
     public double getBudget() {
-        return budget;
+        return Money.toAmount(budgetCents);
+    }
+
+    public long getBudgetCents() {
+        return budgetCents;
     }
 
     public void setBudget(double budget) {
-        this.budget = budget;
+        this.budgetCents = Money.toCents(budget);
     }
 
     public String toFileString() {
-        return name + "," + type + "," + budget;
+        return name + "," + type + "," + Money.format(budgetCents);
     }
 
     @Override
     public String toString() {
-        return "Category: " + name + " | Type: " + type + " | Budget: " + budget;
+        return "Category: " + name + " | Type: " + type + " | Budget: " + Money.format(budgetCents);
     }
 }
@@ -1,67 +1,122 @@
+// A Transaction either holds its own values (detached) or is a view of one row of a TransactionTable;
+// getters and setters of a view read and write the table directly.
 
 package models;
 
+import util.Money;
+
 public class Transaction {
+    private final TransactionTable table;
+    private final int row;
+
     private String date;
     private String type; // "income" or "expense"
     private String category;
-    private double amount;
+    private long amountCents;
     private String accountName;
 
     public Transaction(String date, String type, String category, double amount, String accountName) {
         this.date = date;
         this.type = type;
         this.category = category;
-        this.amount = amount;
+        this.amountCents = Money.toCents(amount);
         this.accountName = accountName;
+        this.table = null;
+        this.row = -1;
+    }
+
+    // Detached transaction from an amount already in cents (a factory rather than a constructor overload,
+    // so an int literal amount can never pick it by accident)
+    public static Transaction ofCents(String date, String type, String category, long amountCents, String accountName) {
+        Transaction t = new Transaction(date, type, category, 0, accountName);
+        t.amountCents = amountCents;
+        return t;
+    }
+
+    // View of 'row' in 'table' (see TransactionTable.get)
+    Transaction(TransactionTable table, int row) {
+        this.table = table;
+        this.row = row;
     }
 
     // --- Getters ---
     public String getDate() {
-        return date;
+        return table != null ? table.dateOf(row) : date;
     }
 
     public String getType() {
-        return type;
+        return table != null ? table.typeOf(row) : type;
     }
 
     public String getCategory() {
-        return category;
+        return table != null ? table.categoryOf(row) : category;
     }
 
     public double getAmount() {
-        return amount;
+        return Money.toAmount(getAmountCents());
+    }
+
+    public long getAmountCents() {
+        return table != null ? table.amountCents(row) : amountCents;
     }
 
     public String getAccountName() {
-        return accountName;
+        return table != null ? table.accountOf(row) : accountName;
     }
 
     // --- Setters ---
     public void setDate(String date) {
-        this.date = date;
+        if (table != null) {
+            table.setDate(row, date);
+        } else {
+            this.date = date;
+        }
     }
 
     public void setType(String type) {
-        this.type = type;
+        if (table != null) {
+            table.setType(row, type);
+        } else {
+            this.type = type;
+        }
     }
 
     public void setCategory(String category) {
-        this.category = category;
+        if (table != null) {
+            table.setCategory(row, category);
+        } else {
+            this.category = category;
+        }
     }
 
     public void setAmount(double amount) {
-        this.amount = amount;
+        setAmountCents(Money.toCents(amount));
+    }
+
+    public void setAmountCents(long amountCents) {
+        if (table != null) {
+            table.setAmountCents(row, amountCents);
+        } else {
+            this.amountCents = amountCents;
+        }
     }
 
     public void setAccountName(String accountName) {
-        this.accountName = accountName;
+        if (table != null) {
+            table.setAccountName(row, accountName);
+        } else {
+            this.accountName = accountName;
+        }
+    }
+
+    // Detached copy (used to remember the old values before an edit, or to keep a row after the table changes)
+    public Transaction copy() {
+        return ofCents(getDate(), getType(), getCategory(), getAmountCents(), getAccountName());
     }
 
-    
     @Override
     public String toString() {
-        return "[" + date + "] " + type.toUpperCase() + " | " + category +
-               " | Rs. " + amount + " | Account: " + accountName;
+        return "[" + getDate() + "] " + getType().toUpperCase() + " | " + getCategory() +
+                " | Rs. " + Money.format(getAmountCents()) + " | Account: " + getAccountName();
     }
 }
@@ -0,0 +1,404 @@
+// Design Patterns:
+//   - Struct of Arrays (one primitive array per field instead of one object per transaction)
+//   - Flyweight (names are stored once in a dictionary; get(row) hands out a Transaction view over the row)
+// Where used:
+//   - The in-memory ledger of TransactionService, and what every LedgerFormat / TransactionJournal read returns.
+//   - AggregateStore and ReportService rebuild totals straight from the columns.
+// Why used:
+//   - A row costs 21 bytes in five growable arrays instead of a Transaction plus four Strings on the heap,
+//     so million-row ledgers load fast and put almost no pressure on the garbage collector.
+//   - It is still a List<Transaction>, so the journal, the ledger formats and the listeners work on it unchanged.
+//   - writeTo / readFrom dump and restore the columns as they are in memory (util.LedgerSnapshot), so a saved
+//     ledger comes back with a few bulk array copies instead of parsing one line per row.
+//
+// Columns per row:
+//   date      int   epoch day, or a code into 'rawDates' for text that is not an ISO date (kept verbatim)
+//   type      byte  TYPE_INCOME, TYPE_EXPENSE, or an id into 'typeNames' for any other text
+//   category  int   id into 'names'
+//   account   int   id into 'names' (categories and accounts share one dictionary)
+//   amount    long  cents
+
+
+package models;
+
+import util.Money;
+import util.StringDictionary;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+public class TransactionTable extends AbstractList<Transaction> implements RandomAccess {
+
+    public static final byte TYPE_INCOME = 0;
+    public static final byte TYPE_EXPENSE = 1;
+    // Returned by epochDay(row) when the row's date is not an ISO yyyy-MM-dd date
+    public static final int NO_EPOCH_DAY = Integer.MIN_VALUE;
+
+    private static final int INITIAL_CAPACITY = 16;
+    // Date codes at or below this value refer to 'rawDates' (no real epoch day is that small)
+    private static final int RAW_DATE_BASE = -100_000_000;
+
+    private int[] dates;
+    private byte[] types;
+    private int[] categories;
+    private int[] accounts;
+    private long[] amounts;
+    private int size;
+
+    private final StringDictionary names;
+    private final StringDictionary typeNames;
+    private final StringDictionary rawDates;
+
+    public TransactionTable() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public TransactionTable(int capacity) {
+        this(capacity, new StringDictionary(), StringDictionary.of(Arrays.asList("income", "expense")), new StringDictionary());
+    }
+
+    private TransactionTable(int capacity, StringDictionary names, StringDictionary typeNames, StringDictionary rawDates) {
+        capacity = Math.max(capacity, INITIAL_CAPACITY);
+        dates = new int[capacity];
+        types = new byte[capacity];
+        categories = new int[capacity];
+        accounts = new int[capacity];
+        amounts = new long[capacity];
+        this.names = names;
+        this.typeNames = typeNames;
+        this.rawDates = rawDates;
+    }
+
+    private TransactionTable(TransactionTable other) {
+        dates = Arrays.copyOf(other.dates, other.size);
+        types = Arrays.copyOf(other.types, other.size);
+        categories = Arrays.copyOf(other.categories, other.size);
+        accounts = Arrays.copyOf(other.accounts, other.size);
+        amounts = Arrays.copyOf(other.amounts, other.size);
+        size = other.size;
+        names = other.names.copy();
+        typeNames = other.typeNames.copy();
+        rawDates = other.rawDates.copy();
+    }
+
+    // Independent snapshot (arrays and dictionaries copied), e.g. for a background rewrite of the ledger
+    public TransactionTable copy() {
+        return new TransactionTable(this);
+    }
+
+    // --- Appending ---
+
+    // Append one row without creating a Transaction
+    public void addRow(String date, String type, String category, double amount, String accountName) {
+        addRowCents(date, type, category, Money.toCents(amount), accountName);
+    }
+
+    // Same, with the amount already in cents (the shape of TransactionCsvParser.RowHandler)
+    public void addRowCents(String date, String type, String category, long amountCents, String accountName) {
+        addEncoded(dateCode(date), typeCode(type), names.idOf(category), names.idOf(accountName), amountCents);
+    }
+
+    // Append one row from already encoded values; category and account ids must come from names()
+    public void addEncoded(int epochDay, byte type, int categoryId, int accountId, long amountCents) {
+        ensureCapacity(size + 1);
+        dates[size] = epochDay;
+        types[size] = type;
+        categories[size] = categoryId;
+        accounts[size] = accountId;
+        amounts[size] = amountCents;
+        size++;
+        modCount++;
+    }
+
+    // --- Column access (row = 0 .. size()-1) ---
+
+    public int epochDay(int row) {
+        int code = dates[checkRow(row)];
+        return code <= RAW_DATE_BASE ? NO_EPOCH_DAY : code;
+    }
+
+    public byte typeCode(int row) {
+        return types[checkRow(row)];
+    }
+
+    public int categoryId(int row) {
+        return categories[checkRow(row)];
+    }
+
+    public int accountId(int row) {
+        return accounts[checkRow(row)];
+    }
+
+    public long amountCents(int row) {
+        return amounts[checkRow(row)];
+    }
+
+    // Dictionary behind categoryId and accountId
+    public StringDictionary names() {
+        return names;
+    }
+
+    public String dateOf(int row) {
+        int code = dates[checkRow(row)];
+        return code <= RAW_DATE_BASE ? rawDates.valueOf(RAW_DATE_BASE - code) : LocalDate.ofEpochDay(code).toString();
+    }
+
+    public String typeOf(int row) {
+        return typeNames.valueOf(types[checkRow(row)]);
+    }
+
+    public String categoryOf(int row) {
+        return names.valueOf(categoryId(row));
+    }
+
+    public double amountOf(int row) {
+        return amountCents(row) / 100.0;
+    }
+
+    public String accountOf(int row) {
+        return names.valueOf(accountId(row));
+    }
+
+    // --- Updating one field (used by the Transaction view setters) ---
+
+    public void setDate(int row, String date) {
+        dates[checkRow(row)] = dateCode(date);
+    }
+
+    public void setType(int row, String type) {
+        types[checkRow(row)] = typeCode(type);
+    }
+
+    public void setCategory(int row, String category) {
+        categories[checkRow(row)] = names.idOf(category);
+    }
+
+    public void setAmount(int row, double amount) {
+        setAmountCents(row, Money.toCents(amount));
+    }
+
+    public void setAmountCents(int row, long amountCents) {
+        amounts[checkRow(row)] = amountCents;
+    }
+
+    public void setAccountName(int row, String accountName) {
+        accounts[checkRow(row)] = names.idOf(accountName);
+    }
+
+    // --- List<Transaction> ---
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // A view bound to the row: setters write through to the table. Views are meant to be short-lived;
+    // after a removal they keep their row number, so use copy() to keep a transaction around.
+    @Override
+    public Transaction get(int row) {
+        return new Transaction(this, checkRow(row));
+    }
+
+    @Override
+    public boolean add(Transaction t) {
+        addRowCents(t.getDate(), t.getType(), t.getCategory(), t.getAmountCents(), t.getAccountName());
+        return true;
+    }
+
+    // Overwrite a row; returns a detached copy of the previous values
+    @Override
+    public Transaction set(int row, Transaction t) {
+        Transaction previous = get(row).copy();
+        // Read everything first: 't' may be a view of this very row
+        int date = dateCode(t.getDate());
+        byte type = typeCode(t.getType());
+        int category = names.idOf(t.getCategory());
+        long cents = t.getAmountCents();
+        int account = names.idOf(t.getAccountName());
+        dates[row] = date;
+        types[row] = type;
+        categories[row] = category;
+        amounts[row] = cents;
+        accounts[row] = account;
+        return previous;
+    }
+
+    // Insert a row (later rows move down by one), e.g. to put back a row just removed
+    @Override
+    public void add(int row, Transaction t) {
+        if (row < 0 || row > size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+        add(t); // Encoded at the end, then rotated into place
+        int last = size - 1;
+        int date = dates[last];
+        byte type = types[last];
+        int category = categories[last];
+        int account = accounts[last];
+        long cents = amounts[last];
+        int moved = last - row;
+        System.arraycopy(dates, row, dates, row + 1, moved);
+        System.arraycopy(types, row, types, row + 1, moved);
+        System.arraycopy(categories, row, categories, row + 1, moved);
+        System.arraycopy(accounts, row, accounts, row + 1, moved);
+        System.arraycopy(amounts, row, amounts, row + 1, moved);
+        dates[row] = date;
+        types[row] = type;
+        categories[row] = category;
+        accounts[row] = account;
+        amounts[row] = cents;
+    }
+
+    // Remove a row (later rows move up by one); returns a detached copy of it
+    @Override
+    public Transaction remove(int row) {
+        Transaction removed = get(row).copy();
+        int moved = size - row - 1;
+        System.arraycopy(dates, row + 1, dates, row, moved);
+        System.arraycopy(types, row + 1, types, row, moved);
+        System.arraycopy(categories, row + 1, categories, row, moved);
+        System.arraycopy(accounts, row + 1, accounts, row, moved);
+        System.arraycopy(amounts, row + 1, amounts, row, moved);
+        size--;
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    // --- Binary form (util.LedgerSnapshot) ---
+
+    // Write the dictionaries, then every column, exactly as encoded in memory (big-endian)
+    public void writeTo(DataOutputStream out) throws IOException {
+        writeDictionary(out, names);
+        writeDictionary(out, typeNames);
+        writeDictionary(out, rawDates);
+        out.writeInt(size);
+        for (int row = 0; row < size; row++) {
+            out.writeInt(dates[row]);
+        }
+        out.write(types, 0, size);
+        for (int row = 0; row < size; row++) {
+            out.writeInt(categories[row]);
+        }
+        for (int row = 0; row < size; row++) {
+            out.writeInt(accounts[row]);
+        }
+        for (int row = 0; row < size; row++) {
+            out.writeLong(amounts[row]);
+        }
+    }
+
+    // Read what writeTo wrote, starting at the position of 'in' and moving it past the table.
+    // Each column is one bulk copy out of the buffer (e.g. a mapped file); nothing is parsed per row.
+    public static TransactionTable readFrom(ByteBuffer in) {
+        StringDictionary names = readDictionary(in);
+        StringDictionary typeNames = readDictionary(in);
+        StringDictionary rawDates = readDictionary(in);
+        int size = in.getInt();
+        if (size < 0) {
+            throw new IllegalArgumentException("Negative row count: " + size);
+        }
+
+        TransactionTable table = new TransactionTable(size, names, typeNames, rawDates);
+        in.asIntBuffer().get(table.dates, 0, size);
+        in.position(in.position() + size * Integer.BYTES);
+        in.get(table.types, 0, size);
+        in.asIntBuffer().get(table.categories, 0, size);
+        in.position(in.position() + size * Integer.BYTES);
+        in.asIntBuffer().get(table.accounts, 0, size);
+        in.position(in.position() + size * Integer.BYTES);
+        in.asLongBuffer().get(table.amounts, 0, size);
+        in.position(in.position() + size * Long.BYTES);
+        table.size = size;
+        return table;
+    }
+
+    // Value count, then each value as its UTF-8 length and bytes (id order)
+    private static void writeDictionary(DataOutputStream out, StringDictionary dictionary) throws IOException {
+        out.writeInt(dictionary.size());
+        for (String value : dictionary.values()) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static StringDictionary readDictionary(ByteBuffer in) {
+        int count = in.getInt();
+        StringDictionary dictionary = new StringDictionary();
+        for (int id = 0; id < count; id++) {
+            byte[] bytes = new byte[in.getInt()];
+            in.get(bytes);
+            dictionary.idOf(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return dictionary;
+    }
+
+    // --- Encoding ---
+
+    // Epoch day of an ISO yyyy-MM-dd date, or NO_EPOCH_DAY for any other text
+    public static int epochDayOf(String date) {
+        try {
+            long epochDay = LocalDate.parse(date).toEpochDay();
+            if (epochDay > RAW_DATE_BASE && epochDay <= Integer.MAX_VALUE
+                    && LocalDate.ofEpochDay(epochDay).toString().equals(date)) {
+                return (int) epochDay;
+            }
+        } catch (DateTimeException e) {
+            // Not an ISO date
+        }
+        return NO_EPOCH_DAY;
+    }
+
+    // ISO dates are stored as their epoch day; anything else is kept verbatim in the raw date dictionary
+    private int dateCode(String date) {
+        int epochDay = epochDayOf(date);
+        return epochDay != NO_EPOCH_DAY ? epochDay : RAW_DATE_BASE - rawDates.idOf(date);
+    }
+
+    // "income" and "expense" in any case are normalized; other text is kept as is
+    private byte typeCode(String type) {
+        if (type.equalsIgnoreCase("income")) {
+            return TYPE_INCOME;
+        }
+        if (type.equalsIgnoreCase("expense")) {
+            return TYPE_EXPENSE;
+        }
+        int id = typeNames.idOf(type);
+        if (id > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many distinct transaction types: " + type);
+        }
+        return (byte) id;
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+        return row;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= dates.length) {
+            return;
+        }
+        int capacity = Math.max(needed, dates.length + (dates.length >> 1));
+        dates = Arrays.copyOf(dates, capacity);
+        types = Arrays.copyOf(types, capacity);
+        categories = Arrays.copyOf(categories, capacity);
+        accounts = Arrays.copyOf(accounts, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+    }
+}
@@ -0,0 +1,731 @@
+// Design Patterns:
+//   - Front Controller (one handler for /api/ routes every request to the matching service call)
+//   - Thread-per-request on virtual threads (the JDK HttpServer hands each exchange to a new virtual thread)
+// Where used:
+//   - Started by "Main --server [port]" instead of the console menus.
+// Why used:
+//   - Exposes login, accounts, categories, transactions and reports as JSON over HTTP, so many household clients
+//     can share one JVM. Blocking service calls (file I/O, waiting for TransactionService's writer) only park a
+//     cheap virtual thread, so there is no thread pool to size.
+//   - The handlers call the same service methods as the menus; all shared state is already guarded there.
+//   - Each request runs as its session's user (UserLedgers.callAs), so it only sees that user's partition.
+//   - A session ends after finance.api.sessionIdleMinutes (default 30) without requests. Expired sessions are swept
+//     out at most once a minute on login, and at most MAX_SESSIONS are kept (the least recently used go first),
+//     so the session table stays bounded however many logins the server sees.
+//
+// Every route except POST /api/login and POST /api/register needs "Authorization: Bearer <token>".
+// Indexes in paths are 0-based row numbers, as returned in the listings. A PUT or DELETE of /{i} carries the record
+// as last listed in "expected" (its listing fields, without index and balance). If {i} no longer holds that record,
+// because another client changed, removed or shifted it, the request is refused with 409 and nothing changes.
+// Request bodies over 1 MiB are refused with 413.
+//
+//   POST   /api/login                {username, password}              -> {token}
+//   POST   /api/register             {username, password}
+//   POST   /api/logout
+//   GET    /api/accounts                                               -> [{index, type, name, openingBalance, balance}]
+//   POST   /api/accounts             {type, name, balance}
+//   PUT    /api/accounts/{i}         {expected, name, openingBalance}
+//   DELETE /api/accounts/{i}         {expected}
+//   GET    /api/categories                                             -> [{index, name, type, budget}]
+//   POST   /api/categories           {name, type, budget}
+//   PUT    /api/categories/{i}       {expected, name?, budget?}
+//   DELETE /api/categories/{i}       {expected}
+//   GET    /api/transactions?offset=&limit=                            -> {total, offset, items: [...]}
+//   GET    /api/transactions?cursor=&limit=&account=&category=&type=&from=&to=
+//                                                                      -> {items: [...], nextCursor (null at the end)}
+//   POST   /api/transactions         {date, type, category, amount, accountName}
+//   PUT    /api/transactions/{i}     {expected, date, type, category, amount, accountName}
+//   DELETE /api/transactions/{i}     {expected}
+//   POST   /api/transfers            {from, to, amount, date}
+//   GET    /api/reports/summary
+//   GET    /api/reports/period?from=YYYY-MM-DD&to=YYYY-MM-DD
+
+
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import factory.AccountFactory;
+import models.Account;
+import models.Category;
+import models.Transaction;
+import services.AccountRegistry;
+import services.AggregateStore;
+import services.CategoryService;
+import services.LedgerAggregator;
+import services.LoginService;
+import services.ReportService;
+import services.TransactionFilter;
+import services.TransactionPage;
+import services.TransactionService;
+import services.UserLedgers;
+import util.Money;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ApiServer {
+
+    public static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final long DEFAULT_SESSION_IDLE_MINUTES = 30;
+    private static final int MAX_SESSIONS = 10_000;
+    private static final int MAX_BODY_BYTES = 1 << 20;
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final HttpServer http;
+    // Session token -> session (in memory: a restart logs everyone out)
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final long sessionIdleNanos;
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+    private final SecureRandom random = new SecureRandom();
+
+    private ApiServer(HttpServer http, long sessionIdleNanos) {
+        this.http = http;
+        this.sessionIdleNanos = sessionIdleNanos;
+    }
+
+    // Bind to 'port' (0 picks a free one) and start serving; each request runs on its own virtual thread
+    public static ApiServer start(int port) throws IOException {
+        return start(port, Duration.ofMinutes(Long.getLong("finance.api.sessionIdleMinutes", DEFAULT_SESSION_IDLE_MINUTES)));
+    }
+
+    // Same, with sessions ending after 'sessionIdle' without requests
+    public static ApiServer start(int port, Duration sessionIdle) throws IOException {
+        HttpServer http = HttpServer.create(new InetSocketAddress(port), 0);
+        ApiServer server = new ApiServer(http, sessionIdle.toNanos());
+        http.createContext("/api/", server::handle);
+        http.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        http.start();
+        return server;
+    }
+
+    public int getPort() {
+        return http.getAddress().getPort();
+    }
+
+    public void stop() {
+        http.stop(0);
+    }
+
+    // --- Dispatch ---
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            Request request = new Request(exchange);
+            Object body = route(request);
+            send(exchange, request.created ? 201 : 200, body);
+        } catch (ApiException e) {
+            send(exchange, e.status, Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            send(exchange, 400, Map.of("error", String.valueOf(e.getMessage())));
+        } catch (RuntimeException e) {
+            System.out.println("Error handling " + exchange.getRequestURI() + ": " + e);
+            send(exchange, 500, Map.of("error", "Internal error"));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Object route(Request request) {
+        String resource = request.segment(0);
+        if (resource.equals("login") && request.is("POST")) {
+            return login(request);
+        }
+        if (resource.equals("register") && request.is("POST")) {
+            return register(request);
+        }
+
+        request.user = authenticate(request);
+        // Services reached from here work on this user's partition (loaded on first use)
+        return UserLedgers.callAs(request.user, () -> routeAuthenticated(request, resource));
+    }
+
+    private Object routeAuthenticated(Request request, String resource) {
+        switch (resource) {
+            case "logout":
+                if (request.is("POST")) {
+                    sessions.remove(request.token);
+                    return Map.of("loggedOut", true);
+                }
+                break;
+            case "accounts":
+                return accounts(request);
+            case "categories":
+                return categories(request);
+            case "transactions":
+                return transactions(request);
+            case "transfers":
+                if (request.is("POST")) {
+                    return transfer(request);
+                }
+                break;
+            case "reports":
+                return reports(request);
+            default:
+                throw new ApiException(404, "Unknown resource: " + resource);
+        }
+        throw methodNotAllowed(request);
+    }
+
+    // --- Authentication ---
+
+    private Object login(Request request) {
+        String username = request.string("username");
+        if (!LoginService.loginWithCredentials(username, request.secret("password"))) {
+            throw new ApiException(401, "Invalid username or password");
+        }
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        sweepSessions();
+        sessions.put(token, new Session(username));
+        return Map.of("token", token);
+    }
+
+    // Drop expired sessions (at most once per SWEEP_INTERVAL), then the least recently used ones beyond MAX_SESSIONS
+    private void sweepSessions() {
+        long now = System.nanoTime();
+        long last = lastSweep.get();
+        if (now - last >= SWEEP_INTERVAL_NANOS && lastSweep.compareAndSet(last, now)) {
+            sessions.values().removeIf(session -> session.isExpired(now, sessionIdleNanos));
+        }
+        int excess = sessions.size() - (MAX_SESSIONS - 1);
+        if (excess > 0) {
+            sessions.entrySet().stream()
+                    .sorted(Comparator.comparingLong(entry -> entry.getValue().lastUsed))
+                    .limit(excess)
+                    .map(Map.Entry::getKey)
+                    .toList()
+                    .forEach(sessions::remove);
+        }
+    }
+
+    public int sessionCount() {
+        return sessions.size();
+    }
+
+    private Object register(Request request) {
+        String username = request.string("username");
+        String password = request.secret("password");
+        if (username.isEmpty() || username.contains(",") || password.isEmpty()) {
+            throw new ApiException(400, "Username and password are required (no commas in the username)");
+        }
+        if (!LoginService.register(username, password)) {
+            throw new ApiException(409, "Username already exists");
+        }
+        request.created = true;
+        return Map.of("username", username);
+    }
+
+    private String authenticate(Request request) {
+        String header = request.exchange.getRequestHeaders().getFirst("Authorization");
+        if (header != null && header.startsWith("Bearer ")) {
+            request.token = header.substring(7).trim();
+            Session session = sessions.get(request.token);
+            if (session != null) {
+                long now = System.nanoTime();
+                if (!session.isExpired(now, sessionIdleNanos)) {
+                    session.lastUsed = now;
+                    return session.username;
+                }
+                sessions.remove(request.token, session);
+            }
+        }
+        throw new ApiException(401, "Login required");
+    }
+
+    // --- Accounts ---
+
+    private Object accounts(Request request) {
+        AccountRegistry registry = AccountRegistry.getInstance();
+        if (request.segments.length == 1) {
+            if (request.is("GET")) {
+                List<Object> items = new ArrayList<>();
+                List<Account> accounts = registry.getAccounts();
+                for (int i = 0; i < accounts.size(); i++) {
+                    items.add(accountJson(i, accounts.get(i), registry));
+                }
+                return items;
+            }
+            if (request.is("POST")) {
+                Account account = AccountFactory.createAccount(request.string("type"), request.string("name"),
+                        request.number("balance"));
+                if (account == null) {
+                    throw new ApiException(400, "Account type must be Cash, Bank or CreditCard");
+                }
+                int index = registry.add(account); // Not size() - 1: another request may add one meanwhile
+                request.created = true;
+                return accountJson(index, account, registry);
+            }
+        } else {
+            List<Account> accounts = registry.getAccounts();
+            int index = request.index(accounts.size());
+            Request seen = request.expected();
+            Account expected = new Account(seen.string("type"), seen.string("name"), seen.number("openingBalance"));
+            if (!accounts.get(index).toFileString().equals(expected.toFileString())) {
+                throw changedMeanwhile("account", index);
+            }
+            // 'expected' is a detached copy, so the registry finds it by content under its lock: if it changed
+            // since the check above, nothing is applied
+            if (request.is("PUT")) {
+                Account updated = registry.update(expected, request.string("name"), request.number("openingBalance"));
+                if (updated == null) {
+                    throw changedMeanwhile("account", index);
+                }
+                return accountJson(index, updated, registry);
+            }
+            if (request.is("DELETE")) {
+                if (!registry.remove(expected)) {
+                    throw changedMeanwhile("account", index);
+                }
+                return Map.of("deleted", index);
+            }
+        }
+        throw methodNotAllowed(request);
+    }
+
+    private static Map<String, Object> accountJson(int index, Account account, AccountRegistry registry) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("index", index);
+        json.put("type", account.getType());
+        json.put("name", account.getName());
+        json.put("openingBalance", account.getBalance());
+        json.put("balance", registry.balanceOf(account));
+        return json;
+    }
+
+    // --- Categories ---
+
+    private Object categories(Request request) {
+        CategoryService service = CategoryService.getInstance();
+        if (request.segments.length == 1) {
+            if (request.is("GET")) {
+                List<Object> items = new ArrayList<>();
+                List<Category> categories = service.getCategories();
+                for (int i = 0; i < categories.size(); i++) {
+                    items.add(categoryJson(i, categories.get(i)));
+                }
+                return items;
+            }
+            if (request.is("POST")) {
+                String type = request.string("type").toLowerCase();
+                if (!type.equals("income") && !type.equals("expense")) {
+                    throw new ApiException(400, "Category type must be income or expense");
+                }
+                double budget = type.equals("expense") && request.body.get("budget") != null ? request.number("budget") : 0;
+                Category category = new Category(request.string("name"), type, budget);
+                int index = service.add(category);
+                request.created = true;
+                return categoryJson(index, category);
+            }
+        } else {
+            List<Category> categories = service.getCategories();
+            int index = request.index(categories.size());
+            Request seen = request.expected();
+            Category expected = new Category(seen.string("name"), seen.string("type").toLowerCase(), seen.number("budget"));
+            if (!categories.get(index).toFileString().equals(expected.toFileString())) {
+                throw changedMeanwhile("category", index);
+            }
+            // Found by content under the service's lock, like the accounts above
+            if (request.is("PUT")) {
+                String name = request.body.get("name") == null ? null : request.string("name");
+                Double budget = request.body.get("budget") == null ? null : request.number("budget");
+                Category updated = service.update(expected, name, budget);
+                if (updated == null) {
+                    throw changedMeanwhile("category", index);
+                }
+                return categoryJson(index, updated);
+            }
+            if (request.is("DELETE")) {
+                if (!service.remove(expected)) {
+                    throw changedMeanwhile("category", index);
+                }
+                return Map.of("deleted", index);
+            }
+        }
+        throw methodNotAllowed(request);
+    }
+
+    private static Map<String, Object> categoryJson(int index, Category category) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("index", index);
+        json.put("name", category.getName());
+        json.put("type", category.getType());
+        json.put("budget", category.getBudget());
+        return json;
+    }
+
+    // --- Transactions ---
+
+    private Object transactions(Request request) {
+        TransactionService service = TransactionService.getInstance();
+        if (request.segments.length == 1) {
+            if (request.is("GET") && request.hasAnyQuery("cursor", "account", "category", "type", "from", "to")) {
+                TransactionFilter filter = new TransactionFilter(request.query.get("account"),
+                        request.query.get("category"), request.query.get("type"),
+                        request.query.containsKey("from") ? LocalDate.parse(request.query.get("from")) : null,
+                        request.query.containsKey("to") ? LocalDate.parse(request.query.get("to")) : null);
+                int limit = request.limit();
+                TransactionPage page = service.page(filter, request.queryInt("cursor", 0), limit);
+                List<Object> items = new ArrayList<>();
+                for (int i = 0; i < page.getItems().size(); i++) {
+                    items.add(transactionJson(page.getRows()[i], page.getItems().get(i)));
+                }
+                Map<String, Object> json = new LinkedHashMap<>();
+                json.put("items", items);
+                json.put("nextCursor", page.hasMore() ? page.getNextCursor() : null);
+                return json;
+            }
+            if (request.is("GET")) {
+                int offset = request.queryInt("offset", 0);
+                int limit = request.limit();
+                List<Object> items = new ArrayList<>();
+                List<Transaction> page = service.list(offset, limit);
+                for (int i = 0; i < page.size(); i++) {
+                    items.add(transactionJson(offset + i, page.get(i)));
+                }
+                Map<String, Object> json = new LinkedHashMap<>();
+                json.put("total", service.size());
+                json.put("offset", offset);
+                json.put("items", items);
+                return json;
+            }
+            if (request.is("POST")) {
+                Transaction t = request.transaction();
+                request.created = true;
+                return transactionJson(await(service.ingest(t)), t);
+            }
+        } else {
+            int index = request.index(Integer.MAX_VALUE);
+            // Compared with row 'index' on the writer thread, right before the change
+            Transaction expected = request.expected().transaction();
+            if (request.is("PUT")) {
+                Transaction t = request.transaction();
+                if (!await(service.update(index, expected, t))) {
+                    throw new ApiException(404, "No transaction " + index);
+                }
+                return transactionJson(index, t);
+            }
+            if (request.is("DELETE")) {
+                if (!await(service.delete(index, expected))) {
+                    throw new ApiException(404, "No transaction " + index);
+                }
+                return Map.of("deleted", index);
+            }
+        }
+        throw methodNotAllowed(request);
+    }
+
+    private Object transfer(Request request) {
+        double amount = request.number("amount");
+        if (amount <= 0) {
+            throw new ApiException(400, "Transfer amount must be positive");
+        }
+        String date = request.string("date");
+        LocalDate.parse(date);
+        await(TransactionService.getInstance().transfer(request.string("from"), request.string("to"), amount, date));
+        return Map.of("transferred", amount);
+    }
+
+    private static Map<String, Object> transactionJson(int index, Transaction t) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("index", index);
+        json.put("date", t.getDate());
+        json.put("type", t.getType());
+        json.put("category", t.getCategory());
+        json.put("amount", t.getAmount());
+        json.put("accountName", t.getAccountName());
+        return json;
+    }
+
+    // --- Reports ---
+
+    private Object reports(Request request) {
+        if (!request.is("GET")) {
+            throw methodNotAllowed(request);
+        }
+        Map<String, Object> json = new LinkedHashMap<>();
+        switch (request.segment(1)) {
+            case "summary": {
+                AggregateStore totals = ReportService.summaryTotals();
+                json.put("totalIncome", totals.getTotalIncome());
+                json.put("totalExpense", totals.getTotalExpense());
+                json.put("balance", totals.getBalance());
+                json.put("incomeByCategory", totals.getIncomeByCategory());
+                json.put("expenseByCategory", budgetJson(totals.getExpenseCentsByCategory()));
+                return json;
+            }
+            case "period": {
+                LocalDate from = LocalDate.parse(request.query("from"));
+                LocalDate to = LocalDate.parse(request.query("to"));
+                LedgerAggregator.Totals totals = ReportService.periodTotals(from, to);
+                json.put("from", from.toString());
+                json.put("to", to.toString());
+                json.put("transactions", totals.getRowCount());
+                json.put("totalIncome", totals.getIncomeCents() / 100.0);
+                json.put("totalExpense", totals.getExpenseCents() / 100.0);
+                json.put("net", (totals.getIncomeCents() - totals.getExpenseCents()) / 100.0);
+                json.put("incomeByCategory", totals.amounts(LedgerAggregator.INCOME_BY_CATEGORY));
+                json.put("expenseByCategory", budgetJson(totals.cents(LedgerAggregator.EXPENSE_BY_CATEGORY)));
+                return json;
+            }
+            default:
+                throw new ApiException(404, "Unknown report: " + request.segment(1));
+        }
+    }
+
+    // Expense per category with its budget, like the console report's over-budget markers (compared in cents)
+    private static Map<String, Object> budgetJson(Map<String, Long> expenseCentsByCategory) {
+        CategoryService categories = CategoryService.getInstance();
+        Map<String, Object> json = new LinkedHashMap<>();
+        expenseCentsByCategory.forEach((category, cents) -> {
+            long budgetCents = Money.toCents(categories.getBudget(category, "expense"));
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("amount", Money.toAmount(cents));
+            entry.put("budget", Money.toAmount(budgetCents));
+            entry.put("overBudget", budgetCents > 0 && cents > budgetCents);
+            json.put(category, entry);
+        });
+        return json;
+    }
+
+    // --- Helpers ---
+
+    // Wait for a queued change; a rejected change (e.g. invalid type) becomes a 400, a stale "expected" a 409
+    private static <T> T await(CompletableFuture<T> change) {
+        try {
+            return change.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IllegalArgumentException invalid) {
+                throw invalid;
+            }
+            if (e.getCause() instanceof ConcurrentModificationException stale) {
+                throw new ApiException(409, stale.getMessage() + "; list it again");
+            }
+            throw e;
+        }
+    }
+
+    private static ApiException changedMeanwhile(String what, int index) {
+        return new ApiException(409, "The " + what + " at " + index + " is not the one expected; list it again");
+    }
+
+    private static ApiException methodNotAllowed(Request request) {
+        return new ApiException(405, request.method + " is not supported here");
+    }
+
+    private static void send(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = Json.write(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // A logged-in user and when their token was last used
+    private static class Session {
+        final String username;
+        volatile long lastUsed = System.nanoTime();
+
+        Session(String username) {
+            this.username = username;
+        }
+
+        boolean isExpired(long now, long idleNanos) {
+            return now - lastUsed > idleNanos;
+        }
+    }
+
+    // An error with the HTTP status to answer with
+    private static class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    // One parsed request: path segments after /api/, query parameters and JSON body
+    private static class Request {
+        final HttpExchange exchange;
+        final String method;
+        final String[] segments;
+        final Map<String, String> query = new HashMap<>();
+        final Map<String, Object> body;
+        String token;
+        String user;
+        boolean created; // Answer 201 instead of 200
+
+        Request(HttpExchange exchange) throws IOException {
+            this.exchange = exchange;
+            this.method = exchange.getRequestMethod().toUpperCase();
+            String path = exchange.getRequestURI().getPath().substring("/api/".length());
+            this.segments = path.isEmpty() ? new String[] {""} : path.split("/");
+
+            String rawQuery = exchange.getRequestURI().getRawQuery();
+            if (rawQuery != null) {
+                for (String pair : rawQuery.split("&")) {
+                    int eq = pair.indexOf('=');
+                    if (eq > 0) {
+                        query.put(decode(pair.substring(0, eq)), decode(pair.substring(eq + 1)));
+                    }
+                }
+            }
+
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+                if (bytes.length > MAX_BODY_BYTES) {
+                    throw new ApiException(413, "Request body is larger than " + MAX_BODY_BYTES + " bytes");
+                }
+                String text = new String(bytes, StandardCharsets.UTF_8);
+                this.body = method.equals("GET") ? Map.of() : Json.parseObject(text);
+            }
+        }
+
+        // The same request reading its fields from 'body' (a nested object)
+        private Request(Request outer, Map<String, Object> body) {
+            this.exchange = outer.exchange;
+            this.method = outer.method;
+            this.segments = outer.segments;
+            this.query.putAll(outer.query);
+            this.body = body;
+        }
+
+        // The "expected" object of a PUT or DELETE, read like the body itself
+        @SuppressWarnings("unchecked")
+        Request expected() {
+            if (!(body.get("expected") instanceof Map<?, ?> fields)) {
+                throw new ApiException(400, "Missing field: expected (the record as last listed)");
+            }
+            return new Request(this, (Map<String, Object>) fields);
+        }
+
+        boolean is(String expected) {
+            return method.equals(expected);
+        }
+
+        String segment(int i) {
+            return i < segments.length ? segments[i] : "";
+        }
+
+        // The row index in the second path segment; 404 if it is not below 'size'
+        int index(int size) {
+            try {
+                int index = Integer.parseInt(segment(1));
+                if (index >= 0 && index < size && segments.length == 2) {
+                    return index;
+                }
+            } catch (NumberFormatException e) {
+                // Reported below
+            }
+            throw new ApiException(404, "Not found: " + String.join("/", segments));
+        }
+
+        String string(String field) {
+            Object value = body.get(field);
+            if (value == null) {
+                throw new ApiException(400, "Missing field: " + field);
+            }
+            String text = value.toString().trim();
+            // Stored in comma-separated files read with readLine, which also breaks lines at '\r'
+            if (text.chars().anyMatch(c -> c == ',' || Character.isISOControl(c))) {
+                throw new ApiException(400, "Field " + field + " must not contain commas or control characters");
+            }
+            return text;
+        }
+
+        // Passwords are hashed before they are stored, so any characters are allowed
+        String secret(String field) {
+            Object value = body.get(field);
+            if (!(value instanceof String text)) {
+                throw new ApiException(400, "Missing field: " + field);
+            }
+            return text;
+        }
+
+        double number(String field) {
+            Object value = body.get(field);
+            if (!(value instanceof Double number) || !Double.isFinite(number)) {
+                throw new ApiException(400, "Field " + field + " must be a number");
+            }
+            return number;
+        }
+
+        Transaction transaction() {
+            String date = string("date");
+            LocalDate.parse(date);
+            return new Transaction(date, string("type").toLowerCase(), string("category"), number("amount"),
+                    string("accountName"));
+        }
+
+        String query(String name) {
+            String value = query.get(name);
+            if (value == null) {
+                throw new ApiException(400, "Missing query parameter: " + name);
+            }
+            return value;
+        }
+
+        boolean hasAnyQuery(String... names) {
+            for (String name : names) {
+                if (query.containsKey(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Page size: at least 1 (a page of 0 rows would never move the cursor), at most MAX_PAGE_SIZE
+        int limit() {
+            int limit = queryInt("limit", DEFAULT_PAGE_SIZE); // Negative values come back as 0
+            if (limit < 1) {
+                throw new ApiException(400, "Query parameter limit must be at least 1");
+            }
+            return Math.min(MAX_PAGE_SIZE, limit);
+        }
+
+        int queryInt(String name, int fallback) {
+            String value = query.get(name);
+            if (value == null) {
+                return fallback;
+            }
+            try {
+                return Math.max(0, Integer.parseInt(value));
+            } catch (NumberFormatException e) {
+                throw new ApiException(400, "Query parameter " + name + " must be a number");
+            }
+        }
+
+        private static String decode(String text) {
+            return URLDecoder.decode(text, StandardCharsets.UTF_8);
+        }
+    }
+}
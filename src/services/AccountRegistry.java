@@ -0,0 +1,213 @@
+// Design Patterns:
+//   - Singleton Pattern (one in-memory list of accounts per ledger: the shared data/accounts.txt, or each user's
+//     partition through UserLedgers)
+//   - Identity Map (accounts are loaded once and looked up by name; the file is re-read only when it changes)
+// Where used:
+//   - AccountService (add, view, edit, delete accounts).
+// Why used:
+//   - accounts.txt stores each account's opening balance. The live balance is the opening balance plus
+//     the account's net transactions (income - expense). That net is taken from AggregateStore, which
+//     TransactionService updates in O(1) on every add, edit, delete and both legs of a transfer, and which
+//     is persisted with the ledger stamp as its checkpoint. Viewing balances needs no file reads and no ledger scan.
+//   - Since the net is looked up by account name, renaming an account moves its transactions to the new name too
+//     (unless another account still has the old one), so the balance stays with the account.
+
+
+package services;
+
+import models.Account;
+import util.FileUtil;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+public class AccountRegistry {
+
+    private static final String ACCOUNT_FILE = "data/accounts.txt";
+
+    private static AccountRegistry instance;
+
+    private final String accountFile;
+    // Supplies the running per-account totals (TransactionService's AggregateStore by default)
+    private final Supplier<AggregateStore> totals;
+    // Moves the ledger's transactions from an old account name to a new one (see update)
+    private final BiConsumer<String, String> renameTransactions;
+    private final List<Account> accounts = new ArrayList<>();
+    // First account with a given name (file order)
+    private final Map<String, Account> byName = new HashMap<>();
+    // lastModified/length of the account file when it was last loaded or saved
+    private long loadedModified = -1;
+    private long loadedLength = -1;
+
+    // Accounts backed by 'ledger': balances come from its totals and renames are carried through to its rows
+    public AccountRegistry(String accountFile, Supplier<TransactionService> ledger) {
+        this(accountFile, () -> ledger.get().getAggregates(),
+                (from, to) -> ledger.get().renameAccount(from, to).join());
+    }
+
+    public AccountRegistry(String accountFile, Supplier<AggregateStore> totals, BiConsumer<String, String> renameTransactions) {
+        this.accountFile = accountFile;
+        this.totals = totals;
+        this.renameTransactions = renameTransactions;
+    }
+
+    // The current user's accounts, or the shared ones when nobody is signed in
+    public static AccountRegistry getInstance() {
+        UserLedgers.Ledger ledger = UserLedgers.current();
+        return ledger != null ? ledger.accounts() : shared();
+    }
+
+    private static synchronized AccountRegistry shared() {
+        if (instance == null) {
+            instance = new AccountRegistry(ACCOUNT_FILE, TransactionService::getInstance);
+        }
+        return instance;
+    }
+
+    // Accounts in file order (a copy; change them through add/update/remove)
+    public synchronized List<Account> getAccounts() {
+        reloadIfChanged();
+        return new ArrayList<>(accounts);
+    }
+
+    // Account with this name, or null
+    public synchronized Account find(String name) {
+        reloadIfChanged();
+        return byName.get(name);
+    }
+
+    // Opening balance plus every transaction posted to the account
+    public double balanceOf(Account account) {
+        long opening = account.getBalanceCents();
+        return (opening + totals.get().getAccountNetCents(account.getName())) / 100.0;
+    }
+
+    // Returns the index the account was stored at (taken under the lock, so concurrent adds each get their own)
+    public synchronized int add(Account account) {
+        reloadIfChanged();
+        FileUtil.appendLine(accountFile, account.toFileString());
+        accounts.add(account);
+        byName.putIfAbsent(account.getName(), account);
+        rememberFileState();
+        return accounts.size() - 1;
+    }
+
+    // Add several accounts with a single append; returns the index of the first one
+    public synchronized int addAll(List<Account> added) {
+        reloadIfChanged();
+        int first = accounts.size();
+        List<String> lines = new ArrayList<>();
+        for (Account account : added) {
+            lines.add(account.toFileString());
+            accounts.add(account);
+            byName.putIfAbsent(account.getName(), account);
+        }
+        FileUtil.appendLines(accountFile, lines);
+        rememberFileState();
+        return first;
+    }
+
+    // Rename 'account' (one returned by getAccounts or find) and/or change its opening balance.
+    // It is looked up again after the reload, so a list read before the file changed cannot point the change at
+    // another account. Returns the updated account, or null if it is gone.
+    // A rename moves the account's transactions to the new name first, unless another account keeps the old name
+    // (then they stay with that one); if moving them fails, the account is left unchanged.
+    public synchronized Account update(Account account, String name, double openingBalance) {
+        reloadIfChanged();
+        int index = indexOf(account);
+        if (index < 0) {
+            return null;
+        }
+        Account current = accounts.get(index);
+        if (!current.getName().equals(name) && !hasOtherAccountNamed(current)) {
+            renameTransactions.accept(current.getName(), name);
+        }
+        current.setName(name);
+        current.setBalance(openingBalance);
+        save();
+        return current;
+    }
+
+    // Same lookup as update; false if the account is gone
+    public synchronized boolean remove(Account account) {
+        reloadIfChanged();
+        int index = indexOf(account);
+        if (index < 0) {
+            return false;
+        }
+        accounts.remove(index);
+        save();
+        return true;
+    }
+
+    private boolean hasOtherAccountNamed(Account account) {
+        for (Account other : accounts) {
+            if (other != account && other.getName().equals(account.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Position of 'account' in the list: the same object, or after a reload the first one stored with the same line
+    private int indexOf(Account account) {
+        for (int i = 0; i < accounts.size(); i++) {
+            if (accounts.get(i) == account) {
+                return i;
+            }
+        }
+        String line = account.toFileString();
+        for (int i = 0; i < accounts.size(); i++) {
+            if (accounts.get(i).toFileString().equals(line)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void save() {
+        List<String> lines = new ArrayList<>();
+        for (Account account : accounts) {
+            lines.add(account.toFileString());
+        }
+        FileUtil.writeLines(accountFile, lines);
+        rebuildIndex();
+        rememberFileState();
+    }
+
+    // Re-read the file only if it changed since we last read or wrote it
+    private void reloadIfChanged() {
+        File file = new File(accountFile);
+        if (file.lastModified() == loadedModified && file.length() == loadedLength) {
+            return;
+        }
+
+        accounts.clear();
+        for (String line : FileUtil.readLines(accountFile)) {
+            Account account = Account.fromFileString(line);
+            if (account != null) {
+                accounts.add(account);
+            }
+        }
+        rebuildIndex();
+        rememberFileState();
+    }
+
+    private void rebuildIndex() {
+        byName.clear();
+        for (Account account : accounts) {
+            byName.putIfAbsent(account.getName(), account);
+        }
+    }
+
+    private void rememberFileState() {
+        File file = new File(accountFile);
+        loadedModified = file.lastModified();
+        loadedLength = file.length();
+    }
+}
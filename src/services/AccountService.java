@@ -5,22 +5,19 @@
 // Why used:
 //   - Factory Pattern promotes object creation without specifying exact class names (supports open-closed principle).
 //   - Keeps service logic separate from file and input handling (Single Responsibility Principle).
+//   - Accounts live in AccountRegistry; balances shown are live (opening balance + posted transactions).
 
 
 package services;
 
 import factory.AccountFactory;
 import models.Account;
-import util.FileUtil;
 import util.InputUtil;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class AccountService {
 
-    private static final String ACCOUNT_FILE = "data/accounts.txt";
-
     //  Main menu for account-related options
     public static void accountMenu() {
         while (true) {
@@ -60,46 +57,38 @@ public class AccountService {
         String name = InputUtil.getString("Enter account name: ");
         double balance = InputUtil.getDouble("Enter initial balance: ");
 
-        Account account = AccountFactory.createAccount(type, name, balance);
-        if (account == null) {
+        if (createAccount(type, name, balance) == null) {
             System.out.println("Invalid account type!");
             return;
         }
-
-        FileUtil.appendLine(ACCOUNT_FILE, account.toFileString());
         System.out.println("Account added successfully.");
     }
 
-    //  View accounts
+    // Create and store an account; returns null if the type is not Cash, Bank or CreditCard
+    public static Account createAccount(String type, String name, double balance) {
+        Account account = AccountFactory.createAccount(type, name, balance);
+        if (account != null) {
+            AccountRegistry.getInstance().add(account);
+        }
+        return account;
+    }
+
+    //  View accounts (with live balances)
     public static void viewAccounts() {
-        List<String> lines = FileUtil.readLines(ACCOUNT_FILE);
-        if (lines.isEmpty()) {
+        List<Account> accounts = AccountRegistry.getInstance().getAccounts();
+        if (accounts.isEmpty()) {
             System.out.println("No accounts found.");
             return;
         }
 
         System.out.println("Your Accounts:");
-        int i = 1;
-        for (String line : lines) {
-            Account account = Account.fromFileString(line);
-            if (account != null) {
-                System.out.println(i + ". " + account);
-                i++;
-            }
-        }
+        printAccounts(accounts);
     }
 
     // Edit account
     public static void editAccount() {
-        List<String> lines = FileUtil.readLines(ACCOUNT_FILE);
-        List<Account> accounts = new ArrayList<>();
-
-        for (String line : lines) {
-            Account acc = Account.fromFileString(line);
-            if (acc != null) {
-                accounts.add(acc);
-            }
-        }
+        AccountRegistry registry = AccountRegistry.getInstance();
+        List<Account> accounts = registry.getAccounts();
 
         if (accounts.isEmpty()) {
             System.out.println("No accounts to edit.");
@@ -107,11 +96,7 @@ public class AccountService {
         }
 
         // Show accounts
-        int i = 1;
-        for (Account acc : accounts) {
-            System.out.println(i + ". " + acc);
-            i++;
-        }
+        printAccounts(accounts);
 
         int index = InputUtil.getInt("Enter the account number to edit: ") - 1;
         if (index < 0 || index >= accounts.size()) {
@@ -121,32 +106,19 @@ public class AccountService {
 
         Account selected = accounts.get(index);
         String name = InputUtil.getString("Enter new name (current: " + selected.getName() + "): ");
-        double balance = InputUtil.getDouble("Enter new balance (current: " + selected.getBalance() + "): ");
-
-        selected.setName(name);
-        selected.setBalance(balance);
+        double balance = InputUtil.getDouble("Enter new opening balance (current: " + selected.getBalance() + "): ");
 
-        // Convert back to file lines
-        List<String> updatedLines = new ArrayList<>();
-        for (Account acc : accounts) {
-            updatedLines.add(acc.toFileString());
+        if (registry.update(selected, name, balance) == null) {
+            System.out.println("Account no longer exists.");
+            return;
         }
-
-        FileUtil.writeLines(ACCOUNT_FILE, updatedLines);
         System.out.println("Account updated.");
     }
 
     // Delete account
     public static void deleteAccount() {
-        List<String> lines = FileUtil.readLines(ACCOUNT_FILE);
-        List<Account> accounts = new ArrayList<>();
-
-        for (String line : lines) {
-            Account acc = Account.fromFileString(line);
-            if (acc != null) {
-                accounts.add(acc);
-            }
-        }
+        AccountRegistry registry = AccountRegistry.getInstance();
+        List<Account> accounts = registry.getAccounts();
 
         if (accounts.isEmpty()) {
             System.out.println("No accounts to delete.");
@@ -154,11 +126,7 @@ public class AccountService {
         }
 
         // Show accounts
-        int i = 1;
-        for (Account acc : accounts) {
-            System.out.println(i + ". " + acc);
-            i++;
-        }
+        printAccounts(accounts);
 
         int index = InputUtil.getInt("Enter the account number to delete: ") - 1;
         if (index < 0 || index >= accounts.size()) {
@@ -166,15 +134,21 @@ public class AccountService {
             return;
         }
 
-        accounts.remove(index);
+        if (!registry.remove(accounts.get(index))) {
+            System.out.println("Account no longer exists.");
+            return;
+        }
+        System.out.println("Account deleted.");
+    }
 
-        // Convert back to file lines
-        List<String> updatedLines = new ArrayList<>();
+    // Numbered list; the balance shown is the live one, not the stored opening balance
+    private static void printAccounts(List<Account> accounts) {
+        AccountRegistry registry = AccountRegistry.getInstance();
+        int i = 1;
         for (Account acc : accounts) {
-            updatedLines.add(acc.toFileString());
+            Account live = new Account(acc.getType(), acc.getName(), registry.balanceOf(acc));
+            System.out.println(i + ". " + live);
+            i++;
         }
-
-        FileUtil.writeLines(ACCOUNT_FILE, updatedLines);
-        System.out.println("Account deleted.");
     }
 }
@@ -0,0 +1,292 @@
+// Design Patterns:
+//   - Observer Pattern (listens to TransactionService and updates totals on every change)
+//   - Materialized View (totals are kept ready instead of recomputed from the ledger)
+// Where used:
+//   - ReportService.showReport reads totals per type, per category and per account from here.
+//   - AccountRegistry derives live account balances from the per-account totals.
+// Why used:
+//   - A report costs O(categories + accounts) instead of a full ledger scan.
+//   - Totals are persisted next to the ledger together with the ledger stamp they belong to;
+//     if the ledger changed behind our back (stamp mismatch) the store is rebuilt from the ledger.
+//
+// File layout:
+//   #stamp,<ledger stamp>
+//   <kind>,<key>,<cents>,<count>      kind = IC (income by category), EC, IA (income by account), EA
+
+
+package services;
+
+import models.Transaction;
+import models.TransactionTable;
+import util.FileUtil;
+import util.Metrics;
+import util.TransactionJournal;
+
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+public class AggregateStore implements TransactionListener {
+
+    private static final String STAMP_PREFIX = "#stamp,";
+    // Hit: totals reused from memory or from the persisted file; miss: rebuilt from the ledger
+    private static final Metrics.CacheStats TOTALS = Metrics.cache("aggregates");
+
+    // Per file: the store last used for it in this JVM, reused as long as the ledger stamp still matches (keyed by
+    // file because two users' fresh ledgers can carry the same stamp). Loading one ledger's totals only locks its
+    // own slot, and the reference is weak so an unloaded user's totals can be collected.
+    private static final Map<String, Slot> SLOTS = new ConcurrentHashMap<>();
+
+    private static final class Slot {
+        WeakReference<AggregateStore> store = new WeakReference<>(null);
+    }
+
+    private final Map<String, long[]> incomeByCategory = new HashMap<>();
+    private final Map<String, long[]> expenseByCategory = new HashMap<>();
+    private final Map<String, long[]> incomeByAccount = new HashMap<>();
+    private final Map<String, long[]> expenseByAccount = new HashMap<>();
+    private long totalIncomeCents;
+    private long totalExpenseCents;
+    private String stamp = "";
+
+    // Totals matching the ledger behind 'journal': in-memory copy, persisted file, or a fresh scan (in that order)
+    public static AggregateStore forLedger(TransactionJournal journal, String path) {
+        return forLedger(journal, path, journal::readLedger);
+    }
+
+    // Same, but 'ledger' supplies the transactions when a rebuild is needed (e.g. an already loaded list)
+    public static AggregateStore forLedger(TransactionJournal journal, String path, Supplier<List<Transaction>> ledger) {
+        Slot slot = SLOTS.computeIfAbsent(path, p -> new Slot());
+        synchronized (slot) {
+            String current = journal.stamp();
+            AggregateStore store = slot.store.get();
+            if (store != null && store.stamp.equals(current)) {
+                TOTALS.hit();
+                return store;
+            }
+
+            store = load(path);
+            if (store != null && store.stamp.equals(current)) {
+                TOTALS.hit();
+            } else {
+                TOTALS.miss();
+                store = new AggregateStore();
+                store.onReloaded(ledger.get());
+                store.save(path, current);
+            }
+            slot.store = new WeakReference<>(store);
+            return store;
+        }
+    }
+
+    // --- TransactionListener ---
+
+    @Override
+    public synchronized void onAdded(int index, Transaction transaction) {
+        apply(transaction, 1);
+    }
+
+    @Override
+    public synchronized void onUpdated(int index, Transaction before, Transaction after) {
+        apply(before, -1);
+        apply(after, 1);
+    }
+
+    @Override
+    public synchronized void onRemoved(int index, Transaction transaction) {
+        apply(transaction, -1);
+    }
+
+    @Override
+    public synchronized void onReloaded(List<Transaction> ledger) {
+        incomeByCategory.clear();
+        expenseByCategory.clear();
+        incomeByAccount.clear();
+        expenseByAccount.clear();
+        totalIncomeCents = 0;
+        totalExpenseCents = 0;
+        if (ledger instanceof TransactionTable table) {
+            rebuild(table);
+            return;
+        }
+        for (Transaction t : ledger) {
+            apply(t, 1);
+        }
+    }
+
+    // --- Queries (amounts in rupees, like Transaction.getAmount) ---
+
+    public synchronized double getTotalIncome() {
+        return totalIncomeCents / 100.0;
+    }
+
+    public synchronized double getTotalExpense() {
+        return totalExpenseCents / 100.0;
+    }
+
+    public synchronized double getBalance() {
+        return (totalIncomeCents - totalExpenseCents) / 100.0;
+    }
+
+    public synchronized long getTotalIncomeCents() {
+        return totalIncomeCents;
+    }
+
+    public synchronized long getTotalExpenseCents() {
+        return totalExpenseCents;
+    }
+
+    public synchronized Map<String, Double> getIncomeByCategory() {
+        return toAmounts(incomeByCategory);
+    }
+
+    public synchronized Map<String, Double> getExpenseByCategory() {
+        return toAmounts(expenseByCategory);
+    }
+
+    public synchronized Map<String, Double> getIncomeByAccount() {
+        return toAmounts(incomeByAccount);
+    }
+
+    public synchronized Map<String, Double> getExpenseByAccount() {
+        return toAmounts(expenseByAccount);
+    }
+
+    // Per-category totals in cents, for callers that compare or format them without going through a double
+    public synchronized Map<String, Long> getIncomeCentsByCategory() {
+        return toCents(incomeByCategory);
+    }
+
+    public synchronized Map<String, Long> getExpenseCentsByCategory() {
+        return toCents(expenseByCategory);
+    }
+
+    // Income minus expense posted to one account, in cents (O(1), no map copy)
+    public synchronized long getAccountNetCents(String accountName) {
+        long[] income = incomeByAccount.get(accountName);
+        long[] expense = expenseByAccount.get(accountName);
+        return (income == null ? 0 : income[0]) - (expense == null ? 0 : expense[0]);
+    }
+
+    // Consistent copy of all totals (one lock acquisition), so a report never mixes two ledger states
+    public synchronized AggregateStore snapshot() {
+        AggregateStore copy = new AggregateStore();
+        copyEntries(incomeByCategory, copy.incomeByCategory);
+        copyEntries(expenseByCategory, copy.expenseByCategory);
+        copyEntries(incomeByAccount, copy.incomeByAccount);
+        copyEntries(expenseByAccount, copy.expenseByAccount);
+        copy.totalIncomeCents = totalIncomeCents;
+        copy.totalExpenseCents = totalExpenseCents;
+        copy.stamp = stamp;
+        return copy;
+    }
+
+    // --- Persistence ---
+
+    public synchronized void save(String path, String ledgerStamp) {
+        stamp = ledgerStamp;
+        List<String> lines = new ArrayList<>();
+        lines.add(STAMP_PREFIX + ledgerStamp);
+        addLines(lines, "IC", incomeByCategory);
+        addLines(lines, "EC", expenseByCategory);
+        addLines(lines, "IA", incomeByAccount);
+        addLines(lines, "EA", expenseByAccount);
+        // Not waited for: load() and readLines wait for queued writes, and the totals can always be rebuilt
+        FileUtil.writeLinesAsync(path, lines);
+    }
+
+    // Read a persisted store (null if missing or unreadable)
+    public static AggregateStore load(String path) {
+        try {
+            FileUtil.await(path);
+        } catch (UncheckedIOException e) {
+            return null; // The last save failed, so the file cannot be trusted
+        }
+        if (!new File(path).exists()) {
+            return null;
+        }
+        List<String> lines = FileUtil.readLines(path);
+        if (lines.isEmpty() || !lines.get(0).startsWith(STAMP_PREFIX)) {
+            return null;
+        }
+
+        AggregateStore store = new AggregateStore();
+        store.stamp = lines.get(0).substring(STAMP_PREFIX.length());
+        try {
+            for (int i = 1; i < lines.size(); i++) {
+                String[] parts = lines.get(i).split(",");
+                long[] entry = {Long.parseLong(parts[2]), Long.parseLong(parts[3])};
+                switch (parts[0]) {
+                    case "IC": store.incomeByCategory.put(parts[1], entry); store.totalIncomeCents += entry[0]; break;
+                    case "EC": store.expenseByCategory.put(parts[1], entry); store.totalExpenseCents += entry[0]; break;
+                    case "IA": store.incomeByAccount.put(parts[1], entry); break;
+                    case "EA": store.expenseByAccount.put(parts[1], entry); break;
+                    default: return null;
+                }
+            }
+        } catch (RuntimeException e) {
+            return null;
+        }
+        return store;
+    }
+
+    // Add (sign = 1) or remove (sign = -1) one transaction; entries disappear when their last transaction does
+    private void apply(Transaction t, int sign) {
+        long cents = t.getAmountCents() * sign;
+        if (t.getType().equalsIgnoreCase("income")) {
+            totalIncomeCents += cents;
+            adjust(incomeByCategory, t.getCategory(), cents, sign);
+            adjust(incomeByAccount, t.getAccountName(), cents, sign);
+        } else if (t.getType().equalsIgnoreCase("expense")) {
+            totalExpenseCents += cents;
+            adjust(expenseByCategory, t.getCategory(), cents, sign);
+            adjust(expenseByAccount, t.getAccountName(), cents, sign);
+        }
+    }
+
+    // Sum straight from the table's columns, in parallel chunks (LedgerAggregator)
+    private void rebuild(TransactionTable table) {
+        LedgerAggregator.Totals totals = LedgerAggregator.aggregate(table);
+        totalIncomeCents = totals.getIncomeCents();
+        totalExpenseCents = totals.getExpenseCents();
+        incomeByCategory.putAll(totals.entries(LedgerAggregator.INCOME_BY_CATEGORY));
+        expenseByCategory.putAll(totals.entries(LedgerAggregator.EXPENSE_BY_CATEGORY));
+        incomeByAccount.putAll(totals.entries(LedgerAggregator.INCOME_BY_ACCOUNT));
+        expenseByAccount.putAll(totals.entries(LedgerAggregator.EXPENSE_BY_ACCOUNT));
+    }
+
+    private static void adjust(Map<String, long[]> totals, String key, long cents, int sign) {
+        long[] entry = totals.computeIfAbsent(key, k -> new long[2]);
+        entry[0] += cents;
+        entry[1] += sign;
+        if (entry[1] <= 0) {
+            totals.remove(key);
+        }
+    }
+
+    private static Map<String, Double> toAmounts(Map<String, long[]> totals) {
+        Map<String, Double> amounts = new HashMap<>();
+        totals.forEach((key, entry) -> amounts.put(key, entry[0] / 100.0));
+        return amounts;
+    }
+
+    private static Map<String, Long> toCents(Map<String, long[]> totals) {
+        Map<String, Long> cents = new HashMap<>();
+        totals.forEach((key, entry) -> cents.put(key, entry[0]));
+        return cents;
+    }
+
+    private static void copyEntries(Map<String, long[]> from, Map<String, long[]> to) {
+        from.forEach((key, entry) -> to.put(key, entry.clone()));
+    }
+
+    private static void addLines(List<String> lines, String kind, Map<String, long[]> totals) {
+        totals.forEach((key, entry) -> lines.add(kind + "," + key + "," + entry[0] + "," + entry[1]));
+    }
+}
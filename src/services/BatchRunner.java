@@ -0,0 +1,293 @@
+// Design Patterns:
+//   - Command Pattern (each script line names a command that is looked up in a table and executed)
+//   - Unit of Work (new transactions, accounts and categories are collected and persisted together)
+// Where used:
+//   - "Main --batch scriptFile".
+// Why used:
+//   - Scripted bulk work no longer goes through the InputUtil prompts and menus one field at a time.
+//   - Commands only change memory. Pending rows are persisted at the end (or before a report, which must see
+//     them): transactions as one TransactionService change with one journal append, accounts with one append,
+//     categories with one rewrite.
+//
+// Script format: one command per line, the command name then comma-separated arguments.
+// Blank lines and lines starting with '#' are ignored.
+//   add-tx        date,type,category,amount,accountName
+//   transfer      fromAccount,toAccount,amount,date
+//   add-account   type,name,openingBalance
+//   add-category  name,type[,budget]
+//   report        [fromDate,toDate]      (summary of everything, or of the date range)
+//   filter        account,category[,type[,fromDate[,toDate]]]  (summary of the matching rows; '*' = any)
+//   trend         fromMonth,toMonth      (monthly trend from the rollups, months as YYYY-MM)
+//   analytics     [top]                  (largest expenses, size percentiles, top accounts; default top 10)
+
+
+package services;
+
+import models.Account;
+import models.Category;
+import models.Transaction;
+import factory.AccountFactory;
+import util.Money;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+public class BatchRunner {
+
+    private final TransactionService transactions;
+    private final List<Transaction> pendingTransactions = new ArrayList<>();
+    private final List<Account> pendingAccounts = new ArrayList<>();
+    private final List<Category> pendingCategories = new ArrayList<>();
+    // Command name -> {count, total nanoseconds}, in first-use order
+    private final Map<String, long[]> timings = new LinkedHashMap<>();
+    private final Map<String, Command> commands = new LinkedHashMap<>();
+    private int failed;
+
+    @FunctionalInterface
+    private interface Command {
+        void run(String[] args);
+    }
+
+    public BatchRunner(TransactionService transactions) {
+        this.transactions = transactions;
+        commands.put("add-tx", this::addTransaction);
+        commands.put("transfer", this::transfer);
+        commands.put("add-account", this::addAccount);
+        commands.put("add-category", this::addCategory);
+        commands.put("report", this::report);
+        commands.put("filter", this::filter);
+        commands.put("trend", this::trend);
+        commands.put("analytics", this::analytics);
+    }
+
+    // Run every command in 'scriptFile', persist, then print timings; returns the number of failed lines
+    // (an unreadable script or changes that could not be saved count as one more)
+    public static int run(String scriptFile) {
+        return run(scriptFile, TransactionService.getInstance());
+    }
+
+    public static int run(String scriptFile, TransactionService transactions) {
+        BatchRunner runner = new BatchRunner(transactions);
+        long start = System.nanoTime();
+        try (BufferedReader reader = new BufferedReader(new FileReader(scriptFile))) {
+            runner.runAll(reader);
+        } catch (IOException e) {
+            runner.failed++;
+            System.out.println("Error reading file: " + e.getMessage());
+        } catch (RuntimeException e) {
+            // The final flush could not persist the pending changes (the ledger fails its future)
+            runner.failed++;
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            System.out.println("Error saving changes: " + cause.getMessage());
+        }
+        runner.printSummary(System.nanoTime() - start);
+        return runner.failed;
+    }
+
+    public void runAll(BufferedReader script) throws IOException {
+        String line;
+        int lineNumber = 0;
+        while ((line = script.readLine()) != null) {
+            lineNumber++;
+            execute(lineNumber, line.trim());
+        }
+        timed("flush", this::flush);
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    // Command name -> {count, total nanoseconds}
+    public Map<String, long[]> getTimings() {
+        return timings;
+    }
+
+    private void execute(int lineNumber, String line) {
+        if (line.isEmpty() || line.startsWith("#")) {
+            return;
+        }
+        int space = line.indexOf(' ');
+        String name = space < 0 ? line : line.substring(0, space);
+        String[] args = space < 0 ? new String[0] : line.substring(space + 1).trim().split("\\s*,\\s*");
+
+        Command command = commands.get(name);
+        if (command == null) {
+            failed++;
+            System.out.println("Line " + lineNumber + ": unknown command '" + name + "'");
+            return;
+        }
+        try {
+            timed(name, () -> command.run(args));
+        } catch (RuntimeException e) {
+            failed++;
+            System.out.println("Line " + lineNumber + ": " + e.getMessage());
+        }
+    }
+
+    // Only commands that complete are timed; a failed line is counted in 'failed' instead
+    private void timed(String name, Runnable action) {
+        long start = System.nanoTime();
+        action.run();
+        long[] timing = timings.computeIfAbsent(name, n -> new long[2]);
+        timing[0]++;
+        timing[1] += System.nanoTime() - start;
+    }
+
+    // --- Commands ---
+
+    private void addTransaction(String[] args) {
+        expect(args, 5, "add-tx date,type,category,amount,accountName");
+        String type = args[1].toLowerCase();
+        if (!type.equals("income") && !type.equals("expense")) {
+            throw new IllegalArgumentException("Invalid transaction type: " + args[1]);
+        }
+        pendingTransactions.add(Transaction.ofCents(date(args[0]), type, args[2], cents(args[3]), args[4]));
+    }
+
+    private void transfer(String[] args) {
+        expect(args, 4, "transfer fromAccount,toAccount,amount,date");
+        long cents = cents(args[2]);
+        if (cents <= 0) {
+            throw new IllegalArgumentException("Transfer amount must be positive.");
+        }
+        pendingTransactions.addAll(TransactionService.transferLegs(args[0], args[1], Money.toAmount(cents), date(args[3])));
+    }
+
+    private void addAccount(String[] args) {
+        expect(args, 3, "add-account type,name,openingBalance");
+        Account account = AccountFactory.createAccount(args[0], args[1], Money.toAmount(cents(args[2])));
+        if (account == null) {
+            throw new IllegalArgumentException("Invalid account type: " + args[0]);
+        }
+        pendingAccounts.add(account);
+    }
+
+    private void addCategory(String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            expect(args, 3, "add-category name,type[,budget]");
+        }
+        String type = args[1].toLowerCase();
+        if (!type.equals("income") && !type.equals("expense")) {
+            throw new IllegalArgumentException("Invalid category type: " + args[1]);
+        }
+        long budgetCents = type.equals("expense") && args.length == 3 ? cents(args[2]) : 0;
+        pendingCategories.add(Category.ofCents(args[0], type, budgetCents));
+    }
+
+    // Reports must see everything before them, so pending changes are persisted first
+    private void report(String[] args) {
+        flush();
+        if (args.length == 2) {
+            ReportService.showPeriodReport(LocalDate.parse(args[0]), LocalDate.parse(args[1]));
+        } else if (args.length == 0) {
+            ReportService.showReport();
+        } else {
+            throw new IllegalArgumentException("Usage: report [fromDate,toDate]");
+        }
+    }
+
+    private void filter(String[] args) {
+        if (args.length < 2 || args.length > 5) {
+            expect(args, 5, "filter account,category[,type[,fromDate[,toDate]]]");
+        }
+        String from = any(args, 3);
+        String to = any(args, 4);
+        TransactionFilter filter = new TransactionFilter(any(args, 0), any(args, 1), any(args, 2),
+                from == null ? null : LocalDate.parse(from), to == null ? null : LocalDate.parse(to));
+        flush();
+        ReportService.showFilteredReport(filter);
+    }
+
+    // Argument 'i', or null if it is missing or '*'
+    private static String any(String[] args, int i) {
+        return i >= args.length || args[i].equals("*") ? null : args[i];
+    }
+
+    private void trend(String[] args) {
+        expect(args, 2, "trend fromMonth,toMonth");
+        flush();
+        ReportService.showTrendReport(YearMonth.parse(args[0]), YearMonth.parse(args[1]));
+    }
+
+    private void analytics(String[] args) {
+        if (args.length > 1) {
+            expect(args, 1, "analytics [top]");
+        }
+        int top = args.length == 1 ? Integer.parseInt(args[0]) : LedgerAnalytics.DEFAULT_TOP;
+        if (top <= 0) {
+            throw new IllegalArgumentException("top must be positive.");
+        }
+        flush();
+        ReportService.showAnalyticsReport(top);
+    }
+
+    // --- Persistence ---
+
+    // Each pending list is emptied before its save is awaited: a save that fails has still applied the rows in
+    // memory, so a later flush (the next report, or the end of the script) must not add them a second time.
+    // Only the failure itself is reported, on the line that flushed.
+    private void flush() {
+        if (!pendingTransactions.isEmpty()) {
+            CompletableFuture<Integer> saved = transactions.ingestAll(pendingTransactions); // Copies the rows
+            pendingTransactions.clear();
+            saved.join();
+        }
+        if (!pendingAccounts.isEmpty()) {
+            List<Account> accounts = new ArrayList<>(pendingAccounts);
+            pendingAccounts.clear();
+            AccountRegistry.getInstance().addAll(accounts);
+        }
+        if (!pendingCategories.isEmpty()) {
+            List<Category> categories = new ArrayList<>(pendingCategories);
+            pendingCategories.clear();
+            CategoryService.getInstance().addAll(categories);
+        }
+    }
+
+    private void printSummary(long elapsedNanos) {
+        System.out.println("\n===================== Batch Summary ===================== ");
+        System.out.printf("%-14s %10s %12s %12s%n", "Command", "Count", "Total ms", "Avg us");
+        long commandsRun = 0;
+        for (Map.Entry<String, long[]> entry : timings.entrySet()) {
+            long count = entry.getValue()[0];
+            long nanos = entry.getValue()[1];
+            if (!entry.getKey().equals("flush")) {
+                commandsRun += count;
+            }
+            System.out.printf("%-14s %10d %12.1f %12.1f%n", entry.getKey(), count, nanos / 1e6, nanos / 1e3 / count);
+        }
+        System.out.println("Commands      : " + commandsRun);
+        System.out.println("Failed        : " + failed);
+        System.out.printf("Elapsed       : %.1f ms%n", elapsedNanos / 1e6);
+    }
+
+    // --- Argument parsing ---
+
+    private static void expect(String[] args, int count, String usage) {
+        if (args.length != count) {
+            throw new IllegalArgumentException("Usage: " + usage);
+        }
+    }
+
+    private static String date(String text) {
+        return LocalDate.parse(text).toString();
+    }
+
+    private static long cents(String text) {
+        try {
+            return Money.parseCents(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid amount: " + text);
+        }
+    }
+}
@@ -1,11 +1,14 @@
 // Design Patterns: 
-//   - Singleton Pattern: ensures only one instance handles all category operations
+//   - Singleton Pattern: ensures only one instance handles all category operations (one per ledger: the shared
+//     data/categories.txt, or each user's partition through UserLedgers)
 // Where used:
 //   - Manages add, edit, delete, and view operations for categories
 //   - Used by user via menu or indirectly via budget alerts or analytics
 // Why used:
 //   - Keeps category logic separate from UI or storage logic (Single Responsibility)
 //   - Singleton ensures one consistent category list is managed
+//   - A hash index over the same list answers budget lookups (used by ReportService) without re-reading the file
+//   - The list is only touched under the instance lock, so the HTTP API can use it from many threads
 
 
 package services;
@@ -13,41 +16,102 @@ package services;
 import models.Category;
 import util.FileUtil;
 import util.InputUtil;
+import util.Metrics;
+import util.Money;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class CategoryService {
 
     private static final String CATEGORY_FILE = "data/categories.txt";
-    private static List<Category> categories = new ArrayList<>();
+    private static final Metrics.CacheStats BUDGET_INDEX = Metrics.cache("categories");
 
-    // Singleton instance
+    private final String categoryFile;
+    private final List<Category> categories = new ArrayList<>();
+
+    // Budget index over 'categories', keyed by lower-case "name|type"
+    private Map<String, Category> index = new HashMap<>();
+    // lastModified/length of 'categoryFile' when 'categories' was last loaded or saved
+    private long loadedModified = -1;
+    private long loadedLength = -1;
+
+    // Singleton instance (of the shared file)
     private static CategoryService instance;
 
-    private CategoryService() {
+    public CategoryService(String categoryFile) {
+        this.categoryFile = categoryFile;
         loadCategories();
     }
 
+    // The current user's categories, or the shared ones when nobody is signed in
     public static CategoryService getInstance() {
+        UserLedgers.Ledger ledger = UserLedgers.current();
+        CategoryService service = ledger != null ? ledger.categories() : shared();
+        service.reloadIfChanged();
+        return service;
+    }
+
+    private static synchronized CategoryService shared() {
         if (instance == null) {
-            instance = new CategoryService();
+            instance = new CategoryService(CATEGORY_FILE);
         }
         return instance;
     }
 
     //  Load category data from file
     private void loadCategories() {
-        List<String> lines = FileUtil.readLines(CATEGORY_FILE);
+        categories.clear();
+        List<String> lines = FileUtil.readLines(categoryFile);
         for (String line : lines) {
             String[] parts = line.split(",");
             if (parts.length == 3) {
                 String name = parts[0];
                 String type = parts[1];
-                double budget = Double.parseDouble(parts[2]);
-                categories.add(new Category(name, type, budget));
+                long budgetCents = Money.parseCents(parts[2]);
+                categories.add(Category.ofCents(name, type, budgetCents));
             }
         }
+        rebuildIndex();
+    }
+
+    // Reload when the file was changed by someone else since we last loaded or saved it
+    private synchronized void reloadIfChanged() {
+        File file = new File(categoryFile);
+        if (file.lastModified() != loadedModified || file.length() != loadedLength) {
+            BUDGET_INDEX.miss();
+            loadCategories();
+        } else {
+            BUDGET_INDEX.hit();
+        }
+    }
+
+    // Rebuild the budget index and remember which version of the file it matches
+    private void rebuildIndex() {
+        Map<String, Category> rebuilt = new HashMap<>();
+        for (Category cat : categories) {
+            // First entry wins, like the old top-to-bottom file scan
+            rebuilt.putIfAbsent(indexKey(cat.getName(), cat.getType()), cat);
+        }
+        index = rebuilt;
+
+        File file = new File(categoryFile);
+        loadedModified = file.lastModified();
+        loadedLength = file.length();
+    }
+
+    private static String indexKey(String name, String type) {
+        return name.toLowerCase() + "|" + type.toLowerCase();
+    }
+
+    // Budget of the category with this name and type (case-insensitive), 0 if there is none
+    public synchronized double getBudget(String categoryName, String type) {
+        reloadIfChanged();
+        Category cat = index.get(indexKey(categoryName, type));
+        return cat == null ? 0 : cat.getBudget();
     }
 
     //  Menu to manage categories
@@ -85,23 +149,21 @@ public class CategoryService {
             budget = InputUtil.getDouble("Enter monthly budget for this category: ");
         }
 
-        Category category = new Category(name, type, budget);
-        categories.add(category);
-
-        saveCategoriesToFile();
+        add(new Category(name, type, budget));
         System.out.println("Category added successfully.");
     }
 
     //  View all categories
     public void viewCategories() {
-        if (categories.isEmpty()) {
+        List<Category> current = getCategories();
+        if (current.isEmpty()) {
             System.out.println("No categories found.");
             return;
         }
 
         System.out.println("\nAvailable Categories:");
-        for (int i = 0; i < categories.size(); i++) {
-            System.out.println((i + 1) + ". " + categories.get(i));
+        for (int i = 0; i < current.size(); i++) {
+            System.out.println((i + 1) + ". " + current.get(i));
         }
     }
 
@@ -109,28 +171,30 @@ public class CategoryService {
     public void editCategory() {
         viewCategories();
         int index = InputUtil.getInt("Enter the category number to edit: ") - 1;
+        List<Category> current = getCategories();
 
-        if (index < 0 || index >= categories.size()) {
+        if (index < 0 || index >= current.size()) {
             System.out.println("Invalid index.");
             return;
         }
 
-        Category cat = categories.get(index);
+        Category cat = current.get(index);
         String name = InputUtil.getString("Enter new name (leave blank to keep '" + cat.getName() + "'): ");
         String budgetStr = InputUtil.getString("Enter new budget (leave blank to keep '" + cat.getBudget() + "'): ");
 
-        if (!name.isEmpty()) cat = new Category(name, cat.getType(), cat.getBudget());
+        Double budget = null;
         if (!budgetStr.isEmpty()) {
             try {
-                double newBudget = Double.parseDouble(budgetStr);
-                cat.setBudget(newBudget);
+                budget = Money.toAmount(Money.parseCents(budgetStr.trim()));
             } catch (NumberFormatException e) {
                 System.out.println("Invalid budget input.");
             }
         }
 
-        categories.set(index, cat);
-        saveCategoriesToFile();
+        if (update(cat, name, budget) == null) {
+            System.out.println("Category no longer exists.");
+            return;
+        }
         System.out.println("Category updated.");
     }
 
@@ -138,15 +202,83 @@ public class CategoryService {
     public void deleteCategory() {
         viewCategories();
         int index = InputUtil.getInt("Enter the category number to delete: ") - 1;
+        List<Category> current = getCategories();
 
-        if (index < 0 || index >= categories.size()) {
+        if (index < 0 || index >= current.size()) {
             System.out.println("Invalid index.");
             return;
         }
+        if (!remove(current.get(index))) {
+            System.out.println("Category no longer exists.");
+            return;
+        }
+        System.out.println("Category deleted.");
+    }
+
+    // Categories in file order (a copy)
+    public synchronized List<Category> getCategories() {
+        return new ArrayList<>(categories);
+    }
+
+    // Returns the index the category was stored at (taken under the lock, so concurrent adds each get their own)
+    public synchronized int add(Category category) {
+        categories.add(category);
+        saveCategoriesToFile();
+        return categories.size() - 1;
+    }
 
+    // Add several categories with a single file write; returns the index of the first one
+    public synchronized int addAll(List<Category> added) {
+        int first = categories.size();
+        categories.addAll(added);
+        saveCategoriesToFile();
+        return first;
+    }
+
+    // Rename and/or re-budget 'category' (one returned by getCategories); a blank name or null budget keeps the old
+    // value. It is looked up again after the reload, so a list read earlier cannot point the change at another
+    // category. Returns the updated category, or null if it is gone.
+    public synchronized Category update(Category category, String name, Double budget) {
+        reloadIfChanged();
+        int index = indexOf(category);
+        if (index < 0) {
+            return null;
+        }
+        Category cat = categories.get(index);
+        if (name != null && !name.isEmpty()) cat = new Category(name, cat.getType(), cat.getBudget());
+        if (budget != null) cat.setBudget(budget);
+
+        categories.set(index, cat);
+        saveCategoriesToFile();
+        return cat;
+    }
+
+    // Same lookup as update; false if the category is gone
+    public synchronized boolean remove(Category category) {
+        reloadIfChanged();
+        int index = indexOf(category);
+        if (index < 0) {
+            return false;
+        }
         categories.remove(index);
         saveCategoriesToFile();
-        System.out.println("Category deleted.");
+        return true;
+    }
+
+    // Position of 'category' in the list: the same object, or after a reload the first one stored with the same line
+    private int indexOf(Category category) {
+        for (int i = 0; i < categories.size(); i++) {
+            if (categories.get(i) == category) {
+                return i;
+            }
+        }
+        String line = category.toFileString();
+        for (int i = 0; i < categories.size(); i++) {
+            if (categories.get(i).toFileString().equals(line)) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     //  Save all categories to file
@@ -155,7 +287,8 @@ public class CategoryService {
         for (Category cat : categories) {
             lines.add(cat.toFileString());
         }
-        FileUtil.writeLines(CATEGORY_FILE, lines);
+        FileUtil.writeLines(categoryFile, lines);
+        rebuildIndex();
     }
 
     // Optional helper (can be used in analytics later)
@@ -0,0 +1,142 @@
+// Design Patterns:
+//   - Observer Pattern (a TransactionListener; TransactionService keeps it in step with every change)
+// Where used:
+//   - StatementImporter, to skip statement rows that are already in the ledger.
+// Why used:
+//   - Each transaction is reduced to a 64-bit hash of date, amount, account and category. The index counts
+//     how many ledger rows share each hash, in a primitive open-addressing table (no boxing), so "is this row
+//     already imported?" is one O(1) probe instead of a ledger scan.
+
+
+package services;
+
+import models.Transaction;
+import models.TransactionTable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class ContentHashIndex implements TransactionListener {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // Open addressing with linear probing; key 0 marks a free slot (hash() never returns 0)
+    private long[] keys = new long[1024];
+    private int[] counts = new int[1024];
+    private int used;
+
+    public ContentHashIndex(List<Transaction> ledger) {
+        rebuild(ledger);
+    }
+
+    // Content hash of one transaction (type is left out: a statement row is the same payment either way)
+    public static long hash(String date, long amountCents, String accountName, String category) {
+        long h = FNV_OFFSET;
+        h = mix(h, date);
+        h = (h ^ amountCents) * FNV_PRIME;
+        h = mix(h, accountName);
+        h = mix(h, category);
+        h ^= h >>> 33; // Spread the high bits into the low ones used for the slot
+        return h == 0 ? 1 : h;
+    }
+
+    public static long hash(Transaction t) {
+        return hash(t.getDate(), t.getAmountCents(), t.getAccountName(), t.getCategory());
+    }
+
+    // Number of ledger rows with this content hash
+    public synchronized int count(long hash) {
+        int slot = find(hash);
+        return keys[slot] == hash ? counts[slot] : 0;
+    }
+
+    // --- TransactionListener ---
+
+    @Override
+    public synchronized void onAdded(int index, Transaction transaction) {
+        add(hash(transaction), 1);
+    }
+
+    @Override
+    public synchronized void onUpdated(int index, Transaction before, Transaction after) {
+        add(hash(before), -1);
+        add(hash(after), 1);
+    }
+
+    @Override
+    public synchronized void onRemoved(int index, Transaction transaction) {
+        add(hash(transaction), -1);
+    }
+
+    @Override
+    public synchronized void onReloaded(List<Transaction> ledger) {
+        rebuild(ledger);
+    }
+
+    private void rebuild(List<Transaction> ledger) {
+        int capacity = 1024;
+        while (capacity < ledger.size() * 2) {
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+        counts = new int[capacity];
+        used = 0;
+        if (ledger instanceof TransactionTable table) {
+            for (int row = 0; row < table.size(); row++) {
+                add(hash(table.dateOf(row), table.amountCents(row), table.accountOf(row), table.categoryOf(row)), 1);
+            }
+        } else {
+            for (Transaction t : ledger) {
+                add(hash(t), 1);
+            }
+        }
+    }
+
+    // Slots are never freed (a count may drop to 0), which keeps probing simple
+    private void add(long hash, int delta) {
+        int slot = find(hash);
+        if (keys[slot] == 0) {
+            if (delta < 0) {
+                return;
+            }
+            keys[slot] = hash;
+            used++;
+        }
+        counts[slot] = Math.max(0, counts[slot] + delta);
+        if (used * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    // Slot holding 'hash', or the free slot where it would go
+    private int find(long hash) {
+        int mask = keys.length - 1;
+        int slot = (int) hash & mask;
+        while (keys[slot] != 0 && keys[slot] != hash) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static long mix(long h, String text) {
+        for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+            h = (h ^ (b & 0xff)) * FNV_PRIME;
+        }
+        return (h ^ 0xff) * FNV_PRIME; // Field separator, so "ab"+"c" and "a"+"bc" differ
+    }
+}
@@ -0,0 +1,269 @@
+// Design Patterns:
+//   - Singleton Pattern (one credential index per application)
+//   - Identity Map (users.txt is loaded once into a hash index; lookups never rescan the file)
+// Where used:
+//   - LoginService (login and registration).
+// Why used:
+//   - A login costs one hash lookup plus one password hash, independent of the number of users.
+//   - New passwords are stored salted and slow-hashed (PBKDF2); comparisons are constant-time.
+//   - Hashing runs on a bounded worker pool, so concurrent logins proceed in parallel instead of queueing
+//     behind one lock, while a burst of logins cannot start an unbounded number of threads.
+//   - Registrations and upgrades hash before taking the lock, which then only covers the index and the file, so a
+//     login never waits for someone else's password hash.
+//
+// users.txt lines:
+//   username,pbkdf2$<iterations>$<base64 salt>$<base64 hash>   (written by registerUser)
+//   username,password                                          (older plain entries, re-hashed on first login)
+// A user's first line counts. On first login a plain entry is replaced by its hashed form: users.txt is staged
+// without the plain line and renamed over the old file. A file that still has a plain line next to a later hashed
+// one of the same user (older versions appended the hash) keeps the hash and is cleaned up the same way on loading.
+
+
+package services;
+
+import util.FileUtil;
+import util.Metrics;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+public class CredentialStore {
+
+    private static final Metrics.LatencyHistogram LOGIN_LATENCY = Metrics.timer("login");
+    private static final Metrics.CacheStats USER_INDEX = Metrics.cache("credentials");
+
+    private static final String HASH_PREFIX = "pbkdf2$";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int ITERATIONS = Integer.getInteger("finance.password.iterations", 310_000);
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private static CredentialStore instance;
+
+    private final String userFile;
+    private final Map<String, String> secrets = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final ThreadPoolExecutor hashers;
+    // Hash verified for unknown users, so a wrong username costs as much as a wrong password
+    private final String dummySecret;
+
+    private long loadedModified = -1;
+    private long loadedLength = -1;
+
+    public CredentialStore(String userFile) {
+        this.userFile = userFile;
+
+        // One hashing thread per core; when the queue is full the caller hashes itself (natural back-pressure)
+        int threads = Runtime.getRuntime().availableProcessors();
+        this.hashers = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * 64), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.hashers.allowCoreThreadTimeOut(true);
+
+        this.dummySecret = encode(newSalt(), ITERATIONS, "dummy-password");
+        reloadIfChanged();
+    }
+
+    public static synchronized CredentialStore getInstance(String userFile) {
+        if (instance == null || !instance.userFile.equals(userFile)) {
+            instance = new CredentialStore(userFile);
+        }
+        return instance;
+    }
+
+    // True if 'password' matches the stored secret for 'username'
+    public boolean verify(String username, String password) {
+        long start = LOGIN_LATENCY.start();
+        reloadIfChanged();
+        String secret = secrets.get(username);
+        boolean known = secret != null;
+        boolean matches = matches(known ? secret : dummySecret, password);
+        if (known && matches && !secret.startsWith(HASH_PREFIX)) {
+            upgrade(username, secret, password);
+        }
+        LOGIN_LATENCY.stop(start);
+        return known && matches;
+    }
+
+    // Add a user; returns false if the username is already taken
+    public boolean register(String username, String password) {
+        reloadIfChanged();
+        if (secrets.containsKey(username)) {
+            return false; // Checked again below; this just spares the hash
+        }
+
+        String secret = encode(newSalt(), ITERATIONS, password);
+        synchronized (this) {
+            reloadIfChanged();
+            if (secrets.containsKey(username)) {
+                return false;
+            }
+            FileUtil.appendLine(userFile, username + "," + secret);
+            secrets.put(username, secret);
+            rememberFileState();
+        }
+        return true;
+    }
+
+    // Replace a plain-text entry by its hashed form, in memory and in users.txt (the plain line is removed)
+    private void upgrade(String username, String oldSecret, String password) {
+        String secret = encode(newSalt(), ITERATIONS, password);
+        synchronized (this) {
+            reloadIfChanged();
+            if (!oldSecret.equals(secrets.get(username))) {
+                return; // Changed meanwhile
+            }
+            secrets.put(username, secret);
+            if (!rewriteEntries(Set.of(username))) {
+                secrets.put(username, oldSecret); // Still plain on disk; the next login tries again
+                return;
+            }
+            rememberFileState();
+        }
+    }
+
+    // Rewrite users.txt with each of 'usernames' on one line holding its current secret, at the place of its first
+    // line, and none of its other lines. Staged next to the file and renamed over it, so a crash leaves either the
+    // old or the new file. Call with the lock held; false (file unchanged) if it could not be written.
+    private boolean rewriteEntries(Set<String> usernames) {
+        List<String> lines = FileUtil.readLines(userFile);
+        List<String> rewritten = new ArrayList<>(lines.size());
+        Set<String> written = new HashSet<>();
+        for (String userLine : lines) {
+            String[] parts = userLine.split(",");
+            String username = parts.length == 2 ? parts[0].trim() : null;
+            if (username == null || !usernames.contains(username)) {
+                rewritten.add(userLine);
+            } else if (written.add(username)) {
+                rewritten.add(username + "," + secrets.get(username));
+            }
+        }
+
+        Path staged = Path.of(userFile + ".tmp");
+        try {
+            Files.write(staged, rewritten, StandardCharsets.UTF_8);
+            Files.move(staged, Path.of(userFile), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error rewriting " + userFile + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    public int size() {
+        return secrets.size();
+    }
+
+    // (Re)build the index when users.txt was changed by someone else since we last read or wrote it
+    private synchronized void reloadIfChanged() {
+        File file = new File(userFile);
+        if (file.lastModified() == loadedModified && file.length() == loadedLength) {
+            USER_INDEX.hit();
+            return;
+        }
+
+        USER_INDEX.miss();
+        secrets.clear();
+        Set<String> upgradedBefore = new HashSet<>();
+        List<String> users = FileUtil.readLines(userFile);
+        for (String userLine : users) {
+            String[] parts = userLine.split(",");
+            if (parts.length == 2) {
+                // First entry wins, like the old top-to-bottom scan, unless it is plain and an older upgrade appended its hash
+                String username = parts[0].trim();
+                String secret = parts[1].trim();
+                String first = secrets.putIfAbsent(username, secret);
+                if (first != null && !first.startsWith(HASH_PREFIX) && secret.startsWith(HASH_PREFIX)) {
+                    secrets.put(username, secret);
+                    upgradedBefore.add(username);
+                }
+            }
+        }
+        if (!upgradedBefore.isEmpty()) {
+            rewriteEntries(upgradedBefore); // Drop the plain lines those hashes replace
+        }
+        rememberFileState();
+    }
+
+    private void rememberFileState() {
+        File file = new File(userFile);
+        loadedModified = file.lastModified();
+        loadedLength = file.length();
+    }
+
+    private boolean matches(String secret, String password) {
+        if (!secret.startsWith(HASH_PREFIX)) {
+            // Older plain-text entry
+            return MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8), password.getBytes(StandardCharsets.UTF_8));
+        }
+
+        String[] parts = secret.split("\\$");
+        if (parts.length != 4) {
+            return false;
+        }
+        try {
+            int iterations = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            byte[] actual = hashers.submit(() -> hash(password, salt, iterations)).get();
+            return MessageDigest.isEqual(expected, actual);
+        } catch (IllegalArgumentException | ExecutionException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private String encode(byte[] salt, int iterations, String password) {
+        byte[] hash;
+        try {
+            hash = hashers.submit(() -> hash(password, salt, iterations)).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Password hashing interrupted", e);
+        }
+        Base64.Encoder base64 = Base64.getEncoder();
+        return HASH_PREFIX + iterations + "$" + base64.encodeToString(salt) + "$" + base64.encodeToString(hash);
+    }
+
+    private byte[] newSalt() {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        return salt;
+    }
+
+    private static byte[] hash(String password, byte[] salt, int iterations) throws GeneralSecurityException {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+// Design Patterns:
+//   - Observer Pattern (a TransactionListener; TransactionService keeps it in step with every change)
+//   - Secondary index (month buckets of rows sorted by date, over the rows of a TransactionTable)
+// Where used:
+//   - ReportService period reports (a given month, year-to-date, any date range).
+// Why used:
+//   - Dates are parsed to epoch days once, when the ledger is loaded. A range query finds its first month
+//     bucket in O(log months) and binary-searches the boundary buckets, so it costs O(log n + k)
+//     for k matching rows instead of a full scan with string comparisons.
+//
+// Each bucket holds sorted keys (epochDay << 32 | row). Rows whose date is not an ISO date are not indexed.
+
+
+package services;
+
+import models.Transaction;
+import models.TransactionTable;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+
+public class DateIndex implements TransactionListener {
+
+    // year * 12 + (month - 1) -> rows of that month
+    private final TreeMap<Integer, Bucket> months = new TreeMap<>();
+    private TransactionTable table;
+    private int size;
+
+    public DateIndex(TransactionTable table) {
+        rebuild(table);
+    }
+
+    // The ledger the row numbers refer to
+    public TransactionTable table() {
+        return table;
+    }
+
+    // Number of indexed rows (rows with an ISO date)
+    public synchronized int size() {
+        return size;
+    }
+
+    // Rows dated fromDay..toDay (inclusive epoch days), in date order. Either end may be open
+    // (Long.MIN_VALUE / Long.MAX_VALUE); it is clamped to the indexed months.
+    public synchronized int[] rows(long fromDay, long toDay) {
+        int[] rows = new int[16];
+        int count = 0;
+        if (months.isEmpty()) {
+            return new int[0];
+        }
+        fromDay = Math.max(fromDay, firstDayOf(months.firstKey()));
+        toDay = Math.min(toDay, firstDayOf(months.lastKey() + 1) - 1);
+        if (fromDay > toDay) {
+            return new int[0];
+        }
+
+        long fromKey = key(fromDay, 0);
+        long toKey = key(toDay + 1, 0);
+        for (Bucket bucket : months.subMap(monthOf(fromDay), true, monthOf(toDay), true).values()) {
+            for (int i = bucket.lowerBound(fromKey); i < bucket.size && bucket.keys[i] < toKey; i++) {
+                if (count == rows.length) {
+                    rows = Arrays.copyOf(rows, count * 2);
+                }
+                rows[count++] = (int) bucket.keys[i];
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    // --- TransactionListener ---
+
+    // TransactionService only appends, so 'index' is always the new last row
+    @Override
+    public synchronized void onAdded(int index, Transaction transaction) {
+        insert(TransactionTable.epochDayOf(transaction.getDate()), index);
+    }
+
+    @Override
+    public synchronized void onUpdated(int index, Transaction before, Transaction after) {
+        delete(TransactionTable.epochDayOf(before.getDate()), index);
+        insert(TransactionTable.epochDayOf(after.getDate()), index);
+    }
+
+    // Later rows moved up by one, so their row numbers are shifted as well (O(n), like the removal itself)
+    @Override
+    public synchronized void onRemoved(int index, Transaction transaction) {
+        delete(TransactionTable.epochDayOf(transaction.getDate()), index);
+        for (Bucket bucket : months.values()) {
+            for (int i = 0; i < bucket.size; i++) {
+                if ((int) bucket.keys[i] > index) {
+                    bucket.keys[i]--;
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void onReloaded(List<Transaction> ledger) {
+        rebuild(ledger);
+    }
+
+    private void rebuild(List<Transaction> ledger) {
+        months.clear();
+        size = 0;
+        table = ledger instanceof TransactionTable loaded ? loaded : new TransactionTable();
+        if (ledger != table) {
+            table.addAll(ledger);
+        }
+
+        // Fill the buckets unsorted, then sort each one once: O(n log n) instead of n sorted inserts
+        for (int row = 0; row < table.size(); row++) {
+            int epochDay = table.epochDay(row);
+            if (epochDay != TransactionTable.NO_EPOCH_DAY) {
+                months.computeIfAbsent(monthOf(epochDay), m -> new Bucket()).append(key(epochDay, row));
+                size++;
+            }
+        }
+        for (Bucket bucket : months.values()) {
+            Arrays.sort(bucket.keys, 0, bucket.size);
+        }
+    }
+
+    private void insert(int epochDay, int row) {
+        if (epochDay == TransactionTable.NO_EPOCH_DAY) {
+            return;
+        }
+        months.computeIfAbsent(monthOf(epochDay), m -> new Bucket()).insert(key(epochDay, row));
+        size++;
+    }
+
+    private void delete(int epochDay, int row) {
+        if (epochDay == TransactionTable.NO_EPOCH_DAY) {
+            return;
+        }
+        Integer month = monthOf(epochDay);
+        Bucket bucket = months.get(month);
+        if (bucket != null && bucket.remove(key(epochDay, row))) {
+            size--;
+            if (bucket.size == 0) {
+                months.remove(month);
+            }
+        }
+    }
+
+    // Sorts by day first, then by row
+    private static long key(long epochDay, int row) {
+        return (epochDay << 32) | row;
+    }
+
+    private static int monthOf(long epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    private static long firstDayOf(int month) {
+        return LocalDate.of(Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1, 1).toEpochDay();
+    }
+
+    // Sorted, growable array of keys for one month
+    private static class Bucket {
+        long[] keys = new long[8];
+        int size;
+
+        void append(long key) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            keys[size++] = key;
+        }
+
+        void insert(long key) {
+            int at = lowerBound(key);
+            append(key); // Grow if needed, then move the tail up by one
+            System.arraycopy(keys, at, keys, at + 1, size - 1 - at);
+            keys[at] = key;
+        }
+
+        boolean remove(long key) {
+            int at = lowerBound(key);
+            if (at == size || keys[at] != key) {
+                return false;
+            }
+            System.arraycopy(keys, at + 1, keys, at, size - at - 1);
+            size--;
+            return true;
+        }
+
+        // First position whose key is >= 'key'
+        int lowerBound(long key) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid] < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
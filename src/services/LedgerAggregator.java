@@ -0,0 +1,200 @@
+// Design Patterns:
+//   - Fork/Join (divide and conquer: the rows are split into ranges, summed in parallel, then merged)
+// Where used:
+//   - AggregateStore, when report totals are rebuilt from a loaded ledger.
+//   - ReportService period reports (over the rows DateIndex found for the period).
+// Why used:
+//   - Summing a large ledger is pure CPU work over the TransactionTable columns. Each leaf task sums its
+//     range into its own primitive arrays (no boxing, no shared state), and partial results are added up
+//     while the tasks join. Time drops roughly with the number of cores.
+//   - Totals are whole cents (long), so the merge order cannot change the result: the report is identical
+//     to a sequential pass.
+
+
+package services;
+
+import models.TransactionTable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class LedgerAggregator {
+
+    // Kinds of per-name totals held in Totals
+    public static final int INCOME_BY_CATEGORY = 0;
+    public static final int EXPENSE_BY_CATEGORY = 1;
+    public static final int INCOME_BY_ACCOUNT = 2;
+    public static final int EXPENSE_BY_ACCOUNT = 3;
+
+    // Below this many rows per task, splitting further costs more than it saves
+    private static final int MIN_LEAF_ROWS = 32 * 1024;
+
+    // Totals of every row in 'table'
+    public static Totals aggregate(TransactionTable table) {
+        return aggregate(table, null);
+    }
+
+    // Totals of the given rows of 'table' (all rows if 'rows' is null)
+    public static Totals aggregate(TransactionTable table, int[] rows) {
+        int count = rows == null ? table.size() : rows.length;
+        int leaves = ForkJoinPool.getCommonPoolParallelism() * 4;
+        return aggregate(table, rows, Math.max(MIN_LEAF_ROWS, count / leaves + 1));
+    }
+
+    // Same, with an explicit leaf size ('leafRows' >= count means one sequential pass)
+    public static Totals aggregate(TransactionTable table, int[] rows, int leafRows) {
+        int count = rows == null ? table.size() : rows.length;
+        leafRows = Math.max(1, leafRows);
+        int names = table.names().size();
+        Chunk all = new Chunk(table, rows, 0, count, names, leafRows);
+        Totals totals = count <= leafRows ? all.compute() : ForkJoinPool.commonPool().invoke(all);
+        totals.rowCount = count;
+
+        // Names are looked up once per dictionary id, after all rows are summed
+        totals.nameOf = new String[names];
+        for (int id = 0; id < names; id++) {
+            totals.nameOf[id] = table.names().valueOf(id);
+        }
+        return totals;
+    }
+
+    // Sums of one range of rows; 'names' fixes the array sizes so partial results line up by dictionary id
+    public static class Totals {
+        private final long[][] cents;
+        private final long[][] counts;
+        private String[] nameOf;
+        private int rowCount;
+        private long incomeCents;
+        private long expenseCents;
+
+        private Totals(int names) {
+            this.cents = new long[4][names];
+            this.counts = new long[4][names];
+        }
+
+        // Number of rows that were aggregated
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        public long getIncomeCents() {
+            return incomeCents;
+        }
+
+        public long getExpenseCents() {
+            return expenseCents;
+        }
+
+        // name -> {cents, number of transactions} for one kind (names without transactions are left out)
+        public Map<String, long[]> entries(int kind) {
+            Map<String, long[]> entries = new HashMap<>();
+            for (int id = 0; id < nameOf.length; id++) {
+                if (counts[kind][id] > 0) {
+                    entries.put(nameOf[id], new long[] {cents[kind][id], counts[kind][id]});
+                }
+            }
+            return entries;
+        }
+
+        // name -> cents for one kind
+        public Map<String, Long> cents(int kind) {
+            Map<String, Long> sums = new HashMap<>();
+            for (int id = 0; id < nameOf.length; id++) {
+                if (counts[kind][id] > 0) {
+                    sums.put(nameOf[id], cents[kind][id]);
+                }
+            }
+            return sums;
+        }
+
+        // name -> amount in rupees for one kind
+        public Map<String, Double> amounts(int kind) {
+            Map<String, Double> amounts = new HashMap<>();
+            for (int id = 0; id < nameOf.length; id++) {
+                if (counts[kind][id] > 0) {
+                    amounts.put(nameOf[id], cents[kind][id] / 100.0);
+                }
+            }
+            return amounts;
+        }
+
+        private void add(TransactionTable table, int row) {
+            byte type = table.typeCode(row);
+            if (type != TransactionTable.TYPE_INCOME && type != TransactionTable.TYPE_EXPENSE) {
+                return;
+            }
+            long amount = table.amountCents(row);
+            int byCategory = type == TransactionTable.TYPE_INCOME ? INCOME_BY_CATEGORY : EXPENSE_BY_CATEGORY;
+            int byAccount = type == TransactionTable.TYPE_INCOME ? INCOME_BY_ACCOUNT : EXPENSE_BY_ACCOUNT;
+            int category = table.categoryId(row);
+            int account = table.accountId(row);
+            cents[byCategory][category] += amount;
+            counts[byCategory][category]++;
+            cents[byAccount][account] += amount;
+            counts[byAccount][account]++;
+            if (type == TransactionTable.TYPE_INCOME) {
+                incomeCents += amount;
+            } else {
+                expenseCents += amount;
+            }
+        }
+
+        private void merge(Totals other) {
+            for (int kind = 0; kind < cents.length; kind++) {
+                long[] sum = cents[kind];
+                long[] n = counts[kind];
+                long[] otherSum = other.cents[kind];
+                long[] otherN = other.counts[kind];
+                for (int id = 0; id < sum.length; id++) {
+                    sum[id] += otherSum[id];
+                    n[id] += otherN[id];
+                }
+            }
+            incomeCents += other.incomeCents;
+            expenseCents += other.expenseCents;
+        }
+    }
+
+    // Rows [from, to) of the ledger, or of 'rows' when a row list is given
+    private static class Chunk extends RecursiveTask<Totals> {
+        private static final long serialVersionUID = 1L;
+
+        // Tasks are never serialized; they only live for one fork/join run
+        private final transient TransactionTable table;
+        private final int[] rows;
+        private final int from;
+        private final int to;
+        private final int names;
+        private final int leafRows;
+
+        Chunk(TransactionTable table, int[] rows, int from, int to, int names, int leafRows) {
+            this.table = table;
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+            this.names = names;
+            this.leafRows = leafRows;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (to - from <= leafRows) {
+                // Leaf: this task's own accumulators, touched by no other thread
+                Totals sums = new Totals(names);
+                for (int i = from; i < to; i++) {
+                    sums.add(table, rows == null ? i : rows[i]);
+                }
+                return sums;
+            }
+            int middle = (from + to) >>> 1;
+            Chunk left = new Chunk(table, rows, from, middle, names, leafRows);
+            Chunk right = new Chunk(table, rows, middle, to, names, leafRows);
+            left.fork();
+            Totals sums = right.compute();
+            sums.merge(left.join());
+            return sums;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+// Design Patterns:
+//   - Sketches (TopN, QuantileSketch and SpaceSaving summarize the ledger in fixed memory)
+//   - Single pass (every statistic is fed from the same scan of the TransactionTable columns)
+// Where used:
+//   - ReportService analytics report (largest expenses, transaction size percentiles, top spending accounts).
+// Why used:
+//   - Answers "what were my biggest expenses", "what is a typical Food expense" and "which accounts carry the
+//     spending" for ledgers of tens of millions of rows without sorting or copying them: memory is bounded by
+//     the number of categories and the sketch sizes, not by the number of transactions.
+//
+// Error bounds:
+//   - Largest expenses: exact.
+//   - Median / p95 per category: within QuantileSketch.RELATIVE_ERROR (about 0.8%) of a true value at that rank;
+//     count, min, max and average are exact.
+//   - Top accounts: each estimate is at most its error (never more than total spending / HEAVY_HITTER_COUNTERS)
+//     above the true spending, and exact while there are no more expense accounts than counters.
+
+
+package services;
+
+import models.Transaction;
+import models.TransactionTable;
+import util.QuantileSketch;
+import util.SpaceSaving;
+import util.StringDictionary;
+import util.TopN;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class LedgerAnalytics {
+
+    public static final int DEFAULT_TOP = 10;
+    public static final int HEAVY_HITTER_COUNTERS = 64;
+
+    private final TopN<Transaction> largestExpenses;
+    // Category -> sizes of its expense (or income) transactions, in cents
+    private final Map<String, QuantileSketch> expenseSizes = new TreeMap<>();
+    private final Map<String, QuantileSketch> incomeSizes = new TreeMap<>();
+    private final SpaceSaving<String> accountSpending = new SpaceSaving<>(HEAVY_HITTER_COUNTERS);
+    private long rows;
+
+    public LedgerAnalytics(int top) {
+        largestExpenses = new TopN<>(top);
+    }
+
+    // One pass over 'ledger'; a TransactionTable is read column by column without materializing its rows
+    public static LedgerAnalytics of(List<Transaction> ledger, int top) {
+        LedgerAnalytics analytics = new LedgerAnalytics(top);
+        if (ledger instanceof TransactionTable table) {
+            analytics.scan(table);
+        } else {
+            for (Transaction t : ledger) {
+                analytics.add(t);
+            }
+        }
+        return analytics;
+    }
+
+    public void add(Transaction t) {
+        rows++;
+        long cents = t.getAmountCents();
+        if (t.getType().equalsIgnoreCase("expense")) {
+            sketch(expenseSizes, t.getCategory()).add(cents);
+            accountSpending.add(t.getAccountName(), cents);
+            if (largestExpenses.accepts(cents)) {
+                largestExpenses.offer(cents, t.copy());
+            }
+        } else if (t.getType().equalsIgnoreCase("income")) {
+            sketch(incomeSizes, t.getCategory()).add(cents);
+        }
+    }
+
+    private void scan(TransactionTable table) {
+        StringDictionary names = table.names();
+        // Sketches are looked up by dictionary id; only the few rows that make the top list are materialized
+        QuantileSketch[] expenseById = new QuantileSketch[names.size()];
+        QuantileSketch[] incomeById = new QuantileSketch[names.size()];
+        TopN<Integer> topRows = new TopN<>(largestExpenses.capacity());
+
+        int size = table.size();
+        for (int row = 0; row < size; row++) {
+            byte type = table.typeCode(row);
+            long cents = table.amountCents(row);
+            if (type == TransactionTable.TYPE_EXPENSE) {
+                int category = table.categoryId(row);
+                if (expenseById[category] == null) {
+                    expenseById[category] = sketch(expenseSizes, names.valueOf(category));
+                }
+                expenseById[category].add(cents);
+                accountSpending.add(names.valueOf(table.accountId(row)), cents);
+                if (topRows.accepts(cents)) {
+                    topRows.offer(cents, row);
+                }
+            } else if (type == TransactionTable.TYPE_INCOME) {
+                int category = table.categoryId(row);
+                if (incomeById[category] == null) {
+                    incomeById[category] = sketch(incomeSizes, names.valueOf(category));
+                }
+                incomeById[category].add(cents);
+            }
+        }
+        rows += size;
+
+        for (int row : topRows.sortedDescending()) {
+            Transaction t = table.get(row).copy();
+            largestExpenses.offer(t.getAmountCents(), t);
+        }
+    }
+
+    private static QuantileSketch sketch(Map<String, QuantileSketch> sketches, String category) {
+        return sketches.computeIfAbsent(category, c -> new QuantileSketch());
+    }
+
+    // --- Results ---
+
+    public long getRows() {
+        return rows;
+    }
+
+    // Largest expenses first
+    public List<Transaction> getLargestExpenses() {
+        return largestExpenses.sortedDescending();
+    }
+
+    // Category -> size sketch (median: quantile(0.5), p95: quantile(0.95)), sorted by category
+    public Map<String, QuantileSketch> getExpenseSizes() {
+        return expenseSizes;
+    }
+
+    public Map<String, QuantileSketch> getIncomeSizes() {
+        return incomeSizes;
+    }
+
+    // Accounts with the most expense cents, heaviest first
+    public List<SpaceSaving.Counter<String>> getTopAccounts(int n) {
+        return accountSpending.top(n);
+    }
+
+    public SpaceSaving<String> getAccountSpending() {
+        return accountSpending;
+    }
+}
@@ -1,26 +1,19 @@
 
 package services;
 
-import util.FileUtil;
+import util.DispatchRegistry;
 import util.InputUtil;
-import java.lang.reflect.Method;
-import java.util.List;
+import util.StorageConfig;
 
 public class LoginService {
 
-    private static final String USER_FILE = "data/users.txt";
-
     
     public static boolean login() {
         try {
-            // Use Reflection internally to call doLogin method
-            Class<?> clazz = LoginService.class;
-            Method method = clazz.getDeclaredMethod("doLogin");
-            method.setAccessible(true); // Access private method
-
-            return (boolean) method.invoke(null); 
+            // Use Reflection internally to call doLogin method (private; the handle is resolved once and cached)
+            return (boolean) DispatchRegistry.staticMethod(LoginService.class, "doLogin").invokeExact();
 
-        } catch (Exception e) {
+        } catch (Throwable e) {
             System.out.println("Login failed due to error: " + e.getMessage());
             return false;
         }
@@ -33,20 +26,10 @@ public class LoginService {
         String username = InputUtil.getString("Username: ");
         String password = InputUtil.getString("Password: ");
 
-        // Read all users from file
-        List<String> users = FileUtil.readLines("data/users.txt");
-
-        for (String userLine : users) {
-            String[] parts = userLine.split(",");
-            if (parts.length == 2) {
-                String savedUsername = parts[0].trim();
-                String savedPassword = parts[1].trim();
-
-                if (username.equals(savedUsername) && password.equals(savedPassword)) {
-                    System.out.println("✅ Login successful!\n");
-                    return true;
-                }
-            }
+        if (credentials().verify(username, password)) {
+            UserLedgers.signIn(username); // Loads this user's own ledger, accounts and categories
+            System.out.println("✅ Login successful!\n");
+            return true;
         }
 
         System.out.println("❌ Invalid username or password.\n");
@@ -60,40 +43,37 @@ public class LoginService {
         String username = InputUtil.getString("Choose username: ");
         String password = InputUtil.getString("Choose password: ");
 
-        // Save user in format: username,password
-        FileUtil.appendLine("data/users.txt", username + "," + password);
+        if (!register(username, password)) {
+            System.out.println("❌ Username already exists.\n");
+            return;
+        }
         System.out.println("✅ Registration successful!\n");
     }
 
  // For testing purpose: no System.in dependency
     public static boolean loginWithCredentials(String username, String password) {
         try {
-            Method method = LoginService.class.getDeclaredMethod("doLogin", String.class, String.class);
-            method.setAccessible(true);
-            return (boolean) method.invoke(null, username, password);
-        } catch (Exception e) {
+            return (boolean) DispatchRegistry.staticMethod(LoginService.class, "doLogin", String.class, String.class)
+                    .invokeExact(username, password);
+        } catch (Throwable e) {
             System.out.println("Reflection error: " + e.getMessage());
             return false;
         }
     }
 
+    // Saved as username,<salted hash>; the in-memory index is updated too. False if the name is taken.
+    public static boolean register(String username, String password) {
+        return credentials().register(username, password);
+    }
+
     // Create this overloaded method for reflection
     private static boolean doLogin(String username, String password) {
-        List<String> users = FileUtil.readLines(USER_FILE);
-
-        for (String userLine : users) {
-            String[] parts = userLine.split(",");
-            if (parts.length == 2) {
-                String savedUsername = parts[0].trim();
-                String savedPassword = parts[1].trim();
-
-                if (username.equals(savedUsername) && password.equals(savedPassword)) {
-                    return true;
-                }
-            }
-        }
+        return credentials().verify(username, password);
+    }
 
-        return false;
+    // Hash index over users.txt, loaded once and reloaded only when the file changes
+    private static CredentialStore credentials() {
+        return CredentialStore.getInstance(StorageConfig.userFile());
     }
 
 }
@@ -0,0 +1,140 @@
+// Design Patterns:
+//   - Observer Pattern (a TransactionListener; TransactionService keeps it in step with every change)
+//   - Secondary index (a compressed RowBitmap of rows per account name and per category name)
+// Where used:
+//   - TransactionService.page and matchingRows, for filtered listings (menu, API) and ReportService filtered reports.
+// Why used:
+//   - A filter on account and/or category visits only the rows the bitmaps say can match: one bitmap, or the
+//     intersection of two, instead of a scan of the whole ledger. Time is proportional to the matching rows.
+//
+// Bitmaps are looked up by the table's dictionary id of the name, the same id the TransactionTable columns hold.
+// Results are live bitmaps: use them under TransactionService.read and do not modify them.
+
+
+package services;
+
+import models.Transaction;
+import models.TransactionTable;
+import util.RowBitmap;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class NameIndex implements TransactionListener {
+
+    private static final RowBitmap NONE = new RowBitmap();
+
+    // Dictionary id -> rows with that account (or category); null when there are none
+    private RowBitmap[] byAccount = new RowBitmap[0];
+    private RowBitmap[] byCategory = new RowBitmap[0];
+    private TransactionTable table;
+
+    public NameIndex(TransactionTable table) {
+        rebuild(table);
+    }
+
+    // The ledger the row numbers refer to
+    public TransactionTable table() {
+        return table;
+    }
+
+    public synchronized RowBitmap accountRows(String account) {
+        return lookup(byAccount, account);
+    }
+
+    public synchronized RowBitmap categoryRows(String category) {
+        return lookup(byCategory, category);
+    }
+
+    // Rows with both names (null = any); null if neither name is given, since then every row is a candidate
+    public synchronized RowBitmap rows(String account, String category) {
+        if (account == null && category == null) {
+            return null;
+        }
+        if (category == null) {
+            return accountRows(account);
+        }
+        if (account == null) {
+            return categoryRows(category);
+        }
+        return RowBitmap.and(accountRows(account), categoryRows(category));
+    }
+
+    private RowBitmap lookup(RowBitmap[] bitmaps, String name) {
+        int id = table.names().find(name);
+        return id >= 0 && id < bitmaps.length && bitmaps[id] != null ? bitmaps[id] : NONE;
+    }
+
+    // --- TransactionListener ---
+
+    @Override
+    public synchronized void onAdded(int index, Transaction transaction) {
+        insert(index, transaction);
+    }
+
+    @Override
+    public synchronized void onUpdated(int index, Transaction before, Transaction after) {
+        delete(index, before);
+        insert(index, after);
+    }
+
+    // Later rows moved up by one: every bitmap shifts its rows after 'index' (chunks before it are not touched)
+    @Override
+    public synchronized void onRemoved(int index, Transaction transaction) {
+        shift(byAccount, index);
+        shift(byCategory, index);
+    }
+
+    @Override
+    public synchronized void onReloaded(List<Transaction> ledger) {
+        rebuild(ledger);
+    }
+
+    private void rebuild(List<Transaction> ledger) {
+        table = ledger instanceof TransactionTable loaded ? loaded : new TransactionTable();
+        if (ledger != table) {
+            table.addAll(ledger);
+        }
+        byAccount = new RowBitmap[table.names().size()];
+        byCategory = new RowBitmap[table.names().size()];
+
+        // Rows are added in increasing order, which RowBitmap appends without searching
+        for (int row = 0; row < table.size(); row++) {
+            bitmap(byCategory, table.categoryId(row)).add(row);
+            bitmap(byAccount, table.accountId(row)).add(row);
+        }
+    }
+
+    private void insert(int row, Transaction t) {
+        // The table has already stored the row, so its names are in the dictionary
+        byAccount = grow(byAccount);
+        byCategory = grow(byCategory);
+        bitmap(byCategory, table.names().find(t.getCategory())).add(row);
+        bitmap(byAccount, table.names().find(t.getAccountName())).add(row);
+    }
+
+    private void delete(int row, Transaction t) {
+        lookup(byCategory, t.getCategory()).remove(row);
+        lookup(byAccount, t.getAccountName()).remove(row);
+    }
+
+    private static void shift(RowBitmap[] bitmaps, int row) {
+        for (RowBitmap bitmap : bitmaps) {
+            if (bitmap != null) {
+                bitmap.removeAndShift(row);
+            }
+        }
+    }
+
+    private static RowBitmap bitmap(RowBitmap[] bitmaps, int id) {
+        if (bitmaps[id] == null) {
+            bitmaps[id] = new RowBitmap();
+        }
+        return bitmaps[id];
+    }
+
+    private RowBitmap[] grow(RowBitmap[] bitmaps) {
+        int needed = table.names().size();
+        return bitmaps.length >= needed ? bitmaps : Arrays.copyOf(bitmaps, Math.max(needed, bitmaps.length * 2));
+    }
+}
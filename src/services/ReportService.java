@@ -1,61 +1,306 @@
 // Reflection Used:
-//   - Dynamically invoke `loadTransactions()` and `getBudgetForCategory()`
+//   - Dynamically invoke `getBudgetForCategory()` (resolved once, cached by DispatchRegistry)
+// Totals come from the current ledger's AggregateStore, which is updated incrementally on every transaction change
+// and read under the ledger's read lock, so a report never waits for, or races with, files being saved.
+// A ledger file replaced on disk (e.g. edited by hand) is loaded again before the report reads it.
+// Period reports (month, year-to-date, date range) visit only the rows DateIndex finds for the period.
+// Trend reports read only RollupStore's per-month totals, never the ledger rows.
+// Filtered reports (account, category, type, dates) start from the NameIndex bitmaps or DateIndex rows.
+// The analytics report summarizes the ledger in one pass with fixed-size sketches (LedgerAnalytics).
 
 
 package services;
 
 import models.Transaction;
-import util.FileUtil;
+import util.DispatchRegistry;
+import util.InputUtil;
+import util.Metrics;
+import util.Money;
+import util.QuantileSketch;
+import util.SpaceSaving;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.YearMonth;
 
 
-import java.lang.reflect.Method;
 import java.util.*;
 
 public class ReportService {
 
-    private static final String TRANSACTION_FILE = "data/transactions.txt";
-    private static final String CATEGORY_FILE = "data/categories.txt";
+    private static final Metrics.LatencyHistogram SUMMARY_LATENCY = Metrics.timer("report.summary");
+    private static final Metrics.LatencyHistogram PERIOD_LATENCY = Metrics.timer("report.period");
+    private static final Metrics.LatencyHistogram TREND_LATENCY = Metrics.timer("report.trend");
+    private static final Metrics.LatencyHistogram ANALYTICS_LATENCY = Metrics.timer("report.analytics");
+    private static final Metrics.LatencyHistogram FILTERED_LATENCY = Metrics.timer("report.filtered");
+
+    // Menu for reporting (static for ease of calling)
+    public static void reportMenu() {
+        while (true) {
+            System.out.println("\n===================== Reporting & Analytics ===================== ");
+            System.out.println("1. Financial Summary (all transactions)");
+            System.out.println("2. Monthly Report");
+            System.out.println("3. Year-to-Date Report");
+            System.out.println("4. Report for a Date Range");
+            System.out.println("5. Monthly Trend");
+            System.out.println("6. Analytics (largest expenses, typical sizes, top accounts)");
+            System.out.println("7. Filtered Report (by account, category, type, dates)");
+            System.out.println("8. Back to Main Menu");
+
+            int choice = InputUtil.getInt("Choose an option: ");
+
+            try {
+                switch (choice) {
+                    case 1:
+                        showReport();
+                        break;
+                    case 2:
+                        YearMonth month = YearMonth.parse(InputUtil.getString("Enter month (YYYY-MM): "));
+                        showPeriodReport(month.atDay(1), month.atEndOfMonth());
+                        break;
+                    case 3:
+                        int year = InputUtil.getInt("Enter year (YYYY): ");
+                        LocalDate today = LocalDate.now();
+                        LocalDate end = year == today.getYear() ? today : LocalDate.of(year, 12, 31);
+                        showPeriodReport(LocalDate.of(year, 1, 1), end);
+                        break;
+                    case 4:
+                        LocalDate from = LocalDate.parse(InputUtil.getString("From date (YYYY-MM-DD): "));
+                        LocalDate to = LocalDate.parse(InputUtil.getString("To date (YYYY-MM-DD): "));
+                        showPeriodReport(from, to);
+                        break;
+                    case 5:
+                        YearMonth first = YearMonth.parse(InputUtil.getString("From month (YYYY-MM): "));
+                        YearMonth last = YearMonth.parse(InputUtil.getString("To month (YYYY-MM): "));
+                        showTrendReport(first, last);
+                        break;
+                    case 6:
+                        showAnalyticsReport(LedgerAnalytics.DEFAULT_TOP);
+                        break;
+                    case 7:
+                        showFilteredReport(TransactionService.promptFilter());
+                        break;
+                    case 8:
+                        return;
+                    default:
+                        System.out.println("Invalid option. Please try again.");
+                }
+            } catch (DateTimeException e) {
+                System.out.println("Invalid date. Please use the format shown.");
+            }
+        }
+    }
 
     public static void showReport() {
+        long start = SUMMARY_LATENCY.start();
         System.out.println("\n=====================  Financial Summary Report ===================== ");
 
-        // ✅ Using Reflection to invoke private loadTransactions()
-        List<Transaction> transactions = new ArrayList<>();
-        try {
-            Method method = ReportService.class.getDeclaredMethod("loadTransactions");
-            method.setAccessible(true);
-            transactions = (List<Transaction>) method.invoke(null);
-        } catch (Exception e) {
-            System.out.println("Reflection error: " + e.getMessage());
+        AggregateStore totals = summaryTotals();
+
+        Map<String, Long> incomeByCategory = totals.getIncomeCentsByCategory();
+        Map<String, Long> expenseByCategory = totals.getExpenseCentsByCategory();
+        long totalIncome = totals.getTotalIncomeCents();
+        long totalExpense = totals.getTotalExpenseCents();
+
+        System.out.println("Total Income  : Rs. " + Money.format(totalIncome));
+        System.out.println("Total Expense : Rs. " + Money.format(totalExpense));
+        System.out.println("Current Balance: Rs. " + Money.format(totalIncome - totalExpense));
+
+        printCategoryTotals(incomeByCategory, expenseByCategory);
+
+        System.out.println("========================================================= ");
+        SUMMARY_LATENCY.stop(start);
+    }
+
+    // Summary for transactions dated from..to (inclusive). Only the rows in the period are visited:
+    // DateIndex finds them in O(log n + k) and the amounts are read straight from the table's columns.
+    public static void showPeriodReport(LocalDate from, LocalDate to) {
+        long start = PERIOD_LATENCY.start();
+        System.out.println("\n=====================  Report " + from + " to " + to + " ===================== ");
+
+        LedgerAggregator.Totals totals = periodTotals(from, to);
+        long totalIncome = totals.getIncomeCents();
+        long totalExpense = totals.getExpenseCents();
+        Map<String, Long> incomeByCategory = totals.cents(LedgerAggregator.INCOME_BY_CATEGORY);
+        Map<String, Long> expenseByCategory = totals.cents(LedgerAggregator.EXPENSE_BY_CATEGORY);
+
+        System.out.println("Transactions  : " + totals.getRowCount());
+        System.out.println("Total Income  : Rs. " + Money.format(totalIncome));
+        System.out.println("Total Expense : Rs. " + Money.format(totalExpense));
+        System.out.println("Net           : Rs. " + Money.format(totalIncome - totalExpense));
+
+        printCategoryTotals(incomeByCategory, expenseByCategory);
+
+        System.out.println("========================================================= ");
+        PERIOD_LATENCY.stop(start);
+    }
+
+    // Totals over all transactions: a copy of the live totals TransactionService maintains, taken under its read lock
+    public static AggregateStore summaryTotals() {
+        TransactionService service = TransactionService.getInstance();
+        return service.read(() -> service.getAggregates().snapshot());
+    }
+
+    // Totals for transactions dated from..to (inclusive)
+    public static LedgerAggregator.Totals periodTotals(LocalDate from, LocalDate to) {
+        // Rows and sums are taken under the ledger's read lock, so concurrent changes cannot tear the report
+        TransactionService service = TransactionService.getInstance();
+        return service.read(() -> {
+            DateIndex index = service.getDateIndex();
+            int[] rows = index.rows(from.toEpochDay(), to.toEpochDay());
+            // Summed in parallel chunks over the matching rows only
+            return LedgerAggregator.aggregate(index.table(), rows);
+        });
+    }
+
+    // Summary for the transactions matching 'filter'. Account and category filters visit only the rows in their
+    // NameIndex bitmaps (intersected when both are given), date-only filters only the DateIndex rows.
+    public static void showFilteredReport(TransactionFilter filter) {
+        long start = FILTERED_LATENCY.start();
+        System.out.println("\n=====================  Report for " + filter + " ===================== ");
+
+        LedgerAggregator.Totals totals = filteredTotals(filter);
+        long totalIncome = totals.getIncomeCents();
+        long totalExpense = totals.getExpenseCents();
+
+        System.out.println("Transactions  : " + totals.getRowCount());
+        System.out.println("Total Income  : Rs. " + Money.format(totalIncome));
+        System.out.println("Total Expense : Rs. " + Money.format(totalExpense));
+        System.out.println("Net           : Rs. " + Money.format(totalIncome - totalExpense));
+
+        printCategoryTotals(totals.cents(LedgerAggregator.INCOME_BY_CATEGORY),
+                totals.cents(LedgerAggregator.EXPENSE_BY_CATEGORY));
+
+        System.out.println("========================================================= ");
+        FILTERED_LATENCY.stop(start);
+    }
+
+    // Totals for the transactions matching 'filter', taken under the ledger's read lock
+    public static LedgerAggregator.Totals filteredTotals(TransactionFilter filter) {
+        TransactionService service = TransactionService.getInstance();
+        return service.read(() -> LedgerAggregator.aggregate(service.getNameIndex().table(), service.matchingRows(filter)));
+    }
+
+    // Month by month income, expense and net, then each expense category's total, monthly average and peak month.
+    // Costs O(months + cells in them) whatever the ledger size: only the rollups are read.
+    public static void showTrendReport(YearMonth from, YearMonth to) {
+        System.out.println("\n=====================  Trend " + from + " to " + to + " ===================== ");
+        if (from.isAfter(to)) {
+            System.out.println("The start month is after the end month.");
+            return;
         }
+        long start = TREND_LATENCY.start(); // After the check, so every started sample is stopped
 
-        Map<String, Double> incomeByCategory = new HashMap<>();
-        Map<String, Double> expenseByCategory = new HashMap<>();
-        double totalIncome = 0;
-        double totalExpense = 0;
-
-        for (Transaction tx : transactions) {
-            if (tx.getType().equalsIgnoreCase("income")) {
-                totalIncome += tx.getAmount();
-                incomeByCategory.merge(tx.getCategory(), tx.getAmount(), Double::sum);
-            } else if (tx.getType().equalsIgnoreCase("expense")) {
-                totalExpense += tx.getAmount();
-                expenseByCategory.merge(tx.getCategory(), tx.getAmount(), Double::sum);
-            }
+        // Both under one read lock, so they describe the same state of the ledger
+        RollupStore rollups = rollups();
+        Map.Entry<Map<YearMonth, long[]>, Map<YearMonth, Map<String, Long>>> trend = TransactionService.getInstance()
+                .read(() -> Map.entry(rollups.monthlyTotals(from, to), rollups.categoryTrend(from, to, "expense")));
+        Map<YearMonth, long[]> totals = trend.getKey();
+        Map<YearMonth, Map<String, Long>> expenses = trend.getValue();
+
+        System.out.printf("%-9s %16s %16s %16s%n", "Month", "Income (Rs.)", "Expense (Rs.)", "Net (Rs.)");
+        totals.forEach((month, income) -> System.out.printf("%-9s %16s %16s %16s%n", month,
+                Money.format(income[0]), Money.format(income[1]), Money.format(income[0] - income[1])));
+
+        // Category -> {total cents, peak cents, peak month index in 'months'}
+        List<YearMonth> months = new ArrayList<>(expenses.keySet());
+        Map<String, long[]> byCategory = new TreeMap<>();
+        for (int i = 0; i < months.size(); i++) {
+            int monthIndex = i;
+            expenses.get(months.get(i)).forEach((category, cents) -> {
+                long[] stats = byCategory.computeIfAbsent(category, c -> new long[]{0, Long.MIN_VALUE, 0});
+                stats[0] += cents;
+                if (cents > stats[1]) {
+                    stats[1] = cents;
+                    stats[2] = monthIndex;
+                }
+            });
+        }
+
+        System.out.println("\n--- Expense by Category ---");
+        if (byCategory.isEmpty()) {
+            System.out.println("No expense transactions.");
         }
+        byCategory.forEach((category, stats) -> System.out.println("• " + category
+                + ": Rs. " + Money.format(stats[0])
+                + " | avg/month Rs. " + Money.format(Math.round((double) stats[0] / months.size()))
+                + " | highest " + months.get((int) stats[2]) + " (Rs. " + Money.format(stats[1]) + ")"));
 
-        double balance = totalIncome - totalExpense;
+        System.out.println("========================================================= ");
+        TREND_LATENCY.stop(start);
+    }
 
-        System.out.println("Total Income  : Rs. " + totalIncome);
-        System.out.println("Total Expense : Rs. " + totalExpense);
-        System.out.println("Current Balance: Rs. " + balance);
+    // Largest expenses, median / p95 transaction size per category and the accounts with the most spending.
+    // Error bounds are described in LedgerAnalytics.
+    public static void showAnalyticsReport(int top) {
+        long start = ANALYTICS_LATENCY.start();
+        System.out.println("\n=====================  Analytics ===================== ");
+        LedgerAnalytics analytics = analytics(top);
+        System.out.println("Transactions  : " + analytics.getRows());
 
+        System.out.println("\n--- Largest Expenses ---");
+        List<Transaction> largest = analytics.getLargestExpenses();
+        if (largest.isEmpty()) {
+            System.out.println("No expense transactions.");
+        }
+        for (int i = 0; i < largest.size(); i++) {
+            System.out.println((i + 1) + ". " + largest.get(i));
+        }
+
+        System.out.println("\n--- Expense Size by Category (median / p95 within ~"
+                + Math.round(QuantileSketch.RELATIVE_ERROR * 1000) / 10.0 + "%) ---");
+        printSizes(analytics.getExpenseSizes());
+        System.out.println("\n--- Income Size by Category ---");
+        printSizes(analytics.getIncomeSizes());
+
+        // Estimates are exact until more accounts than counters have been seen; only then is the bound worth showing
+        List<SpaceSaving.Counter<String>> accounts = analytics.getTopAccounts(top);
+        boolean approximate = accounts.stream().anyMatch(account -> account.getError() > 0);
+        System.out.println("\n--- Top Accounts by Spending" + (approximate ? " (each at most Rs. "
+                + Money.format(analytics.getAccountSpending().errorBound()) + " over)" : "") + " ---");
+        if (accounts.isEmpty()) {
+            System.out.println("No expense transactions.");
+        }
+        for (SpaceSaving.Counter<String> account : accounts) {
+            System.out.println("• " + account.getKey() + ": Rs. " + Money.format(account.getEstimate())
+                    + (account.getError() > 0 ? " (± Rs. " + Money.format(account.getError()) + ")" : ""));
+        }
+
+        System.out.println("========================================================= ");
+        ANALYTICS_LATENCY.stop(start);
+    }
+
+    // One pass over the live ledger under its read lock, so the statistics describe a single ledger state
+    public static LedgerAnalytics analytics(int top) {
+        TransactionService service = TransactionService.getInstance();
+        return service.read(() -> LedgerAnalytics.of(service.getDateIndex().table(), top));
+    }
+
+    private static void printSizes(Map<String, QuantileSketch> sizes) {
+        if (sizes.isEmpty()) {
+            System.out.println("No transactions.");
+        }
+        sizes.forEach((category, sketch) -> System.out.println("• " + category + ": " + sketch.getCount() + " txns"
+                + " | median Rs. " + Money.format(sketch.quantile(0.5))
+                + " | p95 Rs. " + Money.format(sketch.quantile(0.95))
+                + " | max Rs. " + Money.format(sketch.getMax())
+                + " | avg Rs. " + Money.format(Math.round((double) sketch.getSum() / sketch.getCount()))));
+    }
+
+    // The current ledger's live monthly rollups. TransactionService changes them under its write lock,
+    // so query them inside TransactionService.read for answers that belong together.
+    public static RollupStore rollups() {
+        return TransactionService.getInstance().getRollups();
+    }
+
+    // Income and expense per category (in cents); expenses are checked against the category budget in cents too
+    private static void printCategoryTotals(Map<String, Long> incomeByCategory, Map<String, Long> expenseByCategory) {
         System.out.println("\n--- Income by Category ---");
         if (incomeByCategory.isEmpty()) {
             System.out.println("No income transactions.");
         } else {
             incomeByCategory.forEach((cat, amt) ->
-                System.out.println("• " + cat + ": Rs. " + amt)
+                System.out.println("• " + cat + ": Rs. " + Money.format(amt))
             );
         }
 
@@ -63,69 +308,32 @@ public class ReportService {
         if (expenseByCategory.isEmpty()) {
             System.out.println("No expense transactions.");
         } else {
-            for (Map.Entry<String, Double> entry : expenseByCategory.entrySet()) {
+            for (Map.Entry<String, Long> entry : expenseByCategory.entrySet()) {
                 String cat = entry.getKey();
-                double amt = entry.getValue();
-                System.out.print("• " + cat + ": Rs. " + amt);
+                long amt = entry.getValue();
+                System.out.print("• " + cat + ": Rs. " + Money.format(amt));
 
-                // Call private getBudgetForCategory() via reflection
+                // Call private getBudgetForCategory() through its cached MethodHandle
                 double budgetLimit = 0;
                 try {
-                    Method budgetMethod = ReportService.class.getDeclaredMethod("getBudgetForCategory", String.class);
-                    budgetMethod.setAccessible(true);
-                    budgetLimit = (double) budgetMethod.invoke(null, cat);
-                } catch (Exception e) {
+                    budgetLimit = (double) DispatchRegistry.staticMethod(ReportService.class, "getBudgetForCategory", String.class)
+                            .invokeExact(cat);
+                } catch (Throwable e) {
                     System.out.print(" ⚠️ (Budget fetch error)");
                 }
 
-                if (budgetLimit > 0 && amt > budgetLimit) {
-                    System.out.print(" 🔴 (Over Budget: " + budgetLimit + ")");
+                long budgetCents = Money.toCents(budgetLimit); // Stored in cents, so this is exact
+                if (budgetCents > 0 && amt > budgetCents) {
+                    System.out.print(" 🔴 (Over Budget: " + Money.format(budgetCents) + ")");
                 }
                 System.out.println();
             }
         }
-
-        System.out.println("========================================================= ");
-    }
-
-    //  Load transactions from file (now called reflectively)
-   private static List<Transaction> loadTransactions() {
-    List<Transaction> list = new ArrayList<>();
-    List<String> lines = FileUtil.readLines(TRANSACTION_FILE);
-
-    for (String line : lines) {
-        String[] parts = line.split(",");
-        if (parts.length == 5) {
-            String date = parts[0];
-            String type = parts[1];
-            String category = parts[2];
-            double amount = Double.parseDouble(parts[3]);
-            String accountName = parts[4];
-
-            list.add(new Transaction(date, type, category, amount, accountName));
-        }
     }
-    return list;
-}
 
-
-    // Check budget of a given category (now called reflectively)
+    // Check budget of a given category (now called reflectively); answered from CategoryService's in-memory index
     private static double getBudgetForCategory(String categoryName) {
-        List<String> lines = FileUtil.readLines(CATEGORY_FILE);
-        for (String line : lines) {
-            String[] parts = line.split(",");
-            if (parts.length == 3) {
-                String name = parts[0];
-                String type = parts[1];
-                double budget = Double.parseDouble(parts[2]);
-
-                if (name.equalsIgnoreCase(categoryName) && type.equalsIgnoreCase("expense")) {
-                    return budget;
-                }
-            }
-        }
-        return 0; // Default: no budget
+        return CategoryService.getInstance().getBudget(categoryName, "expense");
     }
 
-	
 }
@@ -0,0 +1,293 @@
+// Design Patterns:
+//   - Observer Pattern (listens to TransactionService and updates the rollups on every change)
+//   - Materialized View / OLAP cube (totals per year-month, type, category and account are kept ready)
+// Where used:
+//   - ReportService trend reports (monthly income/expense and spending per category per month).
+// Why used:
+//   - A trend over N months reads N month entries instead of scanning the whole ledger, so five years of history
+//     cost the same whether the ledger holds a thousand rows or ten million.
+//   - Persisted next to the ledger with the ledger stamp it belongs to, like AggregateStore; a stamp mismatch means
+//     the ledger changed behind our back and the rollups are rebuilt from it. Unlike the totals, TransactionService
+//     saves the cube only when the journal checkpoints and when the ledger is unloaded, not after every batch.
+//
+// File layout:
+//   #stamp,<ledger stamp>
+//   <yyyy-MM>,<I|E>,<category>,<account>,<cents>,<count>
+//
+// Rows whose date is not an ISO yyyy-MM-dd date, or whose type is neither income nor expense, are not rolled up.
+
+
+package services;
+
+import models.Transaction;
+import models.TransactionTable;
+import util.FileUtil;
+import util.StringDictionary;
+import util.TransactionJournal;
+
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+public class RollupStore implements TransactionListener {
+
+    private static final String STAMP_PREFIX = "#stamp,";
+
+    // Per file: the store last used for it in this JVM, reused like AggregateStore's (one lock per file, weak
+    // references so an unloaded user's rollups can be collected)
+    private static final Map<String, Slot> SLOTS = new ConcurrentHashMap<>();
+
+    private static final class Slot {
+        WeakReference<RollupStore> store = new WeakReference<>(null);
+    }
+
+    // One cube cell: everything in a month with the same type, category and account
+    private record Cell(boolean income, String category, String account) {
+    }
+
+    // Month index (year * 12 + month - 1) -> cell -> {cents, count}
+    private final NavigableMap<Integer, Map<Cell, long[]>> months = new TreeMap<>();
+    private String stamp = "";
+
+    // Rollups matching the ledger behind 'journal': in-memory copy, persisted file, or a fresh scan (in that order)
+    public static RollupStore forLedger(TransactionJournal journal, String path, Supplier<List<Transaction>> ledger) {
+        Slot slot = SLOTS.computeIfAbsent(path, p -> new Slot());
+        synchronized (slot) {
+            String current = journal.stamp();
+            RollupStore store = slot.store.get();
+            if (store != null && store.stamp.equals(current)) {
+                return store;
+            }
+
+            store = load(path);
+            if (store == null || !store.stamp.equals(current)) {
+                store = new RollupStore();
+                store.onReloaded(ledger.get());
+                store.save(path, current);
+            }
+            slot.store = new WeakReference<>(store);
+            return store;
+        }
+    }
+
+    // --- TransactionListener ---
+
+    @Override
+    public synchronized void onAdded(int index, Transaction transaction) {
+        apply(transaction, 1);
+    }
+
+    @Override
+    public synchronized void onUpdated(int index, Transaction before, Transaction after) {
+        apply(before, -1);
+        apply(after, 1);
+    }
+
+    @Override
+    public synchronized void onRemoved(int index, Transaction transaction) {
+        apply(transaction, -1);
+    }
+
+    @Override
+    public synchronized void onReloaded(List<Transaction> ledger) {
+        months.clear();
+        if (ledger instanceof TransactionTable table) {
+            rebuild(table);
+            return;
+        }
+        for (Transaction t : ledger) {
+            apply(t, 1);
+        }
+    }
+
+    // --- Queries (cents; every month from..to inclusive is present, empty months as zero) ---
+
+    // Month -> {income cents, expense cents}
+    public synchronized Map<YearMonth, long[]> monthlyTotals(YearMonth from, YearMonth to) {
+        Map<YearMonth, long[]> totals = emptyMonths(from, to, () -> new long[2]);
+        forEachCell(from, to, (month, cell, entry) -> totals.get(month)[cell.income() ? 0 : 1] += entry[0]);
+        return totals;
+    }
+
+    // Month -> category -> cents, for one type ("income" or "expense")
+    public synchronized Map<YearMonth, Map<String, Long>> categoryTrend(YearMonth from, YearMonth to, String type) {
+        boolean income = type.equalsIgnoreCase("income");
+        Map<YearMonth, Map<String, Long>> trend = emptyMonths(from, to, TreeMap::new);
+        forEachCell(from, to, (month, cell, entry) -> {
+            if (cell.income() == income) {
+                trend.get(month).merge(cell.category(), entry[0], Long::sum);
+            }
+        });
+        return trend;
+    }
+
+    // Month -> account -> cents, for one type ("income" or "expense")
+    public synchronized Map<YearMonth, Map<String, Long>> accountTrend(YearMonth from, YearMonth to, String type) {
+        boolean income = type.equalsIgnoreCase("income");
+        Map<YearMonth, Map<String, Long>> trend = emptyMonths(from, to, TreeMap::new);
+        forEachCell(from, to, (month, cell, entry) -> {
+            if (cell.income() == income) {
+                trend.get(month).merge(cell.account(), entry[0], Long::sum);
+            }
+        });
+        return trend;
+    }
+
+    // First and last month with any rolled-up transaction, or null if there is none
+    public synchronized YearMonth firstMonth() {
+        return months.isEmpty() ? null : toYearMonth(months.firstKey());
+    }
+
+    public synchronized YearMonth lastMonth() {
+        return months.isEmpty() ? null : toYearMonth(months.lastKey());
+    }
+
+    // Number of cells across all months (what the side file holds instead of one line per transaction)
+    public synchronized int cellCount() {
+        int cells = 0;
+        for (Map<Cell, long[]> month : months.values()) {
+            cells += month.size();
+        }
+        return cells;
+    }
+
+    @FunctionalInterface
+    private interface CellVisitor {
+        void visit(YearMonth month, Cell cell, long[] entry);
+    }
+
+    // Visit only the months in range: O(months in range + their cells), independent of the ledger size
+    private void forEachCell(YearMonth from, YearMonth to, CellVisitor visitor) {
+        if (from.isAfter(to)) {
+            return;
+        }
+        for (Map.Entry<Integer, Map<Cell, long[]>> month : months.subMap(indexOf(from), true, indexOf(to), true).entrySet()) {
+            YearMonth yearMonth = toYearMonth(month.getKey());
+            month.getValue().forEach((cell, entry) -> visitor.visit(yearMonth, cell, entry));
+        }
+    }
+
+    private static <V> Map<YearMonth, V> emptyMonths(YearMonth from, YearMonth to, Supplier<V> empty) {
+        Map<YearMonth, V> result = new TreeMap<>();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            result.put(month, empty.get());
+        }
+        return result;
+    }
+
+    // --- Persistence ---
+
+    public synchronized void save(String path, String ledgerStamp) {
+        stamp = ledgerStamp;
+        List<String> lines = new ArrayList<>();
+        lines.add(STAMP_PREFIX + ledgerStamp);
+        months.forEach((month, cells) -> {
+            String prefix = toYearMonth(month) + ",";
+            cells.forEach((cell, entry) -> lines.add(prefix + (cell.income() ? "I," : "E,") + cell.category() + ","
+                    + cell.account() + "," + entry[0] + "," + entry[1]));
+        });
+        // Not waited for: load() and readLines wait for queued writes, and the rollups can always be rebuilt
+        FileUtil.writeLinesAsync(path, lines);
+    }
+
+    // Read persisted rollups (null if missing or unreadable)
+    public static RollupStore load(String path) {
+        try {
+            FileUtil.await(path);
+        } catch (UncheckedIOException e) {
+            return null; // The last save failed, so the file cannot be trusted
+        }
+        if (!new File(path).exists()) {
+            return null;
+        }
+        List<String> lines = FileUtil.readLines(path);
+        if (lines.isEmpty() || !lines.get(0).startsWith(STAMP_PREFIX)) {
+            return null;
+        }
+
+        RollupStore store = new RollupStore();
+        store.stamp = lines.get(0).substring(STAMP_PREFIX.length());
+        try {
+            for (int i = 1; i < lines.size(); i++) {
+                String[] parts = lines.get(i).split(",");
+                if (parts.length != 6 || !(parts[1].equals("I") || parts[1].equals("E"))) {
+                    return null;
+                }
+                Cell cell = new Cell(parts[1].equals("I"), parts[2], parts[3]);
+                long[] entry = {Long.parseLong(parts[4]), Long.parseLong(parts[5])};
+                store.months.computeIfAbsent(indexOf(YearMonth.parse(parts[0])), m -> new HashMap<>()).put(cell, entry);
+            }
+        } catch (RuntimeException e) {
+            return null;
+        }
+        return store;
+    }
+
+    // --- Updates ---
+
+    // Add (sign = 1) or remove (sign = -1) one transaction; cells and months disappear with their last transaction
+    private void apply(Transaction t, int sign) {
+        boolean income = t.getType().equalsIgnoreCase("income");
+        if (!income && !t.getType().equalsIgnoreCase("expense")) {
+            return;
+        }
+        int epochDay = TransactionTable.epochDayOf(t.getDate());
+        if (epochDay == TransactionTable.NO_EPOCH_DAY) {
+            return;
+        }
+        int month = indexOf(YearMonth.from(LocalDate.ofEpochDay(epochDay)));
+        Map<Cell, long[]> cells = months.computeIfAbsent(month, m -> new HashMap<>());
+        Cell cell = new Cell(income, t.getCategory(), t.getAccountName());
+        long[] entry = cells.computeIfAbsent(cell, c -> new long[2]);
+        entry[0] += t.getAmountCents() * sign;
+        entry[1] += sign;
+        if (entry[1] <= 0) {
+            cells.remove(cell);
+            if (cells.isEmpty()) {
+                months.remove(month);
+            }
+        }
+    }
+
+    // One pass over the table's columns; the month is only recomputed when the date changes from the previous row
+    private void rebuild(TransactionTable table) {
+        StringDictionary names = table.names();
+        int lastDay = TransactionTable.NO_EPOCH_DAY;
+        Map<Cell, long[]> cells = null;
+        for (int row = 0; row < table.size(); row++) {
+            byte type = table.typeCode(row);
+            int epochDay = table.epochDay(row);
+            if ((type != TransactionTable.TYPE_INCOME && type != TransactionTable.TYPE_EXPENSE)
+                    || epochDay == TransactionTable.NO_EPOCH_DAY) {
+                continue;
+            }
+            if (epochDay != lastDay || cells == null) {
+                lastDay = epochDay;
+                cells = months.computeIfAbsent(indexOf(YearMonth.from(LocalDate.ofEpochDay(epochDay))), m -> new HashMap<>());
+            }
+            Cell cell = new Cell(type == TransactionTable.TYPE_INCOME,
+                    names.valueOf(table.categoryId(row)), names.valueOf(table.accountId(row)));
+            long[] entry = cells.computeIfAbsent(cell, c -> new long[2]);
+            entry[0] += table.amountCents(row);
+            entry[1]++;
+        }
+    }
+
+    private static int indexOf(YearMonth month) {
+        return month.getYear() * 12 + month.getMonthValue() - 1;
+    }
+
+    private static YearMonth toYearMonth(int index) {
+        return YearMonth.of(Math.floorDiv(index, 12), Math.floorMod(index, 12) + 1);
+    }
+}
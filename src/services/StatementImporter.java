@@ -0,0 +1,300 @@
+// Design Patterns:
+//   - Pipeline (each statement row flows through parse -> normalize -> validate -> dedupe -> batch commit)
+// Where used:
+//   - TransactionService menu ("Import Statement File") and the "--import" command in Main.
+// Why used:
+//   - The file is streamed line by line, so a large statement never has to fit in memory as text.
+//   - Rows are committed through TransactionService.ingestAll in batches: one journal append and one
+//     aggregate save per batch instead of per row.
+//   - Duplicates are found with ContentHashIndex (date, amount, account, category). A statement row is imported
+//     only if the ledger holds fewer identical rows than the statement has seen so far, so importing the same or an
+//     overlapping statement again adds nothing twice, while genuinely repeated payments are still kept.
+//
+// Accepted input:
+//   - CSV: date,type,category,amount,accountName (the ledger format), date,type,category,amount (default account),
+//     or date,description,amount (signed amount; negative is an expense). A header line is skipped as invalid.
+//   - OFX/QFX: <STMTTRN> blocks with DTPOSTED, TRNAMT, NAME (or MEMO); the account comes from ACCTID.
+//
+// A file that cannot be read (missing, or failing part way) gives a Result with isFailed() set; rows read before
+// the failure are still committed, so importing the file again once it is readable picks up where it stopped.
+
+
+package services;
+
+import models.Transaction;
+import models.TransactionTable;
+import util.InputUtil;
+import util.Money;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class StatementImporter {
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    // Menu entry: ask for the file and account, then import
+    public static void importMenu() {
+        String path = InputUtil.getString("Statement file (CSV or OFX): ");
+        String account = InputUtil.getString("Account name for rows without one: ");
+        printResult(importFile(path, account));
+    }
+
+    public static Result importFile(String path, String defaultAccount) {
+        return importFile(TransactionService.getInstance(), path, defaultAccount, DEFAULT_BATCH_SIZE);
+    }
+
+    public static Result importFile(TransactionService service, String path, String defaultAccount, int batchSize) {
+        Pipeline pipeline = new Pipeline(service, defaultAccount, Math.max(1, batchSize));
+        long start = System.nanoTime();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(path), StandardCharsets.UTF_8))) {
+            if (isOfx(path, reader)) {
+                parseOfx(reader, pipeline);
+            } else {
+                parseCsv(reader, pipeline);
+            }
+        } catch (IOException e) {
+            pipeline.result.error = e.getMessage() == null ? e.toString() : e.getMessage();
+        }
+        pipeline.commit();
+        pipeline.result.elapsedNanos = System.nanoTime() - start;
+        return pipeline.result;
+    }
+
+    public static void printResult(Result result) {
+        if (result.isFailed()) {
+            System.out.println("Error reading file: " + result.getError());
+        }
+        System.out.println("Rows read     : " + result.getRead());
+        System.out.println("Imported      : " + result.getImported());
+        System.out.println("Duplicates    : " + result.getDuplicates());
+        System.out.println("Invalid       : " + result.getInvalid());
+        System.out.printf("Throughput    : %.0f rows/s%n", result.getRowsPerSecond());
+    }
+
+    // Counts for one import run
+    public static class Result {
+        private int read;
+        private int imported;
+        private int duplicates;
+        private int invalid;
+        private long elapsedNanos;
+        private String error;
+
+        public int getRead() {
+            return read;
+        }
+
+        public int getImported() {
+            return imported;
+        }
+
+        public int getDuplicates() {
+            return duplicates;
+        }
+
+        public int getInvalid() {
+            return invalid;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        // True if the file could not be read to the end
+        public boolean isFailed() {
+            return error != null;
+        }
+
+        // Why the file could not be read, or null
+        public String getError() {
+            return error;
+        }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : read * 1e9 / elapsedNanos;
+        }
+    }
+
+    // --- Parse ---
+
+    // By extension, or by an OFX header at the start of the file
+    private static boolean isOfx(String path, BufferedReader reader) throws IOException {
+        String lower = path.toLowerCase();
+        if (lower.endsWith(".ofx") || lower.endsWith(".qfx")) {
+            return true;
+        }
+        reader.mark(4096);
+        char[] head = new char[4096];
+        int n = reader.read(head);
+        reader.reset();
+        String start = n > 0 ? new String(head, 0, n).stripLeading() : "";
+        return start.startsWith("OFXHEADER") || start.startsWith("<OFX>") || start.contains("<OFX>");
+    }
+
+    private static void parseCsv(BufferedReader reader, Pipeline pipeline) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] f = line.split(",", -1);
+            switch (f.length) {
+                case 5:
+                    pipeline.accept(f[0], f[1], f[2], f[3], f[4]);
+                    break;
+                case 4:
+                    pipeline.accept(f[0], f[1], f[2], f[3], null);
+                    break;
+                case 3:
+                    pipeline.accept(f[0], null, f[1], f[2], null);
+                    break;
+                default:
+                    pipeline.reject();
+            }
+        }
+    }
+
+    // SGML-style OFX (closing tags optional): one value per tag, transactions between <STMTTRN> and </STMTTRN>
+    private static void parseOfx(BufferedReader reader, Pipeline pipeline) throws IOException {
+        String account = null;
+        Map<String, String> trn = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            for (String token : line.split("<")) {
+                int close = token.indexOf('>');
+                if (close < 0) {
+                    continue;
+                }
+                String tag = token.substring(0, close).trim().toUpperCase();
+                String value = token.substring(close + 1).trim();
+                if (tag.equals("STMTTRN")) {
+                    trn = new HashMap<>();
+                } else if (tag.equals("/STMTTRN") && trn != null) {
+                    String name = trn.getOrDefault("NAME", trn.get("MEMO"));
+                    pipeline.accept(trn.get("DTPOSTED"), null, name, trn.get("TRNAMT"), account);
+                    trn = null;
+                } else if (tag.equals("ACCTID")) {
+                    account = value;
+                } else if (trn != null && !tag.startsWith("/")) {
+                    trn.put(tag, value);
+                }
+            }
+        }
+    }
+
+    // --- Normalize, validate, dedupe, commit ---
+
+    private static class Pipeline {
+        final TransactionService service;
+        final String defaultAccount;
+        final int batchSize;
+        final ContentHashIndex hashes;
+        // content hash -> {rows already in the ledger when first seen, rows seen in this statement}
+        final Map<Long, int[]> seen = new HashMap<>();
+        final Result result = new Result();
+        List<Transaction> batch = new ArrayList<>();
+
+        Pipeline(TransactionService service, String defaultAccount, int batchSize) {
+            this.service = service;
+            this.defaultAccount = defaultAccount;
+            this.batchSize = batchSize;
+            this.hashes = service.getContentHashes();
+        }
+
+        // A null type means the sign of the amount decides it; a null account means the default account
+        void accept(String date, String type, String category, String amount, String account) {
+            result.read++;
+            Transaction t = normalize(date, type, category, amount, account == null ? defaultAccount : account);
+            if (t == null) {
+                result.invalid++;
+                return;
+            }
+
+            long hash = ContentHashIndex.hash(t);
+            int[] counts = seen.computeIfAbsent(hash, h -> new int[] {hashes.count(h), 0});
+            if (++counts[1] <= counts[0]) {
+                result.duplicates++;
+                return;
+            }
+
+            batch.add(t);
+            if (batch.size() >= batchSize) {
+                commit();
+            }
+        }
+
+        void reject() {
+            result.read++;
+            result.invalid++;
+        }
+
+        void commit() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            result.imported += service.ingestAll(batch).join();
+            batch = new ArrayList<>();
+        }
+
+        // Returns null if the row is not a valid transaction
+        private Transaction normalize(String date, String type, String category, String amountText, String account) {
+            if (date == null || category == null || amountText == null || account == null) {
+                return null;
+            }
+            long amountCents;
+            try {
+                amountCents = Money.parseCents(amountText);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (amountCents == 0) {
+                return null;
+            }
+
+            String kind;
+            if (type == null) {
+                kind = amountCents < 0 ? "expense" : "income";
+            } else {
+                kind = switch (type.trim().toLowerCase()) {
+                    case "income", "credit" -> "income";
+                    case "expense", "debit" -> "expense";
+                    default -> null;
+                };
+            }
+            String isoDate = isoDate(date.trim());
+            String name = clean(category);
+            String accountName = clean(account);
+            if (kind == null || isoDate == null || name.isEmpty() || accountName.isEmpty()) {
+                return null;
+            }
+            return Transaction.ofCents(isoDate, kind, name, Math.abs(amountCents), accountName);
+        }
+
+        // yyyy-MM-dd, yyyyMMdd[hhmmss...] (OFX) or dd/MM/yyyy -> yyyy-MM-dd; null if it is not a real date
+        private static String isoDate(String date) {
+            String iso;
+            if (date.length() >= 8 && date.substring(0, 8).chars().allMatch(Character::isDigit)) {
+                iso = date.substring(0, 4) + "-" + date.substring(4, 6) + "-" + date.substring(6, 8);
+            } else if (date.length() == 10 && date.charAt(2) == '/' && date.charAt(5) == '/') {
+                iso = date.substring(6) + "-" + date.substring(3, 5) + "-" + date.substring(0, 2);
+            } else {
+                iso = date;
+            }
+            return TransactionTable.epochDayOf(iso) == TransactionTable.NO_EPOCH_DAY ? null : iso;
+        }
+
+        // The ledger is comma-separated, so commas inside names become spaces
+        private static String clean(String text) {
+            return text.replace(',', ' ').trim();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+// Design Pattern: Specification Pattern (a reusable "does this row match?" test, combined with AND)
+// Where used:
+//   - TransactionService.page (menu listings, edit/delete lookups) and the API's filtered listing.
+// Why used:
+//   - Filters are checked against the TransactionTable columns: account and category names are looked up in the
+//     table's dictionary once per page, so each row costs a few int comparisons and no Transaction or String.
+//   - A filter on names only visits the rows NameIndex lists for them; a filter on dates only, the rows of DateIndex
+//     in its range (a page scans the ledger instead when the range holds more rows than are left after the cursor).
+//
+// Every criterion is optional (null = any). Dates are inclusive; rows without an ISO date never match a date filter.
+
+
+package services;
+
+import models.TransactionTable;
+
+import java.time.LocalDate;
+
+public class TransactionFilter {
+
+    public static final TransactionFilter ALL = new TransactionFilter(null, null, null, null, null);
+
+    private final String account;
+    private final String category;
+    private final String type;
+    private final LocalDate from;
+    private final LocalDate to;
+
+    public TransactionFilter(String account, String category, String type, LocalDate from, LocalDate to) {
+        if (type != null && !type.equalsIgnoreCase("income") && !type.equalsIgnoreCase("expense")) {
+            throw new IllegalArgumentException("Invalid transaction type: " + type);
+        }
+        this.account = account;
+        this.category = category;
+        this.type = type;
+        this.from = from;
+        this.to = to;
+    }
+
+    public String getAccount() {
+        return account;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public boolean isEmpty() {
+        return account == null && category == null && type == null && from == null && to == null;
+    }
+
+    @Override
+    public String toString() {
+        if (isEmpty()) {
+            return "all transactions";
+        }
+        StringBuilder text = new StringBuilder();
+        append(text, "account", account);
+        append(text, "category", category);
+        append(text, "type", type);
+        append(text, "from", from);
+        append(text, "to", to);
+        return text.toString();
+    }
+
+    private static void append(StringBuilder text, String name, Object value) {
+        if (value != null) {
+            text.append(text.length() == 0 ? "" : ", ").append(name).append(' ').append(value);
+        }
+    }
+
+    // This filter resolved against one table; valid while the table is not changed (i.e. under its read lock)
+    Matcher matcher(TransactionTable table) {
+        return new Matcher(table);
+    }
+
+    class Matcher {
+        private static final int ANY = -2;
+
+        private final TransactionTable table;
+        private final int accountId;
+        private final int categoryId;
+        private final int typeCode;
+        private final long fromDay;
+        private final long toDay;
+        private final boolean dated;
+
+        Matcher(TransactionTable table) {
+            this.table = table;
+            // An unknown name resolves to -1, which no row has, so the filter then matches nothing
+            accountId = account == null ? ANY : table.names().find(account);
+            categoryId = category == null ? ANY : table.names().find(category);
+            typeCode = type == null ? ANY
+                    : type.equalsIgnoreCase("income") ? TransactionTable.TYPE_INCOME : TransactionTable.TYPE_EXPENSE;
+            fromDay = from == null ? Long.MIN_VALUE : from.toEpochDay();
+            toDay = to == null ? Long.MAX_VALUE : to.toEpochDay();
+            dated = from != null || to != null;
+        }
+
+        boolean matches(int row) {
+            if (accountId != ANY && table.accountId(row) != accountId) {
+                return false;
+            }
+            if (categoryId != ANY && table.categoryId(row) != categoryId) {
+                return false;
+            }
+            if (typeCode != ANY && table.typeCode(row) != typeCode) {
+                return false;
+            }
+            if (dated) {
+                int day = table.epochDay(row);
+                return day != TransactionTable.NO_EPOCH_DAY && day >= fromDay && day <= toDay;
+            }
+            return true;
+        }
+    }
+}
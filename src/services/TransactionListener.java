@@ -0,0 +1,27 @@
+// Design Pattern: Observer Pattern
+// Where used:
+//   - TransactionService notifies registered listeners after every add, edit, delete and transfer.
+// Why used:
+//   - Derived data (report totals, indexes, ...) is kept up to date incrementally instead of rescanning the ledger.
+
+
+package services;
+
+import models.Transaction;
+
+import java.util.List;
+
+public interface TransactionListener {
+
+    // A transaction was appended at 'index'
+    void onAdded(int index, Transaction transaction);
+
+    // The transaction at 'index' changed from 'before' to 'after'
+    void onUpdated(int index, Transaction before, Transaction after);
+
+    // The transaction at 'index' was removed (later rows moved up by one)
+    void onRemoved(int index, Transaction transaction);
+
+    // The whole ledger was (re)loaded
+    void onReloaded(List<Transaction> ledger);
+}
@@ -0,0 +1,42 @@
+// One page of a filtered listing (TransactionService.page): detached copies of the matching rows, their row
+// numbers (what update and delete take), and the cursor to pass for the next page.
+
+
+package services;
+
+import models.Transaction;
+
+import java.util.List;
+
+public class TransactionPage {
+
+    // getNextCursor() once the end of the ledger has been reached
+    public static final int END = -1;
+
+    private final int[] rows;
+    private final List<Transaction> items;
+    private final int nextCursor;
+
+    TransactionPage(int[] rows, List<Transaction> items, int nextCursor) {
+        this.rows = rows;
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Row number (0-based ledger index) of each item
+    public int[] getRows() {
+        return rows;
+    }
+
+    public List<Transaction> getItems() {
+        return items;
+    }
+
+    public int getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != END;
+    }
+}
@@ -1,43 +1,158 @@
 // Design Patterns: 
-//   - Singleton Pattern (ensures only one instance of service manages transactions)
-//   - Observer Pattern (not implemented here but can be used to notify other parts on transaction changes)
+//   - Singleton Pattern (one instance per ledger: the shared one in data/ is an initialization-on-demand holder,
+//     each user's partition is owned by UserLedgers)
+//   - Observer Pattern (registered TransactionListeners, e.g. AggregateStore, are notified of every change)
+//   - Producer/Consumer with a single writer (any thread may submit changes; one writer thread applies and persists them)
+//   - The ledger is held in a TransactionTable (primitive columns); list entries are views of its rows
 // Where used: 
 //   - This class manages all transaction-related operations: add, edit, delete, list, and transfer between accounts.
 // Why used: 
-//   - Singleton ensures consistent transaction state throughout the app.
+//   - Singleton ensures consistent transaction state throughout the app. getInstance() is the ledger of the current
+//     user (see UserLedgers.current()), so menus, reports and the API all work on the signed-in user's partition.
 //   - This structure keeps transaction logic decoupled from UI and data persistence (single responsibility).
+//   - Producers only enqueue on a lock-free queue. The writer drains it in batches, applies each batch under the
+//     write lock and persists it (one aggregate save per batch). Readers take the read lock, so listings and
+//     reports always see a state between two complete changes.
+//   - The console menus return as soon as their change is applied in memory; the save completes behind the next
+//     prompt, and if it fails that is printed when it happens. A shutdown hook waits for queued changes, so
+//     leaving main (Exit) right after a change still saves it.
+//   - Listings are paged with a cursor and an optional TransactionFilter: a page visits only the rows up to its end
+//     and copies only its matches, so neither listing nor picking a row to edit or delete dumps the whole ledger.
+//   - Filters on account or category walk the NameIndex bitmaps instead of the ledger, in time proportional to
+//     the matches.
+//   - A user's ledger evicted by UserLedgers is closed: queued changes are persisted, then the writer thread ends.
+//   - A base ledger replaced on disk (e.g. edited by hand while the app runs) is loaded again before the next batch
+//     or read, as a restart would load it.
 
 
 package services;
 
 import models.Transaction;
+import models.TransactionTable;
 import models.Account;
 import factory.AccountFactory;
 import util.FileUtil;
+import util.GroupCommitWriter;
 import util.InputUtil;
-
+import util.LedgerFormat;
+import util.Metrics;
+import util.Money;
+import util.RowBitmap;
+import util.StorageConfig;
+import util.TransactionJournal;
+
+import java.io.File;
+import java.time.DateTimeException;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 
 public class TransactionService {
 
-    private static final String TRANSACTION_FILE = "data/transactions.txt";
-    private static List<Transaction> transactions = new ArrayList<>();
+    // Largest number of queued changes applied under one write lock / persisted together
+    private static final int MAX_BATCH = 1024;
+    // Rows shown per page by the menu listings
+    private static final int LIST_PAGE_SIZE = 20;
+
+    // Journaled mode (default) appends each change to a journal; "-Dfinance.storage=rewrite" rewrites the whole ledger instead
+    private static final boolean JOURNALED = StorageConfig.isJournaled();
+    private final LedgerFormat format = StorageConfig.ledgerFormat();
+    // data/ for the shared ledger, or a user's partition; every file below lives in it
+    private final String dataDir;
+    private final TransactionJournal journal;
+    private final List<TransactionListener> listeners = new CopyOnWriteArrayList<>();
+    private final TransactionTable transactions;
+    private final AggregateStore aggregates;
+    private final RollupStore rollups;
+    private final DateIndex dateIndex;
+    private final NameIndex nameIndex;
+    // Built on first use by StatementImporter (most sessions never import)
+    private volatile ContentHashIndex contentHashes;
+
+    // Guards 'transactions' and the listeners' view of it: the writer thread writes, everyone else reads
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Changes waiting for the writer thread (many producers, one consumer)
+    private final ConcurrentLinkedQueue<Change<?>> queue = new ConcurrentLinkedQueue<>();
+    private final Thread writer;
+    // Registered while the ledger is open: the writer is a daemon, so this finishes its queue before the JVM exits
+    private final Thread saveOnExit;
+    // Set by a change in "rewrite" mode; the ledger is then written once at the end of the batch
+    private boolean rewritePending;
+    // Journal writes of the changes applied since the last afterBatch()
+    private final List<CompletableFuture<Void>> records = new ArrayList<>();
+    // Set when a journal record was lost and rewriting the base from the table failed too
+    private boolean journalOutOfSync;
+    // journal.checkpoints() when the rollups were last saved
+    private long rollupsSavedAt;
+    // Set by close(); the writer ends once the queue is empty and no producer is between its check and its offer
+    private volatile boolean closed;
+    private final AtomicInteger submitting = new AtomicInteger();
+
+    // Singleton: created on first use by the JVM's class initialization, which also publishes it safely
+    private static class Holder {
+        static final TransactionService INSTANCE = new TransactionService(StorageConfig.DATA_DIR);
+
+        static {
+            // Read without the lock: a monitoring value may be a moment old
+            Metrics.gauge("ledger.rows", INSTANCE.transactions::size);
+        }
+    }
+
+    // The ledger stored in 'dataDir' (created if missing); a user's one is made by UserLedgers
+    TransactionService(String dataDir) {
+        Metrics.LatencyHistogram load = Metrics.timer("transactions.load");
+        long start = load.start();
+
+        this.dataDir = dataDir;
+        new File(dataDir).mkdirs();
+        journal = StorageConfig.openJournal(dataDir);
+
+        // Load transactions from file (or its snapshot, plus any journaled changes after it) at initialization
+        transactions = JOURNALED ? journal.open() : format.read(StorageConfig.ledgerPath(dataDir));
+        if (!JOURNALED) {
+            journal.markBase();
+        }
+
+        // Report totals: reuse the persisted ones if they still match the ledger, otherwise rebuild from the loaded list
+        aggregates = AggregateStore.forLedger(journal, StorageConfig.aggregatePath(dataDir), () -> transactions);
+        listeners.add(aggregates);
+
+        // Monthly rollups for trend reports, reused or rebuilt the same way
+        rollups = RollupStore.forLedger(journal, StorageConfig.rollupPath(dataDir), () -> transactions);
+        listeners.add(rollups);
+        rollupsSavedAt = journal.checkpoints();
+
+        // Dates are parsed once here; period reports then only visit the rows in their range
+        dateIndex = new DateIndex(transactions);
+        listeners.add(dateIndex);
+
+        // Row bitmaps per account and category name, for filtered listings and reports
+        nameIndex = new NameIndex(transactions);
+        listeners.add(nameIndex);
 
-    // Singleton instance
-    private static TransactionService instance;
+        load.stop(start);
 
-    private TransactionService() {
-        // Load transactions from file at initialization
-        transactions = FileUtil.readTransactions(TRANSACTION_FILE);
+        writer = new Thread(this::drainQueue, "transaction-writer");
+        writer.setDaemon(true);
+        writer.start();
+        // Console changes return once applied in memory; leaving main right after one must not lose it
+        saveOnExit = new Thread(() -> flush().handle((ignored, notSaved) -> null).join(), "transaction-save-on-exit");
+        Runtime.getRuntime().addShutdownHook(saveOnExit);
     }
 
-    // Singleton getter
+    // The current user's ledger, or the shared one when nobody is signed in (or partitioning is off)
     public static TransactionService getInstance() {
-        if (instance == null) {
-            instance = new TransactionService();
-        }
-        return instance;
+        UserLedgers.Ledger ledger = UserLedgers.current();
+        return ledger != null ? ledger.transactions() : Holder.INSTANCE;
     }
 
     // Menu for transaction management (static for ease of calling)
@@ -51,7 +166,8 @@ public class TransactionService {
             System.out.println("3. Delete Transaction");
             System.out.println("4. List Transactions");
             System.out.println("5. Transfer between Accounts");
-            System.out.println("6. Back to Main Menu");
+            System.out.println("6. Import Statement File");
+            System.out.println("7. Back to Main Menu");
 
             int choice = InputUtil.getInt("Choose an option: ");
 
@@ -72,6 +188,9 @@ public class TransactionService {
                     service.transferBetweenAccounts();
                     break;
                 case 6:
+                    StatementImporter.importMenu();
+                    break;
+                case 7:
                     return;
                 default:
                     System.out.println("Invalid option. Please try again.");
@@ -97,82 +216,139 @@ public class TransactionService {
 
         Transaction newTransaction = new Transaction(date, type, category, amount, accountName);
 
-        transactions.add(newTransaction);
-        FileUtil.writeTransactions(TRANSACTION_FILE, transactions);
+        applyNow(() -> append(newTransaction));
 
         System.out.println("Transaction added successfully.");
     }
 
     // Edit transaction by index 
     public void editTransaction() {
-        listTransactions();
-
-        int index = InputUtil.getInt("Enter transaction number to edit: ") - 1;
+        int index = chooseTransaction("edit");
+        if (index < 0) {
+            return;
+        }
 
-        if (index < 0 || index >= transactions.size()) {
+        // Work on a detached copy; the change itself is applied by the writer thread
+        Transaction t = read(() -> index >= 0 && index < transactions.size() ? transactions.get(index).copy() : null);
+        if (t == null) {
             System.out.println("Invalid transaction number.");
             return;
         }
 
-        Transaction t = transactions.get(index);
-
         System.out.println("Editing Transaction: " + t);
 
-        String date = InputUtil.getString("Enter new date (leave blank to keep '" + t.getDate() + "'): ");
-        String type = InputUtil.getString("Enter new type (income/expense, leave blank to keep '" + t.getType() + "'): ").toLowerCase();
-        String category = InputUtil.getString("Enter new category (leave blank to keep '" + t.getCategory() + "'): ");
-        String amountStr = InputUtil.getString("Enter new amount (leave blank to keep '" + t.getAmount() + "'): ");
-        String accountName = InputUtil.getString("Enter new account name (leave blank to keep '" + t.getAccountName() + "'): ");
+        String date = InputUtil.getOptionalString("Enter new date (leave blank to keep '" + t.getDate() + "'): ");
+        String type = InputUtil.getOptionalString("Enter new type (income/expense, leave blank to keep '" + t.getType() + "'): ").toLowerCase();
+        String category = InputUtil.getOptionalString("Enter new category (leave blank to keep '" + t.getCategory() + "'): ");
+        String amountStr = InputUtil.getOptionalString("Enter new amount (leave blank to keep '" + t.getAmount() + "'): ");
+        String accountName = InputUtil.getOptionalString("Enter new account name (leave blank to keep '" + t.getAccountName() + "'): ");
 
         if (!date.isEmpty()) t.setDate(date);
         if (!type.isEmpty() && (type.equals("income") || type.equals("expense"))) t.setType(type);
         if (!category.isEmpty()) t.setCategory(category);
         if (!amountStr.isEmpty()) {
             try {
-                double amt = Double.parseDouble(amountStr);
-                t.setAmount(amt);
+                t.setAmountCents(Money.parseCents(amountStr));
             } catch (NumberFormatException e) {
                 System.out.println("Invalid amount input. Keeping previous amount.");
             }
         }
         if (!accountName.isEmpty()) t.setAccountName(accountName);
 
-        FileUtil.writeTransactions(TRANSACTION_FILE, transactions);
+        if (!applyNow(() -> replace(index, t))) {
+            System.out.println("Invalid transaction number.");
+            return;
+        }
         System.out.println("Transaction updated successfully.");
     }
 
     // Delete transaction by index
     public void deleteTransaction() {
-        listTransactions();
-
-        int index = InputUtil.getInt("Enter transaction number to delete: ") - 1;
+        int index = chooseTransaction("delete");
+        if (index < 0) {
+            return;
+        }
 
-        if (index < 0 || index >= transactions.size()) {
+        if (!applyNow(() -> removeAt(index))) {
             System.out.println("Invalid transaction number.");
             return;
         }
 
-        transactions.remove(index);
-        FileUtil.writeTransactions(TRANSACTION_FILE, transactions);
-
         System.out.println("Transaction deleted successfully.");
     }
 
-    // List all transactions
+    // List transactions one page at a time, optionally filtered
     public void listTransactions() {
-        if (transactions.isEmpty()) {
-            System.out.println("No transactions found.");
-            return;
+        browse(promptFilter(), null);
+    }
+
+    // Let the user page through (filtered) transactions and pick one; returns its index, or -1 if cancelled
+    private int chooseTransaction(String action) {
+        return browse(promptFilter(), action);
+    }
+
+    // Show pages of matching transactions, numbered by ledger position. With an 'action', a number picks that row.
+    private int browse(TransactionFilter filter, String action) {
+        String pick = action == null ? "" : "a transaction number to " + action + ", ";
+        int cursor = 0;
+        boolean any = false;
+        System.out.println("\n==== Transactions (" + filter + ") ====");
+        while (true) {
+            TransactionPage page = page(filter, cursor, LIST_PAGE_SIZE);
+            int[] rows = page.getRows();
+            for (int i = 0; i < rows.length; i++) {
+                System.out.println((rows[i] + 1) + ". " + page.getItems().get(i));
+            }
+            any |= rows.length > 0;
+            if (!any) {
+                System.out.println("No transactions found.");
+                return -1;
+            }
+            if (!page.hasMore() && action == null) {
+                return -1;
+            }
+
+            String prompt = page.hasMore() ? "Enter " + pick + "Enter for the next page, or q to stop: "
+                    : "Enter " + pick + "or q to stop: ";
+            String answer = InputUtil.getOptionalString(prompt);
+            if (answer.equalsIgnoreCase("q")) {
+                return -1;
+            }
+            if (action != null && !answer.isEmpty()) {
+                try {
+                    return Integer.parseInt(answer) - 1;
+                } catch (NumberFormatException e) {
+                    System.out.println("Invalid transaction number.");
+                    return -1;
+                }
+            }
+            if (!page.hasMore()) {
+                return -1;
+            }
+            cursor = page.getNextCursor();
         }
+    }
 
-        System.out.println("\n==== Transactions ====");
-        int i = 1;
-        for (Transaction t : transactions) {
-            System.out.println(i + ". " + t);
-            i++;
+    // Ask for optional filters; a blank answer means "any"
+    static TransactionFilter promptFilter() {
+        String account = InputUtil.getOptionalString("Filter by account (blank for any): ");
+        String category = InputUtil.getOptionalString("Filter by category (blank for any): ");
+        String type = InputUtil.getOptionalString("Filter by type income/expense (blank for any): ").toLowerCase();
+        String from = InputUtil.getOptionalString("From date YYYY-MM-DD (blank for any): ");
+        String to = InputUtil.getOptionalString("To date YYYY-MM-DD (blank for any): ");
+        try {
+            return new TransactionFilter(blankToNull(account), blankToNull(category), blankToNull(type),
+                    from.isEmpty() ? null : LocalDate.parse(from), to.isEmpty() ? null : LocalDate.parse(to));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            System.out.println("Invalid filter (" + e.getMessage() + "); showing all transactions.");
+            return TransactionFilter.ALL;
         }
     }
 
+    private static String blankToNull(String text) {
+        return text.isEmpty() ? null : text;
+    }
+
     // Transfer money between two accounts by creating two transactions (expense + income)
     public void transferBetweenAccounts() {
         System.out.println("===================== Transfer between Accounts===================== ");
@@ -187,24 +363,617 @@ public class TransactionService {
 
         String date = InputUtil.getString("Date (YYYY-MM-DD): ");
 
-        // Create two transactions: expense from source account, income to destination account
-        Transaction expense = new Transaction(date, "expense", "Transfer Out", amount, fromAccount);
-        Transaction income = new Transaction(date, "income", "Transfer In", amount, toAccount);
+        List<Transaction> legs = transferLegs(fromAccount, toAccount, amount, date);
+        applyNow(() -> appendAll(legs)); // Both legs in one change, as in transfer()
 
-        transactions.add(expense);
-        transactions.add(income);
+        System.out.println("Transfer recorded successfully.");
+    }
 
-        FileUtil.writeTransactions(TRANSACTION_FILE, transactions);
+    // Register a listener that is told about every change to the ledger (called on the writer thread)
+    public void addListener(TransactionListener listener) {
+        listeners.add(listener);
+    }
 
-        System.out.println("Transfer recorded successfully.");
+    // Current report totals (kept up to date by every mutation below)
+    public AggregateStore getAggregates() {
+        return aggregates;
+    }
+
+    // Monthly rollups (kept up to date by every mutation below)
+    public RollupStore getRollups() {
+        return rollups;
+    }
+
+    // Directory this ledger's files are stored in
+    public String getDataDir() {
+        return dataDir;
+    }
+
+    // Date index over the ledger (kept up to date by every mutation below)
+    public DateIndex getDateIndex() {
+        return dateIndex;
+    }
+
+    // Account / category bitmap index over the ledger (kept up to date by every mutation below)
+    public NameIndex getNameIndex() {
+        return nameIndex;
+    }
+
+    // Content-hash index over the ledger, created and registered as a listener on first use
+    public ContentHashIndex getContentHashes() {
+        ContentHashIndex hashes = contentHashes;
+        if (hashes == null) {
+            hashes = submit(() -> {
+                if (contentHashes == null) {
+                    contentHashes = new ContentHashIndex(transactions);
+                    listeners.add(contentHashes);
+                }
+                return contentHashes;
+            }).join();
+        }
+        return hashes;
+    }
+
+    // --- Concurrent ingest API ---
+
+    // Queue a new transaction from any thread; completes with its row number once it is applied and persisted.
+    // Completes exceptionally (IllegalArgumentException) if the type is not income or expense.
+    public CompletableFuture<Integer> ingest(Transaction t) {
+        if (!t.getType().equalsIgnoreCase("income") && !t.getType().equalsIgnoreCase("expense")) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Invalid transaction type: " + t.getType()));
+        }
+        Transaction detached = t.copy(); // The caller may keep changing its own object
+        return submit(() -> append(detached));
+    }
+
+    // Queue several transactions as one change: they are journaled with a single append and the totals are
+    // saved once. Completes with the number of rows added; fails as a whole if any type is invalid.
+    public CompletableFuture<Integer> ingestAll(List<Transaction> batch) {
+        List<Transaction> detached = new ArrayList<>(batch.size());
+        for (Transaction t : batch) {
+            if (!t.getType().equalsIgnoreCase("income") && !t.getType().equalsIgnoreCase("expense")) {
+                return CompletableFuture.failedFuture(new IllegalArgumentException("Invalid transaction type: " + t.getType()));
+            }
+            detached.add(t.copy());
+        }
+        return submit(() -> appendAll(detached));
+    }
+
+    // Replace the transaction at 'index' (0-based); completes with false if there is no such row
+    public CompletableFuture<Boolean> update(int index, Transaction t) {
+        if (!t.getType().equalsIgnoreCase("income") && !t.getType().equalsIgnoreCase("expense")) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Invalid transaction type: " + t.getType()));
+        }
+        Transaction detached = t.copy();
+        return submit(() -> replace(index, detached));
+    }
+
+    // Delete the transaction at 'index' (0-based); completes with false if there is no such row
+    public CompletableFuture<Boolean> delete(int index) {
+        return submit(() -> removeAt(index));
+    }
+
+    // Same as update / delete, but only while row 'index' still holds 'expected' (the transaction the caller last
+    // saw there). Checked on the writer right before the change, so no other change can come in between. Fails
+    // with ConcurrentModificationException if the row holds another transaction (changed, or shifted by a delete).
+    public CompletableFuture<Boolean> update(int index, Transaction expected, Transaction t) {
+        if (!t.getType().equalsIgnoreCase("income") && !t.getType().equalsIgnoreCase("expense")) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Invalid transaction type: " + t.getType()));
+        }
+        Transaction seen = expected.copy();
+        Transaction detached = t.copy();
+        return submit(() -> holds(index, seen) && replace(index, detached));
+    }
+
+    public CompletableFuture<Boolean> delete(int index, Transaction expected) {
+        Transaction seen = expected.copy();
+        return submit(() -> holds(index, seen) && removeAt(index));
+    }
+
+    // Move every transaction posted to account 'from' over to account 'to' (the account was renamed); completes
+    // with the number of rows changed. Only the rows in the account's NameIndex bitmap are visited. Each row is
+    // its own change: if one fails, the rows moved before it stay moved, and running the rename again moves the rest.
+    public CompletableFuture<Integer> renameAccount(String from, String to) {
+        return submit(() -> {
+            if (from.equals(to)) {
+                return 0;
+            }
+            int[] rows = nameIndex.accountRows(from).toArray(); // Copied: each replace() changes the bitmap
+            for (int row : rows) {
+                Transaction renamed = transactions.get(row).copy();
+                renamed.setAccountName(to);
+                replace(row, renamed);
+            }
+            return rows.length;
+        });
+    }
+
+    // Record a transfer as two transactions: expense from the source account, income to the destination account
+    public CompletableFuture<Void> transfer(String fromAccount, String toAccount, double amount, String date) {
+        List<Transaction> legs = transferLegs(fromAccount, toAccount, amount, date);
+
+        // Both legs in one change, so no reader ever sees only one of them
+        return submit(() -> {
+            appendAll(legs);
+            return null;
+        });
+    }
+
+    // The expense and income rows that make up one transfer
+    public static List<Transaction> transferLegs(String fromAccount, String toAccount, double amount, String date) {
+        return List.of(new Transaction(date, "expense", "Transfer Out", amount, fromAccount),
+                new Transaction(date, "income", "Transfer In", amount, toAccount));
+    }
+
+    // Detached copies of rows offset..offset+limit-1 (fewer at the end of the ledger)
+    public List<Transaction> list(int offset, int limit) {
+        return read(() -> {
+            int from = Math.max(0, Math.min(offset, transactions.size()));
+            int to = (int) Math.min(transactions.size(), (long) from + Math.max(0, limit));
+            List<Transaction> page = new ArrayList<>(to - from);
+            for (int row = from; row < to; row++) {
+                page.add(transactions.get(row).copy());
+            }
+            return page;
+        });
+    }
+
+    // Up to 'limit' rows matching 'filter', from row 'cursor' on (0 for the first page); pass getNextCursor() to
+    // continue. With a name filter only the NameIndex candidates up to the end of the page are visited; with dates
+    // but no names, only the DateIndex rows in the range (when they are fewer than the rows left to scan); otherwise
+    // only the rows up to the end of the page. Only the matches are copied.
+    // Cursors are ledger positions, so a delete before the cursor shifts the next page by one row.
+    // Throws IllegalArgumentException if 'limit' is below 1: such a page would never move the cursor.
+    public TransactionPage page(TransactionFilter filter, int cursor, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1: " + limit);
+        }
+        return read(() -> {
+            TransactionFilter.Matcher matcher = filter.matcher(transactions);
+            RowBitmap candidates = nameIndex.rows(filter.getAccount(), filter.getCategory());
+            int size = transactions.size();
+            int[] dated = candidates == null ? datedRows(filter) : null;
+            if (dated != null && dated.length < size - cursor) {
+                return datedPage(matcher, dated, Math.max(0, cursor), limit);
+            }
+            int[] rows = new int[Math.max(0, Math.min(limit, size))];
+            List<Transaction> items = new ArrayList<>(rows.length);
+            int row = nextCandidate(candidates, Math.max(0, cursor), size);
+            for (; row < size && items.size() < rows.length; row = nextCandidate(candidates, row + 1, size)) {
+                if (matcher.matches(row)) {
+                    rows[items.size()] = row;
+                    items.add(transactions.get(row).copy());
+                }
+            }
+            int next = row < size ? row : TransactionPage.END;
+            return new TransactionPage(Arrays.copyOf(rows, items.size()), items, next);
+        });
+    }
+
+    // Page over the DateIndex rows of a date-only filter (in index order): the matching ones from 'cursor' on are
+    // sorted into ledger order, and the first one after the page becomes the next cursor
+    private TransactionPage datedPage(TransactionFilter.Matcher matcher, int[] dated, int cursor, int limit) {
+        int count = 0;
+        for (int row : dated) {
+            if (row >= cursor && matcher.matches(row)) {
+                dated[count++] = row;
+            }
+        }
+        Arrays.sort(dated, 0, count);
+        int[] rows = Arrays.copyOf(dated, Math.min(limit, count));
+        List<Transaction> items = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            items.add(transactions.get(row).copy());
+        }
+        int next = count > rows.length ? dated[rows.length] : TransactionPage.END;
+        return new TransactionPage(rows, items, next);
+    }
+
+    // DateIndex rows in the filter's date range (unsorted), or null if the filter has no dates
+    private int[] datedRows(TransactionFilter filter) {
+        if (filter.getFrom() == null && filter.getTo() == null) {
+            return null;
+        }
+        long fromDay = filter.getFrom() == null ? Long.MIN_VALUE : filter.getFrom().toEpochDay();
+        long toDay = filter.getTo() == null ? Long.MAX_VALUE : filter.getTo().toEpochDay();
+        return dateIndex.rows(fromDay, toDay);
+    }
+
+    // First row >= 'row' that may match: the next bitmap row, or simply 'row' when there is no bitmap ('size' at the end)
+    private static int nextCandidate(RowBitmap candidates, int row, int size) {
+        if (candidates == null) {
+            return row;
+        }
+        int next = candidates.next(row);
+        return next < 0 ? size : next;
+    }
+
+    // All rows matching 'filter', in ledger order. Name filters start from the NameIndex bitmaps and date-only
+    // filters from the DateIndex, so the cost follows the candidates, not the ledger; an empty filter lists every row.
+    // Call under read() and use the rows before the lock is released.
+    int[] matchingRows(TransactionFilter filter) {
+        TransactionFilter.Matcher matcher = filter.matcher(transactions);
+        RowBitmap candidates = nameIndex.rows(filter.getAccount(), filter.getCategory());
+        int[] rows;
+        if (candidates != null) {
+            rows = candidates.toArray();
+        } else if ((rows = datedRows(filter)) != null) {
+            Arrays.sort(rows);
+        } else {
+            rows = new int[transactions.size()];
+            Arrays.setAll(rows, row -> row);
+        }
+        int count = 0;
+        for (int row : rows) {
+            if (matcher.matches(row)) {
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    // Number of transactions in the ledger
+    public int size() {
+        return read(transactions::size);
+    }
+
+    // Completes once every change submitted before this call has been applied and persisted
+    public CompletableFuture<Void> flush() {
+        return submit(() -> null);
+    }
+
+    // Consistent copy of the ledger (taken under the read lock)
+    public TransactionTable snapshot() {
+        return read(transactions::copy);
+    }
+
+    // Run 'query' against the live ledger (and DateIndex) while no change can be applied.
+    // 'query' must not wait for a submitted change: the writer needs this lock to apply it.
+    // If the base ledger was replaced on disk, the writer reloads it first (not from a nested read or the writer).
+    public <T> T read(Supplier<T> query) {
+        if (!closed && lock.getReadHoldCount() == 0 && Thread.currentThread() != writer && journal.isBaseChanged()) {
+            flush().handle((ignored, notSaved) -> null).join(); // A failed save does not stop the read
+        }
+        lock.readLock().lock();
+        try {
+            return query.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Persist every change submitted so far, then stop the writer thread (the ledger is being unloaded).
+    // Changes submitted afterwards fail with IllegalStateException; reads keep working on the last state.
+    void close() {
+        try {
+            Runtime.getRuntime().removeShutdownHook(saveOnExit);
+        } catch (IllegalStateException e) {
+            // The JVM is already exiting; the hook may be running, and the writer finishes the queue either way
+        }
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rollups.save(StorageConfig.rollupPath(dataDir), journal.stamp());
+        journal.close();
+    }
+
+    // Hand a change to the writer thread; it runs under the write lock, and the future completes after it is persisted
+    private <T> CompletableFuture<T> submit(Supplier<T> action) {
+        return enqueue(action).done;
+    }
+
+    // Console mutations: the prompt waits only until the change is applied in memory (so the next listing shows
+    // it), not for the journal write. A batch that then fails to save is reported from the writer when it does.
+    private <T> T applyNow(Supplier<T> action) {
+        Change<T> change = enqueue(action);
+        change.done.whenComplete((result, notSaved) -> {
+            if (notSaved != null && !change.applied.isCompletedExceptionally()) {
+                System.out.println("🔴 Last change could not be saved: " + notSaved.getMessage() + " 🔴");
+            }
+        });
+        return change.applied.join();
+    }
+
+    private <T> Change<T> enqueue(Supplier<T> action) {
+        Change<T> change = new Change<>(action);
+        if (Thread.currentThread() == writer) {
+            // Already on the writer (e.g. a listener submitting more work): queueing would wait on ourselves
+            RuntimeException notSaved = null;
+            lock.writeLock().lock();
+            try {
+                change.apply();
+                try {
+                    afterBatch();
+                } catch (RuntimeException e) {
+                    notSaved = e;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            change.complete(notSaved);
+            return change;
+        }
+        // Counted while between the 'closed' check and the offer, so the writer cannot stop under our feet
+        submitting.incrementAndGet();
+        try {
+            if (closed) {
+                change.reject(new IllegalStateException("Ledger was unloaded: " + dataDir));
+                return change;
+            }
+            queue.offer(change);
+        } finally {
+            submitting.decrementAndGet();
+            LockSupport.unpark(writer);
+        }
+        return change;
     }
- // for addtransaction testing
+
+    // The writer thread: drain the queue in batches; callers are released only after their batch is persisted.
+    // Each change is applied on its own: one that throws fails with its own error and the others go ahead.
+    // If persisting the batch fails, the changes that were applied fail with that error instead of reporting success.
+    // Ends after close() once nothing is queued or about to be.
+    private void drainQueue() {
+        List<Change<?>> batch = new ArrayList<>();
+        while (true) {
+            Change<?> change = queue.poll();
+            if (change == null) {
+                if (closed && submitting.get() == 0 && queue.isEmpty()) {
+                    return;
+                }
+                LockSupport.park(this); // A producer's unpark() arriving before this park() makes it return at once
+                continue;
+            }
+            do {
+                batch.add(change);
+            } while (batch.size() < MAX_BATCH && (change = queue.poll()) != null);
+
+            RuntimeException notSaved = null;
+            lock.writeLock().lock();
+            try {
+                reloadIfBaseChanged();
+                for (Change<?> each : batch) {
+                    each.apply(); // Catches the change's own failure
+                }
+                try {
+                    afterBatch();
+                } catch (RuntimeException e) {
+                    System.out.println("Error saving transactions: " + e.getMessage());
+                    notSaved = e;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            for (Change<?> each : batch) {
+                each.complete(notSaved);
+            }
+            batch.clear();
+        }
+    }
+
+    // Writer thread only, under the write lock: if the base ledger was replaced on disk, load it again the way
+    // the constructor does (a journal written against the old base is dropped, see TransactionJournal) and
+    // rebuild every listener from it
+    private void reloadIfBaseChanged() {
+        if (!journal.isBaseChanged()) {
+            return;
+        }
+        TransactionTable reloaded = JOURNALED ? journal.open() : format.read(StorageConfig.ledgerPath(dataDir));
+        if (!JOURNALED) {
+            journal.markBase();
+        }
+        transactions.clear();
+        transactions.addAll(reloaded);
+        journalOutOfSync = false; // The table matches the base again
+        for (TransactionListener listener : listeners) {
+            listener.onReloaded(transactions);
+        }
+    }
+
+    // Mutation helpers (writer thread only, under the write lock): change the table, notify listeners, then persist the change.
+    // Persisting appends a journal record, or (in "rewrite" mode) marks the ledger to be rewritten at the end of the batch.
+    // It comes last so that a listener that throws can still be undone (see undone()): nothing has reached the journal yet.
+    private int append(Transaction t) {
+        transactions.add(t);
+        int index = transactions.size() - 1;
+        try {
+            Transaction added = transactions.get(index);
+            for (TransactionListener listener : listeners) {
+                listener.onAdded(index, added);
+            }
+            persist(() -> journal.recordAdd(t, transactions));
+        } catch (RuntimeException e) {
+            throw undone(() -> transactions.remove(index), e);
+        }
+        return index;
+    }
+
+    private int appendAll(List<Transaction> batch) {
+        int first = transactions.size();
+        transactions.addAll(batch);
+        try {
+            for (int index = first; index < transactions.size(); index++) {
+                Transaction added = transactions.get(index);
+                for (TransactionListener listener : listeners) {
+                    listener.onAdded(index, added);
+                }
+            }
+            persist(() -> journal.recordAddAll(batch, transactions));
+        } catch (RuntimeException e) {
+            throw undone(() -> {
+                while (transactions.size() > first) {
+                    transactions.remove(transactions.size() - 1);
+                }
+            }, e);
+        }
+        return batch.size();
+    }
+
+    // False if there is no row 'index'; throws ConcurrentModificationException if it is not 'expected'
+    private boolean holds(int index, Transaction expected) {
+        if (index < 0 || index >= transactions.size()) {
+            return false;
+        }
+        if (!FileUtil.toTransactionLine(transactions.get(index)).equals(FileUtil.toTransactionLine(expected))) {
+            throw new ConcurrentModificationException("Transaction " + index + " is not the one expected");
+        }
+        return true;
+    }
+
+    // Returns false if there is no row 'index' (any more)
+    private boolean replace(int index, Transaction after) {
+        if (index < 0 || index >= transactions.size()) {
+            return false;
+        }
+        Transaction before = transactions.set(index, after);
+        try {
+            Transaction updated = transactions.get(index);
+            for (TransactionListener listener : listeners) {
+                listener.onUpdated(index, before, updated);
+            }
+            persist(() -> journal.recordUpdate(index, after, transactions));
+        } catch (RuntimeException e) {
+            throw undone(() -> transactions.set(index, before), e);
+        }
+        return true;
+    }
+
+    private boolean removeAt(int index) {
+        if (index < 0 || index >= transactions.size()) {
+            return false;
+        }
+        Transaction removed = transactions.remove(index);
+        try {
+            for (TransactionListener listener : listeners) {
+                listener.onRemoved(index, removed);
+            }
+            persist(() -> journal.recordDelete(index, transactions));
+        } catch (RuntimeException e) {
+            throw undone(() -> transactions.add(index, removed), e);
+        }
+        return true;
+    }
+
+    private void persist(Supplier<CompletableFuture<Void>> record) {
+        if (JOURNALED) {
+            records.add(record.get()); // Throws only if the record was not queued
+        } else {
+            rewritePending = true;
+        }
+    }
+
+    // A listener (or queuing the journal record) threw part way through a change: put the table back and rebuild
+    // every listener from it, since some were already told about the change. The change then fails having changed
+    // nothing, so retrying it does not apply it twice. Returns 'failure' for the caller to throw.
+    private RuntimeException undone(Runnable restore, RuntimeException failure) {
+        restore.run();
+        for (TransactionListener listener : listeners) {
+            try {
+                listener.onReloaded(transactions);
+            } catch (RuntimeException e) {
+                failure.addSuppressed(e);
+            }
+        }
+        return failure;
+    }
+
+    // Once per batch: rewrite the ledger if needed, then persist the derived totals with the ledger stamp they now match.
+    // The rollup cube is far larger than the totals, so it is only rewritten when the journal has checkpointed since
+    // its last save (and in close()); in between its file carries an older stamp and a reload rebuilds it.
+    private void afterBatch() {
+        awaitRecords();
+        if (rewritePending) {
+            format.write(StorageConfig.ledgerPath(dataDir), transactions); // Throws (failing the batch) if not written
+            journal.markBase();
+            rewritePending = false;
+        }
+        String stamp = journal.stamp();
+        aggregates.save(StorageConfig.aggregatePath(dataDir), stamp);
+        long checkpoints = journal.checkpoints();
+        if (checkpoints != rollupsSavedAt) {
+            rollupsSavedAt = checkpoints;
+            rollups.save(StorageConfig.rollupPath(dataDir), stamp);
+        }
+    }
+
+    // Wait for the journal records of this batch. A lost record leaves the journal out of step with the table (a
+    // missing "A" shifts the rows that later "U" and "D" records point at), so the base is rewritten from the table
+    // right away. Only if that fails too does the batch fail, and every later batch retries the rewrite first.
+    private void awaitRecords() {
+        RuntimeException lost = null;
+        for (CompletableFuture<Void> record : records) {
+            try {
+                GroupCommitWriter.join(record);
+            } catch (RuntimeException e) {
+                lost = e;
+            }
+        }
+        records.clear();
+        if (lost == null && !journalOutOfSync) {
+            return;
+        }
+        if (lost != null) {
+            System.out.println("Error appending to the transaction journal: " + lost.getMessage());
+        }
+        journalOutOfSync = true;
+        journal.compact(transactions); // Throws if the base could not be rewritten either
+        journalOutOfSync = false;
+    }
+
+    // One queued change and the futures its producer waits on: 'applied' once it is in the ledger in memory,
+    // 'done' once it is also persisted
+    private static class Change<T> {
+        final Supplier<T> action;
+        final CompletableFuture<T> applied = new CompletableFuture<>();
+        final CompletableFuture<T> done = new CompletableFuture<>();
+        T result;
+        RuntimeException failure;
+
+        Change(Supplier<T> action) {
+            this.action = action;
+        }
+
+        void apply() {
+            try {
+                result = action.get();
+                applied.complete(result);
+            } catch (RuntimeException e) {
+                failure = e;
+                applied.completeExceptionally(e);
+            }
+        }
+
+        // Never queued (the ledger was unloaded)
+        void reject(RuntimeException e) {
+            failure = e;
+            applied.completeExceptionally(e);
+            done.completeExceptionally(e);
+        }
+
+        // 'notSaved': why the batch could not be persisted (null if it was). A change that failed itself changed
+        // nothing (the mutation helpers undo a half-applied change), so it reports its own error.
+        void complete(RuntimeException notSaved) {
+            if (failure != null) {
+                done.completeExceptionally(failure);
+            } else if (notSaved != null) {
+                done.completeExceptionally(notSaved);
+            } else {
+                done.complete(result);
+            }
+        }
+    }
+
+ // for addtransaction testing (same validation as addTransaction; the transaction is stored like any other)
     public boolean addTransactionLogic(Transaction tx) {
         if (!tx.getType().equalsIgnoreCase("income") && !tx.getType().equalsIgnoreCase("expense")) {
             return false;
         }
 
-        transactions.add(tx); 
+        Transaction detached = tx.copy();
+        applyNow(() -> append(detached));
         return true;
     }
 
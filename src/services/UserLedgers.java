@@ -0,0 +1,273 @@
+// Design Patterns:
+//   - Registry with an LRU cache (a size-bounded, access-ordered LinkedHashMap of loaded ledgers per user)
+//   - Lazy Load (a user's partition is read on first use, not at startup)
+// Where used:
+//   - TransactionService, AccountRegistry and CategoryService.getInstance() return the current user's instance.
+//   - LoginService signs the console user in; ApiServer runs each request as its session's user.
+// Why used:
+//   - Every user's transactions, accounts and categories live in their own directory (StorageConfig.userDir), so
+//     users never see each other's data and a ledger only costs memory while its user is active.
+//   - At most finance.ledger.cacheSize ledgers stay loaded. Beyond that the least recently used one is closed
+//     (its queued changes are persisted first) and dropped, so memory stays flat however many users there are.
+//     The next request of that user simply loads the partition again.
+//   - A ledger in use is leased (callAs holds one for the whole request, the console user for the session) and is
+//     never evicted while leased; the cache may run over its size until the lease ends. So a request never finds
+//     the ledger it is working on closed under it.
+//
+// Partitions are opt-in with -Dfinance.ledger.partition=user, since nothing moves a ledger already kept in data/
+// into one (its users would start out empty). Without it current() is null and everybody uses data/.
+
+
+package services;
+
+import util.Metrics;
+import util.StorageConfig;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+public class UserLedgers {
+
+    private static final Metrics.CacheStats CACHE = Metrics.cache("ledgers");
+
+    // User of the calling thread (an API request), which takes precedence over the console's signed-in user
+    private static final ThreadLocal<String> BOUND_USER = new ThreadLocal<>();
+    private static volatile String signedInUser;
+    // The console user's lease (partitioned mode only)
+    private static final AtomicReference<Ledger> signedInLease = new AtomicReference<>();
+
+    private static UserLedgers instance;
+
+    private final int capacity;
+    // Username -> loaded partition, least recently used first
+    private final LinkedHashMap<String, Ledger> loaded = new LinkedHashMap<>(16, 0.75f, true);
+    // Evicted ledgers whose writer may still be persisting; a reload of the same user waits for them
+    private final Map<String, Ledger> closing = new HashMap<>();
+
+    public UserLedgers(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public static synchronized UserLedgers getInstance() {
+        if (instance == null) {
+            instance = new UserLedgers(StorageConfig.ledgerCacheSize());
+            Metrics.gauge("ledgers.loaded", instance::size);
+        }
+        return instance;
+    }
+
+    // The partition the calling thread works on, or null for the shared ledger (nobody signed in, or not partitioned)
+    public static Ledger current() {
+        if (!StorageConfig.isPartitioned()) {
+            return null;
+        }
+        String user = BOUND_USER.get();
+        if (user == null) {
+            user = signedInUser;
+        }
+        return user == null ? null : getInstance().get(user);
+    }
+
+    // Directory of the current ledger: the user's partition or data/
+    public static String currentDataDir() {
+        Ledger ledger = current();
+        return ledger != null ? ledger.getDataDir() : StorageConfig.DATA_DIR;
+    }
+
+    // Make 'username' the console's user and load their ledger now, so the first menu does not wait for it
+    public static void signIn(String username) {
+        signedInUser = username;
+        Ledger ledger = StorageConfig.isPartitioned() ? getInstance().acquire(username) : null;
+        Ledger previous = signedInLease.getAndSet(ledger);
+        if (previous != null) {
+            getInstance().release(previous);
+        }
+        if (ledger != null) {
+            ledger.transactions();
+        }
+    }
+
+    // Run 'action' with 'username' as the current user of this thread (one API request, a batch script).
+    // The user's ledger is leased meanwhile, so it stays loaded until 'action' is done.
+    public static <T> T callAs(String username, Supplier<T> action) {
+        String previous = BOUND_USER.get();
+        BOUND_USER.set(username);
+        Ledger lease = StorageConfig.isPartitioned() ? getInstance().acquire(username) : null;
+        try {
+            return action.get();
+        } finally {
+            if (lease != null) {
+                getInstance().release(lease);
+            }
+            if (previous == null) {
+                BOUND_USER.remove();
+            } else {
+                BOUND_USER.set(previous);
+            }
+        }
+    }
+
+    // The partition of 'username', loaded on first use; may evict (and close) the least recently used ones
+    public Ledger get(String username) {
+        return load(username, false);
+    }
+
+    // Same, and lease it: it is not evicted until release() (leases of the same ledger add up)
+    public Ledger acquire(String username) {
+        return load(username, true);
+    }
+
+    public void release(Ledger ledger) {
+        List<Ledger> evicted;
+        synchronized (this) {
+            ledger.leases--;
+            evicted = trim(null); // Evictions held back by this lease happen now
+        }
+        close(evicted);
+    }
+
+    private Ledger load(String username, boolean lease) {
+        Ledger ledger;
+        List<Ledger> evicted;
+        synchronized (this) {
+            ledger = loaded.get(username);
+            if (ledger != null) {
+                CACHE.hit();
+            } else {
+                CACHE.miss();
+                // Cheap to create: the files are only read by the first transactions() / accounts() / categories() call
+                Ledger previous = closing.get(username);
+                ledger = new Ledger(username, StorageConfig.userDir(username), previous == null ? null : previous.closed);
+                loaded.put(username, ledger);
+            }
+            if (lease) {
+                ledger.leases++;
+            }
+            evicted = trim(ledger);
+        }
+        close(evicted);
+        return ledger;
+    }
+
+    // Take the least recently used ledgers beyond the capacity out of the cache, skipping leased ones and 'keep'
+    private List<Ledger> trim(Ledger keep) {
+        List<Ledger> evicted = new ArrayList<>();
+        Iterator<Ledger> eldest = loaded.values().iterator();
+        while (loaded.size() > capacity && eldest.hasNext()) {
+            Ledger least = eldest.next();
+            if (least.leases == 0 && least != keep) {
+                eldest.remove();
+                closing.put(least.username, least);
+                evicted.add(least);
+            }
+        }
+        return evicted;
+    }
+
+    // Closing waits for the evicted ledgers' writers, so it happens outside the lock
+    private void close(List<Ledger> evicted) {
+        for (Ledger each : evicted) {
+            each.close();
+            synchronized (this) {
+                closing.remove(each.username, each);
+            }
+        }
+    }
+
+    public synchronized boolean isLoaded(String username) {
+        return loaded.containsKey(username);
+    }
+
+    public synchronized int size() {
+        return loaded.size();
+    }
+
+    // Close every loaded ledger (their queued changes are persisted first)
+    public void closeAll() {
+        List<Ledger> all;
+        synchronized (this) {
+            all = new ArrayList<>(loaded.values());
+            loaded.clear();
+        }
+        for (Ledger each : all) {
+            each.close();
+        }
+    }
+
+    // One user's partition: transactions, accounts and categories stored in the same directory
+    public static final class Ledger {
+
+        private final String username;
+        private final String dataDir;
+        // Released once the same user's evicted ledger, still closing when this one was created, has closed
+        private final CountDownLatch previousClosed;
+        private final CountDownLatch closed = new CountDownLatch(1);
+        // Callers using this ledger right now (guarded by the owning UserLedgers)
+        private int leases;
+        private TransactionService transactions;
+        private AccountRegistry accounts;
+        private CategoryService categories;
+
+        Ledger(String username, String dataDir, CountDownLatch previousClosed) {
+            this.username = username;
+            this.dataDir = dataDir;
+            this.previousClosed = previousClosed;
+        }
+
+        public String getDataDir() {
+            return dataDir;
+        }
+
+        public synchronized TransactionService transactions() {
+            if (transactions == null) {
+                if (closed.getCount() == 0) {
+                    // A second writer on the same files would corrupt them; the caller should look the user up again
+                    throw new IllegalStateException("Ledger was unloaded: " + dataDir);
+                }
+                if (previousClosed != null) {
+                    await(previousClosed);
+                }
+                transactions = new TransactionService(dataDir);
+            }
+            return transactions;
+        }
+
+        public synchronized AccountRegistry accounts() {
+            if (accounts == null) {
+                accounts = new AccountRegistry(StorageConfig.accountPath(dataDir), this::transactions);
+            }
+            return accounts;
+        }
+
+        public synchronized CategoryService categories() {
+            if (categories == null) {
+                categories = new CategoryService(StorageConfig.categoryPath(dataDir));
+            }
+            return categories;
+        }
+
+        // Accounts and categories are written through on every change; only the transaction writer has to stop
+        synchronized void close() {
+            if (transactions != null) {
+                transactions.close();
+            }
+            closed.countDown();
+        }
+
+        private void await(CountDownLatch latch) {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while " + dataDir + " was being unloaded");
+            }
+        }
+    }
+}
@@ -0,0 +1,340 @@
+// Design Patterns:
+//   - Column store (one fixed-width binary file per field, read through memory-mapped buffers)
+// Where used:
+//   - Backing format for ColumnarLedgerFormat ("-Dfinance.ledger.format=columnar").
+//   - Converters to and from the CSV ledger (Main --to-columnar / --to-csv).
+// Why used:
+//   - Rows are read straight out of the mapped files by offset: no line splitting and no number parsing.
+//
+// Directory layout (all numbers little-endian, G = generation):
+//   ledger.meta          version=2 / rows=<n> / generation=<G>   (replacing this file commits a new generation)
+//   date.G.col           int   epoch day (days since 1970-01-01), or a code into date.G.dict for other date text
+//   type.G.col           byte  TYPE_INCOME, TYPE_EXPENSE, or an id into type.G.dict for any other type text
+//   category.G.col       int   id into category.G.dict
+//   account.G.col        int   id into account.G.dict
+//   amount.G.col         long  amount in cents
+//   category.G.dict      one category name per line, line i = id i
+//   account.G.dict       one account name per line, line i = id i
+//   date.G.dict          dates that are not ISO yyyy-MM-dd, kept verbatim (version 2; absent in version 1)
+//   type.G.dict          type names, line 0 "income", line 1 "expense" (version 2; absent in version 1)
+// Every row of the ledger is stored: rewriting the base must never drop rows, or the journal's row indexes
+// would point at the wrong transactions.
+
+
+package util;
+
+import models.Transaction;
+import models.TransactionTable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+public class ColumnarLedger {
+
+    public static final byte TYPE_INCOME = 0;
+    public static final byte TYPE_EXPENSE = 1;
+    public static final String META_FILE = "ledger.meta";
+
+    private static final int VERSION = 2;
+    // Date codes at or below this value refer to date.G.dict (the same encoding as TransactionTable)
+    private static final int RAW_DATE_BASE = -100_000_000;
+    private static final int CHUNK_ROWS = 8192;
+
+    private final int rows;
+    private final ByteBuffer dates;
+    private final ByteBuffer types;
+    private final ByteBuffer categories;
+    private final ByteBuffer accounts;
+    private final ByteBuffer amounts;
+    private final StringDictionary categoryNames;
+    private final StringDictionary accountNames;
+    private final StringDictionary rawDates;
+    private final StringDictionary typeNames;
+
+    private ColumnarLedger(Path dir, int rows, int generation) throws IOException {
+        this.rows = rows;
+        this.dates = map(dir.resolve("date." + generation + ".col"));
+        this.types = map(dir.resolve("type." + generation + ".col"));
+        this.categories = map(dir.resolve("category." + generation + ".col"));
+        this.accounts = map(dir.resolve("account." + generation + ".col"));
+        this.amounts = map(dir.resolve("amount." + generation + ".col"));
+        this.categoryNames = StringDictionary.of(Files.readAllLines(dir.resolve("category." + generation + ".dict"), StandardCharsets.UTF_8));
+        this.accountNames = StringDictionary.of(Files.readAllLines(dir.resolve("account." + generation + ".dict"), StandardCharsets.UTF_8));
+        this.rawDates = readOptionalDictionary(dir.resolve("date." + generation + ".dict"), List.of());
+        this.typeNames = readOptionalDictionary(dir.resolve("type." + generation + ".dict"), List.of("income", "expense"));
+    }
+
+    // Version 1 ledgers have no date or type dictionary
+    private static StringDictionary readOptionalDictionary(Path path, List<String> missing) throws IOException {
+        return StringDictionary.of(Files.exists(path) ? Files.readAllLines(path, StandardCharsets.UTF_8) : missing);
+    }
+
+    // Map the current generation of a ledger directory (null if the directory holds no ledger yet)
+    public static ColumnarLedger open(String dir) {
+        Path meta = Path.of(dir, META_FILE);
+        if (!Files.exists(meta)) {
+            return null;
+        }
+        try {
+            int[] header = readMeta(meta);
+            return new ColumnarLedger(Path.of(dir), header[0], header[1]);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Error opening columnar ledger: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // --- Column access (row = 0 .. size()-1) ---
+
+    public int size() {
+        return rows;
+    }
+
+    // TransactionTable.NO_EPOCH_DAY for a date that is not an ISO date
+    public int epochDay(int row) {
+        int code = dates.getInt(row * Integer.BYTES);
+        return code <= RAW_DATE_BASE ? TransactionTable.NO_EPOCH_DAY : code;
+    }
+
+    public byte type(int row) {
+        return types.get(row);
+    }
+
+    public int categoryId(int row) {
+        return categories.getInt(row * Integer.BYTES);
+    }
+
+    public int accountId(int row) {
+        return accounts.getInt(row * Integer.BYTES);
+    }
+
+    public long amountCents(int row) {
+        return amounts.getLong(row * Long.BYTES);
+    }
+
+    public StringDictionary categoryNames() {
+        return categoryNames;
+    }
+
+    public StringDictionary accountNames() {
+        return accountNames;
+    }
+
+    public String dateOf(int row) {
+        int code = dates.getInt(row * Integer.BYTES);
+        return code <= RAW_DATE_BASE ? rawDates.valueOf(RAW_DATE_BASE - code) : LocalDate.ofEpochDay(code).toString();
+    }
+
+    public String typeOf(int row) {
+        return typeNames.valueOf(type(row));
+    }
+
+    // Materialize one row as a Transaction
+    public Transaction get(int row) {
+        return Transaction.ofCents(dateOf(row), typeOf(row), categoryNames.valueOf(categoryId(row)),
+                amountCents(row), accountNames.valueOf(accountId(row)));
+    }
+
+    // Copy all rows into a TransactionTable column by column (dictionary ids are translated once per name).
+    // The rare row with a non-ISO date or another type goes through the table's own text encoding.
+    public TransactionTable toTransactions() {
+        TransactionTable table = new TransactionTable(rows);
+        int[] categoryIds = translate(categoryNames, table.names());
+        int[] accountIds = translate(accountNames, table.names());
+        for (int row = 0; row < rows; row++) {
+            int epochDay = epochDay(row);
+            byte type = type(row);
+            if (epochDay != TransactionTable.NO_EPOCH_DAY && (type == TYPE_INCOME || type == TYPE_EXPENSE)) {
+                table.addEncoded(epochDay, type == TYPE_INCOME ? TransactionTable.TYPE_INCOME : TransactionTable.TYPE_EXPENSE,
+                        categoryIds[categoryId(row)], accountIds[accountId(row)], amountCents(row));
+            } else {
+                table.addRowCents(dateOf(row), typeOf(row), categoryNames.valueOf(categoryId(row)),
+                        amountCents(row), accountNames.valueOf(accountId(row)));
+            }
+        }
+        return table;
+    }
+
+    private static int[] translate(StringDictionary from, StringDictionary to) {
+        int[] ids = new int[from.size()];
+        for (int id = 0; id < ids.length; id++) {
+            ids[id] = to.idOf(from.valueOf(id));
+        }
+        return ids;
+    }
+
+    // --- Writing ---
+
+    // Write 'transactions' as generation 'generation' of the ledger in 'dir' and return the staged meta file.
+    // Every row is written: other date text and type names go to the date and type dictionaries.
+    public static Path writeGeneration(Path dir, int generation, List<Transaction> transactions) throws IOException {
+        Files.createDirectories(dir);
+        StringDictionary categoryNames = new StringDictionary();
+        StringDictionary accountNames = new StringDictionary();
+        StringDictionary rawDates = new StringDictionary();
+        StringDictionary typeNames = StringDictionary.of(List.of("income", "expense"));
+        int written = 0;
+
+        try (ColumnWriter dates = new ColumnWriter(dir.resolve("date." + generation + ".col"), Integer.BYTES);
+             ColumnWriter types = new ColumnWriter(dir.resolve("type." + generation + ".col"), 1);
+             ColumnWriter categories = new ColumnWriter(dir.resolve("category." + generation + ".col"), Integer.BYTES);
+             ColumnWriter accounts = new ColumnWriter(dir.resolve("account." + generation + ".col"), Integer.BYTES);
+             ColumnWriter amounts = new ColumnWriter(dir.resolve("amount." + generation + ".col"), Long.BYTES)) {
+
+            for (Transaction t : transactions) {
+                int epochDay = TransactionTable.epochDayOf(t.getDate());
+                dates.buffer().putInt(epochDay != TransactionTable.NO_EPOCH_DAY ? epochDay : RAW_DATE_BASE - rawDates.idOf(t.getDate()));
+                types.buffer().put(typeCode(typeNames, t.getType()));
+                categories.buffer().putInt(categoryNames.idOf(t.getCategory()));
+                accounts.buffer().putInt(accountNames.idOf(t.getAccountName()));
+                amounts.buffer().putLong(t.getAmountCents());
+                written++;
+            }
+        }
+
+        Files.write(dir.resolve("category." + generation + ".dict"), categoryNames.values(), StandardCharsets.UTF_8);
+        Files.write(dir.resolve("account." + generation + ".dict"), accountNames.values(), StandardCharsets.UTF_8);
+        Files.write(dir.resolve("date." + generation + ".dict"), rawDates.values(), StandardCharsets.UTF_8);
+        Files.write(dir.resolve("type." + generation + ".dict"), typeNames.values(), StandardCharsets.UTF_8);
+
+        Path stagedMeta = dir.resolve(META_FILE + ".tmp");
+        Files.write(stagedMeta, List.of("version=" + VERSION, "rows=" + written, "generation=" + generation), StandardCharsets.UTF_8);
+        return stagedMeta;
+    }
+
+    // Generation number of the committed ledger in 'dir' (0 if none)
+    public static int currentGeneration(Path dir) {
+        Path meta = dir.resolve(META_FILE);
+        if (!Files.exists(meta)) {
+            return 0;
+        }
+        try {
+            return readMeta(meta)[1];
+        } catch (IOException | RuntimeException e) {
+            return 0;
+        }
+    }
+
+    // Remove column and dictionary files of every generation except 'keep'
+    public static void deleteOtherGenerations(Path dir, int keep) {
+        File[] files = dir.toFile().listFiles();
+        if (files == null) {
+            return;
+        }
+        String suffixCol = "." + keep + ".col";
+        String suffixDict = "." + keep + ".dict";
+        for (File file : files) {
+            String name = file.getName();
+            boolean columnFile = name.endsWith(".col") || name.endsWith(".dict");
+            if (columnFile && !name.endsWith(suffixCol) && !name.endsWith(suffixDict)) {
+                file.delete(); // Best effort: a file still mapped elsewhere may refuse on some platforms
+            }
+        }
+    }
+
+    // --- Converters ---
+
+    public static int convertFromCsv(String csvPath, String dir) {
+        List<Transaction> transactions = FileUtil.readTransactions(csvPath);
+        try {
+            new ColumnarLedgerFormat().write(dir, transactions);
+        } catch (UncheckedIOException e) {
+            System.out.println("Error writing ledger: " + e.getCause().getMessage());
+        }
+        ColumnarLedger ledger = open(dir);
+        return ledger == null ? 0 : ledger.size();
+    }
+
+    public static int convertToCsv(String dir, String csvPath) {
+        ColumnarLedger ledger = open(dir);
+        TransactionTable transactions = ledger == null ? new TransactionTable() : ledger.toTransactions();
+        FileUtil.writeTransactions(csvPath, transactions);
+        return transactions.size();
+    }
+
+    // "income" and "expense" in any case are normalized, like in TransactionTable; other text gets its own id.
+    // A type that does not fit in the byte column fails the write, so the previous generation stays current.
+    private static byte typeCode(StringDictionary typeNames, String type) throws IOException {
+        if (type.equalsIgnoreCase("income")) {
+            return TYPE_INCOME;
+        }
+        if (type.equalsIgnoreCase("expense")) {
+            return TYPE_EXPENSE;
+        }
+        int id = typeNames.idOf(type);
+        if (id > Byte.MAX_VALUE) {
+            throw new IOException("Too many distinct transaction types: " + type);
+        }
+        return (byte) id;
+    }
+
+    // Returns {rows, generation}
+    private static int[] readMeta(Path meta) throws IOException {
+        int rows = -1;
+        int generation = -1;
+        int version = -1;
+        for (String line : Files.readAllLines(meta, StandardCharsets.UTF_8)) {
+            String[] parts = line.split("=");
+            if (parts.length != 2) continue;
+            switch (parts[0].trim()) {
+                case "version": version = Integer.parseInt(parts[1].trim()); break;
+                case "rows": rows = Integer.parseInt(parts[1].trim()); break;
+                case "generation": generation = Integer.parseInt(parts[1].trim()); break;
+                default: break;
+            }
+        }
+        if (version < 1 || version > VERSION || rows < 0 || generation < 0) {
+            throw new IOException("Unsupported ledger metadata in " + meta);
+        }
+        return new int[] {rows, generation};
+    }
+
+    private static ByteBuffer map(Path column) throws IOException {
+        try (FileChannel channel = FileChannel.open(column, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    // Buffers one column and writes it out in CHUNK_ROWS sized blocks
+    private static class ColumnWriter implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+
+        ColumnWriter(Path path, int width) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.buffer = ByteBuffer.allocate(CHUNK_ROWS * width).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        ByteBuffer buffer() throws IOException {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            return buffer;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+// Design Pattern: Strategy Pattern (LedgerFormat implementation)
+// Where used:
+//   - Selected with "-Dfinance.ledger.format=columnar"; the ledger lives in a directory of binary column files.
+// Why used:
+//   - Loading maps the columns instead of splitting and parsing text lines (see ColumnarLedger).
+
+
+package util;
+
+import models.Transaction;
+import models.TransactionTable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+public class ColumnarLedgerFormat implements LedgerFormat {
+
+    @Override
+    public TransactionTable read(String path) {
+        ColumnarLedger ledger = ColumnarLedger.open(path);
+        return ledger == null ? new TransactionTable() : ledger.toTransactions();
+    }
+
+    // Column files of the next generation are written first; the staged meta file points at them
+    @Override
+    public Path stage(String path, List<Transaction> transactions) throws IOException {
+        Path dir = Path.of(path);
+        int next = ColumnarLedger.currentGeneration(dir) + 1;
+        return ColumnarLedger.writeGeneration(dir, next, transactions);
+    }
+
+    @Override
+    public void commit(Path staged, String path) throws IOException {
+        Path dir = Path.of(path);
+        Files.move(staged, dir.resolve(ColumnarLedger.META_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        ColumnarLedger.deleteOtherGenerations(dir, ColumnarLedger.currentGeneration(dir));
+    }
+
+    @Override
+    public File stampFile(String path) {
+        return new File(path, ColumnarLedger.META_FILE);
+    }
+}
@@ -0,0 +1,47 @@
+// Design Pattern: Strategy Pattern (LedgerFormat implementation)
+// Where used:
+//   - Default ledger format: one "date,type,category,amount,accountName" line per transaction.
+
+
+package util;
+
+import models.Transaction;
+import models.TransactionTable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CsvLedgerFormat implements LedgerFormat {
+
+    @Override
+    public TransactionTable read(String path) {
+        return FileUtil.readTransactions(path);
+    }
+
+    @Override
+    public Path stage(String path, List<Transaction> transactions) throws IOException {
+        Path tmp = Path.of(path + ".tmp");
+        List<String> lines = new ArrayList<>(transactions.size());
+        for (Transaction t : transactions) {
+            lines.add(FileUtil.toTransactionLine(t));
+        }
+        Files.write(tmp, lines, StandardCharsets.UTF_8);
+        return tmp;
+    }
+
+    @Override
+    public void commit(Path staged, String path) throws IOException {
+        Files.move(staged, Path.of(path), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public File stampFile(String path) {
+        return new File(path);
+    }
+}
@@ -0,0 +1,110 @@
+// Design Patterns:
+//   - Registry / Cache (each reflective target is resolved once and kept as a MethodHandle)
+// Where used:
+//   - ReflectionUtil (menu routing from Main), ReportService and LoginService reflective calls.
+// Why used:
+//   - Class.forName + getDeclaredMethod + setAccessible on every call is slow; a cached MethodHandle
+//     is resolved once and then invoked directly, while callers still name targets by class and method name.
+
+
+package util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class DispatchRegistry {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    // className -> (kind + method signature) -> handle; two levels so a no-argument lookup builds no key string
+    private static final Map<String, Map<String, MethodHandle>> HANDLES = new ConcurrentHashMap<>();
+    private static final Map<String, Class<?>> CLASSES = new ConcurrentHashMap<>();
+    private static final Metrics.CacheStats CACHE = Metrics.cache("dispatch");
+
+    // Handle for a static method (private methods included), resolved on first use.
+    // The handle has the method's exact type, so callers can use invokeExact.
+    public static MethodHandle staticMethod(String className, String methodName, Class<?>... parameterTypes)
+            throws ReflectiveOperationException {
+        return staticMethod(classFor(className), methodName, parameterTypes);
+    }
+
+    public static MethodHandle staticMethod(Class<?> owner, String methodName, Class<?>... parameterTypes)
+            throws ReflectiveOperationException {
+        Map<String, MethodHandle> handles = handlesOf(owner.getName());
+        String key = signature(methodName, parameterTypes);
+        MethodHandle handle = handles.get(key);
+        if (handle != null) {
+            CACHE.hit();
+        } else {
+            CACHE.miss();
+            Method method = owner.getDeclaredMethod(methodName, parameterTypes);
+            method.setAccessible(true);
+            handle = LOOKUP.unreflect(method);
+            handles.putIfAbsent(key, handle);
+        }
+        return handle;
+    }
+
+    // Handle of type ()void that creates a fresh instance of the class and calls a no-argument method on it
+    public static MethodHandle newInstanceAndCall(String className, String methodName) throws ReflectiveOperationException {
+        Map<String, MethodHandle> handles = handlesOf(className);
+        String key = "new+" + methodName;
+        MethodHandle handle = handles.get(key);
+        if (handle != null) {
+            CACHE.hit();
+        } else {
+            CACHE.miss();
+            Class<?> owner = classFor(className);
+            Constructor<?> constructor = owner.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            Method method = owner.getDeclaredMethod(methodName);
+            method.setAccessible(true);
+
+            // target(owner)void  ->  fold in the constructor  ->  ()void
+            MethodHandle target = LOOKUP.unreflect(method).asType(MethodType.methodType(void.class, owner));
+            MethodHandle create = LOOKUP.unreflectConstructor(constructor);
+            handle = MethodHandles.foldArguments(target, create);
+            handles.putIfAbsent(key, handle);
+        }
+        return handle;
+    }
+
+    // Number of cached handles (mainly for tests and diagnostics)
+    public static int size() {
+        int size = 0;
+        for (Map<String, MethodHandle> handles : HANDLES.values()) {
+            size += handles.size();
+        }
+        return size;
+    }
+
+    private static Map<String, MethodHandle> handlesOf(String className) {
+        return HANDLES.computeIfAbsent(className, name -> new ConcurrentHashMap<>());
+    }
+
+    // "name" for no-argument methods, "name(type,type)" otherwise
+    private static String signature(String methodName, Class<?>... parameterTypes) {
+        if (parameterTypes.length == 0) {
+            return methodName;
+        }
+        StringBuilder key = new StringBuilder(methodName).append('(');
+        for (Class<?> type : parameterTypes) {
+            key.append(type.getName()).append(',');
+        }
+        return key.append(')').toString();
+    }
+
+    // Class.forName is itself a lookup on every call; keep the resolved classes too
+    private static Class<?> classFor(String className) throws ClassNotFoundException {
+        Class<?> cls = CLASSES.get(className);
+        if (cls == null) {
+            cls = Class.forName(className);
+            CLASSES.putIfAbsent(className, cls);
+        }
+        return cls;
+    }
+}
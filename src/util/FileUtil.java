@@ -5,18 +5,29 @@
 //   - Used by TransactionService to save/load transactions as objects.
 // Why used:
 //   - Centralizes file I/O logic, improves code reuse and reduces duplication.
+//   - Writes go through GroupCommitWriter: concurrent writes are coalesced into one buffered write per file.
+//     The plain methods wait for their write; the ...Async ones return its future. Reads first wait for any
+//     write still queued for the same file, so a read always sees earlier writes.
+//   - appendLine, writeLines and readLines print I/O errors and carry on, as they always did. Everything added
+//     since (appendLines, await, forEachTransaction) throws them as UncheckedIOException instead.
 
 
 package util;
 
 import models.Transaction;
+import models.TransactionTable;
 
 import java.io.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
 
 public class FileUtil {
 
+    private static final Metrics.LatencyHistogram READ_LATENCY = Metrics.timer("file.read");
+    private static final LongAdder BYTES_READ = Metrics.counter("file.bytesRead");
+
  
 
     // Read all lines from a file. If file doesn't exist, create it first.
@@ -24,12 +35,9 @@ public class FileUtil {
         List<String> lines = new ArrayList<>();
 
         try {
-            File file = new File(filePath);
-
-            if (!file.exists()) {
-                file.getParentFile().mkdirs(); // Create folder if not exist
-                file.createNewFile();          // Create the file
-            }
+            await(filePath);
+            File file = ensureFileExists(filePath);
+            long start = READ_LATENCY.start();
 
             BufferedReader reader = new BufferedReader(new FileReader(file));
             String line;
@@ -39,79 +47,134 @@ public class FileUtil {
             }
 
             reader.close();
-        } catch (IOException e) {
+            READ_LATENCY.stop(start);
+            BYTES_READ.add(file.length());
+        } catch (IOException | UncheckedIOException e) {
             System.out.println("Error reading file: " + e.getMessage());
         }
 
         return lines;
     }
 
-    // Append a line to a file 
-    public static void appendLine(String filePath, String line) {
+    // Create the file (and its folder) if it does not exist yet
+    private static File ensureFileExists(String filePath) {
+        File file = new File(filePath);
+
         try {
-            FileWriter writer = new FileWriter(filePath, true);
-            writer.write(line + "\n");
-            writer.close();
+            if (!file.exists()) {
+                File parent = file.getParentFile();
+                if (parent != null) {
+                    parent.mkdirs(); // Create folder if not exist
+                }
+                file.createNewFile();          // Create the file
+            }
         } catch (IOException e) {
-            System.out.println("Error appending to file: " + e.getMessage());
+            System.out.println("Error creating file: " + e.getMessage());
         }
+
+        return file;
+    }
+
+    // Append a line to a file 
+    public static void appendLine(String filePath, String line) {
+        complete(appendLineAsync(filePath, line), "Error appending to file: ");
+    }
+
+    // Append several lines with a single write (bulk imports append a whole batch at once)
+    public static void appendLines(String filePath, List<String> lines) {
+        GroupCommitWriter.join(appendLinesAsync(filePath, lines));
     }
 
     // Overwrite file with a list of lines 
     public static void writeLines(String filePath, List<String> lines) {
-        try {
-            FileWriter writer = new FileWriter(filePath);
-            for (String line : lines) {
-                writer.write(line + "\n");
-            }
-            writer.close();
-        } catch (IOException e) {
-            System.out.println("Error writing to file: " + e.getMessage());
-        }
+        complete(writeLinesAsync(filePath, lines), "Error writing to file: ");
     }
 
-    
-    // Transaction-Specific File Operations
+    // Queue an append without waiting for the disk; the future completes once it is written
+    public static CompletableFuture<Void> appendLineAsync(String filePath, String line) {
+        return GroupCommitWriter.shared().append(filePath, line + "\n");
+    }
+
+    public static CompletableFuture<Void> appendLinesAsync(String filePath, List<String> lines) {
+        return GroupCommitWriter.shared().append(filePath, joinLines(lines));
+    }
 
+    public static CompletableFuture<Void> writeLinesAsync(String filePath, List<String> lines) {
+        return GroupCommitWriter.shared().overwrite(filePath, joinLines(lines));
+    }
 
-    // Read transactions from file and return as a list of Transaction objects
-    public static List<Transaction> readTransactions(String filePath) {
-        List<Transaction> transactions = new ArrayList<>();
-        List<String> lines = readLines(filePath);
+    // Wait until every write queued for this file is on disk (before reading it by other means than readLines);
+    // throws UncheckedIOException if the last of them failed
+    public static void await(String filePath) {
+        GroupCommitWriter.shared().await(filePath);
+    }
 
+    private static String joinLines(List<String> lines) {
+        StringBuilder text = new StringBuilder();
         for (String line : lines) {
-            // Expected format: date|type|category|amount|accountName
-            String[] parts = line.split("\\,");
-            if (parts.length == 5) {
-                try {
-                    String date = parts[0];
-                    String type = parts[1];
-                    String category = parts[2];
-                    double amount = Double.parseDouble(parts[3]);
-                    String accountName = parts[4];
-
-                    Transaction t = new Transaction(date, type, category, amount, accountName);
-                    transactions.add(t);
-                } catch (Exception e) {
-                    System.out.println("Skipping invalid transaction line: " + line);
-                }
-            }
+            text.append(line).append('\n');
+        }
+        return text.toString();
+    }
+
+    // Wait for a queued write of the old API (appendLine, writeLines), which reports I/O errors instead of throwing
+    private static void complete(CompletableFuture<Void> write, String errorPrefix) {
+        try {
+            GroupCommitWriter.join(write);
+        } catch (UncheckedIOException e) {
+            System.out.println(errorPrefix + e.getCause().getMessage());
         }
+    }
+
+    
+    // Transaction-Specific File Operations
+
 
+    // Read transactions from file into a TransactionTable (a List<Transaction> stored as primitive columns).
+    // Lines are streamed through TransactionCsvParser straight into the table, so no per-row objects are built.
+    public static TransactionTable readTransactions(String filePath) {
+        TransactionTable transactions = new TransactionTable();
+        forEachTransaction(filePath, transactions::addRowCents);
         return transactions;
     }
 
+    // Stream transactions from file to 'handler' one row at a time. If file doesn't exist, create it first.
+    public static int forEachTransaction(String filePath, TransactionCsvParser.RowHandler handler) {
+        await(filePath);
+        File file = ensureFileExists(filePath);
+        long start = READ_LATENCY.start();
+        int rows = TransactionCsvParser.parse(filePath, handler);
+        READ_LATENCY.stop(start);
+        BYTES_READ.add(file.length());
+        return rows;
+    }
+
     // Write list of Transaction objects to file in line format
     public static void writeTransactions(String filePath, List<Transaction> transactions) {
         List<String> lines = new ArrayList<>();
 
         for (Transaction t : transactions) {
-            // Convert transaction to: date|type|category|amount|accountName
-            String line = t.getDate() + "," + t.getType() + "," + t.getCategory()
-                        + "," + t.getAmount() + "," + t.getAccountName();
-            lines.add(line);
+            lines.add(toTransactionLine(t));
         }
 
         writeLines(filePath, lines);
     }
+
+    // Convert transaction to: date,type,category,amount,accountName
+    public static String toTransactionLine(Transaction t) {
+        StringBuilder line = new StringBuilder(64)
+                .append(t.getDate()).append(',').append(t.getType()).append(',').append(t.getCategory()).append(',');
+        return Money.appendTo(line, t.getAmountCents()).append(',').append(t.getAccountName()).toString();
+    }
+
+    // Build a Transaction from five CSV fields starting at 'offset' (shared with the journal records)
+    public static Transaction parseTransaction(String[] parts, int offset) {
+        String date = parts[offset];
+        String type = parts[offset + 1];
+        String category = parts[offset + 2];
+        long amountCents = Money.parseCents(parts[offset + 3]);
+        String accountName = parts[offset + 4];
+
+        return Transaction.ofCents(date, type, category, amountCents, accountName);
+    }
 }
@@ -0,0 +1,225 @@
+// Design Patterns:
+//   - Group Commit / Producer-Consumer (callers queue writes; one background thread coalesces and performs them)
+//   - Future (every queued write completes a CompletableFuture once its bytes are written, and synced if configured)
+// Where used:
+//   - FileUtil.appendLine/appendLines/writeLines (which wait for the future) and their ...Async variants.
+//   - TransactionJournal records and AggregateStore saves use the async variants.
+// Why used:
+//   - Before, every call opened its own unbuffered FileWriter on the caller's thread. Now all writes queued while the
+//     writer is busy are grouped per file: appends are concatenated and an overwrite supersedes everything queued
+//     before it, then each file gets one buffered FileChannel write (and at most one fsync) per group.
+//   - Callers that do not read the file back right away just keep the future and continue.
+//
+// System properties:
+//   finance.io.flushMillis  0 (default)            - extra time to wait for more writes before writing a group
+//   finance.io.batchSize    256 (default)          - most queued writes in one group
+//   finance.io.fsync        none (default) | batch - force each written file to disk once per group
+
+
+package util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class GroupCommitWriter {
+
+    private static final Metrics.LatencyHistogram WRITE_LATENCY = Metrics.timer("file.write");
+    private static final LongAdder BYTES_WRITTEN = Metrics.counter("file.bytesWritten");
+    private static final LongAdder QUEUED_WRITES = Metrics.counter("file.queuedWrites");
+
+    private static GroupCommitWriter shared;
+
+    private final long flushMillis;
+    private final int batchSize;
+    private final boolean fsync;
+    private final LinkedBlockingQueue<Write> queue = new LinkedBlockingQueue<>();
+    // Future of the most recent queued write per file, so a reader can wait for it
+    private final Map<String, CompletableFuture<Void>> lastWrite = new ConcurrentHashMap<>();
+
+    public GroupCommitWriter(long flushMillis, int batchSize, boolean fsync) {
+        this.flushMillis = Math.max(0, flushMillis);
+        this.batchSize = Math.max(1, batchSize);
+        this.fsync = fsync;
+
+        Thread writer = new Thread(this::run, "file-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // The writer used by FileUtil, configured from the system properties
+    public static synchronized GroupCommitWriter shared() {
+        if (shared == null) {
+            shared = new GroupCommitWriter(Long.getLong("finance.io.flushMillis", 0),
+                    Integer.getInteger("finance.io.batchSize", 256),
+                    "batch".equalsIgnoreCase(System.getProperty("finance.io.fsync", "none")));
+            GroupCommitWriter writer = shared;
+            // Daemon thread: give queued writes a chance to land before the JVM exits
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> writer.awaitAll(5000)));
+        }
+        return shared;
+    }
+
+    // Append 'text' to the file (created if missing)
+    public CompletableFuture<Void> append(String filePath, String text) {
+        return enqueue(new Write(filePath, text, false));
+    }
+
+    // Replace the file's content with 'text'
+    public CompletableFuture<Void> overwrite(String filePath, String text) {
+        return enqueue(new Write(filePath, text, true));
+    }
+
+    // Block until every write queued for this file so far is on disk (no-op if none is pending).
+    // Throws like join() if the last of them failed.
+    public void await(String filePath) {
+        CompletableFuture<Void> pending = lastWrite.get(filePath);
+        if (pending != null) {
+            join(pending);
+        }
+    }
+
+    // Wait for a queued write and rethrow its failure: an IOException as UncheckedIOException, anything else as is
+    public static void join(CompletableFuture<?> write) {
+        try {
+            write.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw new UncheckedIOException(io);
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+
+    private void awaitAll(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        for (CompletableFuture<Void> pending : lastWrite.values()) {
+            try {
+                pending.get(Math.max(1, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                return;
+            }
+        }
+    }
+
+    // Synchronized so the queue order and lastWrite agree when two threads write the same file
+    private synchronized CompletableFuture<Void> enqueue(Write write) {
+        QUEUED_WRITES.increment();
+        lastWrite.put(write.path, write.done);
+        queue.add(write);
+        return write.done;
+    }
+
+    private void run() {
+        List<Write> group = new ArrayList<>();
+        while (true) {
+            try {
+                group.add(queue.take());
+                if (flushMillis > 0) {
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushMillis);
+                    while (group.size() < batchSize) {
+                        Write next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                        group.add(next);
+                    }
+                }
+                queue.drainTo(group, batchSize - group.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            commit(group);
+            group.clear();
+        }
+    }
+
+    // Coalesce the group per file (in queue order), then one write per file
+    private void commit(List<Write> group) {
+        Map<String, Pending> files = new LinkedHashMap<>();
+        for (Write write : group) {
+            Pending file = files.computeIfAbsent(write.path, p -> new Pending());
+            if (write.overwrite) {
+                file.text.setLength(0); // Everything queued before an overwrite is superseded by it
+                file.truncate = true;
+            }
+            file.text.append(write.text);
+            file.writes.add(write);
+        }
+
+        for (Map.Entry<String, Pending> entry : files.entrySet()) {
+            String path = entry.getKey();
+            Pending file = entry.getValue();
+            Exception failure = null;
+            try {
+                write(path, file);
+            } catch (IOException | RuntimeException e) {
+                failure = e; // Reported to the callers; the writer thread keeps running
+            }
+            for (Write write : file.writes) {
+                if (failure == null) {
+                    write.done.complete(null);
+                } else {
+                    write.done.completeExceptionally(failure);
+                }
+                lastWrite.remove(path, write.done);
+            }
+        }
+    }
+
+    private void write(String path, Pending file) throws IOException {
+        long start = WRITE_LATENCY.start();
+        StandardOpenOption mode = file.truncate ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND;
+        try (FileChannel channel = FileChannel.open(Path.of(path),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)) {
+            ByteBuffer bytes = ByteBuffer.wrap(file.text.toString().getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+            BYTES_WRITTEN.add(bytes.limit());
+        }
+        WRITE_LATENCY.stop(start);
+    }
+
+    private static class Write {
+        final String path;
+        final String text;
+        final boolean overwrite;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Write(String path, String text, boolean overwrite) {
+            this.path = path;
+            this.text = text;
+            this.overwrite = overwrite;
+        }
+    }
+
+    // Everything one group writes to one file
+    private static class Pending {
+        final StringBuilder text = new StringBuilder();
+        final List<Write> writes = new ArrayList<>();
+        boolean truncate;
+    }
+}
@@ -21,6 +21,12 @@ public class InputUtil {
         return input;
     }
 
+    // Get a string that may be left blank ("" if it was)
+    public static String getOptionalString(String message) {
+        System.out.print(message);
+        return scanner.nextLine().trim();
+    }
+
     // Get a valid integer
     public static int getInt(String message) {
         int number;
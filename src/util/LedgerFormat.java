@@ -0,0 +1,42 @@
+// Design Pattern: Strategy Pattern
+// Where used:
+//   - TransactionJournal and TransactionService read/write the base ledger through this interface.
+// Why used:
+//   - The ledger can be stored as the original CSV file or as a binary columnar directory,
+//     without the journal or the services knowing which one is in use.
+
+
+package util;
+
+import models.Transaction;
+import models.TransactionTable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+
+public interface LedgerFormat {
+
+    // Read every transaction stored at 'path' (empty list if nothing is stored yet)
+    TransactionTable read(String path);
+
+    // Write a complete new version next to 'path' and return the file whose rename makes it current
+    Path stage(String path, List<Transaction> transactions) throws IOException;
+
+    // Make a staged version current (an atomic rename)
+    void commit(Path staged, String path) throws IOException;
+
+    // The file whose length and lastModified identify the current version
+    File stampFile(String path);
+
+    // Replace the stored ledger with 'transactions'; throws UncheckedIOException if it could not be written
+    default void write(String path, List<Transaction> transactions) {
+        try {
+            commit(stage(path, transactions), path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
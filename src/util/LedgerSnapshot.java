@@ -0,0 +1,118 @@
+// Design Patterns:
+//   - Checkpoint / Memento (a binary image of the in-memory ledger, tagged with the journal position it reflects)
+// Where used:
+//   - TransactionJournal writes one in the background and starts from it when opening or reading the ledger.
+// Why used:
+//   - Loading used to parse every line of the base ledger, so startup grew with the whole history. A snapshot is
+//     mapped and its columns copied in bulk (TransactionTable.readFrom); only the journal records appended after
+//     it are replayed.
+//   - It is staged next to the target and renamed into place, so a crash leaves the previous snapshot intact.
+//     A checksum catches any other damage, and a damaged or outdated snapshot is simply not used.
+//
+// File layout (big-endian):
+//   int    MAGIC, int VERSION
+//   int    length of the journal header, then its UTF-8 bytes: the "#base,..." line the snapshot belongs to
+//   long   journal length covered (the records from this byte on are not in the snapshot)
+//   ...    TransactionTable.writeTo: dictionaries, row count, then the date/type/category/account/amount columns
+//   long   CRC32 of everything before it
+
+
+package util;
+
+import models.TransactionTable;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+public class LedgerSnapshot {
+
+    private static final int MAGIC = 0x4C534E50; // "LSNP"
+    private static final int VERSION = 1;
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final String journalHeader;
+    private final long journalOffset;
+    private final TransactionTable table;
+
+    private LedgerSnapshot(String journalHeader, long journalOffset, TransactionTable table) {
+        this.journalHeader = journalHeader;
+        this.journalOffset = journalOffset;
+        this.table = table;
+    }
+
+    // Header line of the journal this snapshot was taken from
+    public String getJournalHeader() {
+        return journalHeader;
+    }
+
+    // Journal length the snapshot covers; replay starts here
+    public long getJournalOffset() {
+        return journalOffset;
+    }
+
+    // The ledger as of getJournalOffset(), a table of its own (later changes do not touch the file)
+    public TransactionTable getTable() {
+        return table;
+    }
+
+    // Write 'table' next to 'path' and return the staged file; renaming it onto 'path' makes it current
+    public static Path stage(String path, TransactionTable table, String journalHeader, long journalOffset) throws IOException {
+        Path staged = Path.of(path + ".tmp");
+        CRC32 crc = new CRC32();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new CheckedOutputStream(Files.newOutputStream(staged), crc), BUFFER_BYTES))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            byte[] header = journalHeader.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(header.length);
+            out.write(header);
+            out.writeLong(journalOffset);
+            table.writeTo(out);
+            out.flush(); // Every byte so far has gone through the checksum
+            out.writeLong(crc.getValue());
+        }
+        return staged;
+    }
+
+    // The snapshot at 'path', or null if there is none or it cannot be used (other version, damaged)
+    public static LedgerSnapshot read(String path) {
+        Path file = Path.of(path);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int end = buffer.limit() - Long.BYTES;
+            if (end < 0) {
+                throw new IOException("file is truncated");
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().limit(end));
+            if (crc.getValue() != buffer.getLong(end)) {
+                throw new IOException("checksum mismatch");
+            }
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("unsupported format");
+            }
+            byte[] header = new byte[buffer.getInt()];
+            buffer.get(header);
+            long journalOffset = buffer.getLong();
+            TransactionTable table = TransactionTable.readFrom(buffer.limit(end));
+            return new LedgerSnapshot(new String(header, StandardCharsets.UTF_8), journalOffset, table);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Ignoring unusable ledger snapshot " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
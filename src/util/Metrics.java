@@ -0,0 +1,241 @@
+// Design Patterns:
+//   - Registry (named counters, gauges, latency histograms and cache statistics, created on first use)
+//   - Dynamic MBean (everything in the registry is published as attributes of one platform MBean)
+// Where used:
+//   - TransactionService (ledger load time, row count), FileUtil and GroupCommitWriter (read/write time and bytes),
+//     ReportService (report latency), CredentialStore (login latency), and the caches in DispatchRegistry,
+//     AggregateStore, CategoryService and CredentialStore (hit rates).
+// Why used:
+//   - Shows where time goes without a profiler: connect JConsole/VisualVM to the process and open
+//     finance:type=Metrics.
+//   - Instrumented code keeps its metric in a static final field, so recording costs one System.nanoTime() pair
+//     and a few uncontended atomic adds. Percentiles are only computed when someone reads an attribute.
+//
+// Histograms are log-linear like HdrHistogram: values below 32 ns get their own bucket, larger ones share
+// 16 buckets per power of two, so any reported percentile is within about 3% of the true value.
+
+
+package util;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+public class Metrics {
+
+    public static final String OBJECT_NAME = "finance:type=Metrics";
+
+    private static final Map<String, LatencyHistogram> TIMERS = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+    private static final Map<String, LongSupplier> GAUGES = new ConcurrentHashMap<>();
+    private static final Map<String, CacheStats> CACHES = new ConcurrentHashMap<>();
+
+    static {
+        // Starting the platform MBean server takes a moment, so it is done off the caller's thread
+        Thread register = new Thread(Metrics::registerMBean, "metrics-jmx");
+        register.setDaemon(true);
+        register.start();
+    }
+
+    public static LatencyHistogram timer(String name) {
+        return TIMERS.computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+
+    public static LongAdder counter(String name) {
+        return COUNTERS.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    // A value read only when the metrics are read (e.g. the ledger row count)
+    public static void gauge(String name, LongSupplier value) {
+        GAUGES.put(name, value);
+    }
+
+    public static CacheStats cache(String name) {
+        return CACHES.computeIfAbsent(name, n -> new CacheStats());
+    }
+
+    // Every metric as attribute name -> value, sorted by name
+    public static Map<String, Number> snapshot() {
+        Map<String, Number> values = new TreeMap<>();
+        COUNTERS.forEach((name, counter) -> values.put(name, counter.sum()));
+        GAUGES.forEach((name, gauge) -> values.put(name, gauge.getAsLong()));
+        TIMERS.forEach((name, timer) -> {
+            values.put(name + ".count", timer.getCount());
+            values.put(name + ".p50Micros", timer.percentile(0.50) / 1000.0);
+            values.put(name + ".p99Micros", timer.percentile(0.99) / 1000.0);
+            values.put(name + ".maxMicros", timer.getMax() / 1000.0);
+        });
+        CACHES.forEach((name, cache) -> {
+            values.put("cache." + name + ".hits", cache.hits.sum());
+            values.put("cache." + name + ".misses", cache.misses.sum());
+            values.put("cache." + name + ".hitRate", cache.hitRate());
+        });
+        return values;
+    }
+
+    private static void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(), new ObjectName(OBJECT_NAME));
+        } catch (Exception | LinkageError e) {
+            System.out.println("Metrics are not available over JMX: " + e.getMessage());
+        }
+    }
+
+    // Latency distribution in nanoseconds
+    public static class LatencyHistogram {
+        private static final int SUB_BITS = 5;
+        private static final int LINEAR = 1 << SUB_BITS;       // 0..31 ns: one bucket each
+        private static final int HALF = LINEAR / 2;            // buckets per power of two above that
+        private static final int BUCKETS = LINEAR + (64 - SUB_BITS) * HALF;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        // Start of a measurement; pass the result to stop()
+        public long start() {
+            return System.nanoTime();
+        }
+
+        public void stop(long start) {
+            record(System.nanoTime() - start);
+        }
+
+        public void record(long nanos) {
+            long value = Math.max(0, nanos);
+            buckets.incrementAndGet(indexOf(value));
+            count.increment();
+            max.accumulate(value);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        // Value at quantile 'q' (0..1), as the middle of its bucket; 0 if nothing was recorded
+        public long percentile(double q) {
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                total += buckets.get(i);
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(q * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return Math.min(middleOf(i), getMax());
+                }
+            }
+            return getMax();
+        }
+
+        static int indexOf(long value) {
+            if (value < LINEAR) {
+                return (int) value;
+            }
+            int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BITS - 1); // value >> shift is in [16, 32)
+            return LINEAR + (shift - 1) * HALF + (int) ((value >> shift) - HALF);
+        }
+
+        static long middleOf(int index) {
+            if (index < LINEAR) {
+                return index;
+            }
+            int shift = (index - LINEAR) / HALF + 1;
+            long sub = (index - LINEAR) % HALF + HALF;
+            return (sub << shift) + (1L << (shift - 1));
+        }
+    }
+
+    // Hits and misses of one cache
+    public static class CacheStats {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        public void hit() {
+            hits.increment();
+        }
+
+        public void miss() {
+            misses.increment();
+        }
+
+        public double hitRate() {
+            long h = hits.sum();
+            long total = h + misses.sum();
+            return total == 0 ? 0 : (double) h / total;
+        }
+    }
+
+    // Read-only view of snapshot(); the attribute list follows whatever metrics exist when it is asked for
+    private static class MetricsMBean implements DynamicMBean {
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Number value = snapshot().get(attribute);
+            if (value == null) {
+                throw new AttributeNotFoundException(attribute);
+            }
+            return value;
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            Map<String, Number> values = snapshot();
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                if (values.containsKey(attribute)) {
+                    list.add(new Attribute(attribute, values.get(attribute)));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) {
+            throw new UnsupportedOperationException(actionName);
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            Map<String, Number> values = snapshot();
+            MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[values.size()];
+            int i = 0;
+            for (Map.Entry<String, Number> entry : values.entrySet()) {
+                attributes[i++] = new MBeanAttributeInfo(entry.getKey(), entry.getValue().getClass().getName(),
+                        entry.getKey(), true, false, false);
+            }
+            return new MBeanInfo(Metrics.class.getName(), "Personal Finance Tracker metrics", attributes,
+                    null, null, null);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+// Design Pattern: Sketch (a fixed-size summary of a stream that answers approximate queries)
+// Where used:
+//   - LedgerAnalytics, for the median and p95 transaction size per category.
+// Why used:
+//   - Exact percentiles need every value kept and sorted; this keeps a count per bucket instead, so memory depends
+//     on the range of the values (a few KB), not on how many there are, and sketches can be merged.
+//
+// Buckets are log-linear, the same scheme as Metrics.LatencyHistogram with finer buckets: values below 128 get
+// a bucket each (exact), larger values share 64 buckets per power of two. A percentile is reported as the middle
+// of the bucket holding that rank, so it is within 1/128 (about 0.8%) of a value that really has that rank.
+// Count, min, max and sum are exact. Negative values are recorded as 0.
+
+
+package util;
+
+import java.util.Arrays;
+
+public class QuantileSketch {
+
+    private static final int SUB_BITS = 7;
+    private static final int LINEAR = 1 << SUB_BITS;       // 0..127: one bucket each
+    private static final int HALF = LINEAR / 2;            // buckets per power of two above that
+    private static final int BUCKETS = LINEAR + (64 - SUB_BITS) * HALF;
+
+    public static final double RELATIVE_ERROR = 1.0 / LINEAR;
+
+    // Grown on demand up to BUCKETS, so small values cost only the linear part
+    private long[] counts = new long[LINEAR];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    public void add(long value) {
+        long v = Math.max(0, value);
+        int index = indexOf(v);
+        if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.min(BUCKETS, Math.max(index + 1, counts.length * 2)));
+        }
+        counts[index]++;
+        count++;
+        sum += v;
+        min = Math.min(min, v);
+        max = Math.max(max, v);
+    }
+
+    public void merge(QuantileSketch other) {
+        if (other.counts.length > counts.length) {
+            counts = Arrays.copyOf(counts, other.counts.length);
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    public long getMax() {
+        return count == 0 ? 0 : max;
+    }
+
+    // Value at quantile 'q' (0..1) by nearest rank; 0 if nothing was added
+    public long quantile(double q) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.max(min, Math.min(middleOf(i), max));
+            }
+        }
+        return max;
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BITS - 1); // value >> shift is in [64, 128)
+        return LINEAR + (shift - 1) * HALF + (int) ((value >> shift) - HALF);
+    }
+
+    static long middleOf(int index) {
+        if (index < LINEAR) {
+            return index;
+        }
+        int shift = (index - LINEAR) / HALF + 1;
+        long sub = (index - LINEAR) % HALF + HALF;
+        return (sub << shift) + (1L << (shift - 1));
+    }
+}
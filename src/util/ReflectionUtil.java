@@ -4,21 +4,20 @@
 // Why used:
 //   - Helps decouple method calls from compile-time dependencies
 //   - Enables flexibility to change method targets with minimal edits
+//   - Lookups are cached in DispatchRegistry, so only the first call per target pays for reflection
 package util;
 
-import java.lang.reflect.Method;
+import java.lang.invoke.MethodHandle;
 
 public class ReflectionUtil {
 
-    
+    // Targets are resolved once through DispatchRegistry and invoked as cached MethodHandles
 	public static boolean invokeStaticMethod(String className, String methodName) {
 	    try {
-	        Class<?> clazz = Class.forName(className);
-	        Method method = clazz.getDeclaredMethod(methodName);
-	        method.setAccessible(true);
-	        method.invoke(null); // Static method
+	        MethodHandle method = DispatchRegistry.staticMethod(className, methodName);
+	        method.invoke(); // Static method
 	        return true;
-	    } catch (Exception e) {
+	    } catch (Throwable e) {
 	        return false;
 	    }
 	}
@@ -27,14 +26,11 @@ public class ReflectionUtil {
     
     public static void invokeInstanceMethod(String className, String methodName) {
         try {
-            Class<?> cls = Class.forName(className);
-            Object instance = cls.getDeclaredConstructor().newInstance();
-            Method method = cls.getDeclaredMethod(methodName);
-            method.invoke(instance);
-        } catch (Exception e) {
+            MethodHandle method = DispatchRegistry.newInstanceAndCall(className, methodName);
+            method.invoke();
+        } catch (Throwable e) {
             System.out.println("Reflection error: " + e.getMessage());
         }
     }
     
 }
-
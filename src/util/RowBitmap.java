@@ -0,0 +1,376 @@
+// Design Pattern: Compressed bitmap (a simplified Roaring bitmap)
+// Where used:
+//   - NameIndex, one bitmap of ledger rows per account name and per category name.
+// Why used:
+//   - A set of row numbers that costs about 2 bytes per row while sparse and at most 1 bit per row once dense,
+//     can be intersected chunk by chunk, and iterated from any row in order.
+//
+// Rows are split into chunks of 65536 by their high 16 bits. A chunk holds its low 16 bits either as a sorted
+// char array (up to 4096 values, 8 KB at most) or as a 65536-bit bitset (8 KB), whichever is smaller.
+// removeAndShift() keeps the bitmap in step with a ledger removal, where every later row moves up by one.
+
+
+package util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+public class RowBitmap {
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+    private static final int WORDS = (1 << CHUNK_BITS) / 64;
+    // Above this many values a bitset is smaller than the sorted array
+    private static final int ARRAY_MAX = 4096;
+
+    // Exactly one of 'values' (sparse) and 'words' (dense) is set
+    private static final class Chunk {
+        char[] values;
+        long[] words;
+        int size;
+
+        Chunk() {
+            values = new char[4];
+        }
+
+        Chunk copy() {
+            Chunk copy = new Chunk();
+            copy.values = values == null ? null : values.clone();
+            copy.words = words == null ? null : words.clone();
+            copy.size = size;
+            return copy;
+        }
+    }
+
+    // chunks[i] holds rows i * 65536 .. i * 65536 + 65535 (null when it has none)
+    private Chunk[] chunks = new Chunk[0];
+    private long cardinality;
+
+    public static RowBitmap of(int... rows) {
+        RowBitmap bitmap = new RowBitmap();
+        for (int row : rows) {
+            bitmap.add(row);
+        }
+        return bitmap;
+    }
+
+    public long cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    public boolean contains(int row) {
+        int high = row >>> CHUNK_BITS;
+        if (row < 0 || high >= chunks.length || chunks[high] == null) {
+            return false;
+        }
+        Chunk chunk = chunks[high];
+        int low = row & CHUNK_MASK;
+        return chunk.words != null ? (chunk.words[low >>> 6] & (1L << low)) != 0
+                : Arrays.binarySearch(chunk.values, 0, chunk.size, (char) low) >= 0;
+    }
+
+    // Add 'row' (no-op if present); appending rows in increasing order is the fast path
+    public void add(int row) {
+        if (row < 0) {
+            throw new IllegalArgumentException("Negative row: " + row);
+        }
+        int high = row >>> CHUNK_BITS;
+        if (high >= chunks.length) {
+            chunks = Arrays.copyOf(chunks, Math.max(high + 1, chunks.length * 2));
+        }
+        Chunk chunk = chunks[high];
+        if (chunk == null) {
+            chunk = chunks[high] = new Chunk();
+        }
+        if (addLow(chunk, row & CHUNK_MASK)) {
+            cardinality++;
+        }
+    }
+
+    // Remove 'row' (no-op if absent); row numbers of the others do not change
+    public void remove(int row) {
+        int high = row >>> CHUNK_BITS;
+        if (row < 0 || high >= chunks.length || chunks[high] == null) {
+            return;
+        }
+        if (removeLow(chunks[high], row & CHUNK_MASK)) {
+            cardinality--;
+            if (chunks[high].size == 0) {
+                chunks[high] = null;
+            }
+        }
+    }
+
+    // Row 'row' was removed from the ledger: drop it if present and move every later row down by one
+    public void removeAndShift(int row) {
+        remove(row);
+        int high = row >>> CHUNK_BITS;
+        if (row < 0 || high >= chunks.length) {
+            return;
+        }
+        if (chunks[high] != null) {
+            shiftDownAbove(chunks[high], row & CHUNK_MASK);
+        }
+        // In every later chunk, value 0 moves to the end of the previous chunk and the rest move down by one
+        for (int i = high + 1; i < chunks.length; i++) {
+            Chunk chunk = chunks[i];
+            if (chunk == null) {
+                continue;
+            }
+            boolean carry = removeLow(chunk, 0);
+            shiftDownAbove(chunk, 0);
+            if (chunk.size == 0) {
+                chunks[i] = null;
+            }
+            if (carry) {
+                if (chunks[i - 1] == null) {
+                    chunks[i - 1] = new Chunk();
+                }
+                addLow(chunks[i - 1], CHUNK_MASK);
+            }
+        }
+    }
+
+    // Smallest row >= 'from', or -1 if there is none
+    public int next(int from) {
+        int start = Math.max(0, from);
+        for (int high = start >>> CHUNK_BITS; high < chunks.length; high++) {
+            Chunk chunk = chunks[high];
+            if (chunk != null) {
+                int low = high == start >>> CHUNK_BITS ? start & CHUNK_MASK : 0;
+                int found = nextLow(chunk, low);
+                if (found >= 0) {
+                    return (high << CHUNK_BITS) | found;
+                }
+            }
+        }
+        return -1;
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int high = 0; high < chunks.length; high++) {
+            Chunk chunk = chunks[high];
+            if (chunk == null) {
+                continue;
+            }
+            int base = high << CHUNK_BITS;
+            if (chunk.words != null) {
+                for (int w = 0; w < WORDS; w++) {
+                    long word = chunk.words[w];
+                    while (word != 0) {
+                        action.accept(base | (w << 6) | Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                }
+            } else {
+                for (int i = 0; i < chunk.size; i++) {
+                    action.accept(base | chunk.values[i]);
+                }
+            }
+        }
+    }
+
+    // Rows in increasing order
+    public int[] toArray() {
+        int[] rows = new int[(int) cardinality];
+        int[] count = {0};
+        forEach(row -> rows[count[0]++] = row);
+        return rows;
+    }
+
+    public RowBitmap copy() {
+        RowBitmap copy = new RowBitmap();
+        copy.chunks = new Chunk[chunks.length];
+        for (int i = 0; i < chunks.length; i++) {
+            copy.chunks[i] = chunks[i] == null ? null : chunks[i].copy();
+        }
+        copy.cardinality = cardinality;
+        return copy;
+    }
+
+    // Rows in both bitmaps; costs O(chunks + the smaller side's values), never a pass over all rows
+    public static RowBitmap and(RowBitmap a, RowBitmap b) {
+        RowBitmap result = new RowBitmap();
+        int length = Math.min(a.chunks.length, b.chunks.length);
+        result.chunks = new Chunk[length];
+        for (int i = 0; i < length; i++) {
+            Chunk x = a.chunks[i];
+            Chunk y = b.chunks[i];
+            if (x == null || y == null) {
+                continue;
+            }
+            Chunk both = and(x, y);
+            if (both.size > 0) {
+                result.chunks[i] = both;
+                result.cardinality += both.size;
+            }
+        }
+        return result;
+    }
+
+    private static Chunk and(Chunk x, Chunk y) {
+        Chunk result = new Chunk();
+        if (x.words != null && y.words != null) {
+            long[] words = new long[WORDS];
+            int size = 0;
+            for (int w = 0; w < WORDS; w++) {
+                words[w] = x.words[w] & y.words[w];
+                size += Long.bitCount(words[w]);
+            }
+            result.size = size;
+            if (size > ARRAY_MAX) {
+                result.values = null;
+                result.words = words;
+            } else {
+                result.values = new char[Math.max(4, size)];
+                int i = 0;
+                for (int w = 0; w < WORDS; w++) {
+                    for (long word = words[w]; word != 0; word &= word - 1) {
+                        result.values[i++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                    }
+                }
+            }
+            return result;
+        }
+        // At least one side is a sorted array: walk it and probe the other side
+        Chunk sparse = x.words == null ? x : y;
+        Chunk other = sparse == x ? y : x;
+        if (other.words == null && other.size < sparse.size) {
+            Chunk swap = sparse;
+            sparse = other;
+            other = swap;
+        }
+        result.values = new char[Math.max(4, sparse.size)];
+        for (int i = 0; i < sparse.size; i++) {
+            char low = sparse.values[i];
+            boolean present = other.words != null ? (other.words[low >>> 6] & (1L << low)) != 0
+                    : Arrays.binarySearch(other.values, 0, other.size, low) >= 0;
+            if (present) {
+                result.values[result.size++] = low;
+            }
+        }
+        return result;
+    }
+
+    // --- Chunk operations on low 16-bit values ---
+
+    private static boolean addLow(Chunk chunk, int low) {
+        if (chunk.words != null) {
+            long bit = 1L << low;
+            if ((chunk.words[low >>> 6] & bit) != 0) {
+                return false;
+            }
+            chunk.words[low >>> 6] |= bit;
+            chunk.size++;
+            return true;
+        }
+        int at;
+        if (chunk.size == 0 || chunk.values[chunk.size - 1] < low) {
+            at = chunk.size;
+        } else {
+            at = Arrays.binarySearch(chunk.values, 0, chunk.size, (char) low);
+            if (at >= 0) {
+                return false;
+            }
+            at = -at - 1;
+        }
+        if (chunk.size == ARRAY_MAX) {
+            toBitset(chunk);
+            return addLow(chunk, low);
+        }
+        if (chunk.size == chunk.values.length) {
+            chunk.values = Arrays.copyOf(chunk.values, Math.min(ARRAY_MAX, chunk.values.length * 2));
+        }
+        System.arraycopy(chunk.values, at, chunk.values, at + 1, chunk.size - at);
+        chunk.values[at] = (char) low;
+        chunk.size++;
+        return true;
+    }
+
+    private static boolean removeLow(Chunk chunk, int low) {
+        if (chunk.words != null) {
+            long bit = 1L << low;
+            if ((chunk.words[low >>> 6] & bit) == 0) {
+                return false;
+            }
+            chunk.words[low >>> 6] &= ~bit;
+            chunk.size--;
+            // Back to an array well below the threshold, so add/remove around it does not flip-flop
+            if (chunk.size <= ARRAY_MAX / 2) {
+                toArray(chunk);
+            }
+            return true;
+        }
+        int at = Arrays.binarySearch(chunk.values, 0, chunk.size, (char) low);
+        if (at < 0) {
+            return false;
+        }
+        System.arraycopy(chunk.values, at + 1, chunk.values, at, chunk.size - at - 1);
+        chunk.size--;
+        return true;
+    }
+
+    // Every value greater than 'low' moves down by one; 'low' itself must not be in the chunk
+    private static void shiftDownAbove(Chunk chunk, int low) {
+        if (chunk.words == null) {
+            int from = Arrays.binarySearch(chunk.values, 0, chunk.size, (char) low);
+            for (int i = from >= 0 ? from + 1 : -from - 1; i < chunk.size; i++) {
+                chunk.values[i]--;
+            }
+            return;
+        }
+        long[] words = chunk.words;
+        int first = low >>> 6;
+        long below = (1L << (low & 63)) - 1; // bits under 'low' in its word stay where they are
+        long next = first + 1 < WORDS ? words[first + 1] : 0;
+        words[first] = (words[first] & below) | ((words[first] >>> 1) & ~below) | (next << 63);
+        for (int w = first + 1; w < WORDS; w++) {
+            next = w + 1 < WORDS ? words[w + 1] : 0;
+            words[w] = (words[w] >>> 1) | (next << 63);
+        }
+    }
+
+    private static int nextLow(Chunk chunk, int low) {
+        if (chunk.words == null) {
+            int at = Arrays.binarySearch(chunk.values, 0, chunk.size, (char) low);
+            at = at >= 0 ? at : -at - 1;
+            return at < chunk.size ? chunk.values[at] : -1;
+        }
+        int w = low >>> 6;
+        long word = chunk.words[w] & (-1L << (low & 63));
+        while (true) {
+            if (word != 0) {
+                return (w << 6) | Long.numberOfTrailingZeros(word);
+            }
+            if (++w == WORDS) {
+                return -1;
+            }
+            word = chunk.words[w];
+        }
+    }
+
+    private static void toBitset(Chunk chunk) {
+        long[] words = new long[WORDS];
+        for (int i = 0; i < chunk.size; i++) {
+            words[chunk.values[i] >>> 6] |= 1L << chunk.values[i];
+        }
+        chunk.words = words;
+        chunk.values = null;
+    }
+
+    private static void toArray(Chunk chunk) {
+        char[] values = new char[Math.max(4, chunk.size)];
+        int i = 0;
+        for (int w = 0; w < WORDS; w++) {
+            for (long word = chunk.words[w]; word != 0; word &= word - 1) {
+                values[i++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+            }
+        }
+        chunk.values = values;
+        chunk.words = null;
+    }
+}
@@ -0,0 +1,100 @@
+// Design Pattern: Sketch (Space-Saving heavy hitters, Metwally et al.)
+// Where used:
+//   - LedgerAnalytics, for the accounts with the most spending.
+// Why used:
+//   - Finds the heaviest keys of a stream with a fixed number of counters, however many distinct keys it has.
+//
+// Error bounds, with 'capacity' counters and total weight W added:
+//   - An estimate is never below the key's true weight and at most getError() (never more than W / capacity) above it.
+//   - Every key whose true weight exceeds W / capacity is guaranteed to be among the counters.
+// While there are no more distinct keys than counters, every estimate is exact (error 0).
+
+
+package util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SpaceSaving<K> {
+
+    // One monitored key: estimated weight and how much of it may belong to keys it replaced
+    public static class Counter<K> {
+        private final K key;
+        private long estimate;
+        private final long error;
+
+        Counter(K key, long estimate, long error) {
+            this.key = key;
+            this.estimate = estimate;
+            this.error = error;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public long getEstimate() {
+            return estimate;
+        }
+
+        public long getError() {
+            return error;
+        }
+    }
+
+    private final int capacity;
+    private final Map<K, Counter<K>> counters = new HashMap<>();
+    private long total;
+
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    public void add(K key, long weight) {
+        total += weight;
+        Counter<K> counter = counters.get(key);
+        if (counter != null) {
+            counter.estimate += weight;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(key, new Counter<>(key, weight, 0));
+            return;
+        }
+        // Replace the smallest counter; the newcomer inherits its count as possible over-estimate.
+        // A linear scan is fine for the few dozen counters this is used with.
+        Counter<K> smallest = null;
+        for (Counter<K> candidate : counters.values()) {
+            if (smallest == null || candidate.estimate < smallest.estimate) {
+                smallest = candidate;
+            }
+        }
+        counters.remove(smallest.key);
+        counters.put(key, new Counter<>(key, smallest.estimate + weight, smallest.estimate));
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Largest possible over-estimate of any key (W / capacity)
+    public long errorBound() {
+        return total / capacity;
+    }
+
+    // The 'n' heaviest counters, largest estimate first
+    public List<Counter<K>> top(int n) {
+        List<Counter<K>> sorted = new ArrayList<>(counters.values());
+        sorted.sort((a, b) -> Long.compare(b.estimate, a.estimate));
+        return sorted.subList(0, Math.min(n, sorted.size()));
+    }
+}
@@ -0,0 +1,133 @@
+// Design Pattern: Utility Pattern (static, stateless configuration lookups)
+// Where used:
+//   - TransactionService and ReportService ask here where and how the ledger is stored.
+//   - UserLedgers asks here where each user's partition lives and how many partitions to keep loaded.
+// Why used:
+//   - Keeps the storage switches (system properties) and file locations in one place.
+//
+// System properties:
+//   finance.storage            journal (default) | rewrite   - append changes to a journal, or rewrite the ledger every time
+//   finance.ledger.format      csv (default) | columnar      - base ledger as <dir>/transactions.txt or <dir>/ledger/
+//   finance.ledger.partition   shared (default) | user       - one ledger in data/ for everybody, or each signed-in
+//                                                              user's files under data/users/<name>/ (opt-in: the
+//                                                              ledger already in data/ is not moved into a partition)
+//   finance.ledger.cacheSize   64 (default)                  - most users' ledgers kept in memory at once
+//   finance.journal.snapshotBytes  262144 (default)          - least journal growth after which the ledger is
+//                                                              checkpointed (a quarter of the base once that is more)
+//   finance.users.file         data/users.txt (default)      - the credential file LoginService signs users in with
+//
+// Every path below exists once per data directory: data/ itself (the shared ledger, also used when nobody is
+// signed in) or a user's partition. The no-argument versions are the shared ones.
+
+
+package util;
+
+import java.nio.charset.StandardCharsets;
+
+public class StorageConfig {
+
+    public static final String DATA_DIR = "data";
+    public static final String USERS_DIR = DATA_DIR + "/users";
+    public static final String TRANSACTION_FILE = DATA_DIR + "/transactions.txt";
+    public static final String COLUMNAR_DIR = DATA_DIR + "/ledger";
+
+    private static final int DEFAULT_LEDGER_CACHE_SIZE = 64;
+
+    public static boolean isJournaled() {
+        return !"rewrite".equalsIgnoreCase(System.getProperty("finance.storage", "journal"));
+    }
+
+    public static boolean isColumnar() {
+        return "columnar".equalsIgnoreCase(System.getProperty("finance.ledger.format", "csv"));
+    }
+
+    public static boolean isPartitioned() {
+        return "user".equalsIgnoreCase(System.getProperty("finance.ledger.partition", "shared"));
+    }
+
+    public static int ledgerCacheSize() {
+        return Math.max(1, Integer.getInteger("finance.ledger.cacheSize", DEFAULT_LEDGER_CACHE_SIZE));
+    }
+
+    public static String userFile() {
+        return System.getProperty("finance.users.file", DATA_DIR + "/users.txt");
+    }
+
+    public static LedgerFormat ledgerFormat() {
+        return isColumnar() ? new ColumnarLedgerFormat() : new CsvLedgerFormat();
+    }
+
+    // A user's partition. Only [a-z0-9_-] is kept as is; every other UTF-8 byte, upper-case letters included, is
+    // %-encoded with upper-case hex ("Bob" -> "%42ob"). The result never holds a letter in two cases, so every name
+    // maps to its own directory even on case-insensitive file systems.
+    public static String userDir(String username) {
+        StringBuilder dir = new StringBuilder(USERS_DIR).append('/');
+        for (byte b : username.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '_' || c == '-') {
+                dir.append(c);
+            } else {
+                dir.append('%').append(Character.toUpperCase(Character.forDigit(c >> 4, 16)))
+                        .append(Character.toUpperCase(Character.forDigit(c & 0xF, 16)));
+            }
+        }
+        return dir.toString();
+    }
+
+    // Path of the base ledger for the configured format
+    public static String ledgerPath() {
+        return ledgerPath(DATA_DIR);
+    }
+
+    public static String ledgerPath(String dataDir) {
+        return isColumnar() ? dataDir + "/ledger" : dataDir + "/transactions.txt";
+    }
+
+    // Each format keeps its own journal so switching formats never replays records against the wrong base
+    public static String journalPath() {
+        return journalPath(DATA_DIR);
+    }
+
+    public static String journalPath(String dataDir) {
+        return isColumnar() ? dataDir + "/ledger.journal" : dataDir + "/transactions.journal";
+    }
+
+    // Persisted report totals (AggregateStore), kept next to the ledger
+    public static String aggregatePath() {
+        return aggregatePath(DATA_DIR);
+    }
+
+    public static String aggregatePath(String dataDir) {
+        return isColumnar() ? dataDir + "/ledger.agg" : dataDir + "/transactions.agg";
+    }
+
+    // Persisted monthly rollups (RollupStore), kept next to the ledger
+    public static String rollupPath() {
+        return rollupPath(DATA_DIR);
+    }
+
+    public static String rollupPath(String dataDir) {
+        return isColumnar() ? dataDir + "/ledger.rollup" : dataDir + "/transactions.rollup";
+    }
+
+    // Binary checkpoint of the loaded ledger (LedgerSnapshot), so startup does not parse the whole base ledger
+    public static String snapshotPath(String dataDir) {
+        return isColumnar() ? dataDir + "/ledger.snapshot" : dataDir + "/transactions.snapshot";
+    }
+
+    public static String accountPath(String dataDir) {
+        return dataDir + "/accounts.txt";
+    }
+
+    public static String categoryPath(String dataDir) {
+        return dataDir + "/categories.txt";
+    }
+
+    public static TransactionJournal openJournal() {
+        return openJournal(DATA_DIR);
+    }
+
+    public static TransactionJournal openJournal(String dataDir) {
+        return new TransactionJournal(ledgerFormat(), ledgerPath(dataDir), journalPath(dataDir), snapshotPath(dataDir));
+    }
+}
@@ -0,0 +1,62 @@
+// Design Pattern: Flyweight (each distinct string is stored once and referenced by an int id)
+// Where used:
+//   - Category and account names in the columnar ledger format and in the in-memory TransactionTable.
+// Why used:
+//   - A ledger repeats a handful of names millions of times; storing ids instead of strings keeps rows fixed-width.
+
+
+package util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class StringDictionary {
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    // Return the id for 'value', adding it if it is new
+    public int idOf(String value) {
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = values.size();
+            ids.put(value, id);
+            values.add(value);
+        }
+        return id;
+    }
+
+    // Return the id for 'value' without adding it (-1 if unknown)
+    public int find(String value) {
+        Integer id = ids.get(value);
+        return id == null ? -1 : id;
+    }
+
+    public String valueOf(int id) {
+        return values.get(id);
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    // Values in id order (line i of a dictionary file is id i)
+    public List<String> values() {
+        return values;
+    }
+
+    // Independent copy (later additions to either dictionary do not show up in the other)
+    public StringDictionary copy() {
+        return of(values);
+    }
+
+    public static StringDictionary of(List<String> values) {
+        StringDictionary dictionary = new StringDictionary();
+        for (String value : values) {
+            dictionary.idOf(value);
+        }
+        return dictionary;
+    }
+}
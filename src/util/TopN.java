@@ -0,0 +1,110 @@
+// Design Pattern: Bounded priority queue (a min-heap that never holds more than 'capacity' entries)
+// Where used:
+//   - LedgerAnalytics, for the largest expenses in one pass over the ledger.
+// Why used:
+//   - Keeping the N largest of n values costs O(n log N) time and O(N) memory instead of sorting all n.
+//   - Keys are primitive longs and accepts() lets callers skip building a value for the common case where a row
+//     cannot make the list, so a pass over millions of rows allocates almost nothing.
+//
+// The result is exact; ties at the cut-off keep whichever value came first.
+
+
+package util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class TopN<T> {
+
+    private final long[] keys;
+    private final Object[] values;
+    private int size;
+
+    public TopN(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        keys = new long[capacity];
+        values = new Object[capacity];
+    }
+
+    // Would offer(key, ...) change the list?
+    public boolean accepts(long key) {
+        return size < keys.length || key > keys[0];
+    }
+
+    public void offer(long key, T value) {
+        if (size < keys.length) {
+            keys[size] = key;
+            values[size] = value;
+            siftUp(size++);
+        } else if (key > keys[0]) {
+            keys[0] = key;
+            values[0] = value;
+            siftDown(0);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    // Values from the largest key to the smallest
+    @SuppressWarnings("unchecked")
+    public List<T> sortedDescending() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(keys[b], keys[a]));
+        List<T> sorted = new ArrayList<>(size);
+        for (int i : order) {
+            sorted.add((T) values[i]);
+        }
+        return sorted;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (keys[parent] <= keys[i]) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && keys[left] < keys[smallest]) {
+                smallest = left;
+            }
+            if (right < size && keys[right] < keys[smallest]) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        Object value = values[a];
+        values[a] = values[b];
+        values[b] = value;
+    }
+}
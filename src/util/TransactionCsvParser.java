@@ -0,0 +1,127 @@
+// Design Patterns:
+//   - Callback / Visitor (each parsed row is pushed to a RowHandler instead of being collected in a list)
+// Where used:
+//   - FileUtil.readTransactions (and through it TransactionService, ReportService and the ledger formats).
+// Why used:
+//   - The file is read in large byte chunks and split on commas by hand: no regex, no intermediate list of
+//     lines, and amounts are parsed straight from the bytes into long cents (Money.parseCents). Peak memory is one chunk plus the caller's own data.
+
+
+package util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class TransactionCsvParser {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int FIELD_COUNT = 5;
+
+    // Receives one row per valid line: date,type,category,amount,accountName (amount in cents)
+    @FunctionalInterface
+    public interface RowHandler {
+        void row(String date, String type, String category, long amountCents, String accountName);
+    }
+
+    // Parse every line of 'filePath'; returns the number of rows handed to 'handler'
+    public static int parse(String filePath, RowHandler handler) {
+        File file = new File(filePath);
+        if (!file.exists()) {
+            return 0;
+        }
+        try (InputStream in = new FileInputStream(file)) {
+            return parse(in, handler);
+        } catch (IOException e) {
+            System.out.println("Error reading file: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    public static int parse(InputStream in, RowHandler handler) throws IOException {
+        byte[] buffer = new byte[CHUNK_SIZE];
+        int[] commas = new int[FIELD_COUNT];
+        int filled = 0;
+        int rows = 0;
+
+        while (true) {
+            int read = in.read(buffer, filled, buffer.length - filled);
+            if (read < 0) {
+                break;
+            }
+            filled += read;
+
+            // Hand every complete line in the buffer to the line parser
+            int lineStart = 0;
+            for (int i = 0; i < filled; i++) {
+                if (buffer[i] == '\n') {
+                    rows += parseLine(buffer, lineStart, i, commas, handler);
+                    lineStart = i + 1;
+                }
+            }
+
+            // Move the unfinished last line to the front; grow only for a line longer than the buffer
+            filled -= lineStart;
+            System.arraycopy(buffer, lineStart, buffer, 0, filled);
+            if (filled == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+        }
+
+        if (filled > 0) {
+            rows += parseLine(buffer, 0, filled, commas, handler);
+        }
+        return rows;
+    }
+
+    // Parse the line buffer[start, end); returns 1 if a row was emitted, 0 otherwise
+    private static int parseLine(byte[] buffer, int start, int end, int[] commas, RowHandler handler) {
+        if (end > start && buffer[end - 1] == '\r') {
+            end--;
+        }
+
+        // Same rule as line.split(","): trailing empty fields are dropped, then exactly five must remain
+        while (end > start && buffer[end - 1] == ',') {
+            end--;
+        }
+        if (end == start) {
+            return 0;
+        }
+
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            if (buffer[i] == ',') {
+                if (count == FIELD_COUNT - 1) {
+                    return 0; // More than five fields
+                }
+                commas[count++] = i;
+            }
+        }
+        if (count != FIELD_COUNT - 1) {
+            return 0;
+        }
+
+        long amountCents;
+        try {
+            amountCents = Money.parseCents(buffer, commas[2] + 1, commas[3]);
+        } catch (NumberFormatException e) {
+            System.out.println("Skipping invalid transaction line: " + new String(buffer, start, end - start, StandardCharsets.UTF_8));
+            return 0;
+        }
+
+        handler.row(
+                text(buffer, start, commas[0]),
+                text(buffer, commas[0] + 1, commas[1]),
+                text(buffer, commas[1] + 1, commas[2]),
+                amountCents,
+                text(buffer, commas[3] + 1, end));
+        return 1;
+    }
+
+    private static String text(byte[] buffer, int start, int end) {
+        return new String(buffer, start, end - start, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,535 @@
+// Design Patterns:
+//   - Write-Ahead Log / Event Sourcing (every mutation is appended as a small record instead of rewriting the ledger)
+// Where used:
+//   - Used by TransactionService (journaled storage mode) and ReportService to read the current ledger.
+//   - The base ledger is read and rewritten through a LedgerFormat (CSV file or columnar directory).
+// Why used:
+//   - Appending one record is O(1) per mutation, while rewriting transactions.txt is O(n).
+//   - A background compaction folds the journal back into the base file once it grows past a threshold.
+//   - Records are queued on the group-commit writer (FileUtil ...Async) instead of being written one by one;
+//     stamp() waits for them, so all records of one TransactionService batch reach the disk in one write.
+//   - With a snapshot file (LedgerSnapshot), the ledger is checkpointed in the background: after a load that did
+//     not start from a snapshot, after each compaction, and as the journal grows (by snapshotBytes, or a quarter of
+//     the base once that is more, so the amortized cost per mutation stays O(1)). Opening starts from
+//     the snapshot and replays only the records after it, as long as it was taken of the current base and journal.
+//
+// Journal file layout:
+//   #base,<stamp file length>,<stamp file lastModified> header: the base ledger version the records apply to
+//   A,date,type,category,amount,accountName             add a transaction at the end
+//   U,index,date,type,category,amount,accountName       replace the transaction at index
+//   D,index                                             delete the transaction at index
+// If the base file no longer matches the header (e.g. it was rewritten by hand), the journal is stale and ignored.
+// A running TransactionService notices the same through isBaseChanged() and loads the ledger again with open().
+
+
+package util;
+
+import models.Transaction;
+import models.TransactionTable;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class TransactionJournal {
+
+    private static final String HEADER_PREFIX = "#base,";
+    private static final long DEFAULT_MIN_COMPACT_BYTES = 1024 * 1024;
+    private static final long DEFAULT_SNAPSHOT_BYTES = 256 * 1024;
+
+    private final LedgerFormat format;
+    private final String baseFile;
+    private final String journalFile;
+    private final long minCompactBytes;
+    // Null when this journal keeps no snapshots
+    private final String snapshotFile;
+    private final long snapshotBytes;
+
+    private boolean compacting = false;
+    private boolean snapshotting = false;
+    // Held while a snapshot is staged and installed: compact() writes one on the caller's thread, so two can overlap
+    private final Object snapshotWrite = new Object();
+    // Journal length covered by the newest snapshot (written, queued or loaded)
+    private long snapshotOffset;
+    // Compactions and snapshots started so far
+    private long checkpoints;
+    // Header of the base version the ledger was last opened from or compacted into (see isBaseChanged)
+    private String loadedBase;
+    private ExecutorService compactor;
+
+    public TransactionJournal(String baseFile, String journalFile) {
+        this(new CsvLedgerFormat(), baseFile, journalFile);
+    }
+
+    public TransactionJournal(LedgerFormat format, String baseFile, String journalFile) {
+        this(format, baseFile, journalFile, (String) null);
+    }
+
+    public TransactionJournal(LedgerFormat format, String baseFile, String journalFile, String snapshotFile) {
+        this(format, baseFile, journalFile, snapshotFile,
+                Long.getLong("finance.journal.compactBytes", DEFAULT_MIN_COMPACT_BYTES),
+                Long.getLong("finance.journal.snapshotBytes", DEFAULT_SNAPSHOT_BYTES));
+    }
+
+    public TransactionJournal(LedgerFormat format, String baseFile, String journalFile, long minCompactBytes) {
+        this(format, baseFile, journalFile, null, minCompactBytes, DEFAULT_SNAPSHOT_BYTES);
+    }
+
+    public TransactionJournal(LedgerFormat format, String baseFile, String journalFile, String snapshotFile,
+                              long minCompactBytes, long snapshotBytes) {
+        this.format = format;
+        this.baseFile = baseFile;
+        this.journalFile = journalFile;
+        this.snapshotFile = snapshotFile;
+        this.minCompactBytes = minCompactBytes;
+        this.snapshotBytes = snapshotBytes;
+    }
+
+    // Read base file (or its snapshot) plus replayed journal without modifying anything on disk
+    public TransactionTable readLedger() {
+        FileUtil.await(journalFile);
+        String current = currentJournal();
+        return read(current, usableSnapshot(current));
+    }
+
+    // Read the ledger and make sure the journal is ready to receive new records
+    public synchronized TransactionTable open() {
+        FileUtil.await(journalFile);
+        String current = currentJournal();
+
+        if (pendingJournal().equals(current)) {
+            // A compaction finished the base rewrite but stopped before installing its journal
+            moveReplacing(pendingJournal(), journalFile);
+            current = journalFile;
+        }
+        new File(pendingJournal()).delete();
+
+        LedgerSnapshot snapshot = usableSnapshot(current);
+        TransactionTable ledger = read(current, snapshot);
+        if (current == null) {
+            if (new File(journalFile).exists()) {
+                System.out.println("Ignoring stale transaction journal: " + journalFile);
+            }
+            resetJournal();
+        }
+
+        loadedBase = headerFor(format.stampFile(baseFile));
+
+        // Checkpoint what was just loaded, unless a snapshot already covers (nearly) all of it
+        snapshotOffset = snapshot == null ? 0 : snapshot.getJournalOffset();
+        if (snapshot == null ? !ledger.isEmpty() : new File(journalFile).length() - snapshotOffset >= snapshotThreshold()) {
+            takeSnapshot(ledger);
+        }
+        return ledger;
+    }
+
+    // The ledger as of journal 'current' (null: the base alone): the snapshot plus the records after it,
+    // or without a snapshot the base file plus every record
+    private TransactionTable read(String current, LedgerSnapshot snapshot) {
+        TransactionTable ledger = snapshot != null ? snapshot.getTable() : format.read(baseFile);
+        if (current != null) {
+            replay(current, snapshot != null ? snapshot.getJournalOffset() : 0, ledger);
+        }
+        return ledger;
+    }
+
+    // The snapshot, if it was taken of journal 'current' (same header) and the journal still holds all it covers
+    private LedgerSnapshot usableSnapshot(String current) {
+        if (snapshotFile == null || current == null) {
+            return null;
+        }
+        LedgerSnapshot snapshot = LedgerSnapshot.read(snapshotFile);
+        if (snapshot == null || !snapshot.getJournalHeader().equals(readHeader(current))
+                || snapshot.getJournalOffset() > new File(current).length()) {
+            return null;
+        }
+        return snapshot;
+    }
+
+    // Each record method queues its record and returns the write's future; a record that fails to reach the disk
+    // leaves the journal out of step with the ledger (see TransactionService.awaitRecords)
+    public synchronized CompletableFuture<Void> recordAdd(Transaction t, List<Transaction> ledger) {
+        return record(FileUtil.appendLineAsync(journalFile, "A," + FileUtil.toTransactionLine(t)), ledger);
+    }
+
+    // One "A" record per transaction, written in a single append
+    public synchronized CompletableFuture<Void> recordAddAll(List<Transaction> added, List<Transaction> ledger) {
+        List<String> lines = new ArrayList<>(added.size());
+        for (Transaction t : added) {
+            lines.add("A," + FileUtil.toTransactionLine(t));
+        }
+        return record(FileUtil.appendLinesAsync(journalFile, lines), ledger);
+    }
+
+    public synchronized CompletableFuture<Void> recordUpdate(int index, Transaction t, List<Transaction> ledger) {
+        return record(FileUtil.appendLineAsync(journalFile, "U," + index + "," + FileUtil.toTransactionLine(t)), ledger);
+    }
+
+    public synchronized CompletableFuture<Void> recordDelete(int index, List<Transaction> ledger) {
+        return record(FileUtil.appendLineAsync(journalFile, "D," + index), ledger);
+    }
+
+    // Once the record is queued this must not throw: the caller would take the record as not written and undo it.
+    // A checkpoint that cannot be started is only a missed optimization; the next record tries again.
+    private CompletableFuture<Void> record(CompletableFuture<Void> write, List<Transaction> ledger) {
+        try {
+            compactIfNeeded(ledger);
+            snapshotIfNeeded(ledger);
+        } catch (RuntimeException e) {
+            System.out.println("Error starting a journal checkpoint: " + e.getMessage());
+        }
+        return write;
+    }
+
+    // Wait for queued records before measuring the journal. A record that failed is not reported here but through
+    // the write future its record method returned.
+    private void settle() {
+        try {
+            FileUtil.await(journalFile);
+        } catch (UncheckedIOException e) {
+            // See above
+        }
+    }
+
+    // Identifies the exact on-disk ledger state (base version + journal length); changes on every write
+    public String stamp() {
+        FileUtil.await(journalFile);
+        File journal = new File(journalFile);
+        return headerFor(format.stampFile(baseFile)) + "," + journal.length() + "," + journal.lastModified();
+    }
+
+    // True once the base ledger on disk is no longer the version open() read or the last compaction wrote (or, in
+    // "rewrite" mode, the one passed to markBase()), e.g. because it was edited by hand. Costs a stat of the base.
+    public synchronized boolean isBaseChanged() {
+        return loadedBase != null && !loadedBase.equals(headerFor(format.stampFile(baseFile)));
+    }
+
+    // Record the base on disk as the version the ledger was read from or written as ("rewrite" mode, no open())
+    public synchronized void markBase() {
+        loadedBase = headerFor(format.stampFile(baseFile));
+    }
+
+    // Compactions and snapshots started so far. State derived from the ledger and persisted next to it can be
+    // saved when this changes instead of after every change, at the same amortized cost as the checkpoints.
+    public synchronized long checkpoints() {
+        return checkpoints;
+    }
+
+    // Fold 'ledger' into the base file right now and wait until done. It runs on the compactor thread after any
+    // compaction or snapshot already queued, so the caller must not change 'ledger' until this returns.
+    // Throws UncheckedIOException if the base could not be rewritten.
+    public void compact(List<Transaction> ledger) {
+        Future<?> done = compactorThread().submit(() -> {
+            long journalOffset;
+            List<Transaction> snapshot;
+            synchronized (this) {
+                checkpoints++;
+                snapshot = copyOf(ledger);
+                settle();
+                journalOffset = new File(journalFile).length();
+            }
+            rewriteBase(snapshot, journalOffset);
+            return null;
+        });
+        try {
+            done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while compacting " + journalFile, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw new UncheckedIOException(io);
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // Start a background compaction once the journal outgrows the threshold.
+    // The threshold scales with the base file so the amortized cost per mutation stays O(1).
+    // The length check may lag behind records still queued for writing; the offset handed to rewriteBase may not.
+    private void compactIfNeeded(List<Transaction> ledger) {
+        long threshold = Math.max(minCompactBytes, baseLength() / 2);
+        if (compacting || new File(journalFile).length() < threshold) {
+            return;
+        }
+
+        settle();
+        compacting = true;
+        checkpoints++;
+        long journalLength = new File(journalFile).length();
+        // Snapshot is taken on the caller's thread, so later mutations cannot race with the copy
+        List<Transaction> snapshot = copyOf(ledger);
+        compactorThread().submit(() -> {
+            try {
+                rewriteBase(snapshot, journalLength);
+            } catch (IOException | UncheckedIOException e) {
+                System.out.println("Error compacting transaction journal: " + e.getMessage());
+            } finally {
+                synchronized (this) {
+                    compacting = false;
+                }
+            }
+        });
+    }
+
+    // Write the snapshot as the new base, then keep only journal records appended after the snapshot.
+    // The new journal is staged next to the old one first, so a crash at any point leaves
+    // either the old base + old journal or the new base + new journal on disk.
+    // The snapshot then also becomes the ledger snapshot of the new journal, covering just its header.
+    private void rewriteBase(List<Transaction> snapshot, long journalOffset) throws IOException {
+        String newHeader;
+        long covered;
+        Path staged = format.stage(baseFile, snapshot);
+
+        synchronized (this) {
+            if (isBaseChanged()) {
+                // The base was replaced since the copy was taken; the ledger is reloaded from it instead
+                Files.deleteIfExists(staged);
+                return;
+            }
+            settle(); // Records queued since the snapshot belong in the new journal's tail
+            byte[] journal = Files.readAllBytes(Path.of(journalFile));
+            int tailStart = (int) Math.min(journalOffset, journal.length);
+
+            // A rename keeps length and lastModified, so the header can be computed from the staged file
+            newHeader = headerFor(staged.toFile());
+            byte[] header = (newHeader + "\n").getBytes(StandardCharsets.UTF_8);
+            byte[] rewritten = new byte[header.length + journal.length - tailStart];
+            System.arraycopy(header, 0, rewritten, 0, header.length);
+            System.arraycopy(journal, tailStart, rewritten, header.length, journal.length - tailStart);
+            Files.write(Path.of(pendingJournal()), rewritten);
+
+            format.commit(staged, baseFile);
+            moveReplacing(pendingJournal(), journalFile);
+            loadedBase = newHeader;
+            covered = header.length;
+            snapshotOffset = covered;
+        }
+        if (snapshotFile != null && snapshot instanceof TransactionTable table) {
+            writeSnapshot(table, newHeader, covered);
+        }
+    }
+
+    // Checkpoint the ledger once the journal has grown past snapshotThreshold() since the last snapshot.
+    // A running compaction writes one when it is done, and the length may lag like in compactIfNeeded.
+    private void snapshotIfNeeded(List<Transaction> ledger) {
+        if (snapshotFile == null || snapshotting || compacting
+                || new File(journalFile).length() - snapshotOffset < snapshotThreshold()) {
+            return;
+        }
+        takeSnapshot(ledger);
+    }
+
+    // A snapshot writes the whole ledger, so like the compaction threshold this one scales with the base file;
+    // at a quarter of it, one snapshot still falls between two compactions
+    private long snapshotThreshold() {
+        return Math.max(snapshotBytes, baseLength() / 4);
+    }
+
+    // Copy the ledger on the caller's thread, together with the journal position it matches, and write the copy
+    // on the compactor thread (which also serializes it with compactions)
+    private synchronized void takeSnapshot(List<Transaction> ledger) {
+        if (snapshotFile == null || !(ledger instanceof TransactionTable table)) {
+            return;
+        }
+        settle();
+        snapshotting = true;
+        checkpoints++;
+        String header = readHeader(journalFile);
+        long journalLength = new File(journalFile).length();
+        TransactionTable copy = table.copy();
+        snapshotOffset = journalLength;
+        compactorThread().submit(() -> {
+            try {
+                writeSnapshot(copy, header, journalLength);
+            } finally {
+                synchronized (this) {
+                    snapshotting = false;
+                }
+            }
+        });
+    }
+
+    private void writeSnapshot(TransactionTable table, String header, long journalLength) {
+        synchronized (snapshotWrite) {
+            try {
+                Path staged = LedgerSnapshot.stage(snapshotFile, table, header, journalLength);
+                synchronized (this) {
+                    if (!header.equals(readHeader(journalFile))) {
+                        // A compaction replaced the journal since the copy was taken; its own snapshot is the newer one
+                        Files.deleteIfExists(staged);
+                        return;
+                    }
+                    moveReplacing(staged.toString(), snapshotFile);
+                }
+            } catch (IOException e) {
+                System.out.println("Error writing ledger snapshot: " + e.getMessage());
+            }
+        }
+    }
+
+    // Apply the journal records from byte 'offset' on (0: every record after the header line)
+    private void replay(String journalPath, long offset, List<Transaction> ledger) {
+        List<String> records = readRecords(journalPath, offset);
+
+        for (String record : records) {
+            String[] parts = record.split(",");
+            try {
+                switch (parts[0]) {
+                    case "A":
+                        ledger.add(FileUtil.parseTransaction(parts, 1));
+                        break;
+                    case "U":
+                        ledger.set(Integer.parseInt(parts[1]), FileUtil.parseTransaction(parts, 2));
+                        break;
+                    case "D":
+                        ledger.remove(Integer.parseInt(parts[1]));
+                        break;
+                    default:
+                        System.out.println("Skipping unknown journal record: " + record);
+                }
+            } catch (RuntimeException e) {
+                System.out.println("Skipping invalid journal record: " + record);
+            }
+        }
+    }
+
+    private static List<String> readRecords(String journalPath, long offset) {
+        if (offset == 0) {
+            List<String> lines = FileUtil.readLines(journalPath);
+            return lines.isEmpty() ? lines : lines.subList(1, lines.size());
+        }
+        try (FileChannel channel = FileChannel.open(Path.of(journalPath), StandardOpenOption.READ)) {
+            ByteBuffer tail = ByteBuffer.allocate((int) Math.max(0, channel.size() - offset));
+            while (tail.hasRemaining() && channel.read(tail, offset + tail.position()) >= 0) {
+                // Keep reading until the tail is complete
+            }
+            return new String(tail.array(), 0, tail.position(), StandardCharsets.UTF_8).lines().toList();
+        } catch (IOException e) {
+            System.out.println("Error reading file: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    // Returns the journal whose header matches the current base file, or null if none does
+    private String currentJournal() {
+        String expected = headerFor(format.stampFile(baseFile));
+        if (expected.equals(readHeader(journalFile))) {
+            return journalFile;
+        }
+        if (expected.equals(readHeader(pendingJournal()))) {
+            return pendingJournal();
+        }
+        return null;
+    }
+
+    private String pendingJournal() {
+        return journalFile + ".next";
+    }
+
+    private static String readHeader(String path) {
+        File file = new File(path);
+        if (!file.exists()) {
+            return null;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            return reader.readLine();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void moveReplacing(String from, String to) {
+        try {
+            Files.move(Path.of(from), Path.of(to), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Error replacing " + to + ": " + e.getMessage());
+        }
+    }
+
+    // A snapshot belongs to the journal it was taken from, so it goes along with it
+    private void resetJournal() {
+        FileUtil.writeLines(journalFile, List.of(headerFor(format.stampFile(baseFile))));
+        if (snapshotFile != null) {
+            new File(snapshotFile).delete();
+        }
+    }
+
+    // Size of the base ledger on disk, used to scale the compaction and snapshot thresholds
+    private long baseLength() {
+        File base = new File(baseFile);
+        if (!base.isDirectory()) {
+            return base.length();
+        }
+        long total = 0;
+        File[] files = base.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                total += file.length();
+            }
+        }
+        return total;
+    }
+
+    private static String headerFor(File base) {
+        return HEADER_PREFIX + base.length() + "," + base.lastModified();
+    }
+
+    private static List<Transaction> copyOf(List<Transaction> ledger) {
+        if (ledger instanceof TransactionTable table) {
+            return table.copy(); // Plain array copies
+        }
+        List<Transaction> copy = new ArrayList<>(ledger.size());
+        for (Transaction t : ledger) {
+            copy.add(t.copy());
+        }
+        return copy;
+    }
+
+    // Let a running compaction or snapshot finish and stop the compactor thread (the ledger is being unloaded)
+    public void close() {
+        ExecutorService running;
+        synchronized (this) {
+            running = compactor;
+            compactor = null;
+        }
+        if (running != null) {
+            running.shutdown();
+            try {
+                running.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private synchronized ExecutorService compactorThread() {
+        if (compactor == null) {
+            compactor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "journal-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return compactor;
+    }
+}
@@ -0,0 +1,123 @@
+package test;
+
+import models.Account;
+import models.Transaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import services.AccountRegistry;
+import services.AggregateStore;
+import services.TransactionFilter;
+import services.TransactionService;
+import services.UserLedgers;
+import util.FileUtil;
+import util.StorageConfig;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AccountRegistryTest {
+
+    private final String TEST_ACCOUNT_FILE = "data/test_accounts.txt";
+    private AggregateStore totals;
+    private AccountRegistry registry;
+
+    @Before
+    public void setUp() {
+        FileUtil.writeLines(TEST_ACCOUNT_FILE, Arrays.asList("Bank,Savings,1000.0", "Cash,Wallet,50.0"));
+        totals = new AggregateStore();
+        registry = new AccountRegistry(TEST_ACCOUNT_FILE, () -> totals, (from, to) -> { });
+    }
+
+    @After
+    public void tearDown() {
+        new File(TEST_ACCOUNT_FILE).delete();
+    }
+
+    @Test
+    public void testBalanceFollowsPostedTransactions() {
+        Account savings = registry.find("Savings");
+        assertEquals(1000.0, registry.balanceOf(savings), 0.0);
+
+        totals.onAdded(0, new Transaction("2025-07-01", "income", "Salary", 2500.5, "Savings"));
+        totals.onAdded(1, new Transaction("2025-07-02", "expense", "Transfer Out", 300, "Savings"));
+        totals.onAdded(2, new Transaction("2025-07-02", "income", "Transfer In", 300, "Wallet"));
+        assertEquals(3200.5, registry.balanceOf(savings), 0.0);
+        assertEquals(350.0, registry.balanceOf(registry.find("Wallet")), 0.0);
+
+        Transaction before = new Transaction("2025-07-01", "income", "Salary", 2500.5, "Savings");
+        totals.onUpdated(0, before, new Transaction("2025-07-01", "income", "Salary", 2000, "Savings"));
+        totals.onRemoved(1, new Transaction("2025-07-02", "expense", "Transfer Out", 300, "Savings"));
+        assertEquals(3000.0, registry.balanceOf(savings), 0.0);
+    }
+
+    @Test
+    public void testChangesAreWrittenAndFileEditsPickedUp() {
+        registry.add(new Account("Creditcard", "Visa", -200));
+        List<Account> accounts = registry.getAccounts();
+        assertNotNull(registry.update(accounts.get(0), "Main", 1500));
+        assertTrue(registry.remove(accounts.get(1)));
+        assertFalse(registry.remove(accounts.get(1)));
+
+        assertEquals(Arrays.asList("Bank,Main,1500.0", "Creditcard,Visa,-200.0"), FileUtil.readLines(TEST_ACCOUNT_FILE));
+        assertNull(registry.find("Savings"));
+        assertEquals(2, registry.getAccounts().size());
+
+        rewriteBehindTheRegistry(Arrays.asList("Cash,Petty,10.0"));
+        assertEquals(1, registry.getAccounts().size());
+        assertEquals(10.0, registry.balanceOf(registry.find("Petty")), 0.0);
+    }
+
+    @Test
+    public void testChangesFindTheirAccountAfterTheFileWasReordered() {
+        List<Account> accounts = registry.getAccounts();
+        Account wallet = accounts.get(1);
+
+        rewriteBehindTheRegistry(Arrays.asList("Cash,Wallet,50.0", "Bank,Savings,1000.0")); // Same length
+        assertEquals("Petty", registry.update(wallet, "Petty", 60).getName());
+        assertEquals(Arrays.asList("Cash,Petty,60.0", "Bank,Savings,1000.0"), FileUtil.readLines(TEST_ACCOUNT_FILE));
+
+        rewriteBehindTheRegistry(Arrays.asList("Bank,Savings,1000.0"));
+        assertNull(registry.update(accounts.get(1), "Gone", 0));
+        assertEquals(Arrays.asList("Bank,Savings,1000.0"), FileUtil.readLines(TEST_ACCOUNT_FILE));
+    }
+
+    @Test
+    public void testRenameKeepsTheBalance() {
+        // A throwaway partition, so its ledger is a real one that is not the one in data/
+        String user = "accounts" + System.nanoTime();
+        UserLedgers ledgers = new UserLedgers(1);
+        try {
+            UserLedgers.Ledger ledger = ledgers.get(user);
+            AccountRegistry accounts = ledger.accounts();
+            TransactionService transactions = ledger.transactions();
+            accounts.add(new Account("Bank", "Savings", 1000));
+            accounts.add(new Account("Cash", "Wallet", 50));
+            transactions.ingest(new Transaction("2025-07-01", "income", "Salary", 250, "Savings")).join();
+            transactions.ingest(new Transaction("2025-07-02", "expense", "Food", 20, "Wallet")).join();
+
+            Account renamed = accounts.update(accounts.find("Savings"), "Main", 1000);
+            assertEquals(1250.0, accounts.balanceOf(renamed), 0.0);
+            assertEquals(30.0, accounts.balanceOf(accounts.find("Wallet")), 0.0);
+            TransactionFilter main = new TransactionFilter("Main", null, null, null, null);
+            assertEquals(1, transactions.page(main, 0, 10).getItems().size());
+            assertEquals(0, transactions.page(new TransactionFilter("Savings", null, null, null, null), 0, 10).getItems().size());
+        } finally {
+            ledgers.closeAll();
+            TestFiles.deleteTree(new File(StorageConfig.userDir(user)));
+            new File(StorageConfig.USERS_DIR).delete(); // Only if no other partition is left in it
+        }
+    }
+
+    // Rewrite the file with a modification time the registry has not seen, however coarse the file system's
+    // timestamps are (it only compares mtime and length)
+    private void rewriteBehindTheRegistry(List<String> lines) {
+        File file = new File(TEST_ACCOUNT_FILE);
+        long seen = file.lastModified();
+        FileUtil.writeLines(TEST_ACCOUNT_FILE, lines);
+        file.setLastModified(seen - 60_000);
+    }
+}
@@ -0,0 +1,122 @@
+package test;
+
+import models.Transaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import services.AggregateStore;
+import util.FileUtil;
+import util.TransactionJournal;
+
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AggregateStoreTest {
+
+    private final String BASE_FILE = "data/aggregate-test.txt";
+    private final String JOURNAL_FILE = "data/aggregate-test.journal";
+    private final String AGGREGATE_FILE = "data/aggregate-test.agg";
+
+    @Before
+    public void setUp() {
+        FileUtil.writeLines(BASE_FILE, Arrays.asList(
+                "2025-07-01,income,Salary,50000,Bank",
+                "2025-07-02,expense,Food,3000,Bank",
+                "2025-07-03,expense,Food,2500,Cash"
+        ));
+        new File(JOURNAL_FILE).delete();
+        new File(AGGREGATE_FILE).delete();
+    }
+
+    @After
+    public void tearDown() {
+        try {
+            FileUtil.await(AGGREGATE_FILE); // Saves are queued; one landing after the delete would leave the file behind
+        } catch (UncheckedIOException e) {
+            // Deleted below either way
+        }
+        new File(BASE_FILE).delete();
+        new File(JOURNAL_FILE).delete();
+        new File(AGGREGATE_FILE).delete();
+    }
+
+    @Test
+    public void testBuildsTotalsFromLedger() {
+        AggregateStore store = AggregateStore.forLedger(new TransactionJournal(BASE_FILE, JOURNAL_FILE), AGGREGATE_FILE);
+
+        assertEquals(50000.0, store.getTotalIncome(), 0.001);
+        assertEquals(5500.0, store.getTotalExpense(), 0.001);
+        assertEquals(44500.0, store.getBalance(), 0.001);
+        assertEquals(5500.0, store.getExpenseByCategory().get("Food"), 0.001);
+        assertEquals(Long.valueOf(550000), store.getExpenseCentsByCategory().get("Food"));
+        assertEquals(2500.0, store.getExpenseByAccount().get("Cash"), 0.001);
+        FileUtil.await(AGGREGATE_FILE); // The totals are saved on the group-commit writer
+        assertTrue(new File(AGGREGATE_FILE).exists());
+    }
+
+    @Test
+    public void testIncrementalUpdatesMatchRebuild() {
+        TransactionJournal journal = new TransactionJournal(BASE_FILE, JOURNAL_FILE);
+        List<Transaction> ledger = journal.open();
+        AggregateStore store = AggregateStore.forLedger(journal, AGGREGATE_FILE, () -> ledger);
+
+        Transaction rent = new Transaction("2025-07-04", "expense", "Rent", 15000.0, "Bank");
+        ledger.add(rent);
+        store.onAdded(3, rent);
+
+        Transaction before = ledger.get(1).copy();
+        ledger.get(1).setCategory("Groceries");
+        store.onUpdated(1, before, ledger.get(1));
+
+        Transaction removed = ledger.remove(2);
+        store.onRemoved(2, removed);
+
+        AggregateStore rebuilt = new AggregateStore();
+        rebuilt.onReloaded(ledger);
+
+        assertEquals(rebuilt.getIncomeByCategory(), store.getIncomeByCategory());
+        assertEquals(rebuilt.getExpenseByCategory(), store.getExpenseByCategory());
+        assertEquals(rebuilt.getExpenseByAccount(), store.getExpenseByAccount());
+        assertFalse("Empty categories are dropped", store.getExpenseByCategory().containsKey("Food"));
+    }
+
+    @Test
+    public void testPersistedTotalsAreReloadedAndRebuiltWhenStale() throws Exception {
+        TransactionJournal journal = new TransactionJournal(BASE_FILE, JOURNAL_FILE);
+        AggregateStore store = new AggregateStore();
+        store.onReloaded(journal.readLedger());
+        store.save(AGGREGATE_FILE, journal.stamp());
+
+        AggregateStore loaded = AggregateStore.load(AGGREGATE_FILE);
+        assertEquals(store.getExpenseByCategory(), loaded.getExpenseByCategory());
+
+        // Ledger changes on disk without going through the store
+        Thread.sleep(5);
+        FileUtil.writeLines(BASE_FILE, Arrays.asList("2025-08-01,income,Bonus,1000,Bank"));
+
+        AggregateStore current = AggregateStore.forLedger(journal, AGGREGATE_FILE);
+        assertEquals(1000.0, current.getTotalIncome(), 0.001);
+        assertEquals(0.0, current.getTotalExpense(), 0.001);
+    }
+
+    @Test
+    public void testStoresAreCachedPerFile() {
+        TransactionJournal journal = new TransactionJournal(BASE_FILE, JOURNAL_FILE);
+        String otherFile = AGGREGATE_FILE + "2";
+        try {
+            AggregateStore first = AggregateStore.forLedger(journal, AGGREGATE_FILE);
+            AggregateStore other = AggregateStore.forLedger(journal, otherFile);
+            assertNotSame(first, other);
+            // Another ledger's totals in between do not push these out
+            assertSame(first, AggregateStore.forLedger(journal, AGGREGATE_FILE));
+            assertSame(other, AggregateStore.forLedger(journal, otherFile));
+        } finally {
+            FileUtil.await(otherFile);
+            new File(otherFile).delete();
+        }
+    }
+}
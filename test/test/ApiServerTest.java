@@ -0,0 +1,250 @@
+package test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import server.ApiServer;
+import server.Json;
+import services.UserLedgers;
+import util.StorageConfig;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+public class ApiServerTest {
+
+    private ApiServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final String tag = "api" + System.nanoTime();
+    // Users and their ledgers go to a throwaway file and partition, never to the real ones in data/
+    private final String userFile = "data/test_api_users" + System.nanoTime() + ".txt";
+
+    @Before
+    public void setUp() throws Exception {
+        System.setProperty("finance.ledger.partition", "user");
+        System.setProperty("finance.users.file", userFile);
+        server = ApiServer.start(0);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+        UserLedgers.getInstance().closeAll();
+        TestFiles.deleteTree(new File(StorageConfig.userDir(tag)));
+        new File(StorageConfig.USERS_DIR).delete(); // Only if no other partition is left in it
+        new File(userFile).delete();
+        System.clearProperty("finance.ledger.partition");
+        System.clearProperty("finance.users.file");
+    }
+
+    @Test
+    public void testLoginIsRequiredAndIssuesAToken() throws Exception {
+        assertEquals(401, call("GET", "/api/accounts", null, null).statusCode());
+        assertEquals(401, call("POST", "/api/login", "{\"username\":\"nobody\",\"password\":\"x\"}", null).statusCode());
+
+        String token = registerAndLogin();
+        assertEquals(200, call("GET", "/api/accounts", null, token).statusCode());
+        assertEquals(409, call("POST", "/api/register",
+                "{\"username\":\"" + tag + "\",\"password\":\"p,w\"}", null).statusCode());
+
+        assertEquals(200, call("POST", "/api/logout", null, token).statusCode());
+        assertEquals(401, call("GET", "/api/accounts", null, token).statusCode());
+    }
+
+    @Test
+    public void testIdleSessionsExpire() throws Exception {
+        server.stop();
+        server = ApiServer.start(0, Duration.ofSeconds(1));
+
+        String token = registerAndLogin();
+        assertEquals(200, call("GET", "/api/accounts", null, token).statusCode());
+        assertEquals(1, server.sessionCount());
+
+        Thread.sleep(1500);
+        assertEquals(401, call("GET", "/api/accounts", null, token).statusCode());
+        assertEquals("The expired token is dropped", 0, server.sessionCount());
+    }
+
+    @Test
+    public void testConcurrentClientsAddTransactionsAndReadReports() throws Exception {
+        String token = registerAndLogin();
+        int before = ((Double) object(call("GET", "/api/transactions?limit=1", null, token)).get("total")).intValue();
+
+        List<CompletableFuture<HttpResponse<String>>> posts = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            String body = "{\"date\":\"2031-03-0" + (1 + i % 9) + "\",\"type\":\"expense\",\"category\":\"" + tag
+                    + "\",\"amount\":2.5,\"accountName\":\"Cash\"}";
+            posts.add(client.sendAsync(request("POST", "/api/transactions", body, token), HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> post : posts) {
+            assertEquals(201, post.get().statusCode());
+        }
+
+        Map<String, Object> page = object(call("GET", "/api/transactions?offset=" + before + "&limit=5", null, token));
+        assertEquals(before + 20, ((Double) page.get("total")).intValue());
+        assertEquals(5, ((List<?>) page.get("items")).size());
+
+        Map<String, Object> report = object(call("GET", "/api/reports/period?from=2031-03-01&to=2031-03-31", null, token));
+        assertEquals(50.0, (Double) report.get("totalExpense"), 1e-9);
+        assertTrue(((Map<?, ?>) report.get("expenseByCategory")).containsKey(tag));
+
+        // Filtered listing follows the cursor until nextCursor is null
+        int found = 0;
+        Object cursor = 0.0;
+        while (cursor != null) {
+            Map<String, Object> filtered = object(call("GET", "/api/transactions?category=" + tag + "&limit=8&cursor="
+                    + ((Double) cursor).intValue(), null, token));
+            found += ((List<?>) filtered.get("items")).size();
+            cursor = filtered.get("nextCursor");
+        }
+        assertEquals(20, found);
+        assertEquals(400, call("GET", "/api/transactions?type=gift", null, token).statusCode());
+        assertEquals(400, call("GET", "/api/transactions?category=" + tag + "&limit=0", null, token).statusCode());
+        assertEquals(400, call("GET", "/api/transactions?limit=-5", null, token).statusCode());
+
+        // Rejected by validation, not by a server error
+        assertEquals(400, call("POST", "/api/transactions", "{\"date\":\"2031-03-01\",\"type\":\"gift\","
+                + "\"category\":\"x\",\"amount\":1,\"accountName\":\"Cash\"}", token).statusCode());
+        assertEquals(400, call("POST", "/api/transactions", "{not json", token).statusCode());
+        assertEquals(404, call("DELETE", "/api/transactions/99999999", "{\"expected\":{\"date\":\"2031-03-01\","
+                + "\"type\":\"expense\",\"category\":\"" + tag + "\",\"amount\":2.5,\"accountName\":\"Cash\"}}", token).statusCode());
+    }
+
+    @Test
+    public void testChangesToARecordThatMovedAreRefused() throws Exception {
+        String token = registerAndLogin();
+        String first = "{\"date\":\"2031-05-01\",\"type\":\"expense\",\"category\":\"" + tag
+                + "\",\"amount\":1,\"accountName\":\"Cash\"}";
+        String second = first.replace("2031-05-01", "2031-05-02");
+        String third = first.replace("2031-05-01", "2031-05-03");
+        assertEquals(201, call("POST", "/api/transactions", first, token).statusCode());
+        assertEquals(201, call("POST", "/api/transactions", second, token).statusCode());
+        assertEquals(400, call("DELETE", "/api/transactions/0", null, token).statusCode());
+
+        // One client deletes row 0; another, still holding the old listing, then aims at row 0 as well
+        assertEquals(200, call("DELETE", "/api/transactions/0", "{\"expected\":" + first + "}", token).statusCode());
+        assertEquals(409, call("DELETE", "/api/transactions/0", "{\"expected\":" + first + "}", token).statusCode());
+        assertEquals(409, call("PUT", "/api/transactions/0", "{\"expected\":" + first + ","
+                + first.substring(1), token).statusCode());
+        assertEquals(200, call("PUT", "/api/transactions/0", "{\"expected\":" + second + ","
+                + third.substring(1), token).statusCode());
+        List<?> rows = (List<?>) object(call("GET", "/api/transactions", null, token)).get("items");
+        assertEquals(1, rows.size());
+        assertEquals("2031-05-03", ((Map<?, ?>) rows.get(0)).get("date"));
+
+        // Accounts are checked the same way
+        assertEquals(201, call("POST", "/api/accounts", "{\"type\":\"Cash\",\"name\":\"Wallet\",\"balance\":5}", token).statusCode());
+        String wallet = "{\"type\":\"Cash\",\"name\":\"Wallet\",\"openingBalance\":5}";
+        assertEquals(200, call("PUT", "/api/accounts/0", "{\"expected\":" + wallet + ",\"name\":\"Purse\",\"openingBalance\":5}",
+                token).statusCode());
+        assertEquals(409, call("DELETE", "/api/accounts/0", "{\"expected\":" + wallet + "}", token).statusCode());
+        assertEquals(1, ((List<?>) Json.parse(call("GET", "/api/accounts", null, token).body())).size());
+    }
+
+    @Test
+    public void testConcurrentAddsAnswerWithTheirOwnIndex() throws Exception {
+        String token = registerAndLogin();
+        List<CompletableFuture<HttpResponse<String>>> posts = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            posts.add(client.sendAsync(request("POST", "/api/accounts", "{\"type\":\"Cash\",\"name\":\"" + tag + i
+                    + "\",\"balance\":1}", token), HttpResponse.BodyHandlers.ofString()));
+            posts.add(client.sendAsync(request("POST", "/api/categories", "{\"name\":\"" + tag + i
+                    + "\",\"type\":\"income\"}", token), HttpResponse.BodyHandlers.ofString()));
+        }
+
+        for (CompletableFuture<HttpResponse<String>> post : posts) {
+            assertEquals(201, post.get().statusCode());
+        }
+
+        List<?> accounts = (List<?>) Json.parse(call("GET", "/api/accounts", null, token).body());
+        List<?> categories = (List<?>) Json.parse(call("GET", "/api/categories", null, token).body());
+        for (int i = 0; i < posts.size(); i++) {
+            Map<String, Object> json = object(posts.get(i).get());
+            List<?> listed = i % 2 == 0 ? accounts : categories;
+            Map<?, ?> atIndex = (Map<?, ?>) listed.get(((Double) json.get("index")).intValue());
+            assertEquals(json.get("name"), atIndex.get("name"));
+        }
+    }
+
+    @Test
+    public void testNamesWithControlCharactersAreRejected() throws Exception {
+        String token = registerAndLogin();
+        int before = ((List<?>) Json.parse(call("GET", "/api/accounts", null, token).body())).size();
+        for (String name : new String[] {"a\\rb", "a\\nb", "a\\tb", "a\\u0000b", "a,b"}) {
+            assertEquals(name, 400, call("POST", "/api/accounts", "{\"type\":\"Cash\",\"name\":\"" + name
+                    + "\",\"balance\":1}", token).statusCode());
+            assertEquals(name, 400, call("POST", "/api/categories", "{\"name\":\"" + name
+                    + "\",\"type\":\"income\"}", token).statusCode());
+        }
+        assertEquals(before, ((List<?>) Json.parse(call("GET", "/api/accounts", null, token).body())).size());
+    }
+
+    @Test
+    public void testOversizedBodiesAreRefused() throws Exception {
+        String token = registerAndLogin();
+        String name = "x".repeat(1 << 20);
+        assertEquals(413, call("POST", "/api/accounts", "{\"type\":\"Cash\",\"name\":\"" + name
+                + "\",\"balance\":1}", token).statusCode());
+        assertEquals(200, call("GET", "/api/accounts", null, token).statusCode());
+    }
+
+    @Test
+    public void testDeeplyNestedBodiesAreRejected() throws Exception {
+        assertEquals(400, call("POST", "/api/login", "[".repeat(1 << 20), null).statusCode());
+        assertEquals(400, call("POST", "/api/login", "{\"a\":".repeat(Json.MAX_DEPTH + 1), null).statusCode());
+        assertNotNull(Json.parse("[".repeat(Json.MAX_DEPTH) + "]".repeat(Json.MAX_DEPTH)));
+    }
+
+    @Test
+    public void testCategoryChangesAnswerWithTheChangedCategory() throws Exception {
+        String token = registerAndLogin();
+        assertEquals(201, call("POST", "/api/categories", "{\"name\":\"" + tag
+                + "\",\"type\":\"expense\",\"budget\":10}", token).statusCode());
+        List<?> categories = (List<?>) Json.parse(call("GET", "/api/categories", null, token).body());
+        int index = categories.size() - 1;
+        String listed = "{\"expected\":{\"name\":\"" + tag + "\",\"type\":\"expense\",\"budget\":10}";
+
+        Map<String, Object> updated = object(call("PUT", "/api/categories/" + index, listed + ",\"budget\":25}", token));
+        assertEquals(tag, updated.get("name"));
+        assertEquals(25.0, (Double) updated.get("budget"), 1e-9);
+        assertEquals("The budget it expects is gone", 409,
+                call("DELETE", "/api/categories/" + index, listed + "}", token).statusCode());
+        assertEquals(200, call("DELETE", "/api/categories/" + index, listed.replace("10}", "25}") + "}", token).statusCode());
+        assertEquals(404, call("DELETE", "/api/categories/" + (index + 1000), listed + "}", token).statusCode());
+    }
+
+    private String registerAndLogin() throws Exception {
+        String credentials = "{\"username\":\"" + tag + "\",\"password\":\"p,w\"}";
+        assertEquals(201, call("POST", "/api/register", credentials, null).statusCode());
+        HttpResponse<String> login = call("POST", "/api/login", credentials, null);
+        assertEquals(200, login.statusCode());
+        return (String) object(login).get("token");
+    }
+
+    private HttpResponse<String> call(String method, String path, String body, String token) throws Exception {
+        return client.send(request(method, path, body, token), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest request(String method, String path, String body, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private static Map<String, Object> object(HttpResponse<String> response) {
+        return Json.parseObject(response.body());
+    }
+}
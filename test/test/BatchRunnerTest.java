@@ -0,0 +1,92 @@
+package test;
+
+import models.Transaction;
+import org.junit.Test;
+import services.BatchRunner;
+import services.TransactionService;
+import services.UserLedgers;
+import util.FileUtil;
+import util.StorageConfig;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BatchRunnerTest {
+
+    @Test
+    public void testCommandsArePersistedOnceAndFailuresAreCounted() throws Exception {
+        TransactionService service = TransactionService.getInstance();
+        String tag = "batch" + System.nanoTime();
+        int before = service.size();
+
+        BatchRunner runner = new BatchRunner(service);
+        runner.runAll(new BufferedReader(new StringReader(
+                "# comment\n"
+                + "add-tx 2025-07-01, expense, " + tag + ", 12.5, Cash\n"
+                + "add-tx 2025-07-02,income," + tag + ",100,Bank\n"
+                + "transfer Bank,Cash,40,2025-07-03\n"
+                + "add-tx 2025-07-04,gift," + tag + ",1,Cash\n"      // invalid type
+                + "add-tx not-a-date,expense," + tag + ",1,Cash\n"   // invalid date
+                + "frobnicate 1,2\n"
+                + "\n")));
+
+        assertEquals(3, runner.getFailed());
+        assertEquals(2, runner.getTimings().get("add-tx")[0]);
+        assertEquals(1, runner.getTimings().get("transfer")[0]);
+        assertEquals(1, runner.getTimings().get("flush")[0]);
+
+        List<Transaction> added = service.list(before, Integer.MAX_VALUE);
+        assertEquals(4, added.size());
+        assertEquals(tag, added.get(0).getCategory());
+        assertEquals(12.5, added.get(0).getAmount(), 0.0);
+        assertEquals("Transfer Out", added.get(2).getCategory());
+        assertEquals("Cash", added.get(3).getAccountName());
+    }
+
+    @Test
+    public void testRowsWhoseSaveFailedAreNotAddedAgainByTheNextFlush() {
+        String tag = "batch" + System.nanoTime();
+        String script = "data/" + tag + ".txt";
+        UserLedgers ledgers = new UserLedgers(1);
+        try {
+            TransactionService service = ledgers.get(tag).transactions();
+            // Appends to a directory fail, and so does rewriting the journal from the table
+            File journal = new File(StorageConfig.journalPath(service.getDataDir()));
+            journal.delete();
+            assertTrue(journal.mkdir());
+            FileUtil.writeLines(script, List.of("add-tx 2025-07-01,expense," + tag + ",1,Cash", "report"));
+
+            // The report's flush fails; the final flush then has nothing left to add
+            assertEquals(1, BatchRunner.run(script, service));
+            assertEquals(1, service.size());
+        } finally {
+            ledgers.closeAll();
+            new File(script).delete();
+            TestFiles.deleteTree(new File(StorageConfig.userDir(tag)));
+        }
+    }
+
+    @Test
+    public void testChangesThatCannotBeSavedAreReportedAsFailures() {
+        String tag = "batch" + System.nanoTime();
+        String script = "data/" + tag + ".txt";
+        UserLedgers ledgers = new UserLedgers(1);
+        try {
+            TransactionService unloaded = ledgers.get(tag + "a").transactions();
+            ledgers.get(tag + "b"); // Evicts and closes the first ledger, which then rejects changes
+            FileUtil.writeLines(script, List.of("add-tx 2025-07-01,expense," + tag + ",1,Cash"));
+
+            assertEquals(1, BatchRunner.run(script, unloaded));
+        } finally {
+            ledgers.closeAll();
+            new File(script).delete();
+            for (String user : new String[] {tag + "a", tag + "b"}) {
+                TestFiles.deleteTree(new File(StorageConfig.userDir(user)));
+            }
+        }
+    }
+}
@@ -42,4 +42,19 @@ public class CategoryServiceTest {
         assertEquals("Groceries,expense,1200.0", updatedLines.get(0));
         assertTrue(outputStream.toString().contains("Category updated."));
     }
+
+    @Test
+    public void testBudgetLookupUsesIndexAndFollowsFileChanges() {
+        CategoryService service = CategoryService.getInstance();
+        assertEquals(1000.0, service.getBudget("FOOD", "expense"), 0.001);
+        assertEquals(0.0, service.getBudget("Food", "income"), 0.001);
+        assertEquals(0.0, service.getBudget("Travel", "expense"), 0.001);
+
+        // File rewritten behind the service's back: the index must pick up the new budget. The modification time is
+        // set explicitly, so the change is seen however coarse the file system's timestamps are.
+        FileUtil.writeLines(testCategoryFile, List.of("Food,expense,2500.0"));
+        File file = new File(testCategoryFile);
+        file.setLastModified(file.lastModified() - 60_000);
+        assertEquals(2500.0, service.getBudget("food", "expense"), 0.001);
+    }
 }
@@ -0,0 +1,116 @@
+package test;
+
+import models.Transaction;
+import models.TransactionTable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import util.ColumnarLedger;
+import util.ColumnarLedgerFormat;
+import util.FileUtil;
+import util.TransactionJournal;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ColumnarLedgerTest {
+
+    private final String CSV_FILE = "data/columnar-test.txt";
+    private final String LEDGER_DIR = "data/columnar-test";
+    private final String JOURNAL_FILE = "data/columnar-test.journal";
+
+    @Before
+    public void setUp() {
+        FileUtil.writeLines(CSV_FILE, Arrays.asList(
+                "2025-07-01,income,Salary,50000.0,Bank",
+                "2025-07-02,expense,Food,3000.25,Cash",
+                "2025-07-03,expense,Food,2500.0,Bank"
+        ));
+    }
+
+    @After
+    public void tearDown() {
+        new File(CSV_FILE).delete();
+        new File(JOURNAL_FILE).delete();
+        File[] files = new File(LEDGER_DIR).listFiles();
+        if (files != null) {
+            for (File f : files) f.delete();
+        }
+        new File(LEDGER_DIR).delete();
+    }
+
+    @Test
+    public void testConvertFromCsvStoresPrimitiveColumns() {
+        int rows = ColumnarLedger.convertFromCsv(CSV_FILE, LEDGER_DIR);
+        assertEquals(3, rows);
+
+        ColumnarLedger ledger = ColumnarLedger.open(LEDGER_DIR);
+        assertNotNull(ledger);
+        assertEquals(LocalDate.parse("2025-07-02").toEpochDay(), ledger.epochDay(1));
+        assertEquals(ColumnarLedger.TYPE_EXPENSE, ledger.type(1));
+        assertEquals(300025L, ledger.amountCents(1));
+        // Both "Food" rows share one dictionary id
+        assertEquals(ledger.categoryId(1), ledger.categoryId(2));
+        assertEquals(2, ledger.categoryNames().size());
+        assertEquals("Cash", ledger.accountNames().valueOf(ledger.accountId(1)));
+    }
+
+    @Test
+    public void testRoundTripBackToCsv() {
+        ColumnarLedger.convertFromCsv(CSV_FILE, LEDGER_DIR);
+        new File(CSV_FILE).delete();
+
+        assertEquals(3, ColumnarLedger.convertToCsv(LEDGER_DIR, CSV_FILE));
+        List<String> lines = FileUtil.readLines(CSV_FILE);
+        assertEquals("2025-07-01,income,Salary,50000.0,Bank", lines.get(0));
+        assertEquals("2025-07-02,expense,Food,3000.25,Cash", lines.get(1));
+    }
+
+    @Test
+    public void testJournalOnColumnarBase() {
+        ColumnarLedger.convertFromCsv(CSV_FILE, LEDGER_DIR);
+        TransactionJournal journal = new TransactionJournal(new ColumnarLedgerFormat(), LEDGER_DIR, JOURNAL_FILE);
+        List<Transaction> ledger = journal.open();
+        Transaction rent = new Transaction("2025-07-04", "expense", "Rent", 15000.0, "Bank");
+        ledger.add(rent);
+        journal.recordAdd(rent, ledger);
+
+        journal.compact(ledger);
+
+        ColumnarLedger compacted = ColumnarLedger.open(LEDGER_DIR);
+        assertEquals(4, compacted.size());
+        assertEquals("Rent", compacted.get(3).getCategory());
+        assertEquals(4, new TransactionJournal(new ColumnarLedgerFormat(), LEDGER_DIR, JOURNAL_FILE).readLedger().size());
+    }
+
+    @Test
+    public void testRowsWithOtherDatesAndTypesAreKept() {
+        FileUtil.writeLines(CSV_FILE, Arrays.asList(
+                "2025-07-01,income,Salary,50000.0,Bank",
+                "someday,refund,Food,12.5,Cash",
+                "2025-07-03,expense,Food,2500.0,Bank"
+        ));
+        assertEquals(3, ColumnarLedger.convertFromCsv(CSV_FILE, LEDGER_DIR));
+        TransactionJournal journal = new TransactionJournal(new ColumnarLedgerFormat(), LEDGER_DIR, JOURNAL_FILE);
+        List<Transaction> ledger = journal.open();
+        ledger.remove(2);
+        journal.recordDelete(2, ledger);
+        journal.compact(ledger);
+
+        // Rows keep their index, so journal records written against the ledger still hit the right row
+        ColumnarLedger compacted = ColumnarLedger.open(LEDGER_DIR);
+        assertEquals(2, compacted.size());
+        assertEquals("someday", compacted.dateOf(1));
+        assertEquals("refund", compacted.typeOf(1));
+        assertEquals(TransactionTable.NO_EPOCH_DAY, compacted.epochDay(1));
+
+        List<Transaction> reloaded = new ColumnarLedgerFormat().read(LEDGER_DIR);
+        assertEquals("someday", reloaded.get(1).getDate());
+        assertEquals("refund", reloaded.get(1).getType());
+        assertEquals(12.5, reloaded.get(1).getAmount(), 0.001);
+    }
+}
@@ -0,0 +1,112 @@
+package test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import services.CredentialStore;
+import util.FileUtil;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class CredentialStoreTest {
+
+    private final String TEST_USER_FILE = "data/test_users.txt";
+    private CredentialStore store;
+
+    @Before
+    public void setup() {
+        FileUtil.writeLines(TEST_USER_FILE, Arrays.asList("alice,secret", "bob,hunter2"));
+        store = new CredentialStore(TEST_USER_FILE);
+    }
+
+    @After
+    public void tearDown() {
+        new File(TEST_USER_FILE).delete();
+    }
+
+    @Test
+    public void testRegisterStoresSaltedHashAndVerifies() {
+        assertTrue(store.register("carol", "pa55word"));
+
+        String line = FileUtil.readLines(TEST_USER_FILE).get(2);
+        assertTrue("Password should be stored hashed", line.startsWith("carol,pbkdf2$"));
+        assertFalse("Plain password must not be stored", line.contains("pa55word"));
+
+        assertTrue(store.verify("carol", "pa55word"));
+        assertFalse(store.verify("carol", "wrong"));
+        assertEquals(3, store.size());
+    }
+
+    @Test
+    public void testRegisterRejectsExistingUsername() {
+        assertFalse(store.register("alice", "other"));
+        assertEquals(2, FileUtil.readLines(TEST_USER_FILE).size());
+    }
+
+    @Test
+    public void testPlainEntryIsAcceptedAndUpgraded() {
+        assertTrue(store.verify("alice", "secret"));
+        // The hashed entry takes the plain one's line; the plain password is gone from the file
+        List<String> lines = FileUtil.readLines(TEST_USER_FILE);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).startsWith("alice,pbkdf2$"));
+        assertEquals("bob,hunter2", lines.get(1));
+        assertFalse(lines.contains("alice,secret"));
+        assertFalse(new File(TEST_USER_FILE + ".tmp").exists());
+        assertTrue(store.verify("alice", "secret"));
+        assertFalse(store.verify("alice", "Secret"));
+        assertFalse(store.verify("nobody", "secret"));
+        assertEquals(lines, FileUtil.readLines(TEST_USER_FILE)); // Upgraded once
+
+        CredentialStore reloaded = new CredentialStore(TEST_USER_FILE);
+        assertTrue(reloaded.verify("alice", "secret"));
+        assertEquals(2, reloaded.size());
+        assertEquals(lines, FileUtil.readLines(TEST_USER_FILE));
+    }
+
+    @Test
+    public void testPlainLineNextToAnAppendedHashIsRemovedOnLoad() {
+        // As left by older versions, which appended the hash and kept the plain line
+        assertTrue(store.verify("alice", "secret"));
+        String hashed = FileUtil.readLines(TEST_USER_FILE).get(0);
+        FileUtil.writeLines(TEST_USER_FILE, Arrays.asList("alice,secret", "bob,hunter2", hashed));
+
+        CredentialStore reloaded = new CredentialStore(TEST_USER_FILE);
+        assertEquals(Arrays.asList(hashed, "bob,hunter2"), FileUtil.readLines(TEST_USER_FILE));
+        assertTrue(reloaded.verify("alice", "secret"));
+    }
+
+    @Test
+    public void testFileChangedElsewhereIsReloaded() throws InterruptedException {
+        Thread.sleep(20); // Make sure the file gets a new modification time
+        FileUtil.writeLines(TEST_USER_FILE, Arrays.asList("dave,letmein"));
+        assertTrue(store.verify("dave", "letmein"));
+        assertFalse(store.verify("bob", "hunter2"));
+    }
+
+    @Test
+    public void testConcurrentLogins() throws Exception {
+        store.register("erin", "pw-erin");
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                boolean valid = i % 2 == 0;
+                results.add(pool.submit(() -> store.verify("erin", valid ? "pw-erin" : "nope")));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(i % 2 == 0, results.get(i).get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package test;
+
+import models.Transaction;
+import models.TransactionTable;
+import org.junit.Before;
+import org.junit.Test;
+import services.DateIndex;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.*;
+
+public class DateIndexTest {
+
+    private TransactionTable table;
+    private DateIndex index;
+
+    @Before
+    public void setUp() {
+        table = new TransactionTable();
+        table.addRow("2025-07-15", "expense", "Food", 100, "Cash");
+        table.addRow("2025-06-30", "income", "Salary", 5000, "Bank");
+        table.addRow("2025-07-01", "expense", "Rent", 1500, "Bank");
+        table.addRow("someday", "expense", "Misc", 10, "Cash");
+        table.addRow("2025-08-01", "expense", "Food", 200, "Cash");
+        index = new DateIndex(table);
+    }
+
+    @Test
+    public void testRangeReturnsOnlyMatchingRowsInDateOrder() {
+        assertArrayEquals(new int[] {2, 0}, rows("2025-07-01", "2025-07-31"));
+        assertArrayEquals(new int[] {1, 2, 0, 4}, rows("2025-01-01", "2025-12-31"));
+        assertArrayEquals(new int[] {1}, rows("2025-06-30", "2025-06-30"));
+        assertArrayEquals(new int[0], rows("2024-01-01", "2024-12-31"));
+        assertEquals(4, index.size()); // "someday" is not indexed
+    }
+
+    @Test
+    public void testFollowsAddUpdateAndRemove() {
+        table.addRow("2025-07-20", "expense", "Fuel", 50, "Cash");
+        index.onAdded(5, table.get(5));
+        assertArrayEquals(new int[] {2, 0, 5}, rows("2025-07-01", "2025-07-31"));
+
+        Transaction before = table.get(0).copy();
+        table.get(0).setDate("2025-08-05");
+        index.onUpdated(0, before, table.get(0));
+        assertArrayEquals(new int[] {2, 5}, rows("2025-07-01", "2025-07-31"));
+        assertArrayEquals(new int[] {4, 0}, rows("2025-08-01", "2025-08-31"));
+
+        // Removing row 1 moves every later row up by one
+        index.onRemoved(1, table.remove(1));
+        assertArrayEquals(new int[] {1, 4}, rows("2025-07-01", "2025-07-31"));
+        assertArrayEquals(new int[] {3, 0}, rows("2025-08-01", "2025-08-31"));
+        assertEquals("Rent", table.get(1).getCategory());
+    }
+
+    private int[] rows(String from, String to) {
+        return index.rows(LocalDate.parse(from).toEpochDay(), LocalDate.parse(to).toEpochDay());
+    }
+}
@@ -0,0 +1,48 @@
+package test;
+
+import org.junit.Test;
+import util.DispatchRegistry;
+import util.ReflectionUtil;
+
+import java.lang.invoke.MethodHandle;
+
+import static org.junit.Assert.*;
+
+public class DispatchRegistryTest {
+
+    private static int calls = 0;
+
+    private static int twice(int value) {
+        return value * 2;
+    }
+
+    public static void countCall() {
+        calls++;
+    }
+
+    @Test
+    public void testHandleIsResolvedOnceAndCached() throws Exception {
+        MethodHandle first = DispatchRegistry.staticMethod("test.DispatchRegistryTest", "twice", int.class);
+        MethodHandle second = DispatchRegistry.staticMethod(DispatchRegistryTest.class, "twice", int.class);
+        assertSame(first, second);
+    }
+
+    @Test
+    public void testInvokesPrivateStaticMethod() throws Throwable {
+        MethodHandle handle = DispatchRegistry.staticMethod(DispatchRegistryTest.class, "twice", int.class);
+        assertEquals(42, (int) handle.invokeExact(21));
+    }
+
+    @Test
+    public void testReflectionUtilRoutesThroughRegistry() {
+        int before = calls;
+        assertTrue(ReflectionUtil.invokeStaticMethod("test.DispatchRegistryTest", "countCall"));
+        assertTrue(ReflectionUtil.invokeStaticMethod("test.DispatchRegistryTest", "countCall"));
+        assertEquals(before + 2, calls);
+    }
+
+    @Test(expected = ClassNotFoundException.class)
+    public void testUnknownClassFails() throws Exception {
+        DispatchRegistry.staticMethod("non.existing.ClassName", "fakeMethod");
+    }
+}
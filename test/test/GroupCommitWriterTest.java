@@ -0,0 +1,104 @@
+package test;
+
+import org.junit.After;
+import org.junit.Test;
+import util.FileUtil;
+import util.GroupCommitWriter;
+
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class GroupCommitWriterTest {
+
+    private static final String TEST_FILE = "data/test_group_commit.txt";
+
+    @After
+    public void tearDown() {
+        new File(TEST_FILE).delete();
+    }
+
+    @Test
+    public void testConcurrentAppendsAllLandAsWholeLines() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < 4; w++) {
+                int writer = w;
+                writers.add(pool.submit(() -> {
+                    for (int i = 0; i < 250; i++) {
+                        FileUtil.appendLine(TEST_FILE, "w" + writer + "-" + i);
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        List<String> lines = FileUtil.readLines(TEST_FILE);
+        assertEquals(1000, lines.size());
+        assertEquals(1000, new HashSet<>(lines).size());
+    }
+
+    @Test
+    public void testQueuedWritesKeepOrderAndReadsWaitForThem() {
+        // A long flush interval makes the writes below land in one group
+        GroupCommitWriter writer = new GroupCommitWriter(50, 1000, true);
+        writer.append(TEST_FILE, "lost\n");
+        writer.overwrite(TEST_FILE, "a\n");
+        CompletableFuture<Void> last = writer.append(TEST_FILE, "b\n");
+        assertFalse(last.isDone());
+
+        writer.await(TEST_FILE);
+        assertTrue(last.isDone());
+        assertEquals(List.of("a", "b"), FileUtil.readLines(TEST_FILE));
+
+        // Async variants on the shared writer: readLines sees them without waiting explicitly
+        FileUtil.writeLinesAsync(TEST_FILE, List.of("x"));
+        FileUtil.appendLinesAsync(TEST_FILE, List.of("y", "z"));
+        assertEquals(List.of("x", "y", "z"), FileUtil.readLines(TEST_FILE));
+    }
+
+    @Test
+    public void testFailedWriteCompletesExceptionally() {
+        CompletableFuture<Void> write = FileUtil.appendLineAsync("data/no-such-dir/x.txt", "line");
+        Set<Boolean> failed = new HashSet<>();
+        write.handle((ok, e) -> failed.add(e != null)).join();
+        assertEquals(Set.of(true), failed);
+    }
+
+    @Test
+    public void testWaitingCallersSeeTheFailure() {
+        String missing = "data/no-such-dir/x.txt";
+        // The flush interval keeps the write queued while await() starts waiting for it
+        GroupCommitWriter writer = new GroupCommitWriter(50, 1000, false);
+        writer.append(missing, "line\n");
+        try {
+            writer.await(missing);
+            fail("await() must report the failed write");
+        } catch (UncheckedIOException e) {
+            assertNotNull(e.getCause());
+        }
+
+        try {
+            FileUtil.appendLines(missing, List.of("a", "b"));
+            fail("appendLines must report the failed write");
+        } catch (UncheckedIOException e) {
+            assertNotNull(e.getCause());
+        }
+        // The old API still prints the error and carries on
+        FileUtil.writeLines(missing, List.of("a"));
+    }
+}
@@ -0,0 +1,81 @@
+package test;
+
+import models.Transaction;
+import models.TransactionTable;
+import org.junit.Test;
+import services.AggregateStore;
+import services.LedgerAggregator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LedgerAggregatorTest {
+
+    @Test
+    public void testParallelTotalsMatchSequentialPass() {
+        TransactionTable table = randomLedger(50_000);
+
+        LedgerAggregator.Totals sequential = LedgerAggregator.aggregate(table, null, Integer.MAX_VALUE);
+        LedgerAggregator.Totals parallel = LedgerAggregator.aggregate(table, null, 1000);
+
+        assertEquals(sequential.getIncomeCents(), parallel.getIncomeCents());
+        assertEquals(sequential.getExpenseCents(), parallel.getExpenseCents());
+        for (int kind = 0; kind < 4; kind++) {
+            assertEquals(sequential.amounts(kind), parallel.amounts(kind));
+            assertEquals(sequential.entries(kind).keySet(), parallel.entries(kind).keySet());
+        }
+    }
+
+    @Test
+    public void testMatchesRowByRowAggregateStore() {
+        TransactionTable table = randomLedger(20_000);
+        List<Transaction> plain = new ArrayList<>();
+        for (Transaction t : table) {
+            plain.add(t.copy());
+        }
+
+        AggregateStore fromList = new AggregateStore();
+        fromList.onReloaded(plain);
+        LedgerAggregator.Totals totals = LedgerAggregator.aggregate(table, null, 777);
+
+        assertEquals(fromList.getTotalIncome(), totals.getIncomeCents() / 100.0, 0.0);
+        assertEquals(fromList.getTotalExpense(), totals.getExpenseCents() / 100.0, 0.0);
+        assertEquals(fromList.getIncomeByCategory(), totals.amounts(LedgerAggregator.INCOME_BY_CATEGORY));
+        assertEquals(fromList.getExpenseByCategory(), totals.amounts(LedgerAggregator.EXPENSE_BY_CATEGORY));
+        assertEquals(fromList.getIncomeCentsByCategory(), totals.cents(LedgerAggregator.INCOME_BY_CATEGORY));
+        assertEquals(fromList.getExpenseCentsByCategory(), totals.cents(LedgerAggregator.EXPENSE_BY_CATEGORY));
+        assertEquals(fromList.getIncomeByAccount(), totals.amounts(LedgerAggregator.INCOME_BY_ACCOUNT));
+        assertEquals(fromList.getExpenseByAccount(), totals.amounts(LedgerAggregator.EXPENSE_BY_ACCOUNT));
+    }
+
+    @Test
+    public void testSelectedRowsOnly() {
+        TransactionTable table = new TransactionTable();
+        table.addRow("2025-07-01", "income", "Salary", 1000, "Bank");
+        table.addRow("2025-07-02", "expense", "Food", 25.5, "Cash");
+        table.addRow("2025-07-03", "expense", "Food", 10, "Cash");
+
+        LedgerAggregator.Totals totals = LedgerAggregator.aggregate(table, new int[] {1, 2}, 1);
+
+        assertEquals(0, totals.getIncomeCents());
+        assertEquals(3550, totals.getExpenseCents());
+        assertTrue(totals.amounts(LedgerAggregator.INCOME_BY_CATEGORY).isEmpty());
+        assertEquals(35.5, totals.amounts(LedgerAggregator.EXPENSE_BY_CATEGORY).get("Food"), 0.0);
+    }
+
+    private static TransactionTable randomLedger(int rows) {
+        Random random = new Random(42);
+        TransactionTable table = new TransactionTable();
+        for (int i = 0; i < rows; i++) {
+            table.addRow("2025-01-" + String.format("%02d", 1 + random.nextInt(28)),
+                    random.nextBoolean() ? "income" : "expense",
+                    "Cat" + random.nextInt(40),
+                    random.nextInt(1_000_000) / 100.0,
+                    "Acc" + random.nextInt(6));
+        }
+        return table;
+    }
+}
@@ -0,0 +1,112 @@
+package test;
+
+import models.Transaction;
+import models.TransactionTable;
+import org.junit.Test;
+import services.LedgerAnalytics;
+import util.QuantileSketch;
+import util.SpaceSaving;
+import util.TopN;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LedgerAnalyticsTest {
+
+    @Test
+    public void testTopNKeepsTheLargestValues() {
+        Random random = new Random(7);
+        long[] values = new long[10000];
+        TopN<Long> top = new TopN<>(5);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(1_000_000);
+            if (top.accepts(values[i])) {
+                top.offer(values[i], values[i]);
+            }
+        }
+        Arrays.sort(values);
+        List<Long> expected = new ArrayList<>();
+        for (int i = values.length - 1; i >= values.length - 5; i--) {
+            expected.add(values[i]);
+        }
+        assertEquals(expected, top.sortedDescending());
+    }
+
+    @Test
+    public void testQuantilesAreWithinTheDocumentedError() {
+        Random random = new Random(11);
+        long[] values = new long[50000];
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * 16); // 1 cent .. ~Rs. 88,000
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+        for (double q : new double[]{0.01, 0.5, 0.9, 0.95, 0.99, 1.0}) {
+            long exact = values[(int) Math.ceil(q * values.length) - 1];
+            long estimate = sketch.quantile(q);
+            assertTrue("q=" + q + " exact=" + exact + " estimate=" + estimate,
+                    Math.abs(estimate - exact) <= exact * QuantileSketch.RELATIVE_ERROR + 1);
+        }
+        assertEquals(values[0], sketch.getMin());
+        assertEquals(values[values.length - 1], sketch.getMax());
+        assertEquals(values.length, sketch.getCount());
+    }
+
+    @Test
+    public void testSpaceSavingBoundsAndGuarantee() {
+        Random random = new Random(3);
+        SpaceSaving<String> sketch = new SpaceSaving<>(16);
+        Map<String, Long> exact = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            // Two heavy accounts and a long tail of small ones
+            String key = i % 4 == 0 ? "Bank" : i % 4 == 1 ? "Card" : "tail" + random.nextInt(500);
+            sketch.add(key, 100);
+            exact.merge(key, 100L, Long::sum);
+        }
+        List<SpaceSaving.Counter<String>> top = sketch.top(2);
+        assertEquals(2, top.size());
+        for (SpaceSaving.Counter<String> counter : top) {
+            assertTrue(counter.getKey().equals("Bank") || counter.getKey().equals("Card"));
+            long truth = exact.get(counter.getKey());
+            assertTrue(counter.getEstimate() >= truth);
+            assertTrue(counter.getEstimate() - truth <= counter.getError());
+            assertTrue(counter.getError() <= sketch.errorBound());
+        }
+    }
+
+    @Test
+    public void testTableScanMatchesTransactionPass() {
+        TransactionTable table = new TransactionTable();
+        table.addRow("2025-07-01", "income", "Salary", 50000, "Bank");
+        table.addRow("2025-07-02", "expense", "Food", 30, "Cash");
+        table.addRow("2025-07-03", "expense", "Rent", 15000, "Bank");
+        table.addRow("2025-07-04", "expense", "Food", 45.5, "Card");
+        table.addRow("2025-07-05", "expense", "Food", 12, "Cash");
+
+        LedgerAnalytics fromTable = LedgerAnalytics.of(table, 2);
+        LedgerAnalytics fromList = LedgerAnalytics.of(new ArrayList<Transaction>(table), 2);
+
+        assertEquals(5, fromTable.getRows());
+        assertEquals(2, fromTable.getLargestExpenses().size());
+        assertEquals("Rent", fromTable.getLargestExpenses().get(0).getCategory());
+        assertEquals(4550, fromTable.getLargestExpenses().get(1).getAmountCents());
+        assertEquals(fromList.getLargestExpenses().toString(), fromTable.getLargestExpenses().toString());
+
+        QuantileSketch food = fromTable.getExpenseSizes().get("Food");
+        assertEquals(3, food.getCount());
+        assertEquals(3000, food.quantile(0.5), 3000 * QuantileSketch.RELATIVE_ERROR);
+        assertEquals(fromList.getExpenseSizes().keySet(), fromTable.getExpenseSizes().keySet());
+        assertEquals(1, fromTable.getIncomeSizes().size());
+
+        assertEquals("Bank", fromTable.getTopAccounts(1).get(0).getKey());
+        assertEquals(1500000, fromTable.getTopAccounts(1).get(0).getEstimate());
+        assertEquals(0, fromTable.getTopAccounts(1).get(0).getError());
+    }
+}
@@ -0,0 +1,162 @@
+package test;
+
+import models.Transaction;
+import models.TransactionTable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import util.CsvLedgerFormat;
+import util.FileUtil;
+import util.LedgerSnapshot;
+import util.TransactionJournal;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LedgerSnapshotTest {
+
+    private final String BASE_FILE = "data/snapshot-test.txt";
+    private final String JOURNAL_FILE = "data/snapshot-test.journal";
+    private final String SNAPSHOT_FILE = "data/snapshot-test.snapshot";
+
+    @Before
+    public void setUp() {
+        FileUtil.writeLines(BASE_FILE, Arrays.asList(
+                "2025-07-01,income,Salary,50000.0,Bank",
+                "2025-07-02,expense,Food,3000.0,Cash",
+                "someday,refund,Food,12.5,Cash"
+        ));
+        new File(JOURNAL_FILE).delete();
+        new File(SNAPSHOT_FILE).delete();
+    }
+
+    @After
+    public void tearDown() {
+        new File(BASE_FILE).delete();
+        new File(JOURNAL_FILE).delete();
+        new File(SNAPSHOT_FILE).delete();
+    }
+
+    // Snapshots after every record, so each reopen below starts from one
+    private TransactionJournal journal() {
+        return new TransactionJournal(new CsvLedgerFormat(), BASE_FILE, JOURNAL_FILE, SNAPSHOT_FILE, 1024 * 1024, 1);
+    }
+
+    @Test
+    public void testOpenStartsFromSnapshotAndReplaysOnlyLaterRecords() {
+        TransactionJournal journal = journal();
+        List<Transaction> ledger = journal.open();
+        journal.close(); // Waits for the checkpoint of the freshly parsed ledger
+        LedgerSnapshot first = LedgerSnapshot.read(SNAPSHOT_FILE);
+        assertNotNull(first);
+        assertEquals(3, first.getTable().size());
+        assertEquals("someday", first.getTable().dateOf(2));
+        assertEquals("refund", first.getTable().typeOf(2));
+
+        journal = journal();
+        ledger = journal.open();
+        Transaction rent = new Transaction("2025-07-03", "expense", "Rent", 15000.0, "Bank");
+        ledger.add(rent);
+        journal.recordAdd(rent, ledger);
+        ledger.remove(0);
+        journal.recordDelete(0, ledger);
+        journal.close();
+
+        // Records appended after the newest snapshot are replayed on top of it
+        Transaction late = new Transaction("2025-07-04", "income", "Gift", 20.0, "Cash");
+        FileUtil.appendLineAsync(JOURNAL_FILE, "A," + FileUtil.toTransactionLine(late)).join();
+        assertTrue(LedgerSnapshot.read(SNAPSHOT_FILE).getJournalOffset() < new File(JOURNAL_FILE).length());
+
+        List<Transaction> reloaded = journal().readLedger();
+        assertEquals(4, reloaded.size());
+        assertEquals("Food", reloaded.get(0).getCategory());
+        assertEquals("Rent", reloaded.get(2).getCategory());
+        assertEquals(15000.0, reloaded.get(2).getAmount(), 0.001);
+        assertEquals("Gift", reloaded.get(3).getCategory());
+        // The base file was never rewritten
+        assertEquals(3, FileUtil.readLines(BASE_FILE).size());
+    }
+
+    @Test
+    public void testSnapshotOfAnotherBaseIsIgnored() throws Exception {
+        TransactionJournal journal = journal();
+        journal.open();
+        journal.close();
+        assertTrue(new File(SNAPSHOT_FILE).exists());
+
+        // Someone rewrites the base file by hand
+        Thread.sleep(5);
+        FileUtil.writeLines(BASE_FILE, Arrays.asList("2025-08-01,income,Bonus,1000.0,Bank"));
+
+        journal = journal();
+        List<Transaction> reloaded = journal.open();
+        journal.close();
+        assertEquals(1, reloaded.size());
+        assertEquals("Bonus", reloaded.get(0).getCategory());
+    }
+
+    @Test
+    public void testDamagedSnapshotFallsBackToTheBase() throws Exception {
+        TransactionJournal journal = journal();
+        journal.open();
+        journal.close();
+
+        byte[] bytes = Files.readAllBytes(Path.of(SNAPSHOT_FILE));
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(Path.of(SNAPSHOT_FILE), bytes);
+        assertNull(LedgerSnapshot.read(SNAPSHOT_FILE));
+
+        List<Transaction> reloaded = journal().readLedger();
+        assertEquals(3, reloaded.size());
+        assertEquals(3000.0, reloaded.get(1).getAmount(), 0.001);
+    }
+
+    @Test
+    public void testCompactionLeavesASnapshotOfTheNewBase() {
+        TransactionJournal journal = journal();
+        List<Transaction> ledger = journal.open();
+        Transaction rent = new Transaction("2025-07-03", "expense", "Rent", 15000.0, "Bank");
+        ledger.add(rent);
+        journal.recordAdd(rent, ledger);
+        journal.compact(ledger);
+        journal.close();
+
+        LedgerSnapshot snapshot = LedgerSnapshot.read(SNAPSHOT_FILE);
+        assertEquals(4, snapshot.getTable().size());
+        assertEquals(new File(JOURNAL_FILE).length(), snapshot.getJournalOffset());
+
+        TransactionTable reopened = journal().open();
+        assertEquals(4, reopened.size());
+        assertEquals("Rent", reopened.get(3).getCategory());
+    }
+
+    @Test
+    public void testSnapshotThresholdGrowsWithTheBase() {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            lines.add("2025-07-01,expense,Food," + i + ".0,Cash");
+        }
+        FileUtil.writeLines(BASE_FILE, lines);
+
+        TransactionJournal journal = journal();
+        List<Transaction> ledger = journal.open();
+        journal.close();
+        long covered = LedgerSnapshot.read(SNAPSHOT_FILE).getJournalOffset();
+
+        // One record is far past snapshotBytes (1) but far below a quarter of the base
+        journal = journal();
+        ledger = journal.open();
+        Transaction rent = new Transaction("2025-07-03", "expense", "Rent", 15000.0, "Bank");
+        ledger.add(rent);
+        journal.recordAdd(rent, ledger);
+        journal.close();
+        assertEquals(covered, LedgerSnapshot.read(SNAPSHOT_FILE).getJournalOffset());
+        assertEquals(1001, journal().readLedger().size());
+    }
+}
@@ -0,0 +1,67 @@
+package test;
+
+import org.junit.Test;
+import util.FileUtil;
+import util.Metrics;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class MetricsTest {
+
+    private static final String TEST_FILE = "data/test_metrics.txt";
+
+    @Test
+    public void testPercentilesStayWithinBucketError() {
+        Metrics.LatencyHistogram histogram = new Metrics.LatencyHistogram();
+        for (long micros = 1; micros <= 10_000; micros++) {
+            histogram.record(micros * 1000);
+        }
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000_000, histogram.getMax());
+        assertEquals(5_000_000, histogram.percentile(0.50), 5_000_000 * 0.04);
+        assertEquals(9_900_000, histogram.percentile(0.99), 9_900_000 * 0.04);
+        assertEquals(10_000_000, histogram.percentile(1.0), 10_000_000 * 0.04);
+        assertEquals(0, new Metrics.LatencyHistogram().percentile(0.5));
+    }
+
+    @Test
+    public void testMetricsArePublishedAsAnMBean() throws Exception {
+        Metrics.CacheStats cache = Metrics.cache("test");
+        cache.hit();
+        cache.hit();
+        cache.hit();
+        cache.miss();
+        File file = new File(TEST_FILE);
+        try {
+            FileUtil.writeLines(TEST_FILE, Arrays.asList(
+                    "2025-07-01,income,Salary,50000,Bank",
+                    "2025-07-02,expense,Food,3000,Cash"
+            ));
+            long bytesBefore = Metrics.snapshot().get("file.bytesRead").longValue();
+            assertEquals(2, FileUtil.readLines(TEST_FILE).size());
+
+            Map<String, Number> snapshot = Metrics.snapshot();
+            assertEquals(0.75, snapshot.get("cache.test.hitRate").doubleValue(), 1e-9);
+            assertTrue(snapshot.get("file.read.count").longValue() > 0);
+            assertEquals(file.length(), snapshot.get("file.bytesRead").longValue() - bytesBefore);
+        } finally {
+            file.delete();
+        }
+
+        // Registration runs on a background thread
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(Metrics.OBJECT_NAME);
+        for (int i = 0; i < 100 && !server.isRegistered(name); i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(3L, server.getAttribute(name, "cache.test.hits"));
+        assertTrue(((Number) server.getAttribute(name, "file.read.p99Micros")).doubleValue() > 0);
+    }
+}
@@ -0,0 +1,73 @@
+package test;
+
+import models.Account;
+import models.Transaction;
+import org.junit.Test;
+import util.Money;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class MoneyTest {
+
+    @Test
+    public void testParsesPlainDecimalsToCents() {
+        assertEquals(0, Money.parseCents("0"));
+        assertEquals(100000, Money.parseCents("1000"));
+        assertEquals(100000, Money.parseCents("1000.0"));
+        assertEquals(1250, Money.parseCents("12.5"));
+        assertEquals(1255, Money.parseCents(" +12.55 "));
+        assertEquals(-75, Money.parseCents("-0.75"));
+        assertEquals(50, Money.parseCents(".5"));
+        assertEquals(500, Money.parseCents("5."));
+        // Third decimal place rounds half away from zero
+        assertEquals(1, Money.parseCents("0.005"));
+        assertEquals(0, Money.parseCents("0.0049"));
+        assertEquals(-1, Money.parseCents("-0.005"));
+        // Exponent form written by Double.toString in older files
+        assertEquals(1000000000L, Money.parseCents("1.0E7"));
+        assertEquals(123456789012345678L, Money.parseCents("1234567890123456.78"));
+
+        byte[] line = "x,-3000.25,y".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(-300025, Money.parseCents(line, 2, 10));
+    }
+
+    @Test
+    public void testRejectsGarbageAndOverflow() {
+        String[] bad = {"", "-", ".", "12a", "1,000", "NaN", "99999999999999999999"};
+        for (String text : bad) {
+            try {
+                Money.parseCents(text);
+                fail("Expected NumberFormatException for \"" + text + "\"");
+            } catch (NumberFormatException expected) {
+                // ok
+            }
+        }
+    }
+
+    @Test
+    public void testFormatMatchesDoubleToStringAndRoundTrips() {
+        long[] values = {0, 1, 5, 10, 99, 100, 1250, 1255, -5, -75, -250, 99999999, 123456789012345678L};
+        for (long cents : values) {
+            String text = Money.format(cents);
+            assertEquals(cents, Money.parseCents(text));
+            if (Math.abs(cents) < 1000000000L) {
+                assertEquals(Double.toString(cents / 100.0), text);
+            }
+        }
+        assertEquals("10000000.0", Money.format(1000000000L));
+    }
+
+    @Test
+    public void testModelsKeepExactCents() {
+        Transaction t = Transaction.ofCents("2025-07-01", "expense", "Food", 30, "Cash");
+        t.setAmountCents(t.getAmountCents() + 10);
+        assertEquals(40, t.getAmountCents());
+        assertEquals(0.4, t.getAmount(), 0.0);
+
+        Account account = Account.fromFileString("Bank,Savings,0.10");
+        assertEquals(10, account.getBalanceCents());
+        assertEquals("Bank,Savings,0.1", account.toFileString());
+    }
+}
@@ -0,0 +1,79 @@
+package test;
+
+import models.Transaction;
+import models.TransactionTable;
+import org.junit.Test;
+import services.NameIndex;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class NameIndexTest {
+
+    @Test
+    public void testRowsAreTheIntersectionOfAccountAndCategory() {
+        TransactionTable table = new TransactionTable();
+        table.addRow("2025-07-01", "expense", "Food", 100, "Cash");
+        table.addRow("2025-07-02", "income", "Salary", 5000, "Bank");
+        table.addRow("2025-07-03", "expense", "Food", 300, "Bank");
+        NameIndex index = new NameIndex(table);
+
+        assertArrayEquals(new int[] {2}, index.rows("Bank", "Food").toArray());
+        assertSame("One name alone is that name's bitmap", index.accountRows("Bank"), index.rows("Bank", null));
+        assertNull("No name filter: every row is a candidate", index.rows(null, null));
+        assertTrue("An unknown name matches nothing", index.rows("Wallet", "Food").isEmpty());
+        assertTrue("A category name is not an account", index.accountRows("Food").isEmpty());
+    }
+
+    // Two bitmaps spanning several chunks, one of them dense (a bitset): after removals and an update their
+    // intersection still lists exactly the rows the table holds
+    @Test
+    public void testIntersectionStaysExactThroughRemovalsAcrossChunks() {
+        TransactionTable table = new TransactionTable();
+        for (int row = 0; row < 140_000; row++) {
+            table.addRow("2025-07-01", "expense", row % 3 == 0 ? "Food" : "Rent", 1, row % 2 == 0 ? "Bank" : "Cash");
+        }
+        NameIndex index = new NameIndex(table);
+
+        for (int row : new int[] {0, 65_535, 65_536, 70_000, 131_071}) {
+            index.onRemoved(row, table.remove(row));
+        }
+        Transaction before = table.get(4).copy();
+        table.get(4).setAccountName("Cash");
+        index.onUpdated(4, before, table.get(4));
+
+        assertArrayEquals(scan(table, "Bank", "Food"), index.rows("Bank", "Food").toArray());
+        assertArrayEquals(scan(table, "Cash", "Rent"), index.rows("Cash", "Rent").toArray());
+        assertArrayEquals(scan(table, null, "Food"), index.categoryRows("Food").toArray());
+    }
+
+    @Test
+    public void testReloadReplacesEveryBitmap() {
+        TransactionTable table = new TransactionTable();
+        table.addRow("2025-07-01", "expense", "Food", 100, "Cash");
+        NameIndex index = new NameIndex(table);
+
+        TransactionTable reloaded = new TransactionTable();
+        reloaded.addRow("2025-07-01", "income", "Salary", 5000, "Bank");
+        reloaded.addRow("2025-07-02", "expense", "Food", 300, "Bank");
+        index.onReloaded(reloaded);
+
+        assertSame(reloaded, index.table());
+        assertTrue(index.accountRows("Cash").isEmpty());
+        assertArrayEquals(new int[] {1}, index.rows("Bank", "Food").toArray());
+    }
+
+    // The rows a full scan finds (null = any name)
+    private static int[] scan(TransactionTable table, String account, String category) {
+        int[] rows = new int[table.size()];
+        int count = 0;
+        for (int row = 0; row < table.size(); row++) {
+            if ((account == null || account.equals(table.accountOf(row)))
+                    && (category == null || category.equals(table.categoryOf(row)))) {
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+}
@@ -3,6 +3,7 @@ package test;
 import models.Transaction;
 import org.junit.*;
 import services.ReportService;
+import services.TransactionService;
 import util.FileUtil;
 import java.io.File;
 import java.lang.reflect.Method;
@@ -32,15 +33,20 @@ public class ReportServiceHelperTest {
         FileUtil.writeLines(CATEGORY_FILE, categoryLines);
     }
     @Test
-    public void testLoadTransactionsViaReflection() throws Exception {
-        Method method = ReportService.class.getDeclaredMethod("loadTransactions");
-        method.setAccessible(true);
+    public void testLiveLedgerReadsTheRewrittenFile() {
+        List<Transaction> transactions = TransactionService.getInstance().snapshot();
+        assertEquals(3, transactions.size());
 
-        List<Transaction> transactions = (List<Transaction>) method.invoke(null);
+        // A hand edit while the ledger is loaded: it is read again instead of serving the old rows
+        FileUtil.writeLines(TRANSACTION_FILE, List.of(
+                "2025-07-01,income,Salary,50000,Cash",
+                "2025-07-05,income,Bonus,8000,Cash"
+        ));
+        transactions = TransactionService.getInstance().snapshot();
 
-        assertEquals(3, transactions.size());
+        assertEquals(2, transactions.size());
         assertEquals("Salary", transactions.get(0).getCategory());
-        assertEquals("Groceries", transactions.get(1).getCategory());
+        assertEquals("Bonus", transactions.get(1).getCategory());
     }
     @Test
     public void testGetBudgetForCategoryViaReflection() throws Exception {
@@ -3,8 +3,11 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import services.ReportService;
+import services.TransactionService;
 import util.FileUtil;
+import util.Money;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.PrintStream;
 import java.util.List;
 import static org.junit.Assert.*;
@@ -16,30 +19,44 @@ public class ReportServiceTest {
     public void setUpStreams() {
         // Redirect System.out to capture printed output
         System.setOut(new PrintStream(outContent));
+        // Load the live ledger first, so the report has to pick up the files written below while it is running
+        TransactionService.getInstance().size();
         // Write dummy transaction data
         FileUtil.writeLines("data/transactions.txt", List.of(
                 "2025-07-01,income,Salary,50000,Bank",
                 "2025-07-02,expense,Food,3000,Bank",
-                "2025-07-03,expense,Food,2500,Cash"
+                "2025-07-03,expense,Food,2500,Cash",
+                "2025-07-04,expense,Rent,10000000.01,Bank"
         ));
         // Write dummy category data
         FileUtil.writeLines("data/categories.txt", List.of(
                 "Salary,income,0",
-                "Food,expense,4000"
+                "Food,expense,4000",
+                "Rent,expense,10000000"
         ));
     }
     @After
     public void restoreStreams() {
         System.setOut(originalOut); // Restore original System.out
+        new File("data/transactions.txt").delete();
+        new File("data/categories.txt").delete();
     }
     @Test
     public void testShowReportOutput() {
         ReportService.showReport();
         String output = outContent.toString();
         assertTrue("Output should contain 'Total Income'", output.contains("Total Income"));
+        assertTrue("Totals should come from the file written above",
+                output.contains("Total Income  : Rs. " + Money.format(5000000) + System.lineSeparator()));
+        assertTrue(output.contains("Total Expense : Rs. " + Money.format(550000 + 1000000001) + System.lineSeparator()));
         assertTrue("Output should contain 'Salary'", output.contains("Salary"));
         assertTrue("Output should contain 'Food'", output.contains("Food"));
         assertTrue("Output should mention 'Over Budget'", output.contains("Over Budget"));
+        // Compared and printed in cents: one cent over a budget too large for a plain double print is still caught
+        assertTrue(output.contains("• Rent: Rs. " + Money.format(1000000001) + " 🔴 (Over Budget: "
+                + Money.format(1000000000) + ")"));
+        assertTrue(output.contains("• Food: Rs. " + Money.format(550000) + " 🔴 (Over Budget: "
+                + Money.format(400000) + ")"));
         assertTrue("Output should contain 'Current Balance'", output.contains("Current Balance"));
     }
 }
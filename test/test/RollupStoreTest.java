@@ -0,0 +1,150 @@
+package test;
+
+import models.Transaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import services.RollupStore;
+import services.TransactionService;
+import services.UserLedgers;
+import util.FileUtil;
+import util.StorageConfig;
+import util.TransactionJournal;
+
+import java.io.File;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class RollupStoreTest {
+
+    private final String BASE_FILE = "data/rollup-test.txt";
+    private final String JOURNAL_FILE = "data/rollup-test.journal";
+    private final String ROLLUP_FILE = "data/rollup-test.rollup";
+
+    @Before
+    public void setUp() {
+        FileUtil.writeLines(BASE_FILE, Arrays.asList(
+                "2025-06-30,income,Salary,50000,Bank",
+                "2025-07-01,income,Salary,50000,Bank",
+                "2025-07-02,expense,Food,3000,Bank",
+                "2025-07-20,expense,Food,2500.5,Cash",
+                "2025-09-03,expense,Rent,15000,Bank",
+                "someday,expense,Food,99,Cash"
+        ));
+        new File(JOURNAL_FILE).delete();
+        new File(ROLLUP_FILE).delete();
+    }
+
+    @After
+    public void tearDown() {
+        new File(BASE_FILE).delete();
+        new File(JOURNAL_FILE).delete();
+        new File(ROLLUP_FILE).delete();
+    }
+
+    @Test
+    public void testMonthlyTotalsAndCategoryTrend() {
+        TransactionJournal journal = new TransactionJournal(BASE_FILE, JOURNAL_FILE);
+        RollupStore store = RollupStore.forLedger(journal, ROLLUP_FILE, journal::readLedger);
+
+        Map<YearMonth, long[]> totals = store.monthlyTotals(YearMonth.of(2025, 6), YearMonth.of(2025, 9));
+        assertEquals(4, totals.size());
+        assertArrayEquals(new long[]{5000000, 0}, totals.get(YearMonth.of(2025, 6)));
+        assertArrayEquals(new long[]{5000000, 550050}, totals.get(YearMonth.of(2025, 7)));
+        // Empty months are present as zero
+        assertArrayEquals(new long[]{0, 0}, totals.get(YearMonth.of(2025, 8)));
+
+        Map<YearMonth, Map<String, Long>> food = store.categoryTrend(YearMonth.of(2025, 7), YearMonth.of(2025, 7), "expense");
+        assertEquals(Long.valueOf(550050), food.get(YearMonth.of(2025, 7)).get("Food"));
+        assertEquals(Long.valueOf(250050),
+                store.accountTrend(YearMonth.of(2025, 7), YearMonth.of(2025, 7), "expense").get(YearMonth.of(2025, 7)).get("Cash"));
+
+        assertEquals(YearMonth.of(2025, 6), store.firstMonth());
+        assertEquals(YearMonth.of(2025, 9), store.lastMonth());
+        assertEquals("Rows without an ISO date are not rolled up", 5, store.cellCount());
+    }
+
+    @Test
+    public void testIncrementalUpdatesMatchRebuild() {
+        TransactionJournal journal = new TransactionJournal(BASE_FILE, JOURNAL_FILE);
+        List<Transaction> ledger = journal.open();
+        RollupStore store = RollupStore.forLedger(journal, ROLLUP_FILE, () -> ledger);
+
+        Transaction bonus = new Transaction("2025-08-15", "income", "Bonus", 1000.0, "Bank");
+        ledger.add(bonus);
+        store.onAdded(ledger.size() - 1, bonus);
+
+        Transaction before = ledger.get(2).copy();
+        ledger.get(2).setDate("2025-08-02");
+        store.onUpdated(2, before, ledger.get(2));
+
+        Transaction removed = ledger.remove(4);
+        store.onRemoved(4, removed);
+
+        RollupStore rebuilt = new RollupStore();
+        rebuilt.onReloaded(ledger);
+
+        YearMonth from = YearMonth.of(2025, 1);
+        YearMonth to = YearMonth.of(2025, 12);
+        assertEquals(rebuilt.categoryTrend(from, to, "expense"), store.categoryTrend(from, to, "expense"));
+        assertEquals(rebuilt.categoryTrend(from, to, "income"), store.categoryTrend(from, to, "income"));
+        assertEquals("September emptied and dropped", YearMonth.of(2025, 8), store.lastMonth());
+    }
+
+    @Test
+    public void testPersistedRollupsAreReloadedAndRebuiltWhenStale() throws Exception {
+        TransactionJournal journal = new TransactionJournal(BASE_FILE, JOURNAL_FILE);
+        RollupStore store = new RollupStore();
+        store.onReloaded(journal.readLedger());
+        store.save(ROLLUP_FILE, journal.stamp());
+
+        RollupStore loaded = RollupStore.load(ROLLUP_FILE);
+        YearMonth from = YearMonth.of(2025, 6);
+        YearMonth to = YearMonth.of(2025, 9);
+        assertEquals(store.categoryTrend(from, to, "expense"), loaded.categoryTrend(from, to, "expense"));
+        assertEquals(store.cellCount(), loaded.cellCount());
+
+        // Ledger changes on disk without going through the store
+        Thread.sleep(5);
+        FileUtil.writeLines(BASE_FILE, Arrays.asList("2025-08-01,income,Bonus,1000,Bank"));
+
+        RollupStore current = RollupStore.forLedger(journal, ROLLUP_FILE, journal::readLedger);
+        assertEquals(YearMonth.of(2025, 8), current.firstMonth());
+        assertEquals(1, current.cellCount());
+    }
+
+    @Test
+    public void testServiceSavesRollupsWhenTheLedgerIsUnloadedNotAfterEveryBatch() {
+        String user = "rollup" + System.nanoTime();
+        UserLedgers ledgers = new UserLedgers(1);
+        try {
+            TransactionService service = ledgers.get(user).transactions();
+            String rollupFile = StorageConfig.rollupPath(service.getDataDir());
+            assertEquals(0, RollupStore.load(rollupFile).cellCount()); // The new, empty partition
+
+            service.ingest(new Transaction("2025-07-01", "expense", "Food", 12.5, "Cash")).join();
+            assertEquals(0, RollupStore.load(rollupFile).cellCount());
+
+            ledgers.closeAll();
+            RollupStore saved = RollupStore.load(rollupFile);
+            assertEquals(1, saved.cellCount());
+            assertEquals(Map.of("Food", 1250L),
+                    saved.categoryTrend(YearMonth.of(2025, 7), YearMonth.of(2025, 7), "expense").get(YearMonth.of(2025, 7)));
+        } finally {
+            ledgers.closeAll();
+            File dir = new File(StorageConfig.userDir(user));
+            File[] files = dir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            dir.delete();
+            new File(StorageConfig.USERS_DIR).delete(); // Only if no other partition is left in it
+        }
+    }
+}
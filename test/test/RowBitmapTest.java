@@ -0,0 +1,82 @@
+package test;
+
+import org.junit.Test;
+import util.RowBitmap;
+
+import static org.junit.Assert.*;
+
+public class RowBitmapTest {
+
+    @Test
+    public void testAddRemoveAndNext() {
+        RowBitmap bitmap = RowBitmap.of(7, 3, 70000, 3);
+        assertEquals(3, bitmap.cardinality());
+        assertArrayEquals(new int[] {3, 7, 70000}, bitmap.toArray());
+        assertEquals(7, bitmap.next(4));
+        assertEquals(70000, bitmap.next(8));
+        assertEquals(-1, bitmap.next(70001));
+
+        bitmap.remove(7);
+        assertFalse(bitmap.contains(7));
+        assertEquals(70000, bitmap.next(4));
+    }
+
+    @Test
+    public void testDenseChunkBecomesBitsetAndBack() {
+        RowBitmap bitmap = new RowBitmap();
+        for (int row = 0; row < 10000; row++) {
+            bitmap.add(row);
+        }
+        assertEquals(10000, bitmap.cardinality());
+        assertTrue(bitmap.contains(9999));
+        for (int row = 0; row < 9000; row++) {
+            bitmap.remove(row);
+        }
+        assertEquals(1000, bitmap.cardinality());
+        assertEquals(9000, bitmap.next(0));
+    }
+
+    @Test
+    public void testRemoveAndShiftCarriesAcrossChunks() {
+        RowBitmap bitmap = RowBitmap.of(10, 20, 65536, 65540);
+        bitmap.removeAndShift(10);
+        assertArrayEquals(new int[] {19, 65535, 65539}, bitmap.toArray());
+        bitmap.removeAndShift(0);
+        assertArrayEquals(new int[] {18, 65534, 65538}, bitmap.toArray());
+    }
+
+    @Test
+    public void testRemoveAndShiftInsideADenseChunk() {
+        RowBitmap bitmap = new RowBitmap();
+        for (int row = 0; row < 10000; row++) { // More than 4096 rows in chunk 0: stored as a bitset
+            bitmap.add(row);
+        }
+        bitmap.add(65536);
+        bitmap.add(65600);
+
+        bitmap.removeAndShift(5000); // Present: dropped, later rows move down across word boundaries
+        bitmap.removeAndShift(20000); // Absent: only the rows after it move, 65536 into the last slot of chunk 0
+
+        int[] expected = new int[10001];
+        for (int row = 0; row < 9999; row++) {
+            expected[row] = row;
+        }
+        expected[9999] = 65534;
+        expected[10000] = 65598;
+        assertArrayEquals(expected, bitmap.toArray());
+        assertEquals(10001, bitmap.cardinality());
+        assertEquals(65534, bitmap.next(9999));
+        assertFalse(bitmap.contains(9999));
+    }
+
+    @Test
+    public void testAndKeepsOnlyCommonRows() {
+        RowBitmap dense = new RowBitmap();
+        for (int row = 0; row < 20000; row += 2) {
+            dense.add(row);
+        }
+        RowBitmap sparse = RowBitmap.of(1, 2, 4, 5, 19998, 70000);
+        assertArrayEquals(new int[] {2, 4, 19998}, RowBitmap.and(dense, sparse).toArray());
+        assertArrayEquals(new int[] {2, 4, 19998}, RowBitmap.and(sparse, dense).toArray());
+    }
+}
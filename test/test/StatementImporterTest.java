@@ -0,0 +1,128 @@
+package test;
+
+import models.Transaction;
+import models.TransactionTable;
+import org.junit.After;
+import org.junit.Test;
+import services.StatementImporter;
+import services.TransactionService;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class StatementImporterTest {
+
+    private static final String STATEMENT_FILE = "data/test_statement.csv";
+    private static final String OFX_FILE = "data/test_statement.ofx";
+
+    private final TransactionService service = TransactionService.getInstance();
+    private final String tag = "imp" + System.nanoTime();
+
+    @After
+    public void tearDown() {
+        new File(STATEMENT_FILE).delete();
+        new File(OFX_FILE).delete();
+    }
+
+    @Test
+    public void testReimportAndOverlapAreIdempotent() throws IOException {
+        write(STATEMENT_FILE,
+                "date,type,category,amount,accountName\n"
+                + "2025-07-01,expense," + tag + "Coffee,3.5,Bank\n"
+                + "2025-07-01,expense," + tag + "Coffee,3.5,Bank\n"   // Two real coffees on the same day
+                + "02/07/2025,DEBIT," + tag + "Fuel,40,Bank\n"        // Normalized to 2025-07-02 / expense
+                + "2025-07-03,income," + tag + "Salary,5000\n"        // Default account
+                + "not-a-date,expense," + tag + "Bad,1,Bank\n");
+
+        StatementImporter.Result first = StatementImporter.importFile(service, STATEMENT_FILE, "Main", 2);
+        assertEquals(6, first.getRead());
+        assertEquals(4, first.getImported());
+        assertEquals(2, first.getInvalid()); // Header and bad date
+        assertEquals(4, countTagged());
+
+        StatementImporter.Result again = StatementImporter.importFile(service, STATEMENT_FILE, "Main", 2);
+        assertEquals(0, again.getImported());
+        assertEquals(4, again.getDuplicates());
+
+        // Overlapping statement: one known row, a third coffee and one new row
+        write(STATEMENT_FILE,
+                "2025-07-01,expense," + tag + "Coffee,3.5,Bank\n"
+                + "2025-07-01,expense," + tag + "Coffee,3.5,Bank\n"
+                + "2025-07-01,expense," + tag + "Coffee,3.5,Bank\n"
+                + "2025-07-04,expense," + tag + "Rent,1500,Bank\n");
+        StatementImporter.Result overlap = StatementImporter.importFile(service, STATEMENT_FILE, "Main", 2);
+        assertEquals(2, overlap.getImported());
+        assertEquals(2, overlap.getDuplicates());
+        assertEquals(6, countTagged());
+
+        TransactionTable ledger = service.snapshot();
+        Transaction fuel = find(ledger, tag + "Fuel");
+        assertEquals("2025-07-02", fuel.getDate());
+        assertEquals("expense", fuel.getType());
+        assertEquals("Main", find(ledger, tag + "Salary").getAccountName());
+    }
+
+    @Test
+    public void testOfxStatementUsesSignAndAccountId() throws IOException {
+        write(OFX_FILE,
+                "OFXHEADER:100\nDATA:OFXSGML\n<OFX><BANKMSGSRSV1><STMTTRNRS><STMTRS>\n"
+                + "<BANKACCTFROM><ACCTID>" + tag + "ACC</BANKACCTFROM>\n<BANKTRANLIST>\n"
+                + "<STMTTRN><TRNTYPE>DEBIT<DTPOSTED>20250715120000[-5:EST]<TRNAMT>-12.50<NAME>" + tag + "Shop, Ltd</STMTTRN>\n"
+                + "<STMTTRN><TRNTYPE>CREDIT<DTPOSTED>20250716<TRNAMT>100.00<MEMO>" + tag + "Refund</STMTTRN>\n"
+                + "</BANKTRANLIST></STMTRS></STMTTRNRS></BANKMSGSRSV1></OFX>\n");
+
+        StatementImporter.Result result = StatementImporter.importFile(service, OFX_FILE, "Main", 100);
+        assertEquals(2, result.getImported());
+
+        TransactionTable ledger = service.snapshot();
+        Transaction shop = find(ledger, tag + "Shop  Ltd");
+        assertEquals("2025-07-15", shop.getDate());
+        assertEquals("expense", shop.getType());
+        assertEquals(12.5, shop.getAmount(), 0.0);
+        assertEquals(tag + "ACC", shop.getAccountName());
+        assertEquals("income", find(ledger, tag + "Refund").getType());
+
+        assertEquals(0, StatementImporter.importFile(service, OFX_FILE, "Main", 100).getImported());
+    }
+
+    @Test
+    public void testUnreadableFileIsReportedAsFailed() {
+        StatementImporter.Result result =
+                StatementImporter.importFile(service, "data/" + tag + "_missing.csv", "Main", 100);
+
+        assertTrue(result.isFailed());
+        assertNotNull(result.getError());
+        assertEquals(0, result.getRead());
+        assertEquals(0, result.getImported());
+        assertEquals(0, countTagged());
+    }
+
+    private int countTagged() {
+        int count = 0;
+        for (Transaction t : service.snapshot()) {
+            if (t.getCategory().startsWith(tag)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static Transaction find(TransactionTable ledger, String category) {
+        for (Transaction t : ledger) {
+            if (t.getCategory().equals(category)) {
+                return t;
+            }
+        }
+        fail("No transaction with category " + category);
+        return null;
+    }
+
+    private static void write(String file, String text) throws IOException {
+        Files.writeString(Path.of(file), text, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,31 @@
+package test;
+
+import util.FileUtil;
+
+import java.io.File;
+import java.io.UncheckedIOException;
+
+// Clean-up shared by the tests that create throwaway ledger partitions under data/users/
+final class TestFiles {
+
+    private TestFiles() {
+    }
+
+    // Delete 'file' and everything below it. Writes still queued for a file are waited for first, so a save
+    // landing after the delete cannot leave the file (or its directory) behind.
+    static void deleteTree(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteTree(child);
+            }
+        } else {
+            try {
+                FileUtil.await(file.getPath());
+            } catch (UncheckedIOException e) {
+                // Deleted below either way
+            }
+        }
+        file.delete();
+    }
+}
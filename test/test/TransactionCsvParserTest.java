@@ -0,0 +1,50 @@
+package test;
+
+import org.junit.Test;
+import util.Money;
+import util.TransactionCsvParser;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TransactionCsvParserTest {
+
+    private List<String> parse(String content) throws Exception {
+        List<String> rows = new ArrayList<>();
+        TransactionCsvParser.parse(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)),
+                (date, type, category, amount, account) ->
+                        rows.add(date + "|" + type + "|" + category + "|" + Money.format(amount) + "|" + account));
+        return rows;
+    }
+
+    @Test
+    public void testParsesRowsAndSkipsMalformedLines() throws Exception {
+        List<String> rows = parse(
+                "2025-07-01,income,Salary,50000,Bank\r\n"
+                + "\n"
+                + "only,four,fields,here\n"
+                + "2025-07-02,expense,Food,abc,Cash\n"
+                + "a,b,c,1,d,extra\n"
+                + "2025-07-03,expense,Rent,15000.5,Bank");
+
+        assertEquals(2, rows.size());
+        assertEquals("2025-07-01|income|Salary|50000.0|Bank", rows.get(0));
+        assertEquals("2025-07-03|expense|Rent|15000.5|Bank", rows.get(1));
+    }
+
+    @Test
+    public void testLinesSpanningChunkBoundaries() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            content.append("2025-07-01,expense,Food,").append(i).append(".25,Cash\n");
+        }
+        List<String> rows = parse(content.toString());
+
+        assertEquals(20000, rows.size());
+        assertEquals("2025-07-01|expense|Food|19999.25|Cash", rows.get(19999));
+    }
+}
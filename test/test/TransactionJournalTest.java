@@ -0,0 +1,91 @@
+package test;
+
+import models.Transaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import util.FileUtil;
+import util.TransactionJournal;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TransactionJournalTest {
+
+    private final String BASE_FILE = "data/journal-test.txt";
+    private final String JOURNAL_FILE = "data/journal-test.journal";
+
+    @Before
+    public void setUp() {
+        FileUtil.writeLines(BASE_FILE, Arrays.asList(
+                "2025-07-01,income,Salary,50000.0,Bank",
+                "2025-07-02,expense,Food,3000.0,Cash"
+        ));
+        new File(JOURNAL_FILE).delete();
+    }
+
+    @After
+    public void tearDown() {
+        new File(BASE_FILE).delete();
+        new File(JOURNAL_FILE).delete();
+    }
+
+    @Test
+    public void testReplayAddUpdateDelete() {
+        TransactionJournal journal = new TransactionJournal(BASE_FILE, JOURNAL_FILE);
+        List<Transaction> ledger = journal.open();
+
+        Transaction rent = new Transaction("2025-07-03", "expense", "Rent", 15000.0, "Bank");
+        ledger.add(rent);
+        journal.recordAdd(rent, ledger);
+
+        ledger.get(1).setAmount(3500.0);
+        journal.recordUpdate(1, ledger.get(1), ledger);
+
+        ledger.remove(0);
+        journal.recordDelete(0, ledger);
+
+        // Base file is untouched; the changes only live in the journal
+        assertEquals(2, FileUtil.readLines(BASE_FILE).size());
+
+        List<Transaction> reloaded = new TransactionJournal(BASE_FILE, JOURNAL_FILE).readLedger();
+        assertEquals(2, reloaded.size());
+        assertEquals("Food", reloaded.get(0).getCategory());
+        assertEquals(3500.0, reloaded.get(0).getAmount(), 0.001);
+        assertEquals("Rent", reloaded.get(1).getCategory());
+    }
+
+    @Test
+    public void testStaleJournalIsIgnoredAfterExternalRewrite() {
+        TransactionJournal journal = new TransactionJournal(BASE_FILE, JOURNAL_FILE);
+        List<Transaction> ledger = journal.open();
+        Transaction extra = new Transaction("2025-07-03", "expense", "Rent", 15000.0, "Bank");
+        ledger.add(extra);
+        journal.recordAdd(extra, ledger);
+
+        // Someone rewrites the base file by hand
+        FileUtil.writeLines(BASE_FILE, Arrays.asList("2025-08-01,income,Bonus,1000.0,Bank"));
+
+        List<Transaction> reloaded = new TransactionJournal(BASE_FILE, JOURNAL_FILE).readLedger();
+        assertEquals(1, reloaded.size());
+        assertEquals("Bonus", reloaded.get(0).getCategory());
+    }
+
+    @Test
+    public void testCompactFoldsJournalIntoBase() {
+        TransactionJournal journal = new TransactionJournal(BASE_FILE, JOURNAL_FILE);
+        List<Transaction> ledger = journal.open();
+        Transaction extra = new Transaction("2025-07-03", "expense", "Rent", 15000.0, "Bank");
+        ledger.add(extra);
+        journal.recordAdd(extra, ledger);
+
+        journal.compact(ledger);
+
+        assertEquals(3, FileUtil.readLines(BASE_FILE).size());
+        assertEquals(1, FileUtil.readLines(JOURNAL_FILE).size()); // header only
+        assertEquals(3, new TransactionJournal(BASE_FILE, JOURNAL_FILE).readLedger().size());
+    }
+}
@@ -0,0 +1,186 @@
+package test;
+
+import models.Transaction;
+import models.TransactionTable;
+import org.junit.After;
+import org.junit.Test;
+import services.TransactionService;
+import services.UserLedgers;
+import util.StorageConfig;
+
+import java.io.File;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class TransactionServiceConcurrencyTest {
+
+    private static final int PRODUCERS = 8;
+    private static final int PER_PRODUCER = 500;
+
+    // A throwaway partition of its own, so the stress rows never land in the real ledger in data/
+    private final String user = "stress" + System.nanoTime();
+    private final UserLedgers ledgers = new UserLedgers(1);
+    private final TransactionService service = ledgers.get(user).transactions();
+
+    @After
+    public void tearDown() {
+        ledgers.closeAll();
+        TestFiles.deleteTree(new File(StorageConfig.userDir(user)));
+        new File(StorageConfig.USERS_DIR).delete(); // Only if no other partition is left in it
+    }
+
+    @Test
+    public void testConcurrentProducersLoseNothingAndReadersSeeWholeRows() throws Exception {
+        String prefix = "stress" + System.nanoTime() + "-";
+        int sizeBefore = service.snapshot().size();
+
+        ExecutorService pool = Executors.newFixedThreadPool(PRODUCERS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean producing = new AtomicBoolean(true);
+        try {
+            // A reader checking snapshots while the producers run
+            Future<Integer> reader = pool.submit(() -> {
+                int snapshots = 0;
+                int lastSize = 0;
+                while (producing.get() || snapshots == 0) {
+                    TransactionTable snapshot = service.snapshot();
+                    assertTrue("Ledger must never shrink", snapshot.size() >= lastSize);
+                    lastSize = snapshot.size();
+                    for (int row = sizeBefore; row < snapshot.size(); row++) {
+                        assertRowIsWhole(prefix, snapshot.get(row));
+                    }
+                    snapshots++;
+                }
+                return snapshots;
+            });
+
+            List<Future<List<Integer>>> producers = new ArrayList<>();
+            for (int p = 0; p < PRODUCERS; p++) {
+                int producer = p;
+                producers.add(pool.submit(() -> {
+                    start.await();
+                    List<CompletableFuture<Integer>> pending = new ArrayList<>();
+                    for (int i = 0; i < PER_PRODUCER; i++) {
+                        pending.add(service.ingest(new Transaction("2025-07-01", "income", prefix + "C" + producer,
+                                amountCents(producer, i) / 100.0, prefix + "P" + producer)));
+                    }
+                    List<Integer> rows = new ArrayList<>();
+                    for (CompletableFuture<Integer> future : pending) {
+                        rows.add(future.join());
+                    }
+                    return rows;
+                }));
+            }
+            start.countDown();
+
+            Set<Integer> rows = new HashSet<>();
+            for (Future<List<Integer>> producer : producers) {
+                rows.addAll(producer.get());
+            }
+            producing.set(false);
+            assertTrue(reader.get() > 0);
+            assertEquals("Every transaction gets its own row", PRODUCERS * PER_PRODUCER, rows.size());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        service.flush().join();
+        TransactionTable ledger = service.snapshot();
+        long[] count = new long[PRODUCERS];
+        long[] cents = new long[PRODUCERS];
+        for (int row = sizeBefore; row < ledger.size(); row++) {
+            Transaction t = ledger.get(row);
+            if (t.getAccountName().startsWith(prefix)) {
+                assertRowIsWhole(prefix, t);
+                int producer = Integer.parseInt(t.getAccountName().substring(prefix.length() + 1));
+                count[producer]++;
+                cents[producer] += ledger.amountCents(row);
+            }
+        }
+        for (int p = 0; p < PRODUCERS; p++) {
+            long expected = 0;
+            for (int i = 0; i < PER_PRODUCER; i++) {
+                expected += amountCents(p, i);
+            }
+            assertEquals(PER_PRODUCER, count[p]);
+            assertEquals(expected, cents[p]);
+            assertEquals("Totals saw every change", expected, service.getAggregates().getAccountNetCents(prefix + "P" + p));
+        }
+    }
+
+    @Test
+    public void testInvalidTypeIsRejected() {
+        CompletableFuture<Integer> future = service
+                .ingest(new Transaction("2025-07-01", "donation", "Charity", 1, "Wallet"));
+        try {
+            future.join();
+            fail("Expected the ingest to fail");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    @Test
+    public void testAFailingChangeDoesNotFailTheRestOfItsBatch() {
+        List<CompletableFuture<Integer>> valid = new ArrayList<>();
+        CompletableFuture<Integer> invalid = null;
+        for (int i = 0; i < 20; i++) {
+            valid.add(service.ingest(new Transaction("2025-07-01", "expense", "Food", i + 1, "Cash")));
+            if (i == 10) {
+                invalid = service.ingest(new Transaction("2025-07-01", "donation", "Charity", 1, "Wallet"));
+            }
+        }
+        for (CompletableFuture<Integer> future : valid) {
+            future.join();
+        }
+        try {
+            invalid.join();
+            fail("Expected the ingest to fail");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+        assertEquals(20, service.size());
+    }
+
+    @Test
+    public void testAChangeWhoseJournalRecordIsLostFails() {
+        // Appends to a directory fail, and so does rewriting the journal from the table
+        File journal = new File(StorageConfig.journalPath(service.getDataDir()));
+        assertTrue(journal.delete());
+        assertTrue(journal.mkdir());
+
+        try {
+            service.ingest(new Transaction("2025-07-01", "expense", "Food", 12.5, "Cash")).join();
+            fail("A change that never reached the disk must not report success");
+        } catch (CompletionException e) {
+            assertNotNull(e.getCause());
+        }
+    }
+
+    private static long amountCents(int producer, int i) {
+        return producer * 100_000L + i + 1;
+    }
+
+    // Category, account and amount of a row were all written by the same producer
+    private static void assertRowIsWhole(String prefix, Transaction t) {
+        if (!t.getAccountName().startsWith(prefix)) {
+            return;
+        }
+        String producer = t.getAccountName().substring(prefix.length() + 1);
+        assertEquals(prefix + "C" + producer, t.getCategory());
+        long cents = Math.round(t.getAmount() * 100);
+        assertEquals(Long.parseLong(producer), (cents - 1) / 100_000L);
+    }
+}
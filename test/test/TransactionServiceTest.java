@@ -4,22 +4,46 @@
 package test;
 
 import models.Transaction;
+import services.TransactionFilter;
+import services.TransactionListener;
+import services.TransactionPage;
 import services.TransactionService;
+import services.UserLedgers;
+import util.FileUtil;
+import util.StorageConfig;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
 import static org.junit.Assert.*;
 
 public class TransactionServiceTest {
 
     private TransactionService service;
+    // A throwaway partition for tests that add rows they read back, so they never land in the real ledger in data/
+    private final String user = "page" + System.nanoTime();
+    private final UserLedgers ledgers = new UserLedgers(1);
 
     @Before
     public void setUp() {
         service = TransactionService.getInstance(); // uses Singleton
     }
 
+    @After
+    public void tearDown() {
+        ledgers.closeAll();
+        TestFiles.deleteTree(new File(StorageConfig.userDir(user)));
+        new File(StorageConfig.USERS_DIR).delete(); // Only if no other partition is left in it
+    }
+
     @Test
     public void testValidIncomeTransaction() {
         Transaction tx = new Transaction("2025-07-01", "income", "Salary", 10000.0, "Bank");
@@ -47,4 +71,146 @@ public class TransactionServiceTest {
         boolean result = service.addTransactionLogic(tx);
         assertTrue("Currently allows negative amount - add validation if needed", result);
     }
+
+    @Test
+    public void testConsoleAddIsShownAtOnceAndSavedAfterwards() {
+        TransactionService service = ledgers.get(user).transactions();
+        assertTrue(service.addTransactionLogic(new Transaction("2031-05-01", "income", user, 25.0, "Cash")));
+        assertEquals(1, service.size()); // Applied in memory, whether or not the save has finished
+
+        ledgers.closeAll(); // Waits for the save
+        assertEquals(1, ledgers.get(user).transactions().size());
+    }
+
+    @Test
+    public void testConsoleChangesSurviveLeavingMainRightAway() throws IOException, InterruptedException {
+        // Large enough that rewriting it takes longer than returning from main
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            rows.add(FileUtil.toTransactionLine(new Transaction("2031-06-01", "expense", user, 1.0, "Cash")));
+        }
+        new File(StorageConfig.userDir(user)).mkdirs();
+        FileUtil.writeLines(StorageConfig.ledgerPath(StorageConfig.userDir(user)), rows);
+
+        Process exit = new ProcessBuilder(System.getProperty("java.home") + "/bin/java",
+                "-cp", System.getProperty("java.class.path"),
+                "-Dfinance.storage=rewrite", "-Dfinance.ledger.partition=user",
+                AddThenLeaveMain.class.getName(), user)
+                .inheritIO().start();
+        assertEquals(0, exit.waitFor());
+
+        assertEquals(50_003, ledgers.get(user).transactions().size());
+    }
+
+    // Signs in, adds three transactions through the console path and returns from main, as the Exit option does
+    public static class AddThenLeaveMain {
+        public static void main(String[] args) {
+            UserLedgers.signIn(args[0]);
+            for (int i = 0; i < 3; i++) {
+                TransactionService.getInstance().addTransactionLogic(
+                        new Transaction("2031-06-02", "income", args[0], 5.0, "Cash"));
+            }
+        }
+    }
+
+    @Test
+    public void testChangeThatAListenerRejectsLeavesNothingBehind() {
+        TransactionService service = ledgers.get(user).transactions();
+        service.ingest(new Transaction("2031-07-01", "income", user, 10.0, "Cash")).join();
+        service.addListener(new TransactionListener() {
+            public void onAdded(int index, Transaction transaction) {
+                if (transaction.getCategory().equals("Rejected")) {
+                    throw new IllegalStateException("rejected");
+                }
+            }
+
+            public void onUpdated(int index, Transaction before, Transaction after) {
+            }
+
+            public void onRemoved(int index, Transaction transaction) {
+                throw new IllegalStateException("rejected");
+            }
+
+            public void onReloaded(List<Transaction> ledger) {
+            }
+        });
+
+        try {
+            service.ingest(new Transaction("2031-07-02", "expense", "Rejected", 3.0, "Cash")).join();
+            fail("The add should fail");
+        } catch (CompletionException expected) {
+            assertTrue(expected.getCause() instanceof IllegalStateException);
+        }
+        try {
+            service.delete(0).join();
+            fail("The delete should fail");
+        } catch (CompletionException expected) {
+            assertTrue(expected.getCause() instanceof IllegalStateException);
+        }
+
+        assertEquals(1, service.size());
+        assertEquals(user, service.list(0, 1).get(0).getCategory());
+        assertEquals(1000, service.getAggregates().getTotalIncomeCents()); // Told about the add, then rebuilt
+        assertEquals(0, service.getAggregates().getTotalExpenseCents());
+
+        ledgers.closeAll(); // Neither failed change reached the journal
+        TransactionService reopened = ledgers.get(user).transactions();
+        assertEquals(1, reopened.size());
+        assertEquals(user, reopened.list(0, 1).get(0).getCategory());
+    }
+
+    @Test
+    public void testPagesFollowTheCursorAndApplyFilters() {
+        TransactionService service = ledgers.get(user).transactions();
+        String tag = user;
+        List<Transaction> batch = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            batch.add(new Transaction("2031-04-0" + (1 + i), i % 2 == 0 ? "expense" : "income", tag, 10 + i, "Cash"));
+        }
+        service.ingestAll(batch).join();
+
+        TransactionFilter expenses = new TransactionFilter(null, tag, "expense", null, null);
+        List<Transaction> seen = new ArrayList<>();
+        int cursor = 0;
+        int pages = 0;
+        while (true) {
+            TransactionPage page = service.page(expenses, cursor, 3);
+            assertTrue(page.getItems().size() <= 3);
+            for (int i = 0; i < page.getRows().length; i++) {
+                assertEquals(page.getItems().get(i).toString(), service.list(page.getRows()[i], 1).get(0).toString());
+            }
+            seen.addAll(page.getItems());
+            pages++;
+            if (!page.hasMore()) {
+                break;
+            }
+            cursor = page.getNextCursor();
+        }
+        assertEquals(4, seen.size());
+        assertEquals(2, pages);
+        for (Transaction t : seen) {
+            assertEquals("expense", t.getType());
+        }
+
+        TransactionFilter dated = new TransactionFilter("Cash", tag, null, LocalDate.of(2031, 4, 2), LocalDate.of(2031, 4, 3));
+        assertEquals(2, service.page(dated, 0, 100).getItems().size());
+
+        // Dates only: paged through DateIndex, still in ledger order and following the cursor
+        TransactionFilter days = new TransactionFilter(null, null, null, LocalDate.of(2031, 4, 2), LocalDate.of(2031, 4, 6));
+        TransactionPage first = service.page(days, 0, 3);
+        assertArrayEquals(new int[] {1, 2, 3}, first.getRows());
+        assertEquals("2031-04-02", first.getItems().get(0).getDate());
+        TransactionPage second = service.page(days, first.getNextCursor(), 3);
+        assertArrayEquals(new int[] {4, 5}, second.getRows());
+        assertFalse(second.hasMore());
+        TransactionFilter dayIncome = new TransactionFilter(null, null, "income", LocalDate.of(2031, 4, 1), null);
+        assertArrayEquals(new int[] {1, 3, 5}, service.page(dayIncome, 0, 100).getRows());
+        assertEquals(0, service.page(new TransactionFilter("No such account", null, null, null, null), 0, 100).getItems().size());
+        try {
+            service.page(expenses, 0, 0);
+            fail("An empty page would never move the cursor");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
 }
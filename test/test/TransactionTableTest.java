@@ -0,0 +1,129 @@
+package test;
+
+import models.Transaction;
+import models.TransactionTable;
+import org.junit.Test;
+import services.AggregateStore;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TransactionTableTest {
+
+    @Test
+    public void testRowsRoundTripThroughColumns() {
+        TransactionTable table = new TransactionTable();
+        table.addRow("2025-07-01", "Income", "Salary", 50000.25, "Bank");
+        table.addRow("01/07/2025", "expense", "Food", 12.5, "Cash");
+        table.add(new Transaction("2025-07-03", "donation", "Charity", 200, "Bank"));
+
+        assertEquals(3, table.size());
+        assertEquals("2025-07-01", table.get(0).getDate());
+        assertEquals("income", table.get(0).getType());
+        assertEquals(50000.25, table.get(0).getAmount(), 0.0);
+        assertEquals(5000025L, table.amountCents(0));
+        assertEquals((int) LocalDate.of(2025, 7, 1).toEpochDay(), table.epochDay(0));
+
+        // Dates that are not ISO and unknown types are kept verbatim
+        assertEquals("01/07/2025", table.get(1).getDate());
+        assertEquals(TransactionTable.NO_EPOCH_DAY, table.epochDay(1));
+        assertEquals("donation", table.get(2).getType());
+
+        // Category and account names share one dictionary
+        assertEquals(table.accountId(0), table.accountId(2));
+        assertEquals(5, table.names().size()); // Salary, Bank, Food, Cash, Charity
+    }
+
+    @Test
+    public void testViewWritesThroughAndCopyIsDetached() {
+        TransactionTable table = new TransactionTable();
+        table.addRow("2025-07-01", "expense", "Food", 10, "Cash");
+        table.addRow("2025-07-02", "expense", "Rent", 20, "Bank");
+
+        Transaction view = table.get(0);
+        Transaction before = view.copy();
+        view.setCategory("Groceries");
+        view.setAmount(15.75);
+
+        assertEquals("Groceries", table.get(0).getCategory());
+        assertEquals(1575L, table.amountCents(0));
+        assertEquals("Food", before.getCategory());
+
+        Transaction removed = table.remove(0);
+        assertEquals("Groceries", removed.getCategory());
+        assertEquals(1, table.size());
+        assertEquals("Rent", table.get(0).getCategory());
+
+        table.set(0, removed);
+        assertEquals("Groceries", table.get(0).getCategory());
+        assertEquals("2025-07-01", table.get(0).getDate());
+    }
+
+    @Test
+    public void testInsertPutsBackARemovedRow() {
+        TransactionTable table = new TransactionTable();
+        table.addRow("2025-07-01", "income", "Salary", 100.0, "Bank");
+        table.addRow("2025-07-02", "expense", "Rent", 40.0, "Bank");
+        table.addRow("2025-07-03", "expense", "Food", 5.5, "Cash");
+
+        Transaction removed = table.remove(1);
+        table.add(1, removed);
+
+        assertEquals(3, table.size());
+        assertEquals("Salary", table.get(0).getCategory());
+        assertEquals("Rent", table.get(1).getCategory());
+        assertEquals(4000, table.amountCents(1));
+        assertEquals("Food", table.get(2).getCategory());
+
+        table.add(3, new Transaction("2025-07-04", "income", "Bonus", 1.0, "Bank")); // At the end
+        assertEquals("Bonus", table.get(3).getCategory());
+    }
+
+    @Test
+    public void testGrowsAndCopiesIndependently() {
+        TransactionTable table = new TransactionTable();
+        for (int i = 0; i < 1000; i++) {
+            table.addRow(LocalDate.of(2025, 1, 1).plusDays(i).toString(), i % 2 == 0 ? "income" : "expense",
+                    "Cat" + (i % 7), i, "Acc" + (i % 3));
+        }
+        TransactionTable snapshot = table.copy();
+        table.remove(0);
+        table.addRow("2030-01-01", "income", "New", 1, "NewAcc");
+
+        assertEquals(1000, snapshot.size());
+        assertEquals("2025-01-01", snapshot.get(0).getDate());
+        assertEquals(-1, snapshot.names().find("NewAcc"));
+        assertEquals(1000, table.size());
+    }
+
+    @Test
+    public void testColumnRebuildMatchesRowByRowTotals() {
+        TransactionTable table = new TransactionTable();
+        List<Transaction> plain = new ArrayList<>();
+        String[][] rows = {
+                {"2025-07-01", "income", "Salary", "50000", "Bank"},
+                {"2025-07-02", "expense", "Food", "1200.5", "Cash"},
+                {"2025-07-03", "expense", "Food", "300.25", "Bank"},
+                {"2025-07-04", "other", "Misc", "99", "Bank"},
+        };
+        for (String[] r : rows) {
+            Transaction t = new Transaction(r[0], r[1], r[2], Double.parseDouble(r[3]), r[4]);
+            table.add(t);
+            plain.add(t);
+        }
+
+        AggregateStore fromTable = new AggregateStore();
+        fromTable.onReloaded(table);
+        AggregateStore fromList = new AggregateStore();
+        fromList.onReloaded(plain);
+
+        assertEquals(fromList.getTotalIncome(), fromTable.getTotalIncome(), 0.0);
+        assertEquals(fromList.getTotalExpense(), fromTable.getTotalExpense(), 0.0);
+        assertEquals(fromList.getExpenseByCategory(), fromTable.getExpenseByCategory());
+        assertEquals(fromList.getIncomeByAccount(), fromTable.getIncomeByAccount());
+        assertEquals(fromList.getExpenseByAccount(), fromTable.getExpenseByAccount());
+    }
+}
@@ -0,0 +1,128 @@
+package test;
+
+import models.Account;
+import models.Transaction;
+import org.junit.After;
+import org.junit.Test;
+import services.AccountRegistry;
+import services.TransactionService;
+import services.UserLedgers;
+import util.StorageConfig;
+
+import java.io.File;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.Assert.*;
+
+public class UserLedgersTest {
+
+    private final String tag = "ledger" + System.nanoTime();
+    private final UserLedgers ledgers = new UserLedgers(2);
+
+    @After
+    public void tearDown() {
+        ledgers.closeAll();
+        UserLedgers.getInstance().closeAll(); // callAs binds users through the shared instance
+        for (String user : new String[] {tag + "a", tag + "b", tag + "c"}) {
+            TestFiles.deleteTree(new File(StorageConfig.userDir(user)));
+        }
+    }
+
+    @Test
+    public void testUsersOnlySeeTheirOwnPartition() {
+        System.setProperty("finance.ledger.partition", "user");
+        try {
+            usersOnlySeeTheirOwnPartition();
+        } finally {
+            System.clearProperty("finance.ledger.partition");
+        }
+    }
+
+    @Test
+    public void testEverybodySharesTheLedgerByDefault() {
+        UserLedgers.callAs(tag + "a", () -> {
+            assertEquals(StorageConfig.DATA_DIR, TransactionService.getInstance().getDataDir());
+            return null;
+        });
+        assertFalse(new File(StorageConfig.userDir(tag + "a")).exists());
+    }
+
+    private void usersOnlySeeTheirOwnPartition() {
+        UserLedgers.callAs(tag + "a", () -> {
+            TransactionService.getInstance().ingest(new Transaction("2025-07-01", "expense", "Food", 12.5, "Cash")).join();
+            AccountRegistry.getInstance().add(new Account("Cash", "Wallet", 10));
+            return null;
+        });
+
+        UserLedgers.callAs(tag + "b", () -> {
+            assertEquals(0, TransactionService.getInstance().size());
+            assertTrue(AccountRegistry.getInstance().getAccounts().isEmpty());
+            return null;
+        });
+        UserLedgers.callAs(tag + "a", () -> {
+            assertEquals(1, TransactionService.getInstance().size());
+            assertEquals(StorageConfig.userDir(tag + "a"), TransactionService.getInstance().getDataDir());
+            return null;
+        });
+        assertSame(TransactionService.getInstance(), TransactionService.getInstance()); // nobody bound: shared ledger
+        assertEquals(StorageConfig.DATA_DIR, TransactionService.getInstance().getDataDir());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedLedgerIsSavedAndEvicted() {
+        TransactionService a = ledgers.get(tag + "a").transactions();
+        a.ingest(new Transaction("2025-07-01", "income", "Salary", 100, "Bank"));
+        ledgers.get(tag + "b").transactions();
+        ledgers.get(tag + "a"); // 'a' is now the most recently used
+        ledgers.get(tag + "c").transactions();
+
+        assertEquals(2, ledgers.size());
+        assertTrue(ledgers.isLoaded(tag + "a"));
+        assertFalse(ledgers.isLoaded(tag + "b"));
+
+        ledgers.get(tag + "b");
+        assertFalse(ledgers.isLoaded(tag + "a"));
+        // The evicted ledger's queued change was persisted, so loading it again finds it
+        assertEquals(1, ledgers.get(tag + "a").transactions().size());
+
+        // The closed instance rejects further changes instead of writing behind the new one's back
+        try {
+            a.ingest(new Transaction("2025-07-02", "income", "Salary", 1, "Bank")).join();
+            fail("A closed ledger must reject changes");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testLeasedLedgersAreNotEvictedUntilReleased() {
+        UserLedgers.Ledger a = ledgers.acquire(tag + "a");
+        TransactionService service = a.transactions();
+        ledgers.get(tag + "b").transactions();
+        ledgers.get(tag + "c").transactions();
+
+        // 'a' is the least recently used, but in use: 'b' goes instead
+        assertTrue(ledgers.isLoaded(tag + "a"));
+        assertFalse(ledgers.isLoaded(tag + "b"));
+        service.ingest(new Transaction("2025-07-01", "income", "Salary", 100, "Bank")).join();
+        assertEquals(1, service.size());
+        assertSame(service, a.transactions());
+
+        // With every other ledger leased too, the cache runs over until a lease ends
+        UserLedgers.Ledger c = ledgers.acquire(tag + "c");
+        ledgers.get(tag + "b");
+        assertEquals(3, ledgers.size());
+        ledgers.release(a);
+        assertEquals(2, ledgers.size());
+        assertFalse(ledgers.isLoaded(tag + "a"));
+        assertTrue(ledgers.isLoaded(tag + "c"));
+        ledgers.release(c);
+    }
+
+    @Test
+    public void testUserDirectoriesAreDistinctAndSafe() {
+        assertEquals(StorageConfig.USERS_DIR + "/alice", StorageConfig.userDir("alice"));
+        assertEquals(StorageConfig.USERS_DIR + "/%41lice", StorageConfig.userDir("Alice"));
+        assertEquals(StorageConfig.USERS_DIR + "/%2E%2E%2Fx", StorageConfig.userDir("../x"));
+    }
+}